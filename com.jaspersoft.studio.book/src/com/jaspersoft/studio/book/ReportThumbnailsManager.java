@@ -18,10 +18,15 @@ import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.imageio.ImageIO;
 
@@ -41,14 +46,22 @@ import net.sf.jasperreports.eclipse.util.FileUtils;
 import net.sf.jasperreports.engine.DefaultJasperReportsContext;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRImage;
 import net.sf.jasperreports.engine.JRReport;
+import net.sf.jasperreports.engine.JRReportTemplate;
+import net.sf.jasperreports.engine.JRSubreport;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.design.JRDesignDataset;
 import net.sf.jasperreports.engine.design.JRDesignPart;
 import net.sf.jasperreports.engine.export.JRGraphics2DExporter;
+import net.sf.jasperreports.engine.fonts.FontFace;
+import net.sf.jasperreports.engine.fonts.FontFamily;
 import net.sf.jasperreports.engine.part.PartComponent;
+import net.sf.jasperreports.engine.util.JRElementsVisitor;
+import net.sf.jasperreports.engine.util.JRExpressionUtil;
 import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRVisitorSupport;
 import net.sf.jasperreports.engine.xml.JRXmlLoader;
 import net.sf.jasperreports.export.SimpleExporterInput;
 import net.sf.jasperreports.export.SimpleGraphics2DExporterOutput;
@@ -103,11 +116,55 @@ public class ReportThumbnailsManager {
 
 	}
 
+	/**
+	 * Maximum number of previews kept in memory, the others are loaded from the
+	 * {@link ThumbnailStore}
+	 */
+	private static final int MAX_CACHED_ITEMS = 200;
+
+	/**
+	 * Maximum number of loaded reports kept in memory
+	 */
+	private static final int MAX_CACHED_REPORTS = 50;
+
+	/**
+	 * Maximum number of images kept for the figures that are going to be created
+	 */
+	private static final int MAX_SWAP_IMAGES = 100;
+
 	/**
 	 * The cache for the preview (AWT) images...
 	 */
-	private static Map<String, ThumbnailCacheItem> cachedItems = new HashMap<>();
-	private static Map<String, DatedItem<JRReport>> cachedReports = new HashMap<>();
+	private static Map<String, ThumbnailCacheItem> cachedItems = Collections
+			.synchronizedMap(new LinkedHashMap<String, ThumbnailCacheItem>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, ThumbnailCacheItem> eldest) {
+					return size() > MAX_CACHED_ITEMS;
+				}
+			});
+	private static Map<String, DatedItem<JRReport>> cachedReports = Collections
+			.synchronizedMap(new LinkedHashMap<String, DatedItem<JRReport>>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, DatedItem<JRReport>> eldest) {
+					return size() > MAX_CACHED_REPORTS;
+				}
+			});
+
+	/**
+	 * Pool where the previews are created, in parallel but with a bounded number
+	 * of threads
+	 */
+	private static final ExecutorService executor = Executors
+			.newFixedThreadPool(Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)), r -> {
+				Thread t = new Thread(r, "Book Thumbnails"); //$NON-NLS-1$
+				t.setDaemon(true);
+				t.setPriority(Thread.MIN_PRIORITY);
+				return t;
+			});
 
 	/**
 	 * Map where are listed the currently loading cache items, the key is the same
@@ -125,7 +182,30 @@ public class ReportThumbnailsManager {
 	 * referencing the same jasperReport object (JRDesignPart). As key is used the
 	 * uuid of the element to avoid object hard links.
 	 */
-	private static Map<String, Image> temporarySwap = new HashMap<>();
+	private static Map<String, Image> temporarySwap = new LinkedHashMap<String, Image>() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+			if (size() > MAX_SWAP_IMAGES) {
+				// the figure was never created, nobody else will dispose the image
+				if (eldest.getValue() != null && !eldest.getValue().isDisposed())
+					eldest.getValue().dispose();
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * Execute a task on the pool where the previews are created
+	 * 
+	 * @param task the task, it can call
+	 *             {@link #produceAwtImage(String, JasperReportsConfiguration, int, boolean, boolean)}
+	 */
+	public static void execute(Runnable task) {
+		executor.execute(task);
+	}
 
 	private static java.awt.Image getErrorImage() {
 		if (ERROR_IMAGE == null) {
@@ -278,6 +358,19 @@ public class ReportThumbnailsManager {
 	 */
 	public static Image produceImage(String location, JasperReportsConfiguration context, int thumbnailSize,
 			boolean drawShadow, boolean cropDocument) {
+		return UIUtils.awt2Swt(produceAwtImage(location, context, thumbnailSize, drawShadow, cropDocument));
+	}
+
+	/**
+	 * Same as
+	 * {@link #produceImage(String, JasperReportsConfiguration, int, boolean, boolean)}
+	 * but the result is an AWT image, so it can be called outside the UI thread.
+	 * The preview is searched in memory, then in the {@link ThumbnailStore} by the
+	 * hash of the report and of its resources and it is created only if it is not
+	 * found.
+	 */
+	public static BufferedImage produceAwtImage(String location, JasperReportsConfiguration context,
+			int thumbnailSize, boolean drawShadow, boolean cropDocument) {
 
 		if (thumbnailSize == 0)
 			thumbnailSize = THUMBNAIL_SIZE;
@@ -288,36 +381,54 @@ public class ReportThumbnailsManager {
 		if (file == null || !file.exists()) {
 			previewImage = getErrorImage();
 		} else {
-			ThumbnailCacheItem cachedItem = null;
 			// use name and size as cache key
 			String cacheKey = location + thumbnailSize;
 			// Check if we have a cached image, in that case we can get it ...
-			if (cachedItems.containsKey(cacheKey)) {
-				cachedItem = cachedItems.get(cacheKey);
-				if (cachedItem != null && file.lastModified() > cachedItem.getTimestamp().getTime()) {
-					// This cache item is old, we can delete it...
-					cachedItems.remove(cacheKey);
-					cachedReports.remove(file.toString());
-					cachedItem = null;
-				}
+			ThumbnailCacheItem cachedItem = cachedItems.get(cacheKey);
+			if (cachedItem != null && file.lastModified() > cachedItem.getTimestamp().getTime()) {
+				// This cache item is old, we can delete it...
+				cachedItems.remove(cacheKey);
+				cachedReports.remove(file.toString());
+				cachedItem = null;
 			}
 
 			JasperReportsContext previewContext = context;
 			if (previewContext == null)
 				previewContext = DefaultJasperReportsContext.getInstance();
 
-			// Generate a simple preview of our report, and add it to the
-			// cache...
+			// Then check if the preview of this content was already saved, the
+			// report is loaded to find the resources used by the preview
+			String storeKey = null;
+			JRReport report = null;
 			if (cachedItem == null) {
 				setLoadingItem(location);
 				ExtensionLoader.waitIfLoading();
-				JRReport report = null;
 				try {
-					report = getReport(file);
+					report = loadReport(file);
 				} catch (JRException e1) {
 					e1.printStackTrace();
 					previewImage = getErrorImage();
 				}
+				if (report != null) {
+					try {
+						storeKey = ThumbnailStore.getInstance().getKey(file,
+								getDependencies(file, report, context, previewContext), thumbnailSize);
+						BufferedImage storedImage = ThumbnailStore.getInstance().get(storeKey);
+						if (storedImage != null) {
+							cachedItem = new ThumbnailCacheItem(storedImage);
+							cachedItems.put(cacheKey, cachedItem);
+						}
+					} catch (IOException e) {
+						JRBookActivator.getDefault().logError(e);
+					}
+				}
+				if (cachedItem != null)
+					removeLoadingItem(location);
+			}
+
+			// Generate a simple preview of our report, and add it to the
+			// cache...
+			if (cachedItem == null) {
 				// If there was an error, previewImage is now pointing to a
 				// default error image...
 				if (previewImage == null && report != null) {
@@ -370,8 +481,9 @@ public class ReportThumbnailsManager {
 
 						// Let's cache this result!
 						cachedItem = new ThumbnailCacheItem(previewImage);
-						cachedReports.put(file.toString(), new DatedItem<>(report));
 						cachedItems.put(cacheKey, cachedItem);
+						if (storeKey != null)
+							ThumbnailStore.getInstance().put(storeKey, (BufferedImage) previewImage);
 
 					} catch (Exception ex) {
 						// Error creating the thumbnail...
@@ -401,7 +513,83 @@ public class ReportThumbnailsManager {
 		// of the document (i.e. portrait or landscape) until is not requested
 		// differently...
 
-		return generateImage(previewImage, thumbnailSize, drawShadow, cropDocument);
+		return generateAwtImage(previewImage, thumbnailSize, drawShadow, cropDocument);
+	}
+
+	/**
+	 * Return the resources used to draw the preview of a report, they are part of
+	 * the key of the stored preview so it is created again when one of them
+	 * changes. They are the path and the modification time of the templates, of
+	 * the images and of the subreports referenced by a constant location, and the
+	 * font files of the font families available in the context. The resources
+	 * referenced by other expressions can not be resolved without filling the
+	 * report, only the text of their expressions, already in the report file, is
+	 * considered.
+	 */
+	private static List<String> getDependencies(File file, JRReport report, JasperReportsConfiguration context,
+			JasperReportsContext previewContext) {
+		List<JRExpression> expressions = new ArrayList<>();
+		JRReportTemplate[] templates = report.getTemplates();
+		if (templates != null)
+			for (JRReportTemplate t : templates)
+				expressions.add(t.getSourceExpression());
+		JRElementsVisitor.visitReport(report, new JRVisitorSupport() {
+			@Override
+			public void visitImage(JRImage image) {
+				expressions.add(image.getExpression());
+			}
+
+			@Override
+			public void visitSubreport(JRSubreport subreport) {
+				expressions.add(subreport.getExpression());
+			}
+		});
+
+		List<String> dependencies = new ArrayList<>();
+		for (JRExpression exp : expressions) {
+			String location = exp != null ? JRExpressionUtil.getSimpleExpressionText(exp) : null;
+			if (location == null)
+				continue;
+			File f = findResource(file, location, context);
+			if (f != null)
+				dependencies.add(f.getAbsolutePath() + "@" + f.lastModified()); //$NON-NLS-1$
+		}
+		for (FontFamily family : previewContext.getExtensions(FontFamily.class)) {
+			dependencies.add(family.getName());
+			for (FontFace face : new FontFace[] { family.getNormalFace(), family.getBoldFace(), family.getItalicFace(),
+					family.getBoldItalicFace() })
+				if (face != null && face.getTtf() != null)
+					dependencies.add(face.getTtf());
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Resolve a resource of a report part, first relatively to the part and then
+	 * like the part itself. A subreport is resolved also by its jrxml, since the
+	 * jasper file is compiled from it
+	 */
+	private static File findResource(File file, String location, JasperReportsConfiguration context) {
+		List<String> locations = new ArrayList<>();
+		locations.add(location);
+		if (location.toLowerCase().endsWith(FileExtension.PointJASPER))
+			locations.add(location.substring(0, location.length() - FileExtension.PointJASPER.length())
+					+ FileExtension.PointJRXML);
+		for (String l : locations) {
+			File f = new File(l);
+			if (!f.isAbsolute())
+				f = new File(file.getParentFile(), l);
+			if (f.isFile())
+				return f;
+		}
+		if (context != null) {
+			for (String l : locations) {
+				File f = findFile(l, context);
+				if (f != null && f.isFile())
+					return f;
+			}
+		}
+		return null;
 	}
 
 	private static JRReport getReport(File file) throws JRException {
@@ -460,6 +648,15 @@ public class ReportThumbnailsManager {
 	 */
 	private static final Image generateImage(java.awt.Image previewImage, int thumbnailSize, boolean drawShadow,
 			boolean cropDocument) {
+		return UIUtils.awt2Swt(generateAwtImage(previewImage, thumbnailSize, drawShadow, cropDocument));
+	}
+
+	/**
+	 * Same as {@link #generateImage(java.awt.Image, int, boolean, boolean)} but
+	 * the result is an AWT image
+	 */
+	private static final BufferedImage generateAwtImage(java.awt.Image previewImage, int thumbnailSize,
+			boolean drawShadow, boolean cropDocument) {
 		if (thumbnailSize == 0)
 			thumbnailSize = THUMBNAIL_SIZE;
 
@@ -527,8 +724,9 @@ public class ReportThumbnailsManager {
 
 		// Paint the preview image on the final image
 		g2d.drawImage(previewImage, 0, 0, (int) documentWidth, (int) documentHeight, null);
+		g2d.dispose();
 
-		return UIUtils.awt2Swt(bi);
+		return bi;
 
 	}
 
@@ -541,7 +739,7 @@ public class ReportThumbnailsManager {
 	 * @param uuid
 	 * @param swtImage
 	 */
-	public static void pushElementImage(String uuid, Image swtImage) {
+	public static synchronized void pushElementImage(String uuid, Image swtImage) {
 		if (temporarySwap.containsKey(uuid)) {
 			return;
 
@@ -677,23 +875,26 @@ public class ReportThumbnailsManager {
 		JRReport report = null;
 		File f = findFile(location, jrConfig);
 		if (f != null) {
-			String key = f.toString();
-			DatedItem<JRReport> item = cachedReports.get(key);
-			if (item != null && item.isOlder(f.lastModified())) {
-				cachedReports.remove(key);
-				item = null;
-			}
-			if (item != null)
-				report = item.value;
-			if (report == null) {
-				try {
-					report = getReport(f);
-					cachedReports.put(key, new DatedItem<>(report));
-				} catch (JRException e) {
-					e.printStackTrace();
-				}
+			try {
+				report = loadReport(f);
+			} catch (JRException e) {
+				e.printStackTrace();
 			}
 		}
 		return report;
 	}
+
+	/**
+	 * Return the report of a file, from the cache of the loaded reports if it was
+	 * not modified after it was loaded
+	 */
+	private static JRReport loadReport(File f) throws JRException {
+		String key = f.toString();
+		DatedItem<JRReport> item = cachedReports.get(key);
+		if (item != null && !item.isOlder(f.lastModified()))
+			return item.value;
+		JRReport report = getReport(f);
+		cachedReports.put(key, new DatedItem<>(report));
+		return report;
+	}
 }
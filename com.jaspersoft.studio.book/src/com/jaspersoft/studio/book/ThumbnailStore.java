@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.book;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
+
+import com.jaspersoft.studio.utils.CacheFileUtils;
+
+import net.sf.jasperreports.engine.JRReport;
+
+/**
+ * Disk store of the previews created by the {@link ReportThumbnailsManager},
+ * saved in the state location of the plugin. A preview is found by the hash of
+ * the content of the report, of the resources it uses, of the version of
+ * JasperReports and by its size, so it is reused when the book is opened again,
+ * also after a restart, and it is created again only when the report, one of its
+ * resources or JasperReports changes.
+ * <p>
+ * The least recently used previews are deleted when the store is bigger than
+ * {@link #MAX_DISK_SIZE}.
+ * </p>
+ */
+public class ThumbnailStore {
+	/** maximum size of the previews saved on disk */
+	private static final long MAX_DISK_SIZE = 64L * 1024 * 1024;
+	private static final String FORMAT = "png"; //$NON-NLS-1$
+	private static final String EXTENSION = "." + FORMAT; //$NON-NLS-1$
+	/** version of the previews, to change when the way they are drawn changes */
+	private static final int VERSION = 2;
+
+	private static String version;
+
+	private static ThumbnailStore instance;
+
+	public static synchronized ThumbnailStore getInstance() {
+		if (instance == null)
+			instance = new ThumbnailStore(JRBookActivator.getDefault().getStateLocation().append("thumbnails").toFile()); //$NON-NLS-1$
+		return instance;
+	}
+
+	private final File dir;
+	private final CacheFileUtils.Pruner pruner;
+
+	public ThumbnailStore(File dir) {
+		this.dir = dir;
+		pruner = new CacheFileUtils.Pruner("Prune Book Thumbnails", dir, EXTENSION, MAX_DISK_SIZE); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return the key of the preview of a report, the hash of its content, of the
+	 *         resources it uses, of the version of the store and of JasperReports
+	 *         and of the size of the preview
+	 */
+	public String getKey(File report, List<String> dependencies, int size) throws IOException {
+		MessageDigest md = CacheFileUtils.createDigest();
+		md.update(getVersion().getBytes(StandardCharsets.UTF_8));
+		md.update(Files.readAllBytes(report.toPath()));
+		for (String d : dependencies) {
+			md.update((byte) 0);
+			md.update(d.getBytes(StandardCharsets.UTF_8));
+		}
+		return CacheFileUtils.toHex(md) + "_" + size; //$NON-NLS-1$
+	}
+
+	/**
+	 * @return the version of the store and of the JasperReports used to draw the
+	 *         previews, a preview drawn by another version is not used
+	 */
+	private static synchronized String getVersion() {
+		if (version == null) {
+			Bundle bundle = FrameworkUtil.getBundle(JRReport.class);
+			String jrVersion = bundle != null ? bundle.getVersion().toString()
+					: JRReport.class.getPackage().getImplementationVersion();
+			version = VERSION + "/" + jrVersion; //$NON-NLS-1$
+		}
+		return version;
+	}
+
+	/**
+	 * @return the saved preview, null if it is not in the store
+	 */
+	public BufferedImage get(String key) {
+		File f = getFile(key);
+		BufferedImage image = CacheFileUtils.read(f, ImageIO::read);
+		if (image != null)
+			f.setLastModified(System.currentTimeMillis());
+		return image;
+	}
+
+	/**
+	 * Saves a preview, the caller thread must not be the UI thread
+	 */
+	public void put(String key, BufferedImage image) {
+		try {
+			CacheFileUtils.write(getFile(key), tmp -> ImageIO.write(image, FORMAT, tmp));
+			pruner.schedule();
+		} catch (IOException e) {
+			JRBookActivator.getDefault().logError(e);
+		}
+	}
+
+	private File getFile(String key) {
+		return new File(dir, key + EXTENSION);
+	}
+}
@@ -3,10 +3,8 @@
  *******************************************************************************/
 package com.jaspersoft.studio.book.editors.figures;
 
-import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.Job;
+import java.awt.image.BufferedImage;
+
 import org.eclipse.draw2d.Graphics;
 import org.eclipse.draw2d.Label;
 import org.eclipse.draw2d.OrderedLayout;
@@ -15,7 +13,6 @@ import org.eclipse.draw2d.RectangleFigure;
 import org.eclipse.draw2d.ToolbarLayout;
 import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.swt.graphics.Image;
-import org.eclipse.ui.progress.UIJob;
 import org.eclipse.wb.swt.ResourceManager;
 
 import com.jaspersoft.studio.book.ReportThumbnailsManager;
@@ -138,33 +135,44 @@ public class BookPagesFigure extends RectangleFigure {
 		setToolTip(toolTipFigure);
 	}
 	
+	/**
+	 * Create the preview image in background, on the pool of the
+	 * {@link ReportThumbnailsManager}. Until it is ready the figure shows the busy
+	 * indicator
+	 * 
+	 * @param size the size of the preview
+	 */
 	protected void loadPreviewImage(int size)
 	{
 		loadingJobRunning = true;
 		imageFigure.setBusy(true);
-		UIJob j = new UIJob("Loading preview image") {
+		ReportThumbnailsManager.execute(new Runnable() {
 			@Override
-			public IStatus runInUIThread(IProgressMonitor monitor) {
+			public void run() {
+				BufferedImage thumbnail = null;
 				try {
 					String reportFileName = ReportThumbnailsManager.getLocation(model);
 					if (reportFileName != null){
-						final Image sourceImage = ReportThumbnailsManager.produceImage((String) reportFileName,model.getJasperConfiguration(), size, true, false);
-						if (sourceImage != null) {
-							updateFigure(sourceImage);
-						}
+						thumbnail = ReportThumbnailsManager.produceAwtImage(reportFileName, model.getJasperConfiguration(), size, true, false);
 					}
 				} catch(Exception ex){
 					ex.printStackTrace();
-					return null;
-				} finally {
-					imageFigure.setBusy(false);
 				}
-				loadingJobRunning = false;
-				return Status.OK_STATUS;
+				final BufferedImage sourceImage = thumbnail;
+				if (UIUtils.getDisplay() == null || UIUtils.getDisplay().isDisposed()) 
+					return;
+				UIUtils.getDisplay().asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						if (sourceImage != null) {
+							updateFigure(UIUtils.awt2Swt(sourceImage));
+						}
+						imageFigure.setBusy(false);
+						loadingJobRunning = false;
+					}
+				});
 			}
-		};
-		j.setPriority(Job.DECORATE);
-		j.schedule();
+		});
 	}
 	
 	
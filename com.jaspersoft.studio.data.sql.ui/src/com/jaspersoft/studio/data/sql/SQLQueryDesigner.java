@@ -384,10 +384,7 @@ public class SQLQueryDesigner extends SimpleSQLQueryDesigner {
 	}
 
 	public MSQLRoot createRoot(MSQLRoot oldRoot) {
-		if (oldRoot != null) {
-			oldRoot.getPropertyChangeSupport().removePropertyChangeListener(tblListener);
-			roots.remove(oldRoot);
-		}
+		removeRoot(oldRoot);
 		MSQLRoot rt = new MSQLRoot(null, getjDataset());
 		if (jConfig != null)
 			rt.setIdentifierQuote(jConfig.getProperty(SQLEditorPreferencesPage.P_IDENTIFIER_QUOTE, "")); //$NON-NLS-1$
@@ -396,6 +393,13 @@ public class SQLQueryDesigner extends SimpleSQLQueryDesigner {
 		return rt;
 	}
 
+	public void removeRoot(MSQLRoot oldRoot) {
+		if (oldRoot != null) {
+			oldRoot.getPropertyChangeSupport().removePropertyChangeListener(tblListener);
+			roots.remove(oldRoot);
+		}
+	}
+
 	private PropertyChangeListener tblListener = arg0 -> {
 		if (getjDataset() == null)
 			return;
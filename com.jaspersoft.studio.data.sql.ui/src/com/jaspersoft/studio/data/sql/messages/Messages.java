@@ -140,6 +140,7 @@ public class Messages extends NLS {
 	public static String SQLEditorPreferencesPage_8;
 	public static String SQLEditorPreferencesPage_9;
 	public static String SQLEditorPreferencesPage_AvoidInitialMetadataLoading;
+	public static String SQLEditorPreferencesPage_BulkMetadataLoading;
 	public static String SQLEditorPreferencesPage_comboLabel;
 	public static String SQLEditorPreferencesPage_dialogTitle;
 	public static String SQLEditorPreferencesPage_FullyAvoidMetadataLoading;
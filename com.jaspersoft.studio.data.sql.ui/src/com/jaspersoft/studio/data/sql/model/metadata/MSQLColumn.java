@@ -43,6 +43,20 @@ public class MSQLColumn extends AMSQLObject implements IDragable {
 		}
 	}
 
+	public MSQLColumn(ANode parent, String value, String typeName, int columnSize, int scale, int precission,
+			boolean nullable, String remarks) {
+		super(parent, value, null);
+		this.typeName = typeName;
+		this.columnSize = columnSize;
+		this.scale = scale;
+		this.precission = precission;
+		this.nullable = nullable;
+		tooltip = formatedType();
+		this.remarks = remarks;
+		if (remarks != null)
+			tooltip += "\n" + remarks;
+	}
+
 	private List<ForeignKey> foreignKeys;
 	private PrimaryKey primaryKey;
 	private String remarks;
@@ -85,6 +99,22 @@ public class MSQLColumn extends AMSQLObject implements IDragable {
 		return typeName;
 	}
 
+	public int getColumnSize() {
+		return columnSize;
+	}
+
+	public int getScale() {
+		return scale;
+	}
+
+	public int getPrecission() {
+		return precission;
+	}
+
+	public boolean isNullable() {
+		return nullable;
+	}
+
 	public String getTypeName() {
 		return formatedType();
 	}
@@ -34,6 +34,17 @@ public class MSqlTable extends AMSQLObject implements IDragable, INotInMetadata
 		}
 	}
 
+	public MSqlTable(ANode parent, String value, String type, String remarks) {
+		super(parent, value, "icons/table.png");
+		tooltip = "";
+		this.type = type;
+		if (type != null)
+			tooltip += "\n" + type;
+		this.remarks = remarks;
+		if (remarks != null)
+			tooltip += "\n" + remarks;
+	}
+
 	public boolean isNotInMetadata() {
 		return isNotInMetadata;
 	}
@@ -20,6 +20,14 @@ public class PrimaryKey implements Serializable {
 		this.pkName = pkName;
 	}
 
+	public String getPkName() {
+		return pkName;
+	}
+
+	public MSQLColumn[] getColumns() {
+		return columns;
+	}
+
 	public void setColumns(MSQLColumn[] columns) {
 		this.columns = columns;
 	}
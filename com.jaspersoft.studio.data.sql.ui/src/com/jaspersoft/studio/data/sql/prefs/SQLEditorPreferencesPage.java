@@ -31,6 +31,7 @@ public class SQLEditorPreferencesPage extends FieldEditorOverlayPage {
 	public static final String P_DEL_SHOWCONFIRMATION = "com.jaspersoft.studio.data.sql.prefs.delSHOWCONFIRMATION"; //$NON-NLS-1$
 	public static final String P_DIAGRAM_TYPE = "com.jaspersoft.studio.data.sql.prefs.diagram.type"; //$NON-NLS-1$
 	public static final String P_JDBC_METADATA_LOADING = DatasetDialog.JDBC_METADATA_LOADING.P_JDBC_METADATA_LOADING;
+	public static final String P_JDBC_METADATA_BULK = "com.jaspersoft.studio.data.sql.prefs.metadata.bulk"; //$NON-NLS-1$
 
 	public SQLEditorPreferencesPage() {
 		super(GRID);
@@ -58,6 +59,8 @@ public class SQLEditorPreferencesPage extends FieldEditorOverlayPage {
 					{Messages.SQLEditorPreferencesPage_MetadataLoadingDisabledOnOpeningOption,DatasetDialog.JDBC_METADATA_LOADING.DISABLED_ON_STARTUP},
 					{Messages.SQLEditorPreferencesPage_MetadataDisabledAlwaysOption,DatasetDialog.JDBC_METADATA_LOADING.DISABLED}
 				},getFieldEditorParent()));
+		addField(new BooleanFieldEditor(P_JDBC_METADATA_BULK,
+				Messages.SQLEditorPreferencesPage_BulkMetadataLoading, getFieldEditorParent()));
 		addField(new ComboFieldEditor(
 				P_IDENTIFIER_QUOTE,
 				Messages.SQLEditorPreferencesPage_comboLabel,
@@ -92,6 +95,7 @@ public class SQLEditorPreferencesPage extends FieldEditorOverlayPage {
 		store.setDefault(P_IDENTIFIER_QUOTE, ""); //$NON-NLS-1$
 		store.setDefault(P_USE_JDBC_QUOTE, true); //$NON-NLS-1$
 		store.setDefault(P_JDBC_METADATA_LOADING, DatasetDialog.JDBC_METADATA_LOADING.ENABLED); //$NON-NLS-1$
+		store.setDefault(P_JDBC_METADATA_BULK, false);
 		store.setDefault(P_DEL_SHOWCONFIRMATION, false); //$NON-NLS-1$
 		store.setDefault(P_IDENTIFIER_QUOTEONLYEXCEPTIONS, true); //$NON-NLS-1$
 		store.setDefault(P_JOIN_ON_DND, DROP); //$NON-NLS-1$
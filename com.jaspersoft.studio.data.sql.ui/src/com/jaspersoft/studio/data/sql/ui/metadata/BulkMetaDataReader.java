@@ -0,0 +1,450 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.data.sql.ui.metadata;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.jaspersoft.studio.JaspersoftStudioPlugin;
+import com.jaspersoft.studio.data.sql.Util;
+import com.jaspersoft.studio.data.sql.model.metadata.MSQLColumn;
+import com.jaspersoft.studio.data.sql.model.metadata.MSqlSchema;
+import com.jaspersoft.studio.data.sql.model.metadata.MSqlTable;
+import com.jaspersoft.studio.data.sql.model.metadata.MTables;
+import com.jaspersoft.studio.data.sql.model.metadata.keys.ForeignKey;
+import com.jaspersoft.studio.data.sql.model.metadata.keys.PrimaryKey;
+import com.jaspersoft.studio.model.INode;
+import com.jaspersoft.studio.model.MRoot;
+import com.jaspersoft.studio.utils.ModelUtils;
+
+import net.sf.jasperreports.eclipse.util.Misc;
+
+/**
+ * Read the columns and the keys of all the tables of a schema at once, instead
+ * of one table at a time.
+ *
+ * The columns are read with a single getColumns call for the whole schema. The
+ * keys are read from the information_schema with few queries on PostgreSQL,
+ * MySQL, MariaDB and H2; for the other databases the JDBC calls, that accept
+ * only one table, are done in parallel on a small pool of connections. On
+ * PostgreSQL the names of the foreign keys are unique only in their table, the
+ * referential constraints can't be matched by name when more tables have a
+ * foreign key with the same name, the keys of those tables are read with the
+ * JDBC calls.
+ */
+public class BulkMetaDataReader {
+	/** maximum number of connections used to read the keys */
+	private static final int POOL_SIZE = 4;
+
+	private static final String KCU_QUERY = "SELECT TABLE_NAME, CONSTRAINT_NAME, COLUMN_NAME, POSITION_IN_UNIQUE_CONSTRAINT FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION"; //$NON-NLS-1$
+	private static final String TC_QUERY = "SELECT TABLE_NAME, CONSTRAINT_NAME, CONSTRAINT_TYPE FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE TABLE_SCHEMA = ?"; //$NON-NLS-1$
+	private static final String RC_QUERY = "SELECT CONSTRAINT_NAME, UNIQUE_CONSTRAINT_SCHEMA, UNIQUE_CONSTRAINT_NAME FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS WHERE CONSTRAINT_SCHEMA = ?"; //$NON-NLS-1$
+	private static final String MYSQL_KCU_QUERY = "SELECT TABLE_NAME, CONSTRAINT_NAME, COLUMN_NAME, REFERENCED_TABLE_SCHEMA, REFERENCED_TABLE_NAME, REFERENCED_COLUMN_NAME FROM INFORMATION_SCHEMA.KEY_COLUMN_USAGE WHERE TABLE_SCHEMA = ? ORDER BY TABLE_NAME, CONSTRAINT_NAME, ORDINAL_POSITION"; //$NON-NLS-1$
+
+	private BulkMetaDataReader() {
+	}
+
+	/**
+	 * Read the columns of all the tables of the schema that are not yet loaded,
+	 * with a single getColumns call
+	 *
+	 * @return the tables filled
+	 */
+	public static List<MSqlTable> readSchemaColumns(DatabaseMetaData meta, MSqlSchema schema, IProgressMonitor monitor)
+			throws SQLException {
+		Map<String, MSqlTable> tables = getEmptyTables(schema);
+		List<MSqlTable> filled = new ArrayList<>();
+		if (tables.isEmpty())
+			return filled;
+		String all = SchemaUtil.getMetadataAllSymbol(meta);
+		ResultSet rs = meta.getColumns(schema.getTableCatalog(), schema.getValue(), all, all);
+		try {
+			MSqlTable current = null;
+			String currentName = null;
+			while (rs.next()) {
+				String tname = rs.getString("TABLE_NAME"); //$NON-NLS-1$
+				if (!tname.equals(currentName)) {
+					currentName = tname;
+					current = null;
+					// the schema name is a pattern, skip the tables of the other schemas
+					String tschema = rs.getString("TABLE_SCHEM"); //$NON-NLS-1$
+					if (tschema != null && schema.getValue() != null && !tschema.equals(schema.getValue()))
+						continue;
+					current = tables.remove(tname);
+					if (current != null) {
+						current.removeChildren();
+						filled.add(current);
+					}
+				}
+				if (current != null)
+					new MSQLColumn(current, rs.getString("COLUMN_NAME"), rs); //$NON-NLS-1$
+				if (monitor.isCanceled())
+					break;
+			}
+		} finally {
+			SchemaUtil.close(rs);
+		}
+		return filled;
+	}
+
+	/**
+	 * Read the primary and the foreign keys of the tables
+	 *
+	 * @param meta
+	 *          the metadata of the designer connection
+	 * @param schema
+	 *          the schema of the tables
+	 * @param tables
+	 *          the tables, with the columns already read
+	 * @param connections
+	 *          opens a new connection for the pool, used only when the keys can't
+	 *          be read from the information_schema
+	 */
+	public static void readSchemaKeys(DatabaseMetaData meta, MSqlSchema schema, List<MSqlTable> tables,
+			Callable<Connection> connections, IProgressMonitor monitor) throws SQLException {
+		if (tables.isEmpty())
+			return;
+		Map<String, List<String[]>> pks = new HashMap<>();
+		Map<String, List<String[]>> fks = new HashMap<>();
+		Set<String> ambiguous = new HashSet<>();
+		boolean read = false;
+		String dbproduct = Misc.nvl(meta.getDatabaseProductName());
+		try {
+			if (dbproduct.equalsIgnoreCase("MySQL") || dbproduct.equalsIgnoreCase("MariaDB")) //$NON-NLS-1$ //$NON-NLS-2$
+				read = readMySQLKeys(meta.getConnection(), schema.getValue(), pks, fks);
+			else if (dbproduct.equalsIgnoreCase("PostgreSQL") || dbproduct.equalsIgnoreCase("H2")) //$NON-NLS-1$ //$NON-NLS-2$
+				read = readInformationSchemaKeys(meta.getConnection(), schema.getValue(), pks, fks, ambiguous);
+		} catch (SQLException e) {
+			// old versions without a standard information_schema, use the driver
+			pks.clear();
+			fks.clear();
+			ambiguous.clear();
+		}
+		if (!read)
+			readJDBCKeys(meta, tables, connections, pks, fks, monitor);
+		else if (!ambiguous.isEmpty()) {
+			List<MSqlTable> jdbcTables = new ArrayList<>();
+			for (MSqlTable mt : tables)
+				if (ambiguous.contains(mt.getValue())) {
+					fks.remove(mt.getValue());
+					jdbcTables.add(mt);
+				}
+			if (!jdbcTables.isEmpty())
+				readJDBCKeys(meta, jdbcTables, connections, pks, fks, monitor);
+		}
+		if (monitor.isCanceled())
+			return;
+
+		MRoot root = (MRoot) schema.getRoot();
+		for (MSqlTable mt : tables) {
+			setPrimaryKey(mt, pks.get(mt.getValue()));
+			setForeignKeys(meta, root, schema, mt, fks.get(mt.getValue()), monitor);
+			if (monitor.isCanceled())
+				break;
+		}
+	}
+
+	private static Map<String, MSqlTable> getEmptyTables(MSqlSchema schema) {
+		Map<String, MSqlTable> tables = new HashMap<>();
+		for (INode n : schema.getChildren())
+			if (n instanceof MTables)
+				for (INode t : n.getChildren())
+					if (t instanceof MSqlTable && ModelUtils.isEmpty((MSqlTable) t))
+						tables.put(((MSqlTable) t).getValue(), (MSqlTable) t);
+		return tables;
+	}
+
+	/**
+	 * MySQL has the referenced columns in the key column usage, but the primary
+	 * keys have all the same name, so the referential constraints can't be used
+	 */
+	private static boolean readMySQLKeys(Connection c, String schema, Map<String, List<String[]>> pks,
+			Map<String, List<String[]>> fks) throws SQLException {
+		try (PreparedStatement ps = c.prepareStatement(MYSQL_KCU_QUERY)) {
+			ps.setString(1, schema);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					String table = rs.getString(1);
+					String name = rs.getString(2);
+					String column = rs.getString(3);
+					if ("PRIMARY".equals(name)) //$NON-NLS-1$
+						add(pks, table, new String[] { name, column });
+					else if (rs.getString(5) != null)
+						add(fks, table, new String[] { name, column, null, rs.getString(4), rs.getString(5), rs.getString(6) });
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The information_schema views are read separately and joined here, on some
+	 * databases the views have no indexes and the join is quadratic.
+	 *
+	 * The referential constraints have no table name, a foreign key is matched
+	 * with them by name only if no other table has a foreign key with the same
+	 * name, the tables with the ambiguous keys are added to the ambiguous set and
+	 * their foreign keys are not read
+	 */
+	private static boolean readInformationSchemaKeys(Connection c, String schema, Map<String, List<String[]>> pks,
+			Map<String, List<String[]>> fks, Set<String> ambiguous) throws SQLException {
+		Map<String, String> types = new HashMap<>();
+		Map<String, List<String[]>> fkTables = new HashMap<>();
+		try (PreparedStatement ps = c.prepareStatement(TC_QUERY)) {
+			ps.setString(1, schema);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					types.put(rs.getString(1) + "." + rs.getString(2), rs.getString(3)); //$NON-NLS-1$
+					if ("FOREIGN KEY".equals(rs.getString(3))) //$NON-NLS-1$
+						add(fkTables, rs.getString(2), new String[] { rs.getString(1) });
+				}
+			}
+		}
+		for (List<String[]> t : fkTables.values())
+			if (t.size() > 1)
+				for (String[] r : t)
+					ambiguous.add(r[0]);
+		Map<String, String[]> references = new HashMap<>();
+		try (PreparedStatement ps = c.prepareStatement(RC_QUERY)) {
+			ps.setString(1, schema);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next())
+					references.put(rs.getString(1), new String[] { rs.getString(2), rs.getString(3) });
+			}
+		}
+		Map<String, Map<String, List<String[]>>> usages = new HashMap<>();
+		Map<String, List<String[]>> usage = readKeyColumnUsage(c, schema);
+		usages.put(schema, usage);
+		for (List<String[]> rows : usage.values()) {
+			for (String[] r : rows) {
+				String table = r[0];
+				String name = r[1];
+				String type = types.get(table + "." + name); //$NON-NLS-1$
+				if ("PRIMARY KEY".equals(type)) //$NON-NLS-1$
+					add(pks, table, new String[] { name, r[2] });
+				else if ("FOREIGN KEY".equals(type) && !ambiguous.contains(table) && references.containsKey(name) //$NON-NLS-1$
+						&& r[3] != null) {
+					String[] ref = references.get(name);
+					String refSchema = Misc.nvl(ref[0], schema);
+					Map<String, List<String[]>> refUsage = usages.get(refSchema);
+					if (refUsage == null) {
+						refUsage = readKeyColumnUsage(c, refSchema);
+						usages.put(refSchema, refUsage);
+					}
+					List<String[]> refCols = refUsage.get(ref[1]);
+					int pos = Integer.parseInt(r[3]);
+					if (refCols != null && pos > 0 && pos <= refCols.size()) {
+						String[] dest = refCols.get(pos - 1);
+						add(fks, table, new String[] { name, r[2], null, refSchema, dest[0], dest[2] });
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the columns of the constraints of the schema, by constraint name,
+	 *         each row is table name, constraint name, column name and position
+	 *         in the referenced constraint
+	 */
+	private static Map<String, List<String[]>> readKeyColumnUsage(Connection c, String schema) throws SQLException {
+		Map<String, List<String[]>> usage = new LinkedHashMap<>();
+		try (PreparedStatement ps = c.prepareStatement(KCU_QUERY)) {
+			ps.setString(1, schema);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next())
+					add(usage, rs.getString(2),
+							new String[] { rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4) });
+			}
+		}
+		return usage;
+	}
+
+	/**
+	 * The JDBC key methods accept a single table, the calls are distributed on a
+	 * small pool of connections
+	 */
+	private static void readJDBCKeys(DatabaseMetaData meta, List<MSqlTable> tables, Callable<Connection> connections,
+			Map<String, List<String[]>> pks, Map<String, List<String[]>> fks, IProgressMonitor monitor) {
+		int size = Math.min(POOL_SIZE, tables.size());
+		BlockingQueue<DatabaseMetaData> pool = new ArrayBlockingQueue<>(size);
+		List<Connection> opened = new ArrayList<>();
+		pool.add(meta);
+		for (int i = 1; i < size && connections != null; i++) {
+			try {
+				Connection c = connections.call();
+				if (c == null)
+					break;
+				opened.add(c);
+				pool.add(c.getMetaData());
+			} catch (Exception e) {
+				break;
+			}
+		}
+		Map<String, List<String[]>> cpks = new ConcurrentHashMap<>();
+		Map<String, List<String[]>> cfks = new ConcurrentHashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(pool.size(), r -> {
+			Thread t = new Thread(r, "JDBC Metadata Reader"); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (MSqlTable mt : tables)
+				futures.add(executor.submit(() -> {
+					if (monitor.isCanceled())
+						return null;
+					DatabaseMetaData m = pool.take();
+					try {
+						readTableKeys(m, mt, cpks, cfks);
+					} finally {
+						pool.put(m);
+					}
+					return null;
+				}));
+			for (Future<?> f : futures) {
+				try {
+					f.get();
+				} catch (ExecutionException e) {
+					JaspersoftStudioPlugin.getInstance().logError(e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			for (Connection c : opened)
+				SchemaUtil.close(c);
+		}
+		pks.putAll(cpks);
+		fks.putAll(cfks);
+	}
+
+	private static void readTableKeys(DatabaseMetaData meta, MSqlTable mt, Map<String, List<String[]>> pks,
+			Map<String, List<String[]>> fks) throws SQLException {
+		MTables tables = (MTables) mt.getParent();
+		List<String[]> rows = new ArrayList<>();
+		ResultSet rs = meta.getPrimaryKeys(tables.getTableCatalog(), tables.getTableSchema(), mt.getValue());
+		try {
+			while (rs.next())
+				rows.add(new String[] { rs.getString("PK_NAME"), rs.getString("COLUMN_NAME") }); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			SchemaUtil.close(rs);
+		}
+		if (!rows.isEmpty())
+			pks.put(mt.getValue(), rows);
+		rows = new ArrayList<>();
+		rs = meta.getImportedKeys(tables.getTableCatalog(), tables.getTableSchema(), mt.getValue());
+		try {
+			while (rs.next())
+				rows.add(new String[] { rs.getString("FK_NAME"), rs.getString("FKCOLUMN_NAME"), //$NON-NLS-1$ //$NON-NLS-2$
+						rs.getString("PKTABLE_CAT"), rs.getString("PKTABLE_SCHEM"), rs.getString("PKTABLE_NAME"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						rs.getString("PKCOLUMN_NAME") }); //$NON-NLS-1$
+		} finally {
+			SchemaUtil.close(rs);
+		}
+		if (!rows.isEmpty())
+			fks.put(mt.getValue(), rows);
+	}
+
+	/**
+	 * @param rows
+	 *          primary key name and column name, in key order
+	 */
+	private static void setPrimaryKey(MSqlTable mt, List<String[]> rows) {
+		if (rows == null)
+			return;
+		PrimaryKey pk = new PrimaryKey(rows.get(0)[0]);
+		List<MSQLColumn> cols = new ArrayList<>();
+		for (String[] r : rows) {
+			MSQLColumn c = getColumn(mt, r[1]);
+			if (c != null) {
+				c.setPrimaryKey(pk);
+				cols.add(c);
+			}
+		}
+		pk.setColumns(cols.toArray(new MSQLColumn[cols.size()]));
+	}
+
+	/**
+	 * @param rows
+	 *          foreign key name, column name, referenced catalog, schema, table
+	 *          and column, ordered by key
+	 */
+	private static void setForeignKeys(DatabaseMetaData meta, MRoot root, MSqlSchema schema, MSqlTable mt,
+			List<String[]> rows, IProgressMonitor monitor) throws SQLException {
+		if (rows == null)
+			return;
+		ForeignKey fk = null;
+		MSqlTable dTable = null;
+		List<MSQLColumn> srcCols = new ArrayList<>();
+		List<MSQLColumn> dstCols = new ArrayList<>();
+		for (String[] r : rows) {
+			if (fk == null || !Misc.nvl(fk.getFkName()).equals(Misc.nvl(r[0]))) {
+				MetaDataUtil.closeForeignKey(fk, srcCols, dstCols);
+				srcCols.clear();
+				dstCols.clear();
+				fk = new ForeignKey(r[0], mt);
+				dTable = getTable(root, schema, r[2], r[3], r[4]);
+				if (dTable != null && ModelUtils.isEmpty(dTable))
+					MetaDataUtil.readTableColumns(meta, dTable, monitor);
+			}
+			if (dTable == null) {
+				// the referenced table is not in the metadata
+				fk = null;
+				continue;
+			}
+			MSQLColumn src = getColumn(mt, r[1]);
+			MSQLColumn dst = getColumn(dTable, r[5]);
+			if (src != null)
+				srcCols.add(src);
+			if (dst != null)
+				dstCols.add(dst);
+		}
+		MetaDataUtil.closeForeignKey(fk, srcCols, dstCols);
+	}
+
+	private static MSqlTable getTable(MRoot root, MSqlSchema schema, String catalog, String tschema, String table) {
+		String s = tschema != null ? tschema : catalog;
+		if (s == null || s.equals(schema.getValue()))
+			for (INode n : schema.getChildren())
+				if (n instanceof MTables)
+					for (INode t : n.getChildren())
+						if (t instanceof MSqlTable && t.getValue().equals(table))
+							return (MSqlTable) t;
+		return Util.getTable(root, catalog, tschema, table);
+	}
+
+	private static MSQLColumn getColumn(MSqlTable mt, String name) {
+		for (INode n : mt.getChildren())
+			if (n instanceof MSQLColumn && n.getValue().equals(name))
+				return (MSQLColumn) n;
+		return null;
+	}
+
+	private static void add(Map<String, List<String[]>> map, String key, String[] row) {
+		map.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+	}
+}
@@ -42,6 +42,7 @@ import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.ui.part.PluginTransfer;
 
+import com.jaspersoft.studio.JaspersoftStudioPlugin;
 import com.jaspersoft.studio.data.DataAdapterDescriptor;
 import com.jaspersoft.studio.data.sql.SQLQueryDesigner;
 import com.jaspersoft.studio.data.sql.Util;
@@ -50,6 +51,7 @@ import com.jaspersoft.studio.data.sql.model.MSQLRoot;
 import com.jaspersoft.studio.data.sql.model.metadata.INotInMetadata;
 import com.jaspersoft.studio.data.sql.model.metadata.MSqlSchema;
 import com.jaspersoft.studio.data.sql.model.metadata.MSqlTable;
+import com.jaspersoft.studio.data.sql.prefs.SQLEditorPreferencesPage;
 import com.jaspersoft.studio.dnd.NodeDragListener;
 import com.jaspersoft.studio.dnd.NodeTransfer;
 import com.jaspersoft.studio.model.IDragable;
@@ -58,6 +60,7 @@ import com.jaspersoft.studio.model.MRoot;
 import com.jaspersoft.studio.outline.ReportTreeContetProvider;
 import com.jaspersoft.studio.outline.ReportTreeLabelProvider;
 import com.jaspersoft.studio.utils.ModelUtils;
+import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
 
 import net.sf.jasperreports.data.DataAdapterService;
 import net.sf.jasperreports.eclipse.ui.util.UIUtils;
@@ -221,51 +224,85 @@ public class DBMetadata {
 		this.das = das;
 		monitors.add(monitor);
 		running = true;
-		UIUtils.getDisplay().syncExec(new Runnable() {
-
-			@Override
-			public void run() {
-				if (msg.isDisposed())
-					return;
-				msg.setText(Messages.DBMetadata_2 + da.getName() + Messages.DBMetadata_3);
-				safelyAttachContextMenu(mcmp);
-				stackLayout.topControl = mcmp;
-				mcmp.layout(true);
-				composite.layout(true);
-			}
+		cache = new MetadataCache(da);
+		MetadataCache.Snapshot snapshot = cache.load();
+		if (snapshot == null)
+			UIUtils.getDisplay().syncExec(new Runnable() {
+
+				@Override
+				public void run() {
+					if (msg.isDisposed())
+						return;
+					msg.setText(Messages.DBMetadata_2 + da.getName() + Messages.DBMetadata_3);
+					safelyAttachContextMenu(mcmp);
+					stackLayout.topControl = mcmp;
+					mcmp.layout(true);
+					composite.layout(true);
+				}
 
-			private void safelyAttachContextMenu(Composite mcmp) {
-				if (mcmp.getMenu() == null) {
-					MenuManager menuMgr = new MenuManager();
-					Menu menu = menuMgr.createContextMenu(mcmp);
-					menuMgr.add(new Action(Messages.DBMetadata_Retry) {
-						@Override
-						public void run() {
-							doRefreshMetadata();
-						}
-					});
-					mcmp.setMenu(menu);
+				private void safelyAttachContextMenu(Composite mcmp) {
+					if (mcmp.getMenu() == null) {
+						MenuManager menuMgr = new MenuManager();
+						Menu menu = menuMgr.createContextMenu(mcmp);
+						menuMgr.add(new Action(Messages.DBMetadata_Retry) {
+							@Override
+							public void run() {
+								doRefreshMetadata();
+							}
+						});
+						mcmp.setMenu(menu);
+					}
 				}
-			}
-		});
+			});
 		root.removeChildren();
 		if (tblMap != null)
 			tblMap.clear();
+		if (snapshot != null) {
+			// show the cached metadata while they are read again from the database
+			identifierQuote = snapshot.getIdentifierQuote();
+			schemaTableQuote = snapshot.isSchemaTableQuote();
+			designer.doRefreshRoots(false);
+			cache.restore(snapshot, root, getTables(), this);
+			updateUI(root);
+			updateItermediateUI();
+		}
+		MSQLRoot mroot = snapshot != null ? designer.createRoot(null) : root;
+		LinkedHashMap<String, MSqlTable> tables = snapshot != null ? new LinkedHashMap<>() : getTables();
+		List<MSqlTable> stale = null;
 		connection = getConnection(das, true);
 		if (connection != null)
 			try {
 				DatabaseMetaData meta = connection.getMetaData();
 				tableTypes = DBMetadata.readTableTypes(meta);
-				List<MSqlSchema> mcurrent = MetaDataUtil.readSchemas(monitor, root, meta, schema);
-				updateUI(root);
+				List<MSqlSchema> mcurrent;
+				synchronized (metadataLock) {
+					mcurrent = MetaDataUtil.readSchemas(monitor, mroot, meta, schema);
+				}
+				if (snapshot == null)
+					updateUI(root);
+				else
+					for (MSqlSchema mcs : cache.getLoadedSchemas(snapshot, mroot))
+						if (!mcurrent.contains(mcs))
+							mcurrent.add(mcs);
 				for (MSqlSchema mcs : mcurrent) {
 					meta = checkClosed(meta);
-					readSchema(DBMetadata.this, meta, mcs, monitor, true);
+					readSchema(meta, mcs, tables, monitor, snapshot == null);
+				}
+				if (snapshot != null && !monitor.isCanceled()) {
+					stale = cache.merge(snapshot, mroot, tables, checkClosed(meta).getConnection(), dbproduct, monitor);
+					MSQLRoot oldRoot = root;
+					tblMap = tables;
+					updateUI(mroot);
+					designer.removeRoot(oldRoot);
+					mroot = null;
 				}
 			} catch (Throwable e) {
-				updateUI(root);
+				if (snapshot == null)
+					updateUI(root);
 				designer.showError(e);
 			}
+		if (mroot != null && mroot != root)
+			designer.removeRoot(mroot);
 		updateItermediateUI();
 		UIUtils.getDisplay().asyncExec(new Runnable() {
 
@@ -275,11 +312,40 @@ public class DBMetadata {
 				updateItermediateUI();
 			}
 		});
+		if (stale != null)
+			readTables(stale, monitor);
 		closeConnection();
+		saveCache();
 		monitors.remove(monitor);
 		running = false;
 	}
 
+	/**
+	 * Read again the columns and the keys of the cached tables that are changed
+	 */
+	private void readTables(List<MSqlTable> stale, IProgressMonitor monitor) {
+		try {
+			DatabaseMetaData meta = connection.getMetaData();
+			for (MSqlTable mt : stale) {
+				if (monitor.isCanceled())
+					break;
+				meta = checkClosed(meta);
+				synchronized (metadataLock) {
+					MetaDataUtil.readTableColumns(meta, mt, monitor);
+					MetaDataUtil.readTableKeys(meta, mt, monitor);
+				}
+			}
+		} catch (Throwable e) {
+			JaspersoftStudioPlugin.getInstance().logError(e);
+		}
+		updateItermediateUI();
+	}
+
+	private void saveCache() {
+		if (cache != null && root != null && !isEmptySchema(root))
+			cache.save(root, identifierQuote, schemaTableQuote);
+	}
+
 	public DatabaseMetaData checkClosed(DatabaseMetaData meta) throws SQLException {
 		try {
 			if (meta.getConnection() == null)
@@ -310,11 +376,15 @@ public class DBMetadata {
 						try {
 							monitors.add(monitor);
 							DatabaseMetaData meta = getConnection(das, false).getMetaData();
-							MetaDataUtil.readTableColumns(meta, mtable, monitor);
+							synchronized (metadataLock) {
+								MetaDataUtil.readTableColumns(meta, mtable, monitor);
+							}
 							updateItermediateUI();
 							if (monitor.isCanceled())
 								return;
-							MetaDataUtil.readTableKeys(meta, mtable, monitor);
+							synchronized (metadataLock) {
+								MetaDataUtil.readTableKeys(meta, mtable, monitor);
+							}
 							updateItermediateUI();
 						} catch (Throwable e) {
 							designer.showError(e);
@@ -363,8 +433,15 @@ public class DBMetadata {
 
 	protected void readSchema(DBMetadata dbmeta, DatabaseMetaData meta, MSqlSchema schema, IProgressMonitor monitor,
 			boolean firstSelection) {
+		readSchema(meta, schema, getTables(), monitor, firstSelection);
+	}
+
+	private void readSchema(DatabaseMetaData meta, MSqlSchema schema, LinkedHashMap<String, MSqlTable> tables,
+			IProgressMonitor monitor, boolean firstSelection) {
 		try {
-			MetaDataUtil.readSchema(dbmeta, meta, schema, monitor, tableTypes);
+			synchronized (metadataLock) {
+				MetaDataUtil.readSchema(this, meta, schema, monitor, tableTypes);
+			}
 			updateItermediateUI(false);
 			if (monitor.isCanceled())
 				return;
@@ -372,10 +449,27 @@ public class DBMetadata {
 				return;
 			schema.setDbMetadata(this);
 			checkClosed(meta);
-			MetaDataUtil.readSchemaTables(this, meta, schema, getTables(), monitor);
+			synchronized (metadataLock) {
+				MetaDataUtil.readSchemaTables(this, meta, schema, tables, monitor);
+			}
 			updateItermediateUI();
 			if (monitor.isCanceled())
 				return;
+			if (isBulkLoading()) {
+				List<MSqlTable> filled;
+				synchronized (metadataLock) {
+					filled = BulkMetaDataReader.readSchemaColumns(checkClosed(meta), schema, monitor);
+				}
+				updateItermediateUI();
+				if (monitor.isCanceled())
+					return;
+				synchronized (metadataLock) {
+					BulkMetaDataReader.readSchemaKeys(checkClosed(meta), schema, filled, this::openConnection, monitor);
+				}
+				updateItermediateUI();
+				if (monitor.isCanceled())
+					return;
+			}
 			if (firstSelection)
 				setFirstSelection();
 		} catch (Throwable e) {
@@ -384,11 +478,33 @@ public class DBMetadata {
 		if (monitor.isCanceled())
 			return;
 		if (schema.isNotInMetadata()) {
-			MetaDataUtil.readProcedures(meta, schema, monitor);
+			synchronized (metadataLock) {
+				MetaDataUtil.readProcedures(meta, schema, monitor);
+			}
 			updateItermediateUI();
 		}
 	}
 
+	/**
+	 * @return true if the columns and the keys of a schema are read all together
+	 *         when the schema is loaded
+	 */
+	protected boolean isBulkLoading() {
+		JasperReportsConfiguration jConfig = designer.getjConfig();
+		return jConfig != null && jConfig.getPropertyBoolean(SQLEditorPreferencesPage.P_JDBC_METADATA_BULK, false);
+	}
+
+	/**
+	 * Open a new connection with the data adapter, the caller must close it
+	 */
+	private Connection openConnection() throws JRException {
+		if (das == null)
+			return null;
+		Map<String, Object> parameters = new HashMap<>();
+		das.contributeParameters(parameters);
+		return (Connection) parameters.get(JRParameter.REPORT_CONNECTION);
+	}
+
 	public MRoot getRoot() {
 		return root;
 	}
@@ -558,6 +674,12 @@ public class DBMetadata {
 	}
 
 	private LinkedHashMap<String, MSqlTable> tblMap;
+	private MetadataCache cache;
+	/**
+	 * Serializes the reads of this designer on the metadata tree, the designers
+	 * have each their own tree and connection so they don't share a lock
+	 */
+	private final Object metadataLock = new Object();
 	private List<IProgressMonitor> monitors = new ArrayList<>();
 	private List<String> tableTypes;
 	private Connection connection;
@@ -569,6 +691,8 @@ public class DBMetadata {
 	}
 
 	public void dispose() {
+		if (!running)
+			saveCache();
 		closeConnection();
 		if (monitors != null)
 			for (IProgressMonitor m : monitors)
@@ -29,7 +29,7 @@ import com.jaspersoft.studio.model.MRoot;
 import net.sf.jasperreports.eclipse.util.Misc;
 
 public class MetaDataUtil {
-	public synchronized static List<MSqlSchema> readSchemas(IProgressMonitor monitor, MRoot root, DatabaseMetaData meta,
+	public static List<MSqlSchema> readSchemas(IProgressMonitor monitor, MRoot root, DatabaseMetaData meta,
 			String[] cschemas) throws SQLException {
 		List<MSqlSchema> mcurrent = new ArrayList<>();
 
@@ -64,7 +64,7 @@ public class MetaDataUtil {
 		return mcurrent;
 	}
 
-	public synchronized static void readSchema(DBMetadata dbmeta, DatabaseMetaData meta, MSqlSchema schema,
+	public static void readSchema(DBMetadata dbmeta, DatabaseMetaData meta, MSqlSchema schema,
 			IProgressMonitor monitor, List<String> tableTypes) {
 		ResultSet rs = null;
 		try {
@@ -108,7 +108,7 @@ public class MetaDataUtil {
 		}
 	}
 
-	public synchronized static void readSchemaTables(DBMetadata dbmeta, DatabaseMetaData meta, MSqlSchema schema,
+	public static void readSchemaTables(DBMetadata dbmeta, DatabaseMetaData meta, MSqlSchema schema,
 			LinkedHashMap<String, MSqlTable> tables, IProgressMonitor monitor) {
 		try {
 			for (INode n : schema.getChildren()) {
@@ -149,7 +149,7 @@ public class MetaDataUtil {
 		}
 	}
 
-	public synchronized static void readTableColumns(DatabaseMetaData meta, MSqlTable mtable, IProgressMonitor monitor)
+	public static void readTableColumns(DatabaseMetaData meta, MSqlTable mtable, IProgressMonitor monitor)
 			throws SQLException {
 		MTables tables = (MTables) mtable.getParent();
 		mtable.removeChildren();
@@ -163,36 +163,11 @@ public class MetaDataUtil {
 		}
 	}
 
-	public synchronized static void readTableKeys(DatabaseMetaData meta, MSqlTable mtable, IProgressMonitor monitor)
+	public static void readTableKeys(DatabaseMetaData meta, MSqlTable mtable, IProgressMonitor monitor)
 			throws SQLException {
 		MetaDataUtil.readPrimaryKeys(meta, mtable, monitor);
 		if (!monitor.isCanceled())
 			MetaDataUtil.readForeignKeys(meta, mtable, monitor);
-		if (!monitor.isCanceled())
-			MetaDataUtil.readRemarks(meta, mtable, monitor);
-	}
-
-	private static void readRemarks(DatabaseMetaData meta, MSqlTable mt, IProgressMonitor monitor) throws SQLException {
-		MTables tables = (MTables) mt.getParent();
-		ResultSet rs = meta.getColumns(tables.getTableCatalog(), tables.getTableSchema(), mt.getValue(),
-				SchemaUtil.getMetadataAllSymbol(meta));
-		try {
-			while (rs.next()) {
-				String cname = rs.getString("COLUMN_NAME");
-				String remark = rs.getString("REMARKS");
-				if (!Misc.isNullOrEmpty(remark))
-					for (INode n : mt.getChildren()) {
-						if (n.getValue().equals(cname)) {
-							((MSQLColumn) n).setRemarks(remark);
-							break;
-						}
-					}
-				if (monitor.isCanceled())
-					break;
-			}
-		} finally {
-			SchemaUtil.close(rs);
-		}
 	}
 
 	private static void readPrimaryKeys(DatabaseMetaData meta, MSqlTable mt, IProgressMonitor monitor)
@@ -283,7 +258,7 @@ public class MetaDataUtil {
 		closeForeignKey(fk, srcCols, dstCols);
 	}
 
-	private static void closeForeignKey(ForeignKey fk, List<MSQLColumn> srcCols, List<MSQLColumn> dstCols) {
+	static void closeForeignKey(ForeignKey fk, List<MSQLColumn> srcCols, List<MSQLColumn> dstCols) {
 		if (fk != null) {
 			for (MSQLColumn c : srcCols)
 				c.addForeignKey(fk);
@@ -294,7 +269,7 @@ public class MetaDataUtil {
 		}
 	}
 
-	public synchronized static void readProcedures(DatabaseMetaData meta, MSqlSchema schema, IProgressMonitor monitor) {
+	public static void readProcedures(DatabaseMetaData meta, MSqlSchema schema, IProgressMonitor monitor) {
 		ResultSet rs = null;
 		try {
 			rs = meta.getProcedures(schema.getTableCatalog(), schema.getValue(), "%");
@@ -0,0 +1,479 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.data.sql.ui.metadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.jaspersoft.studio.JaspersoftStudioPlugin;
+import com.jaspersoft.studio.data.DataAdapterDescriptor;
+import com.jaspersoft.studio.data.sql.Activator;
+import com.jaspersoft.studio.data.sql.Util;
+import com.jaspersoft.studio.data.sql.model.MSQLRoot;
+import com.jaspersoft.studio.data.sql.model.metadata.MSQLColumn;
+import com.jaspersoft.studio.data.sql.model.metadata.MSqlSchema;
+import com.jaspersoft.studio.data.sql.model.metadata.MSqlTable;
+import com.jaspersoft.studio.data.sql.model.metadata.MTables;
+import com.jaspersoft.studio.data.sql.model.metadata.keys.ForeignKey;
+import com.jaspersoft.studio.data.sql.model.metadata.keys.PrimaryKey;
+import com.jaspersoft.studio.model.INode;
+import com.jaspersoft.studio.model.MDummy;
+import com.jaspersoft.studio.model.MRoot;
+import com.jaspersoft.studio.utils.CacheFileUtils;
+import com.jaspersoft.studio.utils.ModelUtils;
+
+import net.sf.jasperreports.data.DataAdapter;
+import net.sf.jasperreports.data.jdbc.JDBCDataAdapter;
+import net.sf.jasperreports.eclipse.util.Misc;
+
+/**
+ * On disk cache of the database metadata read by the SQL query designer, one
+ * file for every data adapter.
+ *
+ * The cached tree is shown as soon as the designer opens, then the metadata
+ * are read again from the database and merged with the cache: the columns and
+ * the keys of a table are taken from the cache only if the table is not
+ * changed since they were read. The change time of the tables is read from
+ * the system catalog of the databases that expose it, for the others the
+ * cached tables are shown and then read again in background.
+ */
+public class MetadataCache {
+	private static final int VERSION = 1;
+
+	/**
+	 * Queries returning the name and the last DDL change of the tables of a
+	 * schema, by database product
+	 */
+	private static final Map<String, String> CHANGE_TIME_QUERIES = new LinkedHashMap<>();
+	static {
+		// CREATE_TIME is not changed by all the ALTER statements, UPDATE_TIME is
+		// null for some engines
+		CHANGE_TIME_QUERIES.put("mysql", //$NON-NLS-1$
+				"SELECT TABLE_NAME, GREATEST(CREATE_TIME, COALESCE(UPDATE_TIME, CREATE_TIME)) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ?"); //$NON-NLS-1$
+		CHANGE_TIME_QUERIES.put("mariadb", //$NON-NLS-1$
+				"SELECT TABLE_NAME, GREATEST(CREATE_TIME, COALESCE(UPDATE_TIME, CREATE_TIME)) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ?"); //$NON-NLS-1$
+		CHANGE_TIME_QUERIES.put("oracle", //$NON-NLS-1$
+				"SELECT OBJECT_NAME, LAST_DDL_TIME FROM ALL_OBJECTS WHERE OWNER = ? AND OBJECT_TYPE IN ('TABLE', 'VIEW')"); //$NON-NLS-1$
+		CHANGE_TIME_QUERIES.put("microsoft sql server", //$NON-NLS-1$
+				"SELECT o.name, o.modify_date FROM sys.objects o JOIN sys.schemas s ON o.schema_id = s.schema_id WHERE s.name = ? AND o.type IN ('U', 'V')"); //$NON-NLS-1$
+		CHANGE_TIME_QUERIES.put("snowflake", //$NON-NLS-1$
+				"SELECT TABLE_NAME, LAST_ALTERED FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ?"); //$NON-NLS-1$
+		CHANGE_TIME_QUERIES.put("db2", //$NON-NLS-1$
+				"SELECT TABNAME, ALTER_TIME FROM SYSCAT.TABLES WHERE TABSCHEMA = ?"); //$NON-NLS-1$
+	}
+
+	public static class Snapshot implements Serializable {
+		private static final long serialVersionUID = VERSION;
+		private String identifierQuote;
+		private boolean schemaTableQuote;
+		private List<SchemaEntry> schemas = new ArrayList<>();
+
+		public String getIdentifierQuote() {
+			return identifierQuote;
+		}
+
+		public boolean isSchemaTableQuote() {
+			return schemaTableQuote;
+		}
+
+		private SchemaEntry getSchema(String name) {
+			for (SchemaEntry se : schemas)
+				if (Misc.nvl(se.name).equals(Misc.nvl(name)))
+					return se;
+			return null;
+		}
+	}
+
+	private static class SchemaEntry implements Serializable {
+		private static final long serialVersionUID = VERSION;
+		private String name;
+		private String catalog;
+		private boolean current;
+		/** table types with their tables, empty if the schema was never read */
+		private LinkedHashMap<String, List<TableEntry>> tables = new LinkedHashMap<>();
+
+		private TableEntry getTable(String type, String name) {
+			List<TableEntry> list = tables.get(type);
+			if (list != null)
+				for (TableEntry te : list)
+					if (te.name.equals(name))
+						return te;
+			return null;
+		}
+	}
+
+	private static class TableEntry implements Serializable {
+		private static final long serialVersionUID = VERSION;
+		private String name;
+		private String type;
+		private String remarks;
+		/** last change of the table in the database, null if not known */
+		private Long changed;
+		/** null if the columns were never read */
+		private List<ColumnEntry> columns;
+		private String pkName;
+		private List<String> pkColumns;
+		private List<ForeignKeyEntry> foreignKeys;
+	}
+
+	private static class ColumnEntry implements Serializable {
+		private static final long serialVersionUID = VERSION;
+		private String name;
+		private String typeName;
+		private int columnSize;
+		private int scale;
+		private int precission;
+		private boolean nullable;
+		private String remarks;
+	}
+
+	private static class ForeignKeyEntry implements Serializable {
+		private static final long serialVersionUID = VERSION;
+		private String name;
+		private String destCatalog;
+		private String destSchema;
+		private String destTable;
+		private List<String> srcColumns = new ArrayList<>();
+		private List<String> destColumns = new ArrayList<>();
+	}
+
+	private final File file;
+	/** change time of the tables read from the database, by schema and table */
+	private final Map<String, Map<String, Long>> changeTimes = new ConcurrentHashMap<>();
+
+	public MetadataCache(DataAdapterDescriptor da) {
+		String key = da.getName();
+		DataAdapter dataAdapter = da.getDataAdapter();
+		if (dataAdapter instanceof JDBCDataAdapter)
+			key += "|" + ((JDBCDataAdapter) dataAdapter).getUrl() + "|" //$NON-NLS-1$ //$NON-NLS-2$
+					+ ((JDBCDataAdapter) dataAdapter).getUsername();
+		String name = Misc.nvl(da.getName()).replaceAll("[^\\w\\-]", "_") + "-" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ Integer.toHexString(key.hashCode()) + ".cache"; //$NON-NLS-1$
+		File dir = Activator.getInstance().getStateLocation().append("metadata").toFile(); //$NON-NLS-1$
+		file = new File(dir, name);
+	}
+
+	/**
+	 * @return the cached metadata, null if there is no cache or it is not readable
+	 */
+	public Snapshot load() {
+		Object snapshot = CacheFileUtils.readObject(file, VERSION);
+		return snapshot instanceof Snapshot ? (Snapshot) snapshot : null;
+	}
+
+	/**
+	 * Save the metadata shown by the designer, the tree is copied in the calling
+	 * thread and written in background
+	 */
+	public void save(MSQLRoot root, String identifierQuote, boolean schemaTableQuote) {
+		final Snapshot snapshot = createSnapshot(root);
+		snapshot.identifierQuote = identifierQuote;
+		snapshot.schemaTableQuote = schemaTableQuote;
+		CacheFileUtils.createJob("Save Metadata Cache", () -> { //$NON-NLS-1$
+			try {
+				// designers on the same data adapter may save at the same time, the last
+				// one wins but the file is always complete
+				CacheFileUtils.writeObject(file, VERSION, snapshot);
+			} catch (IOException e) {
+				JaspersoftStudioPlugin.getInstance().logError(e);
+			}
+		}).schedule();
+	}
+
+	private Snapshot createSnapshot(MSQLRoot root) {
+		Snapshot snapshot = new Snapshot();
+		for (INode n : new ArrayList<>(root.getChildren())) {
+			if (!(n instanceof MSqlSchema) || ((MSqlSchema) n).isNotInMetadata())
+				continue;
+			MSqlSchema mschema = (MSqlSchema) n;
+			SchemaEntry se = new SchemaEntry();
+			se.name = mschema.getValue();
+			se.catalog = mschema.getTableCatalog();
+			se.current = mschema.isCurrent();
+			snapshot.schemas.add(se);
+			if (ModelUtils.isEmpty(mschema))
+				continue;
+			for (INode c : mschema.getChildren()) {
+				if (!(c instanceof MTables))
+					continue;
+				List<TableEntry> list = new ArrayList<>();
+				se.tables.put(((MTables) c).getValue(), list);
+				for (INode t : c.getChildren())
+					if (t instanceof MSqlTable)
+						list.add(createTableEntry(se.name, (MSqlTable) t));
+			}
+		}
+		return snapshot;
+	}
+
+	private TableEntry createTableEntry(String schema, MSqlTable mt) {
+		TableEntry te = new TableEntry();
+		te.name = mt.getValue();
+		te.type = mt.getType();
+		te.remarks = mt.getRemarks();
+		Map<String, Long> times = changeTimes.get(Misc.nvl(schema));
+		if (times != null)
+			te.changed = times.get(te.name);
+		if (ModelUtils.isEmpty(mt))
+			return te;
+		te.columns = new ArrayList<>();
+		List<ForeignKey> fks = new ArrayList<>();
+		for (INode n : mt.getChildren()) {
+			if (!(n instanceof MSQLColumn))
+				continue;
+			MSQLColumn mc = (MSQLColumn) n;
+			ColumnEntry ce = new ColumnEntry();
+			ce.name = mc.getValue();
+			ce.typeName = mc.getUnformattedTypeName();
+			ce.columnSize = mc.getColumnSize();
+			ce.scale = mc.getScale();
+			ce.precission = mc.getPrecission();
+			ce.nullable = mc.isNullable();
+			ce.remarks = mc.getRemarks();
+			te.columns.add(ce);
+			PrimaryKey pk = mc.getPrimaryKey();
+			if (pk != null && te.pkColumns == null && pk.getColumns() != null) {
+				te.pkName = pk.getPkName();
+				te.pkColumns = new ArrayList<>();
+				for (MSQLColumn c : pk.getColumns())
+					te.pkColumns.add(c.getValue());
+			}
+			if (mc.getForeignKeys() != null)
+				for (ForeignKey fk : mc.getForeignKeys())
+					if (fk.getTable() == mt && !fks.contains(fk))
+						fks.add(fk);
+		}
+		for (ForeignKey fk : fks) {
+			if (fk.getDestColumns() == null || fk.getDestColumns().length == 0)
+				continue;
+			MSqlTable dest = (MSqlTable) fk.getDestColumns()[0].getParent();
+			if (dest == null || dest.getSchema() == null)
+				continue;
+			ForeignKeyEntry fe = new ForeignKeyEntry();
+			fe.name = fk.getFkName();
+			fe.destCatalog = dest.getSchema().getTableCatalog();
+			fe.destSchema = dest.getSchema().getValue();
+			fe.destTable = dest.getValue();
+			for (MSQLColumn c : fk.getSrcColumns())
+				fe.srcColumns.add(c.getValue());
+			for (MSQLColumn c : fk.getDestColumns())
+				fe.destColumns.add(c.getValue());
+			if (te.foreignKeys == null)
+				te.foreignKeys = new ArrayList<>();
+			te.foreignKeys.add(fe);
+		}
+		return te;
+	}
+
+	/**
+	 * Build the metadata tree from the cache
+	 *
+	 * @return the schemas that were current when the cache was saved
+	 */
+	public List<MSqlSchema> restore(Snapshot snapshot, MSQLRoot root, Map<String, MSqlTable> tblMap,
+			DBMetadata dbMetadata) {
+		List<MSqlSchema> current = new ArrayList<>();
+		Map<MSqlTable, TableEntry> loaded = new HashMap<>();
+		for (SchemaEntry se : snapshot.schemas) {
+			MSqlSchema mschema = new MSqlSchema(root, se.name, se.catalog);
+			mschema.setCurrent(se.current);
+			if (se.current)
+				current.add(mschema);
+			if (se.tables.isEmpty()) {
+				new MDummy(mschema);
+				continue;
+			}
+			mschema.setDbMetadata(dbMetadata);
+			for (Map.Entry<String, List<TableEntry>> entry : se.tables.entrySet()) {
+				MTables mtables = new MTables(mschema, entry.getKey());
+				mtables.setDbMetadata(dbMetadata);
+				for (TableEntry te : entry.getValue()) {
+					MSqlTable mt = new MSqlTable(mtables, te.name, te.type, te.remarks);
+					tblMap.put(mt.toSQLString(), mt);
+					if (te.columns == null)
+						new MDummy(mt);
+					else {
+						restoreColumns(mt, te);
+						loaded.put(mt, te);
+					}
+				}
+			}
+		}
+		restoreForeignKeys(root, loaded);
+		return current;
+	}
+
+	/**
+	 * Merge the cache with the tables just read from the database. The columns
+	 * of the tables not changed since they were cached are taken from the cache
+	 *
+	 * @param snapshot
+	 *          the cached metadata
+	 * @param root
+	 *          the root of the metadata read from the database
+	 * @param tblMap
+	 *          the tables read from the database
+	 * @param connection
+	 *          used to read the change time of the tables
+	 * @param dbproduct
+	 *          the database product name
+	 * @return the tables that were cached but must be read again from the
+	 *         database, because they are changed or their change time is unknown
+	 */
+	public List<MSqlTable> merge(Snapshot snapshot, MSQLRoot root, Map<String, MSqlTable> tblMap, Connection connection,
+			String dbproduct, IProgressMonitor monitor) {
+		List<MSqlTable> stale = new ArrayList<>();
+		Map<MSqlTable, TableEntry> loaded = new HashMap<>();
+		for (MSqlTable mt : tblMap.values()) {
+			if (monitor.isCanceled())
+				break;
+			MSqlSchema mschema = mt.getSchema();
+			if (mschema == null)
+				continue;
+			SchemaEntry se = snapshot.getSchema(mschema.getValue());
+			if (se == null)
+				continue;
+			TableEntry te = se.getTable(((MTables) mt.getParent()).getValue(), mt.getValue());
+			// the tables already read in bulk are newer than the cache
+			if (te == null || te.columns == null || !ModelUtils.isEmpty(mt))
+				continue;
+			Map<String, Long> times = getChangeTimes(connection, dbproduct, mschema.getValue());
+			Long changed = times != null ? times.get(mt.getValue()) : null;
+			if (changed == null || !changed.equals(te.changed))
+				stale.add(mt);
+			else {
+				mt.removeChildren();
+				restoreColumns(mt, te);
+				loaded.put(mt, te);
+			}
+		}
+		stale.addAll(restoreForeignKeys(root, loaded));
+		return stale;
+	}
+
+	/**
+	 * Schemas that were read in the cached tree, they are read again when the
+	 * cache is refreshed
+	 */
+	public List<MSqlSchema> getLoadedSchemas(Snapshot snapshot, MSQLRoot root) {
+		List<MSqlSchema> schemas = new ArrayList<>();
+		for (INode n : root.getChildren())
+			if (n instanceof MSqlSchema) {
+				SchemaEntry se = snapshot.getSchema(((MSqlSchema) n).getValue());
+				if (se != null && !se.tables.isEmpty())
+					schemas.add((MSqlSchema) n);
+			}
+		return schemas;
+	}
+
+	private Map<String, Long> getChangeTimes(Connection connection, String dbproduct, String schema) {
+		String key = Misc.nvl(schema);
+		Map<String, Long> times = changeTimes.get(key);
+		if (times != null || dbproduct == null || schema == null)
+			return times;
+		String query = null;
+		String product = dbproduct.toLowerCase(Locale.ENGLISH);
+		for (Map.Entry<String, String> entry : CHANGE_TIME_QUERIES.entrySet())
+			if (product.contains(entry.getKey())) {
+				query = entry.getValue();
+				break;
+			}
+		if (query == null)
+			return null;
+		times = new HashMap<>();
+		try (PreparedStatement ps = connection.prepareStatement(query)) {
+			ps.setString(1, schema);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					Timestamp ts = rs.getTimestamp(2);
+					if (ts != null)
+						times.put(rs.getString(1), ts.getTime());
+				}
+			}
+		} catch (SQLException e) {
+			// the user can't read the system catalog, the tables are read again
+			return null;
+		}
+		changeTimes.put(key, times);
+		return times;
+	}
+
+	private static void restoreColumns(MSqlTable mt, TableEntry te) {
+		List<MSQLColumn> pkCols = new ArrayList<>();
+		for (ColumnEntry ce : te.columns) {
+			MSQLColumn mc = new MSQLColumn(mt, ce.name, ce.typeName, ce.columnSize, ce.scale, ce.precission,
+					ce.nullable, ce.remarks);
+			if (te.pkColumns != null && te.pkColumns.contains(ce.name))
+				pkCols.add(mc);
+		}
+		if (!pkCols.isEmpty()) {
+			PrimaryKey pk = new PrimaryKey(te.pkName);
+			for (MSQLColumn mc : pkCols)
+				mc.setPrimaryKey(pk);
+			pk.setColumns(pkCols.toArray(new MSQLColumn[pkCols.size()]));
+		}
+	}
+
+	/**
+	 * @return the tables with a foreign key to a table without columns, their
+	 *         keys must be read from the database
+	 */
+	private static List<MSqlTable> restoreForeignKeys(MRoot root, Map<MSqlTable, TableEntry> loaded) {
+		List<MSqlTable> incomplete = new ArrayList<>();
+		for (Map.Entry<MSqlTable, TableEntry> entry : loaded.entrySet()) {
+			MSqlTable mt = entry.getKey();
+			if (entry.getValue().foreignKeys == null)
+				continue;
+			List<MSqlTable> dests = new ArrayList<>();
+			for (ForeignKeyEntry fe : entry.getValue().foreignKeys) {
+				MSqlTable dest = Util.getTable(root, fe.destCatalog, fe.destSchema, fe.destTable);
+				if (dest == null || ModelUtils.isEmpty(dest))
+					break;
+				dests.add(dest);
+			}
+			if (dests.size() < entry.getValue().foreignKeys.size()) {
+				incomplete.add(mt);
+				continue;
+			}
+			for (int i = 0; i < dests.size(); i++) {
+				ForeignKeyEntry fe = entry.getValue().foreignKeys.get(i);
+				List<MSQLColumn> src = getColumns(mt, fe.srcColumns);
+				List<MSQLColumn> dst = getColumns(dests.get(i), fe.destColumns);
+				ForeignKey fk = new ForeignKey(fe.name, mt);
+				for (MSQLColumn c : src)
+					c.addForeignKey(fk);
+				for (MSQLColumn c : dst)
+					c.addForeignKey(fk);
+				fk.setColumns(src.toArray(new MSQLColumn[src.size()]), dst.toArray(new MSQLColumn[dst.size()]));
+			}
+		}
+		return incomplete;
+	}
+
+	private static List<MSQLColumn> getColumns(MSqlTable mt, List<String> names) {
+		List<MSQLColumn> cols = new ArrayList<>();
+		for (String name : names)
+			for (INode n : mt.getChildren())
+				if (n instanceof MSQLColumn && n.getValue().equals(name)) {
+					cols.add((MSQLColumn) n);
+					break;
+				}
+		return cols;
+	}
+}
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.data.sql.ui.metadata;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import com.jaspersoft.studio.data.sql.model.metadata.MSQLColumn;
+import com.jaspersoft.studio.data.sql.model.metadata.MSqlSchema;
+import com.jaspersoft.studio.data.sql.model.metadata.MSqlTable;
+import com.jaspersoft.studio.data.sql.model.metadata.MTables;
+import com.jaspersoft.studio.model.INode;
+import com.jaspersoft.studio.model.MDummy;
+import com.jaspersoft.studio.model.MRoot;
+
+/**
+ * Benchmark of the load of a schema in the SQL query designer, on an embedded
+ * H2 database with 5,000 tables. Every table has a primary key, five columns
+ * and a foreign key to the previous table.
+ * <ul>
+ * <li>per table: {@link MetaDataUtil#readTableColumns} and
+ * {@link MetaDataUtil#readTableKeys} for every table, like the designer does
+ * when the bulk loading is disabled</li>
+ * <li>bulk: {@link BulkMetaDataReader#readSchemaColumns} and
+ * {@link BulkMetaDataReader#readSchemaKeys}</li>
+ * </ul>
+ * Both modes fill a new model of the schema, like the one created by the
+ * designer with a placeholder child for every table, so the round trips and
+ * the creation of the columns and of the keys are measured. The counts of the
+ * columns, of the primary key columns and of the foreign key references are
+ * printed to check that the two modes read the same metadata.
+ * <p>
+ * It is a plain main class, run it with the classpath of the plugin and the H2
+ * driver of the com.jaspersoft.studio.data.drivers plugin. The arguments are
+ * the number of tables and of measured iterations.
+ * </p>
+ */
+public class BulkMetaDataBenchmark {
+
+	private static final String SCHEMA = "PUBLIC"; //$NON-NLS-1$
+
+	public static void main(String[] args) throws SQLException {
+		int tables = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		IProgressMonitor monitor = new NullProgressMonitor();
+		try (Connection c = DriverManager.getConnection("jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1")) { //$NON-NLS-1$
+			long start = System.nanoTime();
+			createSchema(c, tables);
+			System.out.println(String.format("tables=%d created in %d ms", tables, //$NON-NLS-1$
+					(System.nanoTime() - start) / 1000000));
+			DatabaseMetaData meta = c.getMetaData();
+			List<String> names = new ArrayList<>();
+			try (ResultSet rs = meta.getTables(null, SCHEMA, "%", new String[] { "TABLE" })) { //$NON-NLS-1$ //$NON-NLS-2$
+				while (rs.next())
+					names.add(rs.getString("TABLE_NAME")); //$NON-NLS-1$
+			}
+			// warmup
+			readPerTable(meta, createSchemaModel(names), monitor);
+			readBulk(meta, createSchemaModel(names), monitor);
+			for (int i = 0; i < iterations; i++) {
+				MSqlSchema schema = createSchemaModel(names);
+				start = System.nanoTime();
+				readPerTable(meta, schema, monitor);
+				long perTable = System.nanoTime() - start;
+				String perTableCounts = count(schema);
+				schema = createSchemaModel(names);
+				start = System.nanoTime();
+				readBulk(meta, schema, monitor);
+				long bulk = System.nanoTime() - start;
+				System.out.println(String.format("per table: %d ms (%s), bulk: %d ms (%s)", //$NON-NLS-1$
+						perTable / 1000000, perTableCounts, bulk / 1000000, count(schema)));
+			}
+		}
+	}
+
+	private static void createSchema(Connection c, int tables) throws SQLException {
+		try (Statement st = c.createStatement()) {
+			for (int i = 0; i < tables; i++) {
+				StringBuilder sql = new StringBuilder("CREATE TABLE T").append(i) //$NON-NLS-1$
+						.append(" (ID INT PRIMARY KEY, NAME VARCHAR(50), AMOUNT DECIMAL(10,2), CREATED TIMESTAMP, PARENT_ID INT"); //$NON-NLS-1$
+				if (i > 0)
+					sql.append(", CONSTRAINT FK_T").append(i).append(" FOREIGN KEY (PARENT_ID) REFERENCES T") //$NON-NLS-1$ //$NON-NLS-2$
+							.append(i - 1).append("(ID)"); //$NON-NLS-1$
+				st.execute(sql.append(')').toString());
+			}
+		}
+	}
+
+	/**
+	 * @return the model of the schema with the tables not yet read, like the one
+	 *         created by {@link MetaDataUtil#readTables}
+	 */
+	private static MSqlSchema createSchemaModel(List<String> names) {
+		MRoot root = new MRoot(null, null);
+		MSqlSchema schema = new MSqlSchema(root, SCHEMA, null);
+		MTables mtables = new MTables(schema, "TABLE"); //$NON-NLS-1$
+		for (String n : names)
+			new MDummy(new MSqlTable(mtables, n, "TABLE", null)); //$NON-NLS-1$
+		return schema;
+	}
+
+	private static void readPerTable(DatabaseMetaData meta, MSqlSchema schema, IProgressMonitor monitor)
+			throws SQLException {
+		List<MSqlTable> tables = getTables(schema);
+		for (MSqlTable mt : tables)
+			MetaDataUtil.readTableColumns(meta, mt, monitor);
+		for (MSqlTable mt : tables)
+			MetaDataUtil.readTableKeys(meta, mt, monitor);
+	}
+
+	private static void readBulk(DatabaseMetaData meta, MSqlSchema schema, IProgressMonitor monitor)
+			throws SQLException {
+		List<MSqlTable> filled = BulkMetaDataReader.readSchemaColumns(meta, schema, monitor);
+		BulkMetaDataReader.readSchemaKeys(meta, schema, filled, null, monitor);
+	}
+
+	private static List<MSqlTable> getTables(MSqlSchema schema) {
+		List<MSqlTable> tables = new ArrayList<>();
+		for (INode n : schema.getChildren())
+			for (INode t : n.getChildren())
+				tables.add((MSqlTable) t);
+		return tables;
+	}
+
+	/**
+	 * @return the number of columns, of primary key columns and of references
+	 *         from the columns to the foreign keys of the model
+	 */
+	private static String count(MSqlSchema schema) {
+		int columns = 0;
+		int pks = 0;
+		int fks = 0;
+		for (MSqlTable mt : getTables(schema))
+			for (INode n : mt.getChildren())
+				if (n instanceof MSQLColumn) {
+					MSQLColumn col = (MSQLColumn) n;
+					columns++;
+					if (col.getPrimaryKey() != null)
+						pks++;
+					if (col.getForeignKeys() != null)
+						fks += col.getForeignKeys().size();
+				}
+		return String.format("%d columns, %d pk columns, %d fk column references", columns, pks, fks); //$NON-NLS-1$
+	}
+}
@@ -8,159 +8,661 @@ import java.math.BigInteger;
 import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
-import java.text.ParseException;
+import java.text.DateFormat;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
-import org.apache.commons.lang3.time.DateUtils;
 import org.apache.poi.ss.usermodel.BuiltinFormats;
 import org.eclipse.core.runtime.IProgressMonitor;
 
+import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
+
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.data.AbstractPoiXlsDataSource;
+import net.sf.jasperreports.engine.data.JRAbstractTextDataSource;
 import net.sf.jasperreports.engine.design.JRDesignField;
 
+/**
+ * Guesses the type of the fields of a data source from the values of a sample
+ * of its rows.
+ * <p>
+ * The rows are read from the data source (that is not thread safe) as raw
+ * strings, either the first rows or, with reservoir sampling, a uniform sample
+ * of all the rows of the file. The sampled cells are then recognized column by
+ * column: a column gets a type only if all its non empty cells are valid
+ * values of that type, and if the data source itself converts the first non
+ * empty cell of the column to that type. The recognizers don't use exceptions
+ * and don't allocate, and the columns are split in slices recognized in
+ * parallel, so also the files with thousands of columns are fast.
+ * </p>
+ */
 public class FieldTypeGuesser {
 	public static final int SAMPLESIZE = 1000;
+	/** property with the number of rows sampled to guess the types */
+	public static final String PROPERTY_SAMPLESIZE = "com.jaspersoft.studio.data.fieldtypes.samplesize"; //$NON-NLS-1$
+	/**
+	 * property to sample the rows of the whole file (reservoir sampling), instead
+	 * of the first ones
+	 */
+	public static final String PROPERTY_RESERVOIR = "com.jaspersoft.studio.data.fieldtypes.reservoir"; //$NON-NLS-1$
+
+	/** number of columns recognized by a single task */
+	private static final int SLICE_SIZE = 64;
+	/** maximum number of slices recognized at the same time */
+	private static final int MAX_THREADS = 4;
+
 	private static final Class<?>[] types = new Class<?>[] { Date.class, Time.class, Timestamp.class, Integer.class,
-			Long.class, BigInteger.class, BigDecimal.class };
+			Long.class, BigInteger.class, BigDecimal.class, Boolean.class };
+	// a bit for every type, in the same order, the lowest bit has priority
+	private static final int DATE = 1;
+	private static final int TIME = 1 << 1;
+	private static final int TIMESTAMP = 1 << 2;
+	private static final int INTEGER = 1 << 3;
+	private static final int LONG = 1 << 4;
+	private static final int BIGINTEGER = 1 << 5;
+	private static final int BIGDECIMAL = 1 << 6;
+	private static final int BOOLEAN = 1 << 7;
+	private static final int ALL = (1 << types.length) - 1;
+
+	// the types of the Excel cells
+	private static final int XLS_NUMBER = 1;
+	private static final int XLS_BOOLEAN = 1 << 1;
+	private static final int XLS_DATE = 1 << 2;
+	private static final int XLS_ALL = XLS_NUMBER | XLS_BOOLEAN | XLS_DATE;
+
+	/**
+	 * @return the number of rows to sample, from the configuration
+	 */
+	public static int getSampleSize(JasperReportsConfiguration jConfig) {
+		int size = jConfig.getPropertyInteger(PROPERTY_SAMPLESIZE, SAMPLESIZE);
+		return size > 0 ? size : SAMPLESIZE;
+	}
+
+	/**
+	 * @return true if the sample is taken from all the rows of the file, from the
+	 *         configuration
+	 */
+	public static boolean isReservoirSampling(JasperReportsConfiguration jConfig) {
+		return jConfig.getPropertyBoolean(PROPERTY_RESERVOIR, false);
+	}
 
 	public static void guessTypes(JRDataSource ds, List<JRDesignField> columns, boolean hasNext,
 			IProgressMonitor monitor) throws JRException {
-		List<JRDesignField> cols = new CopyOnWriteArrayList<>(columns);
-		for (int i = 0; i < SAMPLESIZE && hasNext && !cols.isEmpty(); i++) {
+		guessTypes(ds, columns, hasNext, SAMPLESIZE, false, monitor);
+	}
+
+	/**
+	 * Guess the types of the fields of a data source
+	 *
+	 * @param ds
+	 *            the data source, positioned on the first row
+	 * @param columns
+	 *            the fields, of type String, the type is set on the fields
+	 *            recognized
+	 * @param hasNext
+	 *            true if the data source has a first row
+	 * @param sampleSize
+	 *            the number of rows sampled
+	 * @param reservoir
+	 *            true to sample the rows of the whole data source, false to
+	 *            sample the first rows
+	 * @param monitor
+	 *            the progress monitor, can be null
+	 * @throws JRException
+	 */
+	public static void guessTypes(JRDataSource ds, List<JRDesignField> columns, boolean hasNext, int sampleSize,
+			boolean reservoir, IProgressMonitor monitor) throws JRException {
+		DateFormat dateFormat = null;
+		NumberFormat numberFormat = null;
+		if (ds instanceof JRAbstractTextDataSource) {
+			dateFormat = ((JRAbstractTextDataSource) ds).getDateFormat();
+			numberFormat = ((JRAbstractTextDataSource) ds).getNumberFormat();
+		}
+		final DateFormat df = dateFormat;
+		final NumberFormat nf = numberFormat;
+		TextRecognizer checker = new TextRecognizer(df, nf, null);
+		// the types converted by the data source, by column, -1 until the first
+		// non empty cell is read
+		int[] convertible = new int[columns.size()];
+		Arrays.fill(convertible, -1);
+		Sample sample = new Sample(columns.size(), sampleSize, false);
+		for (; hasNext; hasNext = ds.next()) {
 			if (monitor != null && monitor.isCanceled())
 				return;
-			for (JRDesignField f : cols) {
+			int row = sample.nextRow(reservoir);
+			if (row < 0) {
+				if (!reservoir)
+					break;
+				continue;
+			}
+			for (int c = 0; c < columns.size(); c++) {
+				if (sample.failed[c])
+					continue;
 				try {
+					JRDesignField f = columns.get(c);
 					Object v = ds.getFieldValue(f);
-					if (v == null)
-						continue;
-					if (f.getValueClass().equals(String.class)) {
-						String sv = (String) v;
-						if (sv.trim().isEmpty())
-							continue;
-						findType(types, f, ds, cols, sv);
+					String sv = v instanceof String ? (String) v : null;
+					sample.set(c, row, sv, 0);
+					if (convertible[c] < 0 && sv != null) {
+						int mask = checker.recognize(sv);
+						if (mask >= 0)
+							convertible[c] = convert(ds, f, mask);
 					}
-				} catch (Throwable e1) {
-					f.setValueClass(String.class);
-					cols.remove(f);
+				} catch (Throwable e) {
+					sample.failed[c] = true;
 				}
 			}
-			hasNext = ds.next();
 		}
+		Class<?>[] result = recognize(sample, monitor, () -> {
+			TextRecognizer r = new TextRecognizer(df, nf, convertible);
+			return r::recognize;
+		});
+		if (result != null)
+			apply(columns, result);
 	}
-	
-	/** 
+
+	/**
 	 * Dedicated type guessing method for the data sources related to Excel.
 	 * <p>
 	 * We try to base our detection on the Data Format information set on the cell
 	 * and rely on some cases also on the content.<br/>
-	 * We do not perform a full deep reading of all the rows, because it would be 
-	 * too expensive. We stop once we find a "valid" proposal for the type other than 
-	 * the usual fallback String one.
+	 * The cells are read as strings together with their data format, a column is
+	 * a number if all the sampled cells are numbers (Long if they all have the
+	 * integer format, Double otherwise), a boolean if they are all booleans and
+	 * a date if they all have a date format or can be parsed as dates.
 	 * </p>
-	 * 
+	 *
 	 * @param xlsDS the Excel type data source
 	 * @param columns the list of columns
 	 * @param monitor the progress monitor
 	 * @throws JRException
-	 * 
+	 *
 	 * @see {@link BuiltinFormats}
 	 */
 	public static void guessTypes(AbstractPoiXlsDataSource xlsDS, List<JRDesignField> columns, IProgressMonitor monitor) throws JRException {
-		List<JRDesignField> cols = new CopyOnWriteArrayList<>(columns);
-		boolean hasNext = true;
-		for(int i=0;i<SAMPLESIZE && hasNext && !cols.isEmpty();i++) {
-			if (monitor != null && monitor.isCanceled()) {
+		guessTypes(xlsDS, columns, SAMPLESIZE, false, monitor);
+	}
+
+	/**
+	 * Dedicated type guessing method for the data sources related to Excel, with
+	 * the size and the kind of the sample.
+	 *
+	 * @see #guessTypes(AbstractPoiXlsDataSource, List, IProgressMonitor)
+	 */
+	public static void guessTypes(AbstractPoiXlsDataSource xlsDS, List<JRDesignField> columns, int sampleSize,
+			boolean reservoir, IProgressMonitor monitor) throws JRException {
+		Sample sample = new Sample(columns.size(), sampleSize, true);
+		List<String> patterns = new ArrayList<>();
+		for (boolean hasNext = true; hasNext; hasNext = xlsDS.next()) {
+			if (monitor != null && monitor.isCanceled())
 				return;
+			int row = sample.nextRow(reservoir);
+			if (row < 0) {
+				if (!reservoir)
+					break;
+				continue;
 			}
-			for(JRDesignField f : cols) {
+			for (int c = 0; c < columns.size(); c++) {
+				if (sample.failed[c])
+					continue;
 				try {
 					// Let's get the possible data format pattern
 					// see org.apache.poi.ss.usermodel.BuiltinFormats
 					// Fallback to 0, "General"
+					JRDesignField f = columns.get(c);
 					String dataFormat = xlsDS.getFieldFormatPattern(f);
-					int dataFormatID = (dataFormat!=null) ? BuiltinFormats.getBuiltinFormat(dataFormat) : 0;
-					BuiltinFormats.getBuiltinFormat(dataFormat);
-					// Let's get the string from excel and let's try to guess
-					String val = xlsDS.getStringFieldValue(f);
-					if(!StringUtils.isNotEmpty(val)) {
-						continue;
-					}
-					if(NumberUtils.isParsable(val)) {
-						if(dataFormatID==1) {
-							f.setValueClass(Long.class);	
-						}
-						else {
-							f.setValueClass(Double.class);
-						}
-						cols.remove(f);
-					}
-					else {
-						// try handle boolean case
-						Boolean boolVal = BooleanUtils.toBooleanObject(val);
-						if(boolVal!=null) {
-							f.setValueClass(Boolean.class);
-							cols.remove(f);
-						}
-						else {
-							// let's try some stuff for the dates
-							boolean isDate = false;
-							if(dataFormatID >= 0x0E && dataFormatID <= 0x16) {
-								isDate=true;
-							}
-							if(!isDate && xlsDS.getDateFormat()!=null) {
-								xlsDS.getDateFormat().parse(val);
-								isDate = true;
-							}
-							if(!isDate && dataFormat!=null) {
-								DateUtils.parseDate(val, dataFormat);
-								isDate = true;								
-							}
-							if(isDate) {
-								f.setValueClass(java.util.Date.class);
-								cols.remove(f);
+					int format = 0;
+					if (dataFormat != null) {
+						format = BuiltinFormats.getBuiltinFormat(dataFormat);
+						if (format < 0) {
+							// a custom format, kept by index to parse the dates
+							int i = patterns.indexOf(dataFormat);
+							if (i < 0) {
+								i = patterns.size();
+								patterns.add(dataFormat);
 							}
+							format = -1 - i;
 						}
-					}										
-				} catch (JRException | ParseException e) {
-					f.setValueClass(String.class);
-					cols.remove(f);
+					}
+					sample.set(c, row, xlsDS.getStringFieldValue(f), format);
+				} catch (JRException e) {
+					sample.failed[c] = true;
 				}
 			}
-			hasNext = xlsDS.next();
 		}
+		DateFormat dateFormat = xlsDS.getDateFormat();
+		Class<?>[] result = recognize(sample, monitor, () -> {
+			ExcelRecognizer r = new ExcelRecognizer(dateFormat, patterns);
+			return r::recognize;
+		});
+		if (result != null)
+			apply(columns, result);
 	}
 
-	private static void findType(Class<?>[] types, JRDesignField f, JRDataSource ds, List<JRDesignField> cols,
-			String sv) {
-		for (Class<?> type : types)
+	/**
+	 * Convert the current value of a field with the data source, like it is done
+	 * when the report is filled. The type guessed for a column is always one of
+	 * the types of its first value, so converting the first value to all of them
+	 * is enough to be sure that the guessed type is supported by the data source.
+	 *
+	 * @return the types, among the ones in mask, that the data source converts
+	 *         the value to
+	 */
+	private static int convert(JRDataSource ds, JRDesignField f, int mask) {
+		Class<?> valueClass = f.getValueClass();
+		int result = 0;
+		for (int t = 0; t < types.length; t++) {
+			if ((mask & 1 << t) == 0)
+				continue;
 			try {
-				f.setValueClass(type);
-				Object v = ds.getFieldValue(f);
-				if (v == null)
-					f.setValueClass(String.class);
-				else {
-					if (v instanceof Number) {
-						if (!sv.matches("^[+-]?(\\d+(\\.\\d*)?)$")) {
-							f.setValueClass(String.class);
-							continue;
-						} else if (sv.contains(".") && !type.equals(BigDecimal.class))
-							continue;
-					} else if (v instanceof Date && sv.contains(":"))
-						continue;
-					else if (v instanceof Time && (sv.contains("-") || sv.contains("//")))
-						continue;
-				}
-				return;
+				f.setValueClass(types[t]);
+				if (types[t].isInstance(ds.getFieldValue(f)))
+					result |= 1 << t;
 			} catch (Throwable e) {
-				f.setValueClass(String.class);
+				// the data source can not convert the value to this type
+			} finally {
+				f.setValueClass(valueClass);
 			}
-		cols.remove(f);
+		}
+		return result;
+	}
+
+	private static void apply(List<JRDesignField> columns, Class<?>[] result) {
+		for (int c = 0; c < columns.size(); c++)
+			columns.get(c).setValueClass(result[c] != null ? result[c] : String.class);
+	}
+
+	/**
+	 * The raw cells of the sampled rows, by column
+	 */
+	private static class Sample {
+		private final int size;
+		private final String[][] cells;
+		private final int[][] formats;
+		private final boolean[] failed;
+		private int rows;
+		private long seen;
+		// fixed seed, the same file gives always the same types
+		private final Random random = new Random(SAMPLESIZE);
+
+		private Sample(int columns, int size, boolean withFormats) {
+			this.size = Math.max(1, size);
+			cells = new String[columns][];
+			formats = withFormats ? new int[columns][] : null;
+			failed = new boolean[columns];
+		}
+
+		/**
+		 * @return the row of the sample where the current row of the data source
+		 *         goes, -1 if it is not sampled
+		 */
+		private int nextRow(boolean reservoir) {
+			long n = seen++;
+			if (n < size)
+				return rows++;
+			if (!reservoir)
+				return -1;
+			// reservoir sampling, the row replaces a sampled one with probability
+			// size/seen
+			long j = (long) (random.nextDouble() * (n + 1));
+			return j < size ? (int) j : -1;
+		}
+
+		private void set(int column, int row, String value, int format) {
+			String[] cc = cells[column];
+			if (cc == null || row >= cc.length) {
+				int length = Math.min(size, Math.max(16, row * 2));
+				cells[column] = cc = cc == null ? new String[length] : Arrays.copyOf(cc, length);
+				if (formats != null)
+					formats[column] = formats[column] == null ? new int[length]
+							: Arrays.copyOf(formats[column], length);
+			}
+			cc[row] = value;
+			if (formats != null)
+				formats[column][row] = format;
+		}
+	}
+
+	private interface ColumnRecognizer {
+		public Class<?> recognize(int column, String[] cells, int[] formats, int rows);
+	}
+
+	private interface RecognizerFactory {
+		/** @return a recognizer used by a single thread */
+		public ColumnRecognizer create();
+	}
+
+	/**
+	 * Recognize the columns of the sample, the columns are split in slices
+	 * recognized in parallel
+	 *
+	 * @return the type of every column, null if the operation was cancelled
+	 */
+	private static Class<?>[] recognize(Sample sample, IProgressMonitor monitor, RecognizerFactory factory) {
+		int columns = sample.cells.length;
+		Class<?>[] result = new Class<?>[columns];
+		List<Runnable> slices = new ArrayList<>();
+		for (int start = 0; start < columns; start += SLICE_SIZE) {
+			int from = start;
+			int to = Math.min(columns, start + SLICE_SIZE);
+			slices.add(() -> {
+				ColumnRecognizer r = factory.create();
+				for (int c = from; c < to; c++) {
+					if (monitor != null && monitor.isCanceled())
+						return;
+					if (!sample.failed[c] && sample.cells[c] != null)
+						result[c] = r.recognize(c, sample.cells[c], sample.formats != null ? sample.formats[c] : null,
+								Math.min(sample.rows, sample.cells[c].length));
+				}
+			});
+		}
+		if (slices.size() == 1)
+			slices.get(0).run();
+		else if (slices.size() > 1) {
+			int threads = Math.min(Math.min(MAX_THREADS, slices.size()), Runtime.getRuntime().availableProcessors());
+			ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+				Thread t = new Thread(r, "Field Type Guesser"); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			});
+			try {
+				List<Future<?>> futures = new ArrayList<>(slices.size());
+				for (Runnable s : slices)
+					futures.add(executor.submit(s));
+				for (Future<?> f : futures)
+					try {
+						f.get();
+					} catch (ExecutionException e) {
+						// the columns of the slice stay String
+					}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		if (monitor != null && monitor.isCanceled())
+			return null;
+		return result;
+	}
+
+	/**
+	 * Recognizes the values of the text data sources, with the same rules used
+	 * by the data source to convert them: the number and date formats of the
+	 * data source if they are set, the standard JDBC escape formats otherwise
+	 */
+	private static class TextRecognizer {
+		private final DateFormat dateFormat;
+		private final NumberFormat numberFormat;
+		private final int[] convertible;
+		private final ParsePosition pos = new ParsePosition(0);
+
+		/**
+		 * @param convertible
+		 *            the types converted by the data source, by column, can be
+		 *            null if only single values are recognized
+		 */
+		private TextRecognizer(DateFormat dateFormat, NumberFormat numberFormat, int[] convertible) {
+			// the formats are not thread safe, every recognizer has its own copy
+			this.dateFormat = dateFormat != null ? (DateFormat) dateFormat.clone() : null;
+			this.numberFormat = numberFormat != null ? (NumberFormat) numberFormat.clone() : null;
+			this.convertible = convertible;
+		}
+
+		private Class<?> recognize(int column, String[] cells, int[] formats, int rows) {
+			int mask = ALL & convertible[column];
+			boolean empty = true;
+			for (int i = 0; i < rows && mask != 0; i++) {
+				String s = cells[i];
+				if (s == null)
+					continue;
+				int m = recognize(s);
+				if (m < 0)
+					continue;
+				empty = false;
+				mask &= m;
+			}
+			if (empty || mask == 0)
+				return String.class;
+			return types[Integer.numberOfTrailingZeros(mask)];
+		}
+
+		/**
+		 * @return the types that can hold the value, -1 if it is blank
+		 */
+		private int recognize(String s) {
+			int from = 0;
+			int to = s.length();
+			while (from < to && Character.isWhitespace(s.charAt(from)))
+				from++;
+			while (to > from && Character.isWhitespace(s.charAt(to - 1)))
+				to--;
+			if (from == to)
+				return -1;
+			return recognize(s, from, to);
+		}
+
+		/**
+		 * @return the types that can hold the value
+		 */
+		private int recognize(String s, int from, int to) {
+			int mask = numberFormat != null ? parseNumber(s, from, to) : recognizeNumber(s, from, to);
+			if (mask != 0)
+				return mask;
+			mask = dateFormat != null ? parseDate(s, from, to) : recognizeDate(s, from, to);
+			if (mask != 0)
+				return mask;
+			if (to - from == 4 && s.regionMatches(true, from, "true", 0, 4) //$NON-NLS-1$
+					|| to - from == 5 && s.regionMatches(true, from, "false", 0, 5)) //$NON-NLS-1$
+				return BOOLEAN;
+			return 0;
+		}
+
+		private int parseNumber(String s, int from, int to) {
+			pos.setIndex(from);
+			pos.setErrorIndex(-1);
+			Number n = numberFormat.parse(s, pos);
+			if (n == null || pos.getIndex() != to)
+				return 0;
+			if (n instanceof Long) {
+				long l = n.longValue();
+				if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE)
+					return INTEGER | LONG | BIGINTEGER | BIGDECIMAL;
+				return LONG | BIGINTEGER | BIGDECIMAL;
+			}
+			return BIGDECIMAL;
+		}
+
+		/**
+		 * An integer or a decimal number with the dot as separator, like
+		 * <code>[+-]digits[.digits]</code>
+		 */
+		private static int recognizeNumber(String s, int from, int to) {
+			int i = from;
+			boolean negative = s.charAt(i) == '-';
+			if (negative || s.charAt(i) == '+')
+				i++;
+			int start = i;
+			while (i < to && isDigit(s.charAt(i)))
+				i++;
+			if (i == start)
+				return 0;
+			if (i < to) {
+				if (s.charAt(i) != '.')
+					return 0;
+				for (i++; i < to; i++)
+					if (!isDigit(s.charAt(i)))
+						return 0;
+				return BIGDECIMAL;
+			}
+			// integer, the type depends on the magnitude
+			while (start < to - 1 && s.charAt(start) == '0')
+				start++;
+			int digits = to - start;
+			if (digits < 10 || digits == 10 && compare(s, start, negative ? "2147483648" : "2147483647") <= 0) //$NON-NLS-1$ //$NON-NLS-2$
+				return INTEGER | LONG | BIGINTEGER | BIGDECIMAL;
+			if (digits < 19
+					|| digits == 19 && compare(s, start, negative ? "9223372036854775808" : "9223372036854775807") <= 0) //$NON-NLS-1$ //$NON-NLS-2$
+				return LONG | BIGINTEGER | BIGDECIMAL;
+			return BIGINTEGER | BIGDECIMAL;
+		}
+
+		private static int compare(String s, int from, String max) {
+			for (int i = 0; i < max.length(); i++) {
+				int d = s.charAt(from + i) - max.charAt(i);
+				if (d != 0)
+					return d;
+			}
+			return 0;
+		}
+
+		private int parseDate(String s, int from, int to) {
+			pos.setIndex(from);
+			pos.setErrorIndex(-1);
+			if (dateFormat.parse(s, pos) == null || pos.getIndex() != to)
+				return 0;
+			int mask = TIMESTAMP;
+			if (s.indexOf(':', from) < 0)
+				mask |= DATE;
+			if (s.indexOf('-', from) < 0 && s.indexOf('/', from) < 0)
+				mask |= TIME;
+			return mask;
+		}
+
+		/**
+		 * A date <code>yyyy-[m]m-[d]d</code>, a time <code>hh:mm:ss</code> or a
+		 * timestamp <code>yyyy-[m]m-[d]d hh:mm:ss[.f...]</code>. A date is not a
+		 * timestamp, Timestamp.valueOf does not convert it, so a column with both
+		 * dates and timestamps stays String.
+		 */
+		private static int recognizeDate(String s, int from, int to) {
+			int i = recognizeTime(s, from, to);
+			if (i == to)
+				return TIME;
+			i = digits(s, from, to, 4, 4);
+			i = separator(s, i, to, '-');
+			i = digits(s, i, to, 1, 2);
+			i = separator(s, i, to, '-');
+			i = digits(s, i, to, 1, 2);
+			if (i == to)
+				return DATE;
+			i = separator(s, i, to, ' ');
+			i = recognizeTime(s, i, to);
+			if (i == to)
+				return TIMESTAMP;
+			i = separator(s, i, to, '.');
+			i = digits(s, i, to, 1, 9);
+			return i == to ? TIMESTAMP : 0;
+		}
+
+		private static int recognizeTime(String s, int from, int to) {
+			int i = digits(s, from, to, 1, 2);
+			i = separator(s, i, to, ':');
+			i = digits(s, i, to, 2, 2);
+			i = separator(s, i, to, ':');
+			return digits(s, i, to, 2, 2);
+		}
+
+		/**
+		 * @return the index after the digits, -1 if there are less than min digits
+		 */
+		private static int digits(String s, int from, int to, int min, int max) {
+			if (from < 0)
+				return -1;
+			int i = from;
+			while (i < to && i - from < max && isDigit(s.charAt(i)))
+				i++;
+			return i - from >= min ? i : -1;
+		}
+
+		private static int separator(String s, int from, int to, char c) {
+			return from >= 0 && from < to && s.charAt(from) == c ? from + 1 : -1;
+		}
+
+		private static boolean isDigit(char c) {
+			return c >= '0' && c <= '9';
+		}
+	}
+
+	/**
+	 * Recognizes the cells of the Excel data sources, using the data format of
+	 * the cells
+	 */
+	private static class ExcelRecognizer {
+		private final DateFormat dateFormat;
+		private final List<String> patterns;
+		private final Map<Integer, DateFormat> formats = new HashMap<>();
+		private final ParsePosition pos = new ParsePosition(0);
+
+		private ExcelRecognizer(DateFormat dateFormat, List<String> patterns) {
+			this.dateFormat = dateFormat != null ? (DateFormat) dateFormat.clone() : null;
+			this.patterns = patterns;
+		}
+
+		private Class<?> recognize(int column, String[] cells, int[] formats, int rows) {
+			int mask = XLS_ALL;
+			boolean empty = true;
+			boolean integer = true;
+			for (int i = 0; i < rows && mask != 0; i++) {
+				String val = cells[i];
+				if (!StringUtils.isNotEmpty(val))
+					continue;
+				empty = false;
+				int format = formats[i];
+				if (NumberUtils.isParsable(val)) {
+					mask &= XLS_NUMBER;
+					integer &= format == 1;
+				} else if (BooleanUtils.toBooleanObject(val) != null)
+					mask &= XLS_BOOLEAN;
+				else if (format >= 0x0E && format <= 0x16 || parse(dateFormat, val) || parse(getFormat(format), val))
+					mask &= XLS_DATE;
+				else
+					mask = 0;
+			}
+			if (empty || mask == 0)
+				return String.class;
+			if ((mask & XLS_NUMBER) != 0)
+				return integer ? Long.class : Double.class;
+			if ((mask & XLS_BOOLEAN) != 0)
+				return Boolean.class;
+			return java.util.Date.class;
+		}
+
+		private DateFormat getFormat(int format) {
+			if (format >= 0)
+				return null;
+			return formats.computeIfAbsent(format, k -> {
+				try {
+					return new SimpleDateFormat(patterns.get(-1 - k));
+				} catch (IllegalArgumentException e) {
+					// not a date pattern
+					return null;
+				}
+			});
+		}
+
+		private boolean parse(DateFormat df, String val) {
+			if (df == null)
+				return false;
+			pos.setIndex(0);
+			pos.setErrorIndex(-1);
+			return df.parse(val, pos) != null && pos.getIndex() == val.length();
+		}
 	}
 }
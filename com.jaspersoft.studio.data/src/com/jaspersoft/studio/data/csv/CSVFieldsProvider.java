@@ -40,7 +40,7 @@ public class CSVFieldsProvider implements IFieldsProvider {
 		parameters.put("REPORT_PARAMETERS_MAP", new HashMap<String, Object>());
 		con.contributeParameters(parameters);
 		ParameterUtil.setParameters(jConfig, reportDataset, parameters);
-		parameters.put(JRParameter.REPORT_MAX_COUNT, FieldTypeGuesser.SAMPLESIZE);
+		parameters.put(JRParameter.REPORT_MAX_COUNT, FieldTypeGuesser.getSampleSize(jConfig));
 
 		if (monitor != null && monitor.isCanceled())
 			return null;
@@ -72,7 +72,8 @@ public class CSVFieldsProvider implements IFieldsProvider {
 				for (String key : map.keySet())
 					createColumn(columns, key);
 			}
-			FieldTypeGuesser.guessTypes(ds, columns, hasNext, monitor);
+			FieldTypeGuesser.guessTypes(ds, columns, hasNext, FieldTypeGuesser.getSampleSize(jConfig),
+					FieldTypeGuesser.isReservoirSampling(jConfig), monitor);
 		}
 		return columns;
 	}
@@ -37,7 +37,7 @@ public class ExcelFieldsProvider implements IFieldsProvider {
 		parameters.put("REPORT_PARAMETERS_MAP", new HashMap<String, Object>());
 		con.contributeParameters(parameters);
 		ParameterUtil.setParameters(jConfig, reportDataset, parameters);
-		parameters.put(JRParameter.REPORT_MAX_COUNT, FieldTypeGuesser.SAMPLESIZE);
+		parameters.put(JRParameter.REPORT_MAX_COUNT, FieldTypeGuesser.getSampleSize(jConfig));
 		
 		if (monitor != null && monitor.isCanceled())
 			return null;
@@ -63,7 +63,8 @@ public class ExcelFieldsProvider implements IFieldsProvider {
 				columns.add(field);
 			}
 			if(hasNext) {
-				FieldTypeGuesser.guessTypes(ds, columns, monitor);
+				FieldTypeGuesser.guessTypes(ds, columns, FieldTypeGuesser.getSampleSize(jConfig),
+						FieldTypeGuesser.isReservoirSampling(jConfig), monitor);
 			}
 			return columns;
 		}
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.data.querydesigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
+
+/**
+ * Deduplicated structure of a large JSON or XML data file, built while the file
+ * is read with a streaming parser.
+ * <p>
+ * Every distinct path of the document is a single node, with the number of
+ * times it was found (its cardinality) and a few sample values, so the memory
+ * used depends on the structure of the document and not on its size. The
+ * number of nodes and the length of the samples are bounded too, so also a
+ * document without a regular structure can not fill the memory.
+ * </p>
+ * <p>
+ * The query designers use the outline instead of the full document (DOM or
+ * JSON tree) when the data file is bigger than the threshold set with
+ * {@link #PROPERTY_STREAMING_THRESHOLD}.
+ * </p>
+ */
+public class StructureOutline {
+	/**
+	 * size in MB of the data files over which the query designers read the
+	 * outline of the document instead of the whole document
+	 */
+	public static final String PROPERTY_STREAMING_THRESHOLD = "com.jaspersoft.studio.data.querydesigner.streaming.threshold"; //$NON-NLS-1$
+	public static final int DEFAULT_STREAMING_THRESHOLD = 20;
+
+	/** number of sample values kept for every node */
+	public static final int MAX_SAMPLES = 3;
+	/** maximum length of a sample value */
+	public static final int MAX_SAMPLE_LENGTH = 64;
+	/** maximum number of nodes of the outline */
+	public static final int MAX_NODES = 50000;
+
+	private final String name;
+	private final boolean attribute;
+	private final StructureOutline parent;
+	private final StructureOutline root;
+	private long count;
+	private List<String> samples;
+	private Map<String, StructureOutline> children;
+	private int size;
+	private boolean truncated;
+
+	/**
+	 * Creates the root of an outline, that is the document itself
+	 */
+	public StructureOutline() {
+		this(null, null, false);
+	}
+
+	private StructureOutline(StructureOutline parent, String name, boolean attribute) {
+		this.parent = parent;
+		this.name = name;
+		this.attribute = attribute;
+		this.root = parent != null ? parent.root : this;
+	}
+
+	/**
+	 * @return the child with the name, created if it is not present, null if the
+	 *         outline reached its maximum size
+	 */
+	public StructureOutline getChild(String name, boolean attribute) {
+		String key = attribute ? "@" + name : name; //$NON-NLS-1$
+		if (children == null)
+			children = new LinkedHashMap<>();
+		StructureOutline c = children.get(key);
+		if (c == null) {
+			if (root.size >= MAX_NODES) {
+				root.truncated = true;
+				return null;
+			}
+			root.size++;
+			c = new StructureOutline(this, name, attribute);
+			children.put(key, c);
+		}
+		return c;
+	}
+
+	/**
+	 * @return the child with the name, null if it is not present
+	 */
+	public StructureOutline findChild(String name, boolean attribute) {
+		if (children == null)
+			return null;
+		return children.get(attribute ? "@" + name : name); //$NON-NLS-1$
+	}
+
+	/**
+	 * Counts an occurrence of the node
+	 */
+	public void increment() {
+		count++;
+	}
+
+	/**
+	 * Keeps the value as a sample, if the node has less than
+	 * {@link #MAX_SAMPLES} distinct samples
+	 */
+	public void addSample(String value) {
+		if (value == null || value.isEmpty())
+			return;
+		if (samples == null)
+			samples = new ArrayList<>(MAX_SAMPLES);
+		if (samples.size() >= MAX_SAMPLES)
+			return;
+		if (value.length() > MAX_SAMPLE_LENGTH)
+			value = value.substring(0, MAX_SAMPLE_LENGTH) + "..."; //$NON-NLS-1$
+		if (!samples.contains(value))
+			samples.add(value);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isAttribute() {
+		return attribute;
+	}
+
+	public StructureOutline getParent() {
+		return parent;
+	}
+
+	/**
+	 * @return the number of times the path of the node was found in the document
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	public List<String> getSamples() {
+		return samples != null ? samples : Collections.emptyList();
+	}
+
+	public Collection<StructureOutline> getChildren() {
+		return children != null ? children.values() : Collections.emptyList();
+	}
+
+	public boolean hasChildren() {
+		return children != null && !children.isEmpty();
+	}
+
+	/**
+	 * @return true if some nodes of the document are not in the outline because
+	 *         it reached its maximum size
+	 */
+	public boolean isTruncated() {
+		return root.truncated;
+	}
+
+	/**
+	 * @return the text shown in the tree for the node: the name, the cardinality
+	 *         and the samples
+	 */
+	public String getLabel() {
+		StringBuilder sb = new StringBuilder(name);
+		sb.append(" (").append(count).append(")"); //$NON-NLS-1$ //$NON-NLS-2$
+		if (samples != null && !samples.isEmpty())
+			sb.append(" = ").append(String.join(", ", samples)); //$NON-NLS-1$ //$NON-NLS-2$
+		return sb.toString();
+	}
+
+	/**
+	 * @return the size in bytes over which the data files are read as outline
+	 */
+	public static long getStreamingThreshold(JasperReportsConfiguration jConfig) {
+		int mb = DEFAULT_STREAMING_THRESHOLD;
+		if (jConfig != null)
+			mb = jConfig.getPropertyInteger(PROPERTY_STREAMING_THRESHOLD, DEFAULT_STREAMING_THRESHOLD);
+		return mb * 1024L * 1024L;
+	}
+
+	/**
+	 * Reads the beginning of a stream
+	 *
+	 * @return the bytes read, up to limit + 1: if there are more than limit bytes
+	 *         the stream is bigger than the limit
+	 */
+	public static byte[] readPrefix(InputStream in, long limit) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+		byte[] buffer = new byte[8192];
+		long remaining = limit + 1;
+		while (remaining > 0) {
+			int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (n < 0)
+				break;
+			out.write(buffer, 0, n);
+			remaining -= n;
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return the whole stream, the prefix already read followed by the rest
+	 */
+	public static InputStream join(byte[] prefix, InputStream in) {
+		return new SequenceInputStream(new ByteArrayInputStream(prefix), in);
+	}
+
+	/**
+	 * Returns the path of the outline selected by a query, removing the
+	 * predicates (array indexes, filters) and the white spaces
+	 *
+	 * @param query
+	 *            the query of the dataset
+	 * @param open
+	 *            the characters that open a predicate, like "[" for XPath
+	 * @param close
+	 *            the characters that close a predicate
+	 * @return the path, with the separators of the query language
+	 */
+	public static String getOutlinePath(String query, String open, String close) {
+		StringBuilder sb = new StringBuilder();
+		int depth = 0;
+		for (int i = 0; i < query.length(); i++) {
+			char c = query.charAt(i);
+			if (open.indexOf(c) >= 0) {
+				depth++;
+			} else if (close.indexOf(c) >= 0) {
+				depth--;
+			} else if (depth == 0 && !Character.isWhitespace(c)) {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+}
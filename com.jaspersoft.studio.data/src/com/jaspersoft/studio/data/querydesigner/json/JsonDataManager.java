@@ -4,6 +4,7 @@
 package com.jaspersoft.studio.data.querydesigner.json;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -13,13 +14,17 @@ import java.util.Map;
 import org.apache.commons.io.IOUtils;
 import org.eclipse.jface.dialogs.MessageDialog;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.jaspersoft.studio.data.designer.tree.ISelectableNodes;
 import com.jaspersoft.studio.data.messages.Messages;
+import com.jaspersoft.studio.data.querydesigner.StructureOutline;
+import com.jaspersoft.studio.model.INode;
 import com.jaspersoft.studio.model.MRoot;
 import com.jaspersoft.studio.model.datasource.json.JsonSupportNode;
 import com.jaspersoft.studio.utils.ModelUtils;
@@ -43,6 +48,13 @@ import net.sf.jasperreports.engine.util.json.DefaultJsonQLExecuter;
 /**
  * This class works with the specified Json data information. Usually this will
  * be read from an input file or an existing string.
+ * <p>
+ * The files bigger than the streaming threshold (see
+ * {@link StructureOutline#PROPERTY_STREAMING_THRESHOLD}) are not loaded in
+ * memory: they are read with the streaming parser to build their
+ * {@link StructureOutline}, and the tree shows the distinct paths of the
+ * document instead of its nodes.
+ * </p>
  * 
  * @author Massimo Rabbi (mrabbi@users.sourceforge.net)
  *
@@ -52,6 +64,7 @@ public class JsonDataManager implements ISelectableNodes<JsonSupportNode> {
 	private JsonNode jsonRoot;
 	private MRoot jsonSupportModel;
 	private Map<JsonSupportNode, JsonNode> jsonNodesMap;
+	private StructureOutline outline;
 	private String language;
 
 	public JsonDataManager(String language) {
@@ -73,6 +86,8 @@ public class JsonDataManager implements ISelectableNodes<JsonSupportNode> {
 	public void loadJsonDataFile(DataFile dataFile, JasperReportsConfiguration jconfig, JRDataset jDataset)
 			throws IOException, JRException {
 		getJsonNodesMap().clear();
+		jsonRoot = null;
+		outline = null;
 		DataFileStream ins = null;
 		try {
 			Map<String, Object> parameters = jconfig.getJRParameters();
@@ -84,8 +99,15 @@ public class JsonDataManager implements ISelectableNodes<JsonSupportNode> {
 			
 			
 			ins = DataFileUtils.instance(paramContributorCtx).getDataStream(dataFile, parameters);
-			jsonRoot = getJsonMapper().readTree(ins);
-			buildJsonSupportTree();
+			long threshold = StructureOutline.getStreamingThreshold(jconfig);
+			byte[] prefix = StructureOutline.readPrefix(ins, threshold);
+			if (prefix.length <= threshold) {
+				jsonRoot = getJsonMapper().readTree(prefix);
+				buildJsonSupportTree();
+			} else {
+				outline = readOutline(StructureOutline.join(prefix, ins));
+				buildOutlineTree();
+			}
 		} finally {
 			IOUtils.closeQuietly(ins);
 		}
@@ -101,6 +123,7 @@ public class JsonDataManager implements ISelectableNodes<JsonSupportNode> {
 	 * @throws JsonProcessingException
 	 */
 	public void loadJsonDataString(String jsonData) throws IOException {
+		outline = null;
 		jsonRoot = getJsonMapper().readTree(jsonData);
 		buildJsonSupportTree();
 	}
@@ -122,6 +145,14 @@ public class JsonDataManager implements ISelectableNodes<JsonSupportNode> {
 		return jsonRoot;
 	}
 
+	/**
+	 * @return the outline of the current json document if it was read with the
+	 *         streaming parser, null if the whole document is loaded
+	 */
+	public StructureOutline getOutline() {
+		return outline;
+	}
+
 	/**
 	 * @return the current support model root
 	 */
@@ -139,9 +170,101 @@ public class JsonDataManager implements ISelectableNodes<JsonSupportNode> {
 			c.setParent(jsonSupportModel, -1);
 		}
 		if(children.isEmpty()) {
-			UIUtils.getDisplay().asyncExec(() -> 
-				MessageDialog.openWarning(UIUtils.getShell(), Messages.JsonDataManager_errorTitle, 
-					Messages.JsonDataManager_errorMsg));
+			showEmptyWarning();
+		}
+	}
+
+	private void showEmptyWarning() {
+		UIUtils.getDisplay().asyncExec(() -> 
+			MessageDialog.openWarning(UIUtils.getShell(), Messages.JsonDataManager_errorTitle, 
+				Messages.JsonDataManager_errorMsg));
+	}
+
+	/*
+	 * Reads the outline of a json document with the streaming parser, the elements
+	 * of the arrays are merged in a single path.
+	 */
+	private StructureOutline readOutline(InputStream in) throws IOException {
+		StructureOutline root = new StructureOutline();
+		try (JsonParser parser = getJsonMapper().getFactory().createParser(in)) {
+			if (parser.nextToken() != null) {
+				readOutlineValue(parser, root);
+			}
+		}
+		return root;
+	}
+
+	private void readOutlineValue(JsonParser parser, StructureOutline node) throws IOException {
+		if (node == null) {
+			// the outline is full
+			parser.skipChildren();
+			return;
+		}
+		JsonToken token = parser.getCurrentToken();
+		if (token == JsonToken.START_OBJECT) {
+			node.increment();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				StructureOutline child = node.getChild(parser.getCurrentName(), false);
+				parser.nextToken();
+				readOutlineValue(parser, child);
+			}
+		} else if (token == JsonToken.START_ARRAY) {
+			for (token = parser.nextToken(); token != null && token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+				readOutlineValue(parser, node);
+			}
+		} else {
+			node.increment();
+			if (token != JsonToken.VALUE_NULL) {
+				node.addSample(parser.getText());
+			}
+		}
+	}
+
+	/*
+	 * Creates the support tree for the outline, only the first level is created,
+	 * the other ones when they are expanded.
+	 */
+	private void buildOutlineTree() {
+		jsonSupportModel = new MRoot(null, null);
+		for (StructureOutline c : outline.getChildren()) {
+			new JsonOutlineNode(jsonSupportModel, c);
+		}
+		if (!outline.hasChildren()) {
+			showEmptyWarning();
+		}
+	}
+
+	/*
+	 * Returns the path of the outline selected by a query, without the array
+	 * indexes and the attribute filters.
+	 */
+	private static String getOutlinePath(String query) {
+		return StructureOutline.getOutlinePath(query, "[(", "])"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private StructureOutline findOutline(String query) {
+		StructureOutline node = outline;
+		for (String name : getOutlinePath(query).split("\\.")) { //$NON-NLS-1$
+			if (name.isEmpty()) {
+				continue;
+			}
+			node = node.findChild(name, false);
+			if (node == null) {
+				return null;
+			}
+		}
+		return node;
+	}
+
+	private void selectOutlineNodes(List<INode> nodes, String path, List<JsonSupportNode> selectedList) {
+		for (INode n : nodes) {
+			if (n instanceof JsonOutlineNode) {
+				JsonOutlineNode on = (JsonOutlineNode) n;
+				if (path.equals(getAbsoluteQueryExpression(on))) {
+					selectedList.add(on);
+				}
+				selectOutlineNodes(on.getMaterializedChildren(), path, selectedList);
+			}
 		}
 	}
 
@@ -198,6 +321,14 @@ public class JsonDataManager implements ISelectableNodes<JsonSupportNode> {
 	 */
 	public List<JsonSupportNode> getSelectableNodes(String query) {
 		List<JsonSupportNode> selectedList = new ArrayList<>();
+		if (outline != null) {
+			// only the simple paths can be matched on the outline
+			if (!language.equalsIgnoreCase(JsonExpressionLanguageEnum.JSONQL.getName()) && query != null
+					&& jsonSupportModel != null) {
+				selectOutlineNodes(jsonSupportModel.getChildren(), getOutlinePath(query), selectedList);
+			}
+			return selectedList;
+		}
 		if (language.equalsIgnoreCase(JsonExpressionLanguageEnum.JSONQL.getName())) {
 			JRJsonNode jrJsonNode = new JRJsonNode(null, jsonRoot);
 			DefaultJsonQLExecuter jsonqlExec = new DefaultJsonQLExecuter();
@@ -255,6 +386,20 @@ public class JsonDataManager implements ISelectableNodes<JsonSupportNode> {
 	 */
 	public List<JRDesignField> extractFields(String query) {
 		ArrayList<JRDesignField> result = new ArrayList<>();
+		if (outline != null) {
+			StructureOutline node = findOutline(query != null ? query : ""); //$NON-NLS-1$
+			if (node != null) {
+				if (node.hasChildren()) {
+					List<String> names = new ArrayList<>();
+					for (StructureOutline c : node.getChildren()) {
+						names.add(c.getName());
+					}
+					return addFields(names.iterator(), result);
+				}
+				return getFieldFromGenericJsonNode(null, result);
+			}
+			return result;
+		}
 		JsonNode jsonData = null;
 		try {
 			if (language.equalsIgnoreCase(JsonExpressionLanguageEnum.JSONQL.getName())) {
@@ -312,7 +457,13 @@ public class JsonDataManager implements ISelectableNodes<JsonSupportNode> {
 	 * Gets the fields from a JSON node of type object.
 	 */
 	private List<JRDesignField> getFieldsFromObjectNode(ObjectNode node, List<JRDesignField> fields) {
-		Iterator<String> fieldNames = node.fieldNames();
+		return addFields(node.fieldNames(), fields);
+	}
+
+	/*
+	 * Adds a field for every name.
+	 */
+	private List<JRDesignField> addFields(Iterator<String> fieldNames, List<JRDesignField> fields) {
 		while (fieldNames.hasNext()) {
 			String name = fieldNames.next();
 			JRDesignField f = new JRDesignField();
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.data.querydesigner.json;
+
+import java.util.List;
+
+import com.jaspersoft.studio.data.querydesigner.StructureOutline;
+import com.jaspersoft.studio.model.ANode;
+import com.jaspersoft.studio.model.INode;
+import com.jaspersoft.studio.model.datasource.json.JsonSupportNode;
+
+import net.sf.jasperreports.engine.JRConstants;
+
+/**
+ * Node of the tree of a large JSON file, it represents a path of the
+ * {@link StructureOutline} of the file. The children are created the first
+ * time they are requested, so only the subtrees expanded by the user are built.
+ */
+public class JsonOutlineNode extends JsonSupportNode {
+
+	public static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
+	private transient StructureOutline outline;
+	private boolean materialized;
+
+	public JsonOutlineNode(ANode parent, StructureOutline outline) {
+		this.outline = outline;
+		setNodeText(outline.getName());
+		setParent(parent, -1);
+	}
+
+	public StructureOutline getOutline() {
+		return outline;
+	}
+
+	@Override
+	public String getDisplayText() {
+		return outline.getLabel();
+	}
+
+	@Override
+	public List<INode> getChildren() {
+		if (!materialized) {
+			materialized = true;
+			for (StructureOutline c : outline.getChildren())
+				new JsonOutlineNode(this, c);
+		}
+		return super.getChildren();
+	}
+
+	/**
+	 * @return the children created so far, without creating them
+	 */
+	public List<INode> getMaterializedChildren() {
+		return super.getChildren();
+	}
+}
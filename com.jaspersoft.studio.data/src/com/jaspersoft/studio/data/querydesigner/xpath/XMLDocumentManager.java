@@ -3,11 +3,18 @@
  *******************************************************************************/
 package com.jaspersoft.studio.data.querydesigner.xpath;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.NamedNodeMap;
@@ -15,7 +22,9 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import com.jaspersoft.studio.data.designer.tree.ISelectableNodes;
+import com.jaspersoft.studio.data.querydesigner.StructureOutline;
 import com.jaspersoft.studio.model.ANode;
+import com.jaspersoft.studio.model.INode;
 import com.jaspersoft.studio.model.MRoot;
 import com.jaspersoft.studio.model.datasource.xml.XMLAttributeNode;
 import com.jaspersoft.studio.model.datasource.xml.XMLNode;
@@ -28,6 +37,11 @@ import net.sf.jasperreports.engine.util.xml.JRXPathExecuterUtils;
 
 /**
  * This class works on the specified xml document or its nodes.
+ * <p>
+ * The large documents are not loaded as DOM: their {@link StructureOutline} is
+ * read with StAX, see {@link #readOutline(InputStream, boolean, IProgressMonitor)},
+ * and the tree shows the distinct paths of the document instead of its nodes.
+ * </p>
  * 
  * @author Massimo Rabbi (mrabbi@users.sourceforge.net)
  * 
@@ -37,6 +51,8 @@ public class XMLDocumentManager implements ISelectableNodes<XMLNode> {
 	private Document xmlDocument;
 	private JRXPathExecuter xPathExecuter;
 	private Map<XMLNode, Node> documentNodesMap;
+	private StructureOutline outline;
+	private MRoot outlineModel;
 	private JasperReportsConfiguration jConfig;
 
 	/**
@@ -47,9 +63,31 @@ public class XMLDocumentManager implements ISelectableNodes<XMLNode> {
 	 */
 	public void setDocument(Document doc) {
 		this.xmlDocument = doc;
+		this.outline = null;
+		this.outlineModel = null;
+		getDocumentNodesMap().clear();
+	}
+
+	/**
+	 * Sets the outline of a large document, used instead of the document.
+	 * 
+	 * @param outline
+	 *            the outline of the xml document
+	 */
+	public void setOutline(StructureOutline outline) {
+		this.outline = outline;
+		this.outlineModel = null;
+		this.xmlDocument = null;
 		getDocumentNodesMap().clear();
 	}
 
+	/**
+	 * @return the outline of the document, null if the document is loaded as DOM
+	 */
+	public StructureOutline getOutline() {
+		return outline;
+	}
+
 	/**
 	 * @return <code>true</code> if an xml document is set, <code>false</code>
 	 *         otherwise
@@ -66,7 +104,14 @@ public class XMLDocumentManager implements ISelectableNodes<XMLNode> {
 	 * @return the model representing the XML document
 	 */
 	public MRoot getXMLDocumentModel() {
-		if (xmlDocument != null) {
+		if (outline != null) {
+			// only the first level, the other ones are created when expanded
+			outlineModel = new MRoot(null, null);
+			for (StructureOutline c : outline.getChildren()) {
+				new XMLOutlineNode(outlineModel, c);
+			}
+			return outlineModel;
+		} else if (xmlDocument != null) {
 			MRoot docRoot = new MRoot(null, null);
 			List<XMLNode> childrenXMLNodes = getChildrenXMLNodes(xmlDocument);
 			for (XMLNode childNode : childrenXMLNodes) {
@@ -123,6 +168,11 @@ public class XMLDocumentManager implements ISelectableNodes<XMLNode> {
 	 * @return
 	 */
 	public String getXPathExpression(String query, XMLNode xmlNode) {
+		if (xmlNode instanceof XMLOutlineNode) {
+			return getXPathExpression(query, ((XMLOutlineNode) xmlNode).getOutline());
+		} else if (xmlNode instanceof XMLOutlineNode.Attribute) {
+			return getXPathExpression(query, ((XMLOutlineNode.Attribute) xmlNode).getOutline());
+		}
 		Node selectedNode = getDocumentNodesMap().get(xmlNode);
 		boolean isAttribute = (selectedNode instanceof Attr);
 		String attributePostfix = "";
@@ -159,6 +209,49 @@ public class XMLDocumentManager implements ISelectableNodes<XMLNode> {
 		return selectedPath;
 	}
 
+	/*
+	 * Same as the DOM version, the query is compared with the path of the outline
+	 * node since there are no document nodes to select.
+	 */
+	private String getXPathExpression(String query, StructureOutline selectedNode) {
+		String selectedPath = getAbsoluteXPathExpression(selectedNode);
+		if (query == null || query.equals("")) {
+			return selectedPath;
+		}
+		String currentPath = getOutlinePath(query);
+		if (selectedPath.equals(currentPath)) {
+			return "child::text()";
+		} else if (selectedPath.startsWith(currentPath + "/")) {
+			// selected node is child of the current one
+			return selectedPath.substring(currentPath.length() + 1);
+		} else if (selectedNode.isAttribute()) {
+			String ownerPath = selectedPath.substring(0, selectedPath.lastIndexOf("/@"));
+			if (currentPath.startsWith(ownerPath + "/")) {
+				// selected attribute located on ancestor node
+				return "ancestor::" + selectedNode.getParent().getName() + "/@" + selectedNode.getName();
+			}
+		} else if (currentPath.startsWith(selectedPath + "/")) {
+			// selected node is parent of the current one
+			return "ancestor::" + selectedNode.getName();
+		}
+		return selectedPath;
+	}
+
+	private String getAbsoluteXPathExpression(StructureOutline node) {
+		StringBuilder sb = new StringBuilder();
+		for (; node != null && node.getName() != null; node = node.getParent()) {
+			sb.insert(0, (node.isAttribute() ? "/@" : "/") + node.getName());
+		}
+		return sb.toString();
+	}
+
+	/*
+	 * Returns the path selected by a query, without the predicates.
+	 */
+	private static String getOutlinePath(String query) {
+		return StructureOutline.getOutlinePath(query, "[", "]");
+	}
+
 	/*
 	 * Simple way to retrieve the absolute XPath expression that would permit to
 	 * locate the node similar to the node specified.
@@ -230,6 +323,16 @@ public class XMLDocumentManager implements ISelectableNodes<XMLNode> {
 	 * (java.lang.String)
 	 */
 	public List<XMLNode> getSelectableNodes(String query) {
+		if (outline != null) {
+			List<XMLNode> selected = new ArrayList<XMLNode>();
+			if (query != null && !query.isEmpty()) {
+				String path = getOutlinePath(query);
+				if (outlineModel != null) {
+					selectOutlineNodes(outlineModel.getChildren(), path, selected);
+				}
+			}
+			return selected;
+		}
 		List<Node> nodes = selectNodeList(query);
 		List<XMLNode> selected = new ArrayList<XMLNode>();
 		for (XMLNode n : getDocumentNodesMap().keySet()) {
@@ -240,6 +343,105 @@ public class XMLDocumentManager implements ISelectableNodes<XMLNode> {
 		return selected;
 	}
 
+	private void selectOutlineNodes(List<INode> nodes, String path, List<XMLNode> selected) {
+		for (INode n : nodes) {
+			StructureOutline o = null;
+			if (n instanceof XMLOutlineNode) {
+				o = ((XMLOutlineNode) n).getOutline();
+			} else if (n instanceof XMLOutlineNode.Attribute) {
+				o = ((XMLOutlineNode.Attribute) n).getOutline();
+			}
+			if (o == null) {
+				continue;
+			}
+			String nodePath = getAbsoluteXPathExpression(o);
+			// the descendant axis at the beginning matches any path that ends the same
+			if (path.startsWith("//") ? nodePath.endsWith(path.substring(1)) : nodePath.equals(path)) {
+				selected.add((XMLNode) n);
+			}
+			if (n instanceof XMLOutlineNode) {
+				selectOutlineNodes(((XMLOutlineNode) n).getMaterializedChildren(), path, selected);
+			}
+		}
+	}
+
+	/**
+	 * Reads the outline of an xml document with StAX, in bounded memory.
+	 * 
+	 * @param in
+	 *            the document
+	 * @param namespaceAware
+	 *            true if the names of the nodes are namespace aware
+	 * @param monitor
+	 *            the progress monitor, can be null
+	 * @return the outline of the document, null if the operation was cancelled
+	 * @throws XMLStreamException
+	 */
+	public static StructureOutline readOutline(InputStream in, boolean namespaceAware, IProgressMonitor monitor)
+			throws XMLStreamException {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, namespaceAware);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		StructureOutline root = new StructureOutline();
+		// the ancestors of the current element, null if they are not in the outline
+		List<StructureOutline> stack = new ArrayList<StructureOutline>();
+		StringBuilder text = new StringBuilder();
+		int textLimit = StructureOutline.MAX_SAMPLE_LENGTH + 1;
+		StructureOutline current = root;
+		XMLStreamReader reader = factory.createXMLStreamReader(in);
+		try {
+			while (reader.hasNext()) {
+				if (monitor != null && monitor.isCanceled()) {
+					return null;
+				}
+				switch (reader.next()) {
+				case XMLStreamConstants.START_ELEMENT:
+					stack.add(current);
+					if (current != null) {
+						current = current.getChild(getName(reader.getPrefix(), reader.getLocalName()), false);
+					}
+					if (current != null) {
+						current.increment();
+						for (int i = 0; i < reader.getAttributeCount(); i++) {
+							StructureOutline a = current.getChild(
+									getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), true);
+							if (a != null) {
+								a.increment();
+								a.addSample(reader.getAttributeValue(i));
+							}
+						}
+					}
+					text.setLength(0);
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+					if (text.length() < textLimit) {
+						text.append(reader.getTextCharacters(), reader.getTextStart(),
+								Math.min(reader.getTextLength(), textLimit - text.length()));
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					if (current != null) {
+						current.addSample(text.toString().trim());
+					}
+					text.setLength(0);
+					current = stack.remove(stack.size() - 1);
+					break;
+				default:
+					break;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return root;
+	}
+
+	private static String getName(String prefix, String localName) {
+		return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+	}
+
 	/**
 	 * Updates the Jasper Configuration reference.
 	 * 
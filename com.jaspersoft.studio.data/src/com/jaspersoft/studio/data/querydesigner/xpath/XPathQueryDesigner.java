@@ -3,6 +3,7 @@
  *******************************************************************************/
 package com.jaspersoft.studio.data.querydesigner.xpath;
 
+import java.io.ByteArrayInputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -47,6 +48,7 @@ import com.jaspersoft.studio.data.designer.AQueryDesignerContainer;
 import com.jaspersoft.studio.data.designer.tree.NodeBoldStyledLabelProvider;
 import com.jaspersoft.studio.data.designer.tree.TreeBasedQueryDesigner;
 import com.jaspersoft.studio.data.messages.Messages;
+import com.jaspersoft.studio.data.querydesigner.StructureOutline;
 import com.jaspersoft.studio.dnd.NodeDragListener;
 import com.jaspersoft.studio.dnd.NodeTransfer;
 import com.jaspersoft.studio.model.datasource.xml.XMLAttributeNode;
@@ -132,7 +134,7 @@ public class XPathQueryDesigner extends TreeBasedQueryDesigner {
 
 	@Override
 	protected void decorateTreeUsingQueryText() {
-		if (documentManager.isDocumentSet()) {
+		if (documentManager.isDocumentSet() || documentManager.getOutline() != null) {
 			decorateJob.cancel();
 			decorateJob.schedule(JOB_DELAY);
 		}
@@ -304,7 +306,8 @@ public class XPathQueryDesigner extends TreeBasedQueryDesigner {
 						setDocumentRootItem.setEnabled(false);
 					} else {
 						setRecordNodeItem.setEnabled(true);
-						setDocumentRootItem.setEnabled(true);
+						// the outline of a large document has no nodes to import
+						setDocumentRootItem.setEnabled(documentManager.isDocumentSet());
 					}
 				} else {
 					setRecordNodeItem.setEnabled(false);
@@ -426,8 +429,19 @@ public class XPathQueryDesigner extends TreeBasedQueryDesigner {
 						parameters = new HashMap<String, Object>();
 					ins = DataFileUtils.instance(new ParameterContributorContext(jConfig, null, null))
 							.getDataStream(dataFile, parameters);
-					doc = JRXmlUtils.parse(ins, namespaceAware);
-					documentManager.setDocument(doc);
+					long threshold = StructureOutline.getStreamingThreshold(jConfig);
+					byte[] prefix = StructureOutline.readPrefix(ins, threshold);
+					if (prefix.length <= threshold) {
+						doc = JRXmlUtils.parse(new ByteArrayInputStream(prefix), namespaceAware);
+						documentManager.setDocument(doc);
+					} else {
+						// too big for the DOM, only its outline is read
+						StructureOutline outline = XMLDocumentManager
+								.readOutline(StructureOutline.join(prefix, ins), namespaceAware, monitor);
+						if (outline == null)
+							return Status.CANCEL_STATUS;
+						documentManager.setOutline(outline);
+					}
 					documentManager.setJasperConfiguration(XPathQueryDesigner.this.container.getjConfig());
 
 					return Status.OK_STATUS;
@@ -37,7 +37,7 @@ public class XLSFieldsProvider implements IFieldsProvider {
 		parameters.put("REPORT_PARAMETERS_MAP", new HashMap<String, Object>());
 		con.contributeParameters(parameters);
 		ParameterUtil.setParameters(jConfig, reportDataset, parameters);
-		parameters.put(JRParameter.REPORT_MAX_COUNT, FieldTypeGuesser.SAMPLESIZE);
+		parameters.put(JRParameter.REPORT_MAX_COUNT, FieldTypeGuesser.getSampleSize(jConfig));
 
 		if (monitor != null && monitor.isCanceled())
 			return null;
@@ -62,7 +62,8 @@ public class XLSFieldsProvider implements IFieldsProvider {
 				field.setValueClass(String.class);
 				columns.add(field);
 			}
-			FieldTypeGuesser.guessTypes(ds, columns, hasNext, monitor);
+			FieldTypeGuesser.guessTypes(ds, columns, hasNext, FieldTypeGuesser.getSampleSize(jConfig),
+					FieldTypeGuesser.isReservoirSampling(jConfig), monitor);
 			return columns;
 		}
 		return null;
@@ -43,6 +43,10 @@ public class JRSEditorContributor implements IEditorContributor {
 	private static final String IS_FROM_SAVE_AS = "isFromSaveAs";
 
 	public void onInitContext(final JasperReportsConfiguration jConfig) {
+		createRepositoryService(jConfig);
+	}
+
+	private JRSRepositoryService createRepositoryService(final JasperReportsConfiguration jConfig) {
 		JSSFileRepositoryService repService = jConfig.getFileRepositoryService();
 		if (repService != null) {
 			List<RepositoryService> rservices = repService.getRepositoryServices();
@@ -55,8 +59,11 @@ public class JRSEditorContributor implements IEditorContributor {
 						toDel.add(frs);
 				}
 			rservices.removeAll(toDel);
-			rservices.add(new JRSRepositoryService(repService, jConfig));
+			JRSRepositoryService jrsService = new JRSRepositoryService(repService, jConfig);
+			rservices.add(jrsService);
+			return jrsService;
 		}
+		return null;
 	}
 
 	public void onLoad(final JasperDesign jd, final EditorPart editor) {
@@ -66,7 +73,10 @@ public class JRSEditorContributor implements IEditorContributor {
 		// if (prop == null)
 		// return;
 		AbstractJRXMLEditor jEditor = (AbstractJRXMLEditor) editor;
-		onInitContext(jEditor.getJrContext(null));
+		JRSRepositoryService jrsService = createRepositoryService(jEditor.getJrContext(null));
+		// download the resources of a report from the server while the editor opens
+		if (jrsService != null && jd != null)
+			jrsService.prefetch(jd);
 	}
 
 	public static final String KEY_PUBLISH2JSS = "PUBLISH2JSS";
@@ -89,10 +99,17 @@ public class JRSEditorContributor implements IEditorContributor {
 			return;
 
 		MScopedPreferenceStore pStore = (MScopedPreferenceStore) jConfig.getPrefStore();
-		pStore.setWithDefault(false);
-		String sRun = Misc.nullIfEmpty(pStore.getString(KEY_PUBLISH2JSS));
-		String sAllways = Misc.nullIfEmpty(pStore.getString(KEY_PUBLISH2JSS_SILENT));
-		pStore.setWithDefault(true);
+		String sRun;
+		String sAllways;
+		synchronized (pStore) {
+			pStore.setWithDefault(false);
+			try {
+				sRun = Misc.nullIfEmpty(pStore.getString(KEY_PUBLISH2JSS));
+				sAllways = Misc.nullIfEmpty(pStore.getString(KEY_PUBLISH2JSS_SILENT));
+			} finally {
+				pStore.setWithDefault(true);
+			}
+		}
 
 		boolean run = sRun == null ? true : Boolean.parseBoolean(sRun);
 		boolean allways = sAllways == null ? true : Boolean.parseBoolean(sAllways);
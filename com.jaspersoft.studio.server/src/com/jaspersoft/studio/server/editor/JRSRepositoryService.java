@@ -6,9 +6,18 @@ package com.jaspersoft.studio.server.editor;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -33,6 +42,7 @@ import com.jaspersoft.studio.server.export.AExporter;
 import com.jaspersoft.studio.server.messages.Messages;
 import com.jaspersoft.studio.server.model.server.MServerProfile;
 import com.jaspersoft.studio.server.protocol.IConnection;
+import com.jaspersoft.studio.server.protocol.RepositoryCache;
 import com.jaspersoft.studio.server.publish.PublishUtil;
 import com.jaspersoft.studio.server.utils.ReferenceResolver;
 import com.jaspersoft.studio.utils.CacheMap;
@@ -43,23 +53,54 @@ import com.jaspersoft.studio.utils.jasper.ResourceChangeEvent;
 import net.sf.jasperreports.eclipse.ui.util.UIUtils;
 import net.sf.jasperreports.eclipse.util.FileUtils;
 import net.sf.jasperreports.eclipse.util.Misc;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRExpression;
 import net.sf.jasperreports.engine.JRRuntimeException;
+import net.sf.jasperreports.engine.design.JRExpressionCollector;
 import net.sf.jasperreports.engine.design.JasperDesign;
 import net.sf.jasperreports.repo.FileRepositoryService;
 import net.sf.jasperreports.repo.RepositoryService;
 import net.sf.jasperreports.repo.Resource;
 import net.sf.jasperreports.repo.SimpleRepositoryContext;
 
+/**
+ * Resolve the resources of a report published on JasperReports Server,
+ * downloading them in the temporary workspace of the server profile.
+ *
+ * The resources are resolved concurrently: a download is shared by all the
+ * threads asking for the same uri, while different uris are downloaded in
+ * parallel. When the report is opened all the <code>repo:</code> uris in its
+ * expressions are prefetched in background, so the editor and the fill find
+ * them already downloaded.
+ */
 public class JRSRepositoryService implements RepositoryService {
+	/** maximum number of resources prefetched at the same time */
+	private static final int MAX_THREADS = 4;
+	private static final ThreadPoolExecutor PREFETCH_EXECUTOR = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 30,
+			TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+				Thread t = new Thread(r, "JRS Resource Prefetch"); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			});
+	static {
+		PREFETCH_EXECUTOR.allowCoreThreadTimeOut(true);
+	}
+	/** a repo: uri in a string literal of an expression */
+	private static final Pattern REPO_URI = Pattern.compile("\"(repo:[^\"\\\\]+)\""); //$NON-NLS-1$
+
 	private JSSFileRepositoryService parent;
 	private MServerProfile msp;
-	private IConnection c;
+	private volatile IConnection c;
 	private String rpath;
 	private String serverUri;
 	private JasperDesign jDesign;
 	private String runitUri;
 	private JasperReportsConfiguration jConfig;
-	private FileRepositoryService repService;
+	private volatile FileRepositoryService repService;
+	/** the downloads running, by uri */
+	private final Map<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+	/** the report to prefetch once connected */
+	private JasperDesign toPrefetch;
 
 	public JRSRepositoryService(JSSFileRepositoryService parent, JasperReportsConfiguration jConfig) {
 		this.parent = parent;
@@ -70,7 +111,8 @@ public class JRSRepositoryService implements RepositoryService {
 		return repService;
 	}
 
-	private <K extends Resource> boolean hasServerUrl(final String objuri, final Class<K> resourceType) {
+	private synchronized <K extends Resource> boolean hasServerUrl(final String objuri,
+			final Class<K> resourceType) {
 		String uri = null;
 		String serverUser = null;
 		if (jDesign == null)
@@ -121,14 +163,14 @@ public class JRSRepositoryService implements RepositoryService {
 			if (msp != null)
 				setupConnection(msp.getWsClient(value -> {
 					setupConnection(value);
-					if (c != null)
+					if (c != null && objuri != null)
 						getResource(objuri, resourceType);
 				}));
 		}
 		return true;
 	}
 
-	private void setupConnection(IConnection conn) {
+	private synchronized void setupConnection(IConnection conn) {
 		c = conn;
 		try {
 			initRPath();
@@ -145,6 +187,10 @@ public class JRSRepositoryService implements RepositoryService {
 		} finally {
 			isConnecting = false;
 		}
+		if (c != null && toPrefetch != null) {
+			startPrefetch(toPrefetch);
+			toPrefetch = null;
+		}
 	}
 
 	private void initRPath() throws IOException, CoreException {
@@ -174,8 +220,61 @@ public class JRSRepositoryService implements RepositoryService {
 	private List<ResourceDescriptor> reportUnitResources = null;
 	private CacheMap<String, String> negCache = new CacheMap<>(1000);
 
+	/**
+	 * Download in background all the resources referenced in the report with a
+	 * <code>repo:</code> uri, if the report comes from a server. If the server is
+	 * not connected yet the resources are downloaded once connected
+	 */
+	public void prefetch(JasperDesign jd) {
+		synchronized (this) {
+			jDesign = jd;
+			if (!hasServerUrl(null, Resource.class))
+				return;
+			if (c == null) {
+				toPrefetch = jd;
+				return;
+			}
+		}
+		startPrefetch(jd);
+	}
+
+	private void startPrefetch(JasperDesign jd) {
+		List<CompletableFuture<Void>> futures = new ArrayList<>();
+		for (String uri : getRepositoryUris(jd))
+			futures.add(CompletableFuture.runAsync(() -> {
+				try {
+					fetch(uri.substring(5));
+				} catch (Exception e) {
+					// the resource is resolved again when the report uses it
+				}
+			}, PREFETCH_EXECUTOR));
+		if (!futures.isEmpty())
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).thenRun(this::refresh);
+	}
+
+	/**
+	 * @return the <code>repo:</code> uris in the string literals of the
+	 *         expressions of the report
+	 */
+	private Set<String> getRepositoryUris(JasperDesign jd) {
+		Set<String> uris = new LinkedHashSet<>();
+		JRExpressionCollector rc = JRExpressionCollector.collector(jConfig, jd);
+		List<JRExpression> expressions = new ArrayList<>(rc.getExpressions());
+		for (JRDataset ds : jd.getDatasets())
+			expressions.addAll(rc.getExpressions(ds));
+		for (JRExpression exp : expressions) {
+			String text = exp.getText();
+			if (text == null || !text.contains("repo:")) //$NON-NLS-1$
+				continue;
+			Matcher m = REPO_URI.matcher(text);
+			while (m.find())
+				uris.add(m.group(1));
+		}
+		return uris;
+	}
+
 	@Override
-	public synchronized <K extends Resource> K getResource(String uri, Class<K> resourceType) {
+	public <K extends Resource> K getResource(String uri, Class<K> resourceType) {
 		// System.out.println("getResource: " + uri);
 		if (hasServerUrl(uri, resourceType) && c != null) {
 			if (uri.startsWith("repo:")) {
@@ -199,15 +298,19 @@ public class JRSRepositoryService implements RepositoryService {
 		// System.out.println("Add to " + (res == null ? "neg" : "pos") + "
 		// cache: " + uri);
 		if (res == null)
-			negCache.put(uri, null);
+			synchronized (negCache) {
+				negCache.put(uri, null);
+			}
 		return res;
 	}
 
 	protected <K extends Resource> K doGetResource(String uri, Class<K> resourceType) {
 		// System.out.println("doGetResource: " + uri);
-		if (negCache.containsKey(uri)) {
-			// System.out.println("in negative cache " + uri);
-			return null;
+		synchronized (negCache) {
+			if (negCache.containsKey(uri)) {
+				// System.out.println("in negative cache " + uri);
+				return null;
+			}
 		}
 		String objectUri = uri;
 		if (uri.startsWith("repo:")) { //$NON-NLS-1$
@@ -218,69 +321,9 @@ public class JRSRepositoryService implements RepositoryService {
 		}
 		if (c != null)
 			try {
-				IProgressMonitor monitor = new NullProgressMonitor();
 				// System.out.println("get from server " + uri);
-				if (objectUri.contains("/")) { //$NON-NLS-1$
-					// Locate the resource inside the repository...
-					ResourceDescriptor r = new ResourceDescriptor();
-					r.setUriString(objectUri);
-					r = c.get(monitor, r, null);
-					if (r.getIsReference())
-						r = ReferenceResolver.resolveReference(c, r, null);
-					if (rpath == null)
-						initRPath();
-					String fpath = Misc.nvl(rpath);
-					if (!objectUri.startsWith("/")) //$NON-NLS-1$
-						fpath += "/"; //$NON-NLS-1$
-					fpath += objectUri;
-					File f = new File(fpath);
-					if (f.getParentFile() != null)
-						f.getParentFile().mkdirs();
-					if (f.createNewFile()) {
-						if (!r.getIsReference() && r.getHasData() && r.getData() != null) {
-							org.apache.commons.io.FileUtils.writeByteArrayToFile(f, r.getData());
-						} else
-							c.get(monitor, r, f);
-					}
-					fileTypes.put(f, r.getWsType());
-				} else if (runitUri != null) {
-					// Locate the resource inside the report unit, if any...
-					if (reportUnitResources == null) {
-						ResourceDescriptor rd = new ResourceDescriptor();
-						rd.setWsType(ResourceDescriptor.TYPE_REPORTUNIT);
-						rd.setUriString(runitUri);
-						rd = c.get(monitor, rd, null);
-						reportUnitResources = c.list(monitor, rd);
-						if (reportUnitResources == null)
-							reportUnitResources = new ArrayList<>();
-					}
-
-					// find the resource...
-					for (ResourceDescriptor r : reportUnitResources) {
-						if (r.getName() == null || !r.getName().equals(objectUri))
-							continue;
-						if (r.getIsReference())
-							r = ReferenceResolver.resolveReference(c, r, monitor);
-						if (ResourceFactory.isFileResourceType(r)) {
-							IFile file = (IFile) jConfig.get(FileUtils.KEY_FILE);
-
-							File fp = null;
-							IContainer pf = file.getParent();
-							if (pf.getRawLocation() != null)
-								fp = pf.getRawLocation().toFile();
-							else if (pf.getLocationURI() != null)
-								fp = new File(pf.getLocationURI());
-							else
-								return addToCache(null, uri);
-
-							File f = new File(fp, objectUri);
-							if (f.getParentFile() != null && !f.getParentFile().mkdirs() && f.createNewFile())
-								c.get(monitor, r, f);
-							fileTypes.put(f, r.getWsType());
-							break;
-						}
-					}
-				}
+				if (fetch(objectUri))
+					return addToCache(null, uri);
 				refresh();
 				String u = uri;
 				if (u.startsWith("repo:"))
@@ -292,6 +335,114 @@ public class JRSRepositoryService implements RepositoryService {
 		return addToCache(null, uri);
 	}
 
+	/**
+	 * Download a resource, if another thread is downloading the same resource
+	 * wait for it instead of downloading it again
+	 * 
+	 * @return true if the resource can not be found
+	 */
+	private boolean fetch(String objectUri) throws Exception {
+		CompletableFuture<Boolean> f = new CompletableFuture<>();
+		CompletableFuture<Boolean> running = inFlight.putIfAbsent(objectUri, f);
+		if (running != null) {
+			try {
+				return running.get();
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception)
+					throw (Exception) e.getCause();
+				throw e;
+			}
+		}
+		try {
+			boolean notFound = download(objectUri, new NullProgressMonitor());
+			f.complete(notFound);
+			return notFound;
+		} catch (Exception e) {
+			f.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(objectUri, f);
+		}
+	}
+
+	private boolean download(String objectUri, IProgressMonitor monitor) throws Exception {
+		IConnection c = this.c;
+		if (c == null)
+			return true;
+		if (objectUri.contains("/")) { //$NON-NLS-1$
+			// Locate the resource inside the repository...
+			if (rpath == null)
+				initRPath();
+			String fpath = Misc.nvl(rpath);
+			if (!objectUri.startsWith("/")) //$NON-NLS-1$
+				fpath += "/"; //$NON-NLS-1$
+			fpath += objectUri;
+			File f = new File(fpath);
+			// a resource validated recently is used without asking the server
+			RepositoryCache cache = RepositoryCache.getInstance(msp.getValue());
+			if (!f.equals(cache.getValidContent(objectUri))) {
+				ResourceDescriptor r = new ResourceDescriptor();
+				r.setUriString(objectUri);
+				r = c.get(monitor, r, null);
+				if (r.getIsReference())
+					r = ReferenceResolver.resolveReference(c, r, null);
+				if (f.getParentFile() != null)
+					f.getParentFile().mkdirs();
+				// download only if the resource was changed since the last time
+				if (!cache.isCurrent(objectUri, r, f)) {
+					if (!r.getIsReference() && r.getHasData() && r.getData() != null) {
+						org.apache.commons.io.FileUtils.writeByteArrayToFile(f, r.getData());
+					} else
+						c.get(monitor, r, f);
+					cache.putContent(objectUri, r, f);
+					fileTypes.put(f, r.getWsType());
+				}
+			}
+		} else if (runitUri != null) {
+			// Locate the resource inside the report unit, if any...
+			for (ResourceDescriptor r : getReportUnitResources(c, monitor)) {
+				if (r.getName() == null || !r.getName().equals(objectUri))
+					continue;
+				if (r.getIsReference())
+					r = ReferenceResolver.resolveReference(c, r, monitor);
+				if (ResourceFactory.isFileResourceType(r)) {
+					IFile file = (IFile) jConfig.get(FileUtils.KEY_FILE);
+
+					File fp = null;
+					IContainer pf = file.getParent();
+					if (pf.getRawLocation() != null)
+						fp = pf.getRawLocation().toFile();
+					else if (pf.getLocationURI() != null)
+						fp = new File(pf.getLocationURI());
+					else
+						return true;
+
+					File f = new File(fp, objectUri);
+					if (f.getParentFile() != null && !f.getParentFile().mkdirs() && f.createNewFile())
+						c.get(monitor, r, f);
+					fileTypes.put(f, r.getWsType());
+					break;
+				}
+			}
+		}
+		return false;
+	}
+
+	private List<ResourceDescriptor> getReportUnitResources(IConnection c, IProgressMonitor monitor) throws Exception {
+		synchronized (inFlight) {
+			if (reportUnitResources == null) {
+				ResourceDescriptor rd = new ResourceDescriptor();
+				rd.setWsType(ResourceDescriptor.TYPE_REPORTUNIT);
+				rd.setUriString(runitUri);
+				rd = c.get(monitor, rd, null);
+				reportUnitResources = c.list(monitor, rd);
+				if (reportUnitResources == null)
+					reportUnitResources = new ArrayList<>();
+			}
+			return reportUnitResources;
+		}
+	}
+
 	protected <K extends Resource> K getFromParent(String uri, Class<K> resourceType) {
 		// System.out.println("get from parent " + uri);
 		for (RepositoryService rs : parent.getRepositoryServices()) {
@@ -308,12 +459,12 @@ public class JRSRepositoryService implements RepositoryService {
 		return null;
 	}
 
-	private boolean isRefreshing = false;
-	private boolean needNewRefresh = false;
-	private Map<File, String> fileTypes = new HashMap<>();
+	private volatile boolean isRefreshing = false;
+	private volatile boolean needNewRefresh = false;
+	private Map<File, String> fileTypes = new ConcurrentHashMap<>();
 	private IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
 
-	private void refresh() {
+	private synchronized void refresh() {
 		needNewRefresh = true;
 		if (isRefreshing)
 			return;
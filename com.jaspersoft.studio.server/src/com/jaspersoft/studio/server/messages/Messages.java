@@ -508,6 +508,8 @@ public class Messages extends NLS {
 	public static String InitJRSbuiltinparameters;
 	public static String Refreshingtree;
 	public static String Uploadingdrivers;
+	public static String Publish_uploaded;
+	public static String Publish_uploadedRetries;
 	static {
 		// initialize resource bundle
 		NLS.initializeMessages(BUNDLE_NAME, Messages.class);
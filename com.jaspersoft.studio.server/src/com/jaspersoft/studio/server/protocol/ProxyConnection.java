@@ -4,6 +4,7 @@
 package com.jaspersoft.studio.server.protocol;
 
 import java.io.File;
+import java.io.IOException;
 import java.security.cert.CertificateException;
 import java.text.Format;
 import java.util.ArrayList;
@@ -222,8 +223,11 @@ public class ProxyConnection implements IConnection {
 				error401 = false;
 				throw e;
 			}
-		if (rd != null)
+		if (rd != null) {
 			rd.setChildrenDirty(false);
+			if (sp != null)
+				RepositoryCache.getInstance(sp).revalidate(rd);
+		}
 		error401 = false;
 		return rd;
 	}
@@ -257,16 +261,32 @@ public class ProxyConnection implements IConnection {
 					error401 = true;
 					return list(monitor, rd);
 				}
+			} else if (e instanceof IOException && isFolder(rd)) {
+				// the server is not reachable, show the last known content
+				List<ResourceDescriptor> cached = RepositoryCache.getInstance(sp).getFolder(rd.getUriString());
+				if (cached != null) {
+					Activator.getDefault().logError(e);
+					error401 = false;
+					return cached;
+				}
 			}
 			error401 = false;
 			throw e;
 		}
 		for (ResourceDescriptor r : list)
 			r.setChildrenDirty(false);
+		// a cancelled listing can stop between two pages, do not keep it as the
+		// content of the folder
+		if (isFolder(rd) && !monitor.isCanceled())
+			RepositoryCache.getInstance(sp).putFolder(rd.getUriString(), list);
 		error401 = false;
 		return list;
 	}
 
+	private boolean isFolder(ResourceDescriptor rd) {
+		return sp != null && rd.getUriString() != null && ResourceDescriptor.TYPE_FOLDER.equals(rd.getWsType());
+	}
+
 	@Override
 	public List<ResourceDescriptor> listDatasources(IProgressMonitor monitor, IDatasourceFilter f) throws Exception {
 		List<ResourceDescriptor> list = null;
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.server.protocol;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.runtime.jobs.Job;
+
+import com.jaspersoft.jasperserver.api.metadata.xml.domain.impl.ResourceDescriptor;
+import com.jaspersoft.studio.server.Activator;
+import com.jaspersoft.studio.server.model.server.ServerProfile;
+import com.jaspersoft.studio.server.protocol.restv2.DiffFields;
+import com.jaspersoft.studio.utils.CacheFileUtils;
+
+import net.sf.jasperreports.eclipse.util.Misc;
+
+/**
+ * On disk cache of the repository of a server profile, one file for every
+ * profile.
+ *
+ * The cache keeps the content of the folders listed while browsing the server,
+ * so the last known tree is available when the server can not be reached, and
+ * the version of the resources downloaded in the temporary workspace of the
+ * profile. A downloaded resource is revalidated comparing its
+ * <code>version</code> and <code>updateDate</code> with the ones returned by the
+ * server: every folder listing revalidates the resources it contains, and a
+ * resource revalidated in the last {@link #REVALIDATE_INTERVAL} is used without
+ * asking the server.
+ *
+ * The cache does not depend on the connection, so it can be filled from any
+ * {@link IConnection}, also a stub one.
+ */
+public class RepositoryCache {
+	private static final int VERSION = 1;
+	/** time after which a downloaded resource is validated again */
+	public static final long REVALIDATE_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+	/** delay of the save after a change, to write once for many changes */
+	private static final long SAVE_DELAY = 2000;
+
+	private static final Map<String, RepositoryCache> caches = new HashMap<>();
+
+	/**
+	 * @return the cache of the server profile, shared by all the connections to
+	 *         the same server with the same user
+	 */
+	public static synchronized RepositoryCache getInstance(ServerProfile sp) {
+		String key;
+		try {
+			key = sp.getUrl();
+		} catch (Exception e) {
+			key = Misc.nvl(sp.getName());
+		}
+		key += "|" + Misc.nvl(sp.getUser()) + "|" + Misc.nvl(sp.getOrganisation()); //$NON-NLS-1$ //$NON-NLS-2$
+		return caches.computeIfAbsent(key, k -> {
+			String name = UUID.nameUUIDFromBytes(k.getBytes(StandardCharsets.UTF_8)) + ".cache"; //$NON-NLS-1$
+			File dir = Activator.getDefault().getStateLocation().append("repository").toFile(); //$NON-NLS-1$
+			return new RepositoryCache(new File(dir, name));
+		});
+	}
+
+	/** the fields of a resource shown in the repository tree */
+	private static class Lookup implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private String uri;
+		private String parentFolder;
+		private String name;
+		private String label;
+		private String description;
+		private String wsType;
+		private int version;
+		private String updateDate;
+		private Date creationDate;
+		private int permissionMask;
+
+		private Lookup(ResourceDescriptor rd) {
+			uri = rd.getUriString();
+			parentFolder = rd.getParentFolder();
+			name = rd.getName();
+			label = rd.getLabel();
+			description = rd.getDescription();
+			wsType = rd.getWsType();
+			version = rd.getVersion();
+			updateDate = DiffFields.getSoapValue(rd, DiffFields.UPDATEDATE);
+			creationDate = rd.getCreationDate();
+			permissionMask = rd.getPermissionMask(null);
+		}
+
+		private ResourceDescriptor toResourceDescriptor() {
+			ResourceDescriptor rd = new ResourceDescriptor();
+			rd.setUriString(uri);
+			rd.setParentFolder(parentFolder);
+			rd.setName(name);
+			rd.setLabel(label);
+			rd.setDescription(description);
+			rd.setWsType(wsType);
+			rd.setVersion(version);
+			if (updateDate != null)
+				DiffFields.setSoapValue(rd, DiffFields.UPDATEDATE, updateDate);
+			rd.setCreationDate(creationDate);
+			rd.setPermissionMask(permissionMask);
+			rd.setIsNew(false);
+			rd.setChildrenDirty(false);
+			return rd;
+		}
+	}
+
+	/** a resource downloaded in the temporary workspace */
+	private static class Entry implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private int version;
+		private String updateDate;
+		private String file;
+		/** when the entry was validated against the server, not persisted */
+		private transient long validated;
+
+		private Entry(ResourceDescriptor rd, File file) {
+			version = rd.getVersion();
+			updateDate = DiffFields.getSoapValue(rd, DiffFields.UPDATEDATE);
+			this.file = file.getAbsolutePath();
+			validated = System.currentTimeMillis();
+		}
+
+		private boolean isCurrent(ResourceDescriptor rd) {
+			return version == rd.getVersion()
+					&& Misc.nvl(updateDate).equals(Misc.nvl(DiffFields.getSoapValue(rd, DiffFields.UPDATEDATE)));
+		}
+	}
+
+	private static class Snapshot implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private Map<String, List<Lookup>> folders = new HashMap<>();
+		private Map<String, Entry> entries = new HashMap<>();
+	}
+
+	private final File file;
+	private Snapshot snapshot;
+	private Job saveJob;
+
+	public RepositoryCache(File file) {
+		this.file = file;
+	}
+
+	private Snapshot getSnapshot() {
+		if (snapshot == null) {
+			snapshot = load();
+			if (snapshot == null)
+				snapshot = new Snapshot();
+		}
+		return snapshot;
+	}
+
+	/**
+	 * @return the last known content of a folder, null if it was never listed
+	 */
+	public synchronized List<ResourceDescriptor> getFolder(String uri) {
+		List<Lookup> lookups = getSnapshot().folders.get(uri);
+		if (lookups == null)
+			return null;
+		List<ResourceDescriptor> children = new ArrayList<>(lookups.size());
+		for (Lookup l : lookups)
+			children.add(l.toResourceDescriptor());
+		return children;
+	}
+
+	/**
+	 * Store the content of a folder, as returned by the server, and revalidate the
+	 * downloaded resources it contains
+	 */
+	public synchronized void putFolder(String uri, List<ResourceDescriptor> children) {
+		List<Lookup> lookups = new ArrayList<>(children.size());
+		for (ResourceDescriptor rd : children) {
+			lookups.add(new Lookup(rd));
+			revalidate(rd);
+		}
+		getSnapshot().folders.put(uri, lookups);
+		scheduleSave();
+	}
+
+	/**
+	 * Compare a resource returned by the server with the downloaded one, if it was
+	 * changed the downloaded content is not used anymore
+	 */
+	public synchronized void revalidate(ResourceDescriptor rd) {
+		if (rd == null || rd.getUriString() == null)
+			return;
+		Entry e = getSnapshot().entries.get(rd.getUriString());
+		if (e == null)
+			return;
+		if (e.isCurrent(rd))
+			e.validated = System.currentTimeMillis();
+		else {
+			getSnapshot().entries.remove(rd.getUriString());
+			scheduleSave();
+		}
+	}
+
+	/**
+	 * @return the downloaded content of a resource if it was validated in the
+	 *         last {@link #REVALIDATE_INTERVAL}, so it can be used without asking
+	 *         the server, null otherwise
+	 */
+	public synchronized File getValidContent(String uri) {
+		Entry e = getSnapshot().entries.get(uri);
+		if (e == null || System.currentTimeMillis() - e.validated > REVALIDATE_INTERVAL)
+			return null;
+		File f = new File(e.file);
+		return f.exists() ? f : null;
+	}
+
+	/**
+	 * @param uri
+	 *            the uri used to download the resource
+	 * @param rd
+	 *            the resource returned by the server, the target of the
+	 *            reference if uri is a reference
+	 * @param f
+	 *            the file where the content is downloaded
+	 * @return true if the file contains the same version of the resource, in
+	 *         this case the resource is marked as validated
+	 */
+	public synchronized boolean isCurrent(String uri, ResourceDescriptor rd, File f) {
+		Entry e = getSnapshot().entries.get(uri);
+		if (e == null || !e.file.equals(f.getAbsolutePath()) || !f.exists() || !e.isCurrent(rd))
+			return false;
+		e.validated = System.currentTimeMillis();
+		return true;
+	}
+
+	/**
+	 * Store the version of a resource downloaded in a file
+	 */
+	public synchronized void putContent(String uri, ResourceDescriptor rd, File f) {
+		getSnapshot().entries.put(uri, new Entry(rd, f));
+		scheduleSave();
+	}
+
+	public synchronized void remove(String uri) {
+		Snapshot s = getSnapshot();
+		if (s.entries.remove(uri) != null | s.folders.remove(uri) != null)
+			scheduleSave();
+	}
+
+	private void scheduleSave() {
+		if (saveJob == null)
+			saveJob = CacheFileUtils.createJob("Save Repository Cache", this::save); //$NON-NLS-1$
+		saveJob.schedule(SAVE_DELAY);
+	}
+
+	/**
+	 * Write the pending changes now, instead of waiting for the scheduled save
+	 */
+	public void flush() {
+		Job job;
+		synchronized (this) {
+			job = saveJob;
+		}
+		if (job != null) {
+			job.cancel();
+			try {
+				job.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		save();
+	}
+
+	private Snapshot load() {
+		Object snapshot = CacheFileUtils.readObject(file, VERSION);
+		return snapshot instanceof Snapshot ? (Snapshot) snapshot : null;
+	}
+
+	/**
+	 * Write the cache on disk, the content is copied while locked and written
+	 * outside the lock
+	 */
+	public void save() {
+		Snapshot copy = new Snapshot();
+		synchronized (this) {
+			if (snapshot == null)
+				return;
+			copy.folders.putAll(snapshot.folders);
+			copy.entries.putAll(snapshot.entries);
+		}
+		try {
+			CacheFileUtils.writeObject(file, VERSION, copy);
+		} catch (IOException e) {
+			Activator.getDefault().logError(e);
+		}
+	}
+}
@@ -74,31 +74,31 @@ public abstract class ARestV2Connection implements IConnection {
 	protected DateFormat timeFormat = new SimpleDateFormat("h:mm:ss", Locale.US);
 	protected NumberFormat numberFormat = NumberFormat.getInstance();
 
-	public Date toDate(String sdate) throws ParseException {
+	public synchronized Date toDate(String sdate) throws ParseException {
 		if (sdate == null)
 			return null;
 		return dateFormat.parse(sdate);
 	}
 
-	public Date toTimestamp(String sdate) throws ParseException {
+	public synchronized Date toTimestamp(String sdate) throws ParseException {
 		if (sdate == null)
 			return null;
 		return timestampFormat.parse(sdate);
 	}
 
-	public String date2str(Date d) throws ParseException {
+	public synchronized String date2str(Date d) throws ParseException {
 		if (d == null)
 			return null;
 		return dateFormat.format(d);
 	}
 
-	public String timestamp2str(Date d) throws ParseException {
+	public synchronized String timestamp2str(Date d) throws ParseException {
 		if (d == null)
 			return null;
 		return timestampFormat.format(d);
 	}
 
-	public String toRestString(Object obj) {
+	public synchronized String toRestString(Object obj) {
 		if (obj == null)
 			return null;
 		if (obj instanceof java.sql.Date)
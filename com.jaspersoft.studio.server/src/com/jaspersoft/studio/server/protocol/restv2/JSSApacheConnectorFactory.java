@@ -6,6 +6,8 @@ package com.jaspersoft.studio.server.protocol.restv2;
 import java.util.TimeZone;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
@@ -31,11 +33,16 @@ public class JSSApacheConnectorFactory extends ApacheConnectorProvider {
 
 	private Response doWait(Future<Response> rf, IProgressMonitor monitor) throws Exception {
 		try {
+			// requests run concurrently on the pooled connections, wake up only to
+			// check the monitor instead of polling the future
 			if (monitor != null)
-				while (!rf.isDone() && !rf.isCancelled()) {
-					if (monitor.isCanceled())
-						rf.cancel(true);
-					Thread.sleep(5);
+				while (true) {
+					try {
+						return rf.get(100, TimeUnit.MILLISECONDS);
+					} catch (TimeoutException e) {
+						if (monitor.isCanceled())
+							rf.cancel(true);
+					}
 				}
 			return rf.get();
 		} catch (InterruptedException e) {
@@ -45,7 +52,7 @@ public class JSSApacheConnectorFactory extends ApacheConnectorProvider {
 		}
 	}
 
-	public synchronized Response get(Builder builder, IProgressMonitor monitor) throws Exception {
+	public Response get(Builder builder, IProgressMonitor monitor) throws Exception {
 		builder.header("Accept-Timezone", TimeZone.getDefault().getID());
 		builder.header(HttpHeaders.USER_AGENT, HttpUtils.USER_AGENT_JASPERSOFT_STUDIO);
 		builder.header(HttpHeaders.CACHE_CONTROL, "no-cache");
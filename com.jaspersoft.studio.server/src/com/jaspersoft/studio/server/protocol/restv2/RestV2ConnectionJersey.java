@@ -350,6 +350,9 @@ public class RestV2ConnectionJersey extends ARestV2ConnectionJersey {
 		return serverInfo;
 	}
 
+	/** number of resources read with every request listing a folder */
+	private static final int LIST_PAGE_SIZE = 500;
+
 	@Override
 	public List<ResourceDescriptor> list(IProgressMonitor monitor, ResourceDescriptor rd) throws Exception {
 		List<ResourceDescriptor> rds = new ArrayList<>();
@@ -385,18 +388,27 @@ public class RestV2ConnectionJersey extends ARestV2ConnectionJersey {
 				throw e;
 			}
 		} else {
-			WebTarget tgt = target.path("resources"); //$NON-NLS-1$
-			tgt = tgt.queryParam("folderUri", rd.getUriString()); //$NON-NLS-1$
-			tgt = tgt.queryParam("recursive", "false"); //$NON-NLS-1$ //$NON-NLS-2$
-			tgt = tgt.queryParam("sortBy", "label"); //$NON-NLS-1$ //$NON-NLS-2$
-			tgt = tgt.queryParam("limit", 0); //$NON-NLS-1$
+			// large folders are read in pages, so no response contains the whole folder
+			boolean isPublic = false;
+			boolean found = false;
+			int offset = 0;
+			while (!monitor.isCanceled()) {
+				WebTarget tgt = target.path("resources"); //$NON-NLS-1$
+				tgt = tgt.queryParam("folderUri", rd.getUriString()); //$NON-NLS-1$
+				tgt = tgt.queryParam("recursive", "false"); //$NON-NLS-1$ //$NON-NLS-2$
+				tgt = tgt.queryParam("sortBy", "label"); //$NON-NLS-1$ //$NON-NLS-2$
+				tgt = tgt.queryParam("limit", LIST_PAGE_SIZE); //$NON-NLS-1$
+				tgt = tgt.queryParam("offset", offset); //$NON-NLS-1$
+				tgt = tgt.queryParam("forceFullPage", "true"); //$NON-NLS-1$ //$NON-NLS-2$
 
-			Builder req = HttpUtils.getRequest(tgt);
-			ClientResourceListWrapper resources = toObj(connector.get(req, monitor), ClientResourceListWrapper.class,
-					monitor);
-			if (resources != null) {
-				boolean isPublic = false;
-				for (ClientResourceLookup crl : resources.getResourceLookups()) {
+				Builder req = HttpUtils.getRequest(tgt);
+				ClientResourceListWrapper resources = toObj(connector.get(req, monitor),
+						ClientResourceListWrapper.class, monitor);
+				if (resources == null || resources.getResourceLookups() == null)
+					break;
+				found = true;
+				List<ClientResourceLookup> lookups = resources.getResourceLookups();
+				for (ClientResourceLookup crl : lookups) {
 					if (!isPublic)
 						isPublic = crl.getUri().equals("/public"); //$NON-NLS-1$
 					ResourceDescriptor nrd = Rest2Soap.getRDLookup(this, crl);
@@ -427,16 +439,19 @@ public class RestV2ConnectionJersey extends ARestV2ConnectionJersey {
 							nrd.setWsType(ResourceDescriptor.TYPE_AZURE_CERTIFICATE);
 					}
 				}
-				// workaround
-				if (rd.getUriString().equals("/") && !isPublic) { //$NON-NLS-1$
-					try {
-						ResourceDescriptor pub = new ResourceDescriptor();
-						pub.setUriString("/public"); //$NON-NLS-1$
-						pub.setWsType(ResourceDescriptor.TYPE_FOLDER);
-						rds.add(parent.get(monitor, pub, null));
-					} catch (Exception e) {
-						logger.log(Level.FINE, e.getMessage(), e);
-					}
+				offset += lookups.size();
+				if (lookups.size() < LIST_PAGE_SIZE)
+					break;
+			}
+			// workaround
+			if (found && rd.getUriString().equals("/") && !isPublic) { //$NON-NLS-1$
+				try {
+					ResourceDescriptor pub = new ResourceDescriptor();
+					pub.setUriString("/public"); //$NON-NLS-1$
+					pub.setWsType(ResourceDescriptor.TYPE_FOLDER);
+					rds.add(parent.get(monitor, pub, null));
+				} catch (Exception e) {
+					logger.log(Level.FINE, e.getMessage(), e);
 				}
 			}
 		}
@@ -7,6 +7,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
+import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,6 +40,8 @@ import com.jaspersoft.studio.server.model.MResourceBundle;
 import com.jaspersoft.studio.server.model.server.MServerProfile;
 import com.jaspersoft.studio.server.model.server.ServerProfile;
 import com.jaspersoft.studio.server.protocol.Feature;
+import com.jaspersoft.studio.server.protocol.IConnection;
+import com.jaspersoft.studio.server.publish.ResourceUploader.UploadTask;
 import com.jaspersoft.studio.server.wizard.resource.page.selector.SelectorDatasource;
 import com.jaspersoft.studio.statistics.UsageStatisticsIDs;
 import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
@@ -55,6 +58,7 @@ import net.sf.jasperreports.engine.design.JasperDesign;
 public class Publish {
 	private JasperReportsConfiguration jrConfig;
 	private List<String> resources = new ArrayList<>();
+	private ResourceUploader uploader = new ResourceUploader();
 
 	public Publish(JasperReportsConfiguration jrConfig) {
 		this.jrConfig = jrConfig;
@@ -63,7 +67,11 @@ public class Publish {
 	public IStatus publish(AMJrxmlContainer node, JasperDesign jd, IProgressMonitor monitor) {
 		try {
 			boolean isNewRU = node instanceof MReportUnit && node.getValue().getIsNew();
-			publishResources(monitor, jd, node);
+			try {
+				publishResources(monitor, jd, node);
+			} finally {
+				uploader.dispose();
+			}
 			if (monitor.isCanceled())
 				return Status.CANCEL_STATUS;
 
@@ -72,8 +80,17 @@ public class Publish {
 						UsageStatisticsIDs.CATEGORY_SERVER);
 
 			StringBuilder str = new StringBuilder(Messages.Publish_0);
-			for (String mres : resources)
-				str.append(mres).append("\n"); //$NON-NLS-1$
+			for (String mres : resources) {
+				UploadTask task = uploader.getTask(mres);
+				if (task == null)
+					str.append(mres);
+				else if (task.getAttempts() > 1)
+					str.append(MessageFormat.format(Messages.Publish_uploadedRetries, mres, task.getTime(),
+							task.getBytes(), task.getAttempts()));
+				else
+					str.append(MessageFormat.format(Messages.Publish_uploaded, mres, task.getTime(), task.getBytes()));
+				str.append("\n"); //$NON-NLS-1$
+			}
 			UIUtils.showInformation(str.toString());
 
 			// refresh
@@ -120,6 +137,8 @@ public class Publish {
 
 		List<AMResource> rs = jrConfig.get(PublishUtil.KEY_PUBLISH2JSS_DATA, new ArrayList<AMResource>());
 		updSelectedResources(monitor, rs, version, jd);
+		if (monitor.isCanceled())
+			return Status.CANCEL_STATUS;
 		FileUtils.writeFile(file, JRXmlWriterHelper.writeReport(jrConfig, jd, version));
 		jrxml.setFile(file);
 
@@ -175,19 +194,30 @@ public class Publish {
 			}
 			rdjrxml.setMainReport(isMain);
 			PublishUtil.setChild(r, rdjrxml);
+			// the resources outside the report unit are independent, upload them in
+			// parallel before the report unit that references them
+			IConnection client = mrunit.getWsClient();
 			for (AMResource res : rs) {
 				if (res.getPublishOptions().getOverwrite(OverwriteEnum.IGNORE).equals(OverwriteEnum.OVERWRITE)) {
 					ResourceDescriptor rd = res.getValue();
 					if (rd.getData() != null && !rd.getParentFolder().endsWith("_files")) //$NON-NLS-1$
-						mrunit.getWsClient().addOrModifyResource(monitor, rd, null);
+						uploader.submit(rd.getUriString(), ResourceUploader.getSize(rd, null),
+								m -> client.addOrModifyResource(m, rd, null), monitor);
 					else
 						PublishUtil.setChild(r, rd);
 				}
 			}
-			if (!mrunit.getWsClient().isSupported(Feature.SEARCHREPOSITORY) && !isMain)
-				mrunit.getWsClient().modifyReportUnitResource(monitor, r, rdjrxml, file);
+			if (!uploader.await(monitor))
+				return Status.CANCEL_STATUS;
+			ResourceDescriptor ru = r;
+			if (!client.isSupported(Feature.SEARCHREPOSITORY) && !isMain)
+				uploader.upload(ru.getUriString(), ResourceUploader.getSize(rdjrxml, file),
+						m -> client.modifyReportUnitResource(m, ru, rdjrxml, file), monitor);
 			else
-				mrunit.getWsClient().addOrModifyResource(monitor, r, file);
+				uploader.upload(ru.getUriString(), ResourceUploader.getSize(ru, file),
+						m -> client.addOrModifyResource(m, ru, file), monitor);
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
 			this.resources.add(r.getUriString());
 			for (AMResource res : rs)
 				if (res.getPublishOptions().getOverwrite(OverwriteEnum.IGNORE).equals(OverwriteEnum.OVERWRITE)) {
@@ -196,6 +226,10 @@ public class Publish {
 				}
 		} else {
 			jrxml.setValue(saveResource(monitor, jrxml));
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+			// the save changes the model of the server and retries by itself, the
+			// resources are saved one at time
 			for (AMResource res : rs) {
 				PublishOptions popt = res.getPublishOptions();
 				if (popt.getOverwrite(OverwriteEnum.IGNORE).equals(OverwriteEnum.OVERWRITE)) {
@@ -212,6 +246,8 @@ public class Publish {
 	protected void updSelectedResources(IProgressMonitor monitor, List<AMResource> files, String version,
 			JasperDesign jd) throws IOException, Exception {
 		List<MJrxml> toSave = new ArrayList<>();
+		List<AMResource> uploaded = new ArrayList<>();
+		List<UploadTask> tasks = new ArrayList<>();
 		for (AMResource res : files) {
 			PublishOptions popt = res.getPublishOptions();
 			if (!popt.getOverwrite(OverwriteEnum.IGNORE).equals(OverwriteEnum.IGNORE)) {
@@ -265,24 +301,11 @@ public class Publish {
 						rd.setParentFolder(popt.getReferencedResource().getUriString());
 						rd.setUriString(rd.getParentFolder() + "/" //$NON-NLS-1$
 								+ rd.getName());
-						ResourceDescriptor r = res.getWsClient().addOrModifyResource(monitor, rd,
-								res instanceof AFileResource ? ((AFileResource) res).getFile() : null);
-
-						ResourceDescriptor ref = new ResourceDescriptor();
-						ref.setName(rd.getName());
-						ref.setIsNew(true);
-						ref.setLabel(rd.getLabel());
-						ref.setDescription(rd.getDescription());
-						ref.setIsReference(true);
-						ref.setReferenceUri(r.getUriString());
-						ref.setParentFolder(rd.getParentFolder());
-						ref.setUriString(r.getUriString());
-						ref.setWsType(rd.getWsType());
-
-						res.setValue(ref);
-
-						if (res instanceof MResourceBundle)
-							setupResourceBundle(jd, res.getValue().getUriString());
+						IConnection client = res.getWsClient();
+						File file = res instanceof AFileResource ? ((AFileResource) res).getFile() : null;
+						uploaded.add(res);
+						tasks.add(uploader.submit(rd.getUriString(), ResourceUploader.getSize(rd, file),
+								m -> client.addOrModifyResource(m, rd, file), monitor));
 					} else if (popt.getPublishMethod() == ResourcePublishMethod.LOCAL
 							&& res instanceof MResourceBundle) {
 						setupResourceBundle(jd, res.getValue().getName());
@@ -293,6 +316,30 @@ public class Publish {
 				}
 			}
 		}
+		// the resources are uploaded in parallel, then replaced by references
+		if (!uploader.await(monitor))
+			return;
+		for (int i = 0; i < uploaded.size(); i++) {
+			AMResource res = uploaded.get(i);
+			ResourceDescriptor rd = res.getValue();
+			ResourceDescriptor r = tasks.get(i).getResult();
+
+			ResourceDescriptor ref = new ResourceDescriptor();
+			ref.setName(rd.getName());
+			ref.setIsNew(true);
+			ref.setLabel(rd.getLabel());
+			ref.setDescription(rd.getDescription());
+			ref.setIsReference(true);
+			ref.setReferenceUri(r.getUriString());
+			ref.setParentFolder(rd.getParentFolder());
+			ref.setUriString(r.getUriString());
+			ref.setWsType(rd.getWsType());
+
+			res.setValue(ref);
+
+			if (res instanceof MResourceBundle)
+				setupResourceBundle(jd, res.getValue().getUriString());
+		}
 		for (MJrxml mjrxml : toSave) {
 			if (mjrxml.getJd() != null) {
 				if (mjrxml.getValue().isMainReport())
@@ -338,12 +385,17 @@ public class Publish {
 
 	private ResourceDescriptor saveResource(IProgressMonitor monitor, AMResource mres) throws Exception {
 		String uri = mres.getValue().getUriString();
-		ResourceDescriptor rd = WSClientHelper.save(monitor, mres);
+		ResourceDescriptor rd = uploader.uploadNow(uri, getSize(mres), m -> WSClientHelper.save(m, mres), monitor);
 		if (rd != null)
 			resources.add(Misc.nvl(uri, rd.getUriString()));
 		return rd;
 	}
 
+	private static long getSize(AMResource mres) {
+		return ResourceUploader.getSize(mres.getValue(),
+				mres instanceof AFileResource ? ((AFileResource) mres).getFile() : null);
+	}
+
 	private void postProcessLocal(final MJrxml node) {
 		UIUtils.getDisplay().syncExec(() -> {
 			JasperDesign rpt = jrConfig.getJasperDesign();
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.server.publish;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.client.HttpResponseException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.jaspersoft.jasperserver.api.metadata.xml.domain.impl.ResourceDescriptor;
+
+/**
+ * Uploads the resources of a publish operation in parallel. The uploads are
+ * independent requests, they run on a bounded thread pool and share the pooled
+ * HTTP connections of the server connection.
+ *
+ * The dependency order is kept by the caller: everything submitted before a
+ * call to {@link #await(IProgressMonitor)} is on the server when it returns, so
+ * the resources are uploaded first and the report unit (or the jrxml) after.
+ *
+ * A failed upload is retried when the error is an I/O error or a server error
+ * (5xx), client errors (4xx) are reported immediately. The time, the bytes sent
+ * and the attempts of every upload are kept, by resource URI.
+ *
+ * The requests that change the shared model or that have their own retry, like
+ * {@link com.jaspersoft.studio.server.WSClientHelper#save(IProgressMonitor, com.jaspersoft.studio.server.model.AMResource)},
+ * must use {@link #uploadNow(String, long, Upload, IProgressMonitor)}.
+ */
+public class ResourceUploader {
+	/** maximum number of uploads running at the same time */
+	private static final int MAX_THREADS = 4;
+	/** number of attempts of every upload */
+	private static final int MAX_ATTEMPTS = 3;
+	/** wait before the first retry, doubled at every attempt */
+	private static final long RETRY_DELAY = 500;
+
+	public interface Upload {
+		public ResourceDescriptor upload(IProgressMonitor monitor) throws Exception;
+	}
+
+	public static class UploadTask {
+		private final String uri;
+		private final long bytes;
+		private final Upload upload;
+		private final int maxAttempts;
+		private long time;
+		private int attempts;
+		private ResourceDescriptor result;
+		private Exception error;
+
+		private UploadTask(String uri, long bytes, Upload upload, int maxAttempts) {
+			this.uri = uri;
+			this.bytes = bytes;
+			this.upload = upload;
+			this.maxAttempts = maxAttempts;
+		}
+
+		private void run(IProgressMonitor monitor) {
+			long start = System.nanoTime();
+			try {
+				while (true) {
+					attempts++;
+					try {
+						result = upload.upload(monitor);
+						error = null;
+						break;
+					} catch (Exception e) {
+						error = e;
+						if (attempts >= maxAttempts || !isRetryable(e) || monitor.isCanceled())
+							break;
+						Thread.sleep(RETRY_DELAY << (attempts - 1));
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			time = System.nanoTime() - start;
+		}
+
+		public String getUri() {
+			return uri;
+		}
+
+		/**
+		 * @return the size of the content sent to the server, 0 if the resource
+		 *         has no file
+		 */
+		public long getBytes() {
+			return bytes;
+		}
+
+		/**
+		 * @return the time of the upload in milliseconds, retries included
+		 */
+		public long getTime() {
+			return TimeUnit.NANOSECONDS.toMillis(time);
+		}
+
+		public int getAttempts() {
+			return attempts;
+		}
+
+		public ResourceDescriptor getResult() {
+			return result;
+		}
+
+		public Exception getError() {
+			return error;
+		}
+	}
+
+	private ExecutorService executor;
+	private List<Future<?>> pending = new ArrayList<>();
+	private List<UploadTask> tasks = new ArrayList<>();
+	private Map<String, UploadTask> tasksByUri = new HashMap<>();
+
+	/**
+	 * Starts an upload
+	 *
+	 * @param uri
+	 *            the URI of the resource, used to report the statistics
+	 * @param bytes
+	 *            the size of the content sent
+	 * @param upload
+	 *            the request
+	 * @param monitor
+	 *            shared by all the uploads, used to cancel them
+	 * @return the task, its result is available after
+	 *         {@link #await(IProgressMonitor)}
+	 */
+	public synchronized UploadTask submit(String uri, long bytes, Upload upload, IProgressMonitor monitor) {
+		if (executor == null)
+			executor = Executors.newFixedThreadPool(MAX_THREADS, r -> {
+				Thread t = new Thread(r, "Publish Upload"); //$NON-NLS-1$
+				t.setDaemon(true);
+				return t;
+			});
+		UploadTask task = addTask(uri, bytes, upload, MAX_ATTEMPTS);
+		pending.add(executor.submit(() -> task.run(monitor)));
+		return task;
+	}
+
+	private synchronized UploadTask addTask(String uri, long bytes, Upload upload, int maxAttempts) {
+		UploadTask task = new UploadTask(uri, bytes, upload, maxAttempts);
+		tasks.add(task);
+		if (uri != null)
+			tasksByUri.put(uri, task);
+		return task;
+	}
+
+	/**
+	 * Uploads the resource in the caller thread with a single attempt, the
+	 * statistics are kept as for the other uploads
+	 *
+	 * @return the saved resource, null if the operation was cancelled
+	 * @throws Exception
+	 *             the error of the upload
+	 */
+	public ResourceDescriptor uploadNow(String uri, long bytes, Upload upload, IProgressMonitor monitor)
+			throws Exception {
+		if (monitor.isCanceled())
+			return null;
+		UploadTask task = addTask(uri, bytes, upload, 1);
+		task.run(monitor);
+		if (task.getError() != null)
+			throw task.getError();
+		return task.getResult();
+	}
+
+	/**
+	 * Uploads the resource and waits for it, with the same retries and statistics
+	 * of the parallel uploads
+	 */
+	public ResourceDescriptor upload(String uri, long bytes, Upload upload, IProgressMonitor monitor)
+			throws Exception {
+		UploadTask task = submit(uri, bytes, upload, monitor);
+		if (!await(monitor))
+			return null;
+		return task.getResult();
+	}
+
+	/**
+	 * Waits for all the uploads started so far
+	 *
+	 * @return false if the operation was cancelled
+	 * @throws Exception
+	 *             the error of the first failed upload, in submission order
+	 */
+	public boolean await(IProgressMonitor monitor) throws Exception {
+		List<Future<?>> futures;
+		synchronized (this) {
+			futures = pending;
+			pending = new ArrayList<>();
+		}
+		for (Future<?> f : futures) {
+			while (true) {
+				try {
+					f.get(100, TimeUnit.MILLISECONDS);
+					break;
+				} catch (ExecutionException e) {
+					// errors are kept in the tasks
+					break;
+				} catch (TimeoutException e) {
+					if (monitor.isCanceled()) {
+						for (Future<?> fc : futures)
+							fc.cancel(true);
+						return false;
+					}
+				}
+			}
+		}
+		if (monitor.isCanceled())
+			return false;
+		for (UploadTask t : getTasks())
+			if (t.getError() != null)
+				throw t.getError();
+		return true;
+	}
+
+	/**
+	 * @return the uploads, in submission order
+	 */
+	public synchronized List<UploadTask> getTasks() {
+		return new ArrayList<>(tasks);
+	}
+
+	public synchronized UploadTask getTask(String uri) {
+		return tasksByUri.get(uri);
+	}
+
+	public synchronized void dispose() {
+		if (executor != null)
+			executor.shutdownNow();
+		executor = null;
+	}
+
+	private static boolean isRetryable(Exception e) {
+		if (e instanceof HttpResponseException)
+			return ((HttpResponseException) e).getStatusCode() >= 500;
+		return e instanceof IOException;
+	}
+
+	/**
+	 * @return the size of the content of a resource, from its file or from the
+	 *         data of the descriptor
+	 */
+	public static long getSize(ResourceDescriptor rd, File file) {
+		if (file != null)
+			return file.length();
+		return rd.getData() != null ? rd.getData().length : 0;
+	}
+}
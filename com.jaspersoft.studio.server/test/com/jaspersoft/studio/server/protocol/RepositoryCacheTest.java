@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.server.protocol;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import com.jaspersoft.jasperserver.api.metadata.xml.domain.impl.ResourceDescriptor;
+import com.jaspersoft.studio.server.protocol.restv2.DiffFields;
+
+/**
+ * Test of the {@link RepositoryCache}, filled from a stub {@link IConnection}
+ * that lists the folders of an in memory repository. The cache schedules its
+ * save with a job, so the test must run as a plug-in test.
+ */
+public class RepositoryCacheTest extends TestCase {
+	private static final String FOLDER = "/reports"; //$NON-NLS-1$
+	private static final String REPORT = FOLDER + "/main.jrxml"; //$NON-NLS-1$
+
+	private File dir;
+	private File cacheFile;
+	/** the caches created by the test, flushed before the directory is deleted */
+	private final List<RepositoryCache> caches = new ArrayList<>();
+	/** the content of the folders of the stub repository */
+	private final Map<String, List<ResourceDescriptor>> repository = new HashMap<>();
+	private IConnection connection;
+
+	@Override
+	protected void setUp() throws Exception {
+		dir = Files.createTempDirectory("repositorycache").toFile(); //$NON-NLS-1$
+		cacheFile = new File(dir, "test.cache"); //$NON-NLS-1$
+		List<ResourceDescriptor> children = new ArrayList<>();
+		children.add(createResource(REPORT, ResourceDescriptor.TYPE_JRXML, 1, "2023-01-02T03:04:05")); //$NON-NLS-1$
+		children.add(createResource(FOLDER + "/images", ResourceDescriptor.TYPE_FOLDER, 0, "2023-01-01T00:00:00")); //$NON-NLS-1$ //$NON-NLS-2$
+		repository.put(FOLDER, children);
+		connection = (IConnection) Proxy.newProxyInstance(IConnection.class.getClassLoader(),
+				new Class<?>[] { IConnection.class }, (proxy, method, args) -> {
+					if (method.getName().equals("list")) //$NON-NLS-1$
+						return new ArrayList<>(repository.get(((ResourceDescriptor) args[1]).getUriString()));
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		// the save is scheduled after the changes, it must not write in the
+		// directory after it is deleted
+		for (RepositoryCache cache : caches)
+			cache.flush();
+		File[] files = dir.listFiles();
+		if (files != null)
+			for (File f : files)
+				f.delete();
+		dir.delete();
+	}
+
+	private RepositoryCache createCache() {
+		RepositoryCache cache = new RepositoryCache(cacheFile);
+		caches.add(cache);
+		return cache;
+	}
+
+	private static ResourceDescriptor createResource(String uri, String wsType, int version, String updateDate) {
+		ResourceDescriptor rd = new ResourceDescriptor();
+		rd.setUriString(uri);
+		rd.setParentFolder(uri.substring(0, uri.lastIndexOf('/')));
+		rd.setName(uri.substring(uri.lastIndexOf('/') + 1));
+		rd.setLabel(rd.getName());
+		rd.setWsType(wsType);
+		rd.setVersion(version);
+		DiffFields.setSoapValue(rd, DiffFields.UPDATEDATE, updateDate);
+		return rd;
+	}
+
+	/**
+	 * List a folder of the stub repository and store it in the cache, like
+	 * {@link ProxyConnection#list(org.eclipse.core.runtime.IProgressMonitor, ResourceDescriptor)}
+	 */
+	private void listFolder(RepositoryCache cache, String uri) throws Exception {
+		ResourceDescriptor rd = new ResourceDescriptor();
+		rd.setUriString(uri);
+		rd.setWsType(ResourceDescriptor.TYPE_FOLDER);
+		cache.putFolder(uri, connection.list(new NullProgressMonitor(), rd));
+	}
+
+	private File download(RepositoryCache cache) throws Exception {
+		File f = new File(dir, "main.jrxml"); //$NON-NLS-1$
+		Files.write(f.toPath(), new byte[] { 1, 2, 3 });
+		cache.putContent(REPORT, repository.get(FOLDER).get(0), f);
+		return f;
+	}
+
+	public void testFolder() throws Exception {
+		RepositoryCache cache = createCache();
+		assertNull(cache.getFolder(FOLDER));
+		listFolder(cache, FOLDER);
+
+		List<ResourceDescriptor> cached = cache.getFolder(FOLDER);
+		assertEquals(2, cached.size());
+		ResourceDescriptor rd = cached.get(0);
+		assertEquals(REPORT, rd.getUriString());
+		assertEquals(FOLDER, rd.getParentFolder());
+		assertEquals(ResourceDescriptor.TYPE_JRXML, rd.getWsType());
+		assertEquals(1, rd.getVersion());
+		assertEquals("2023-01-02T03:04:05", DiffFields.getSoapValue(rd, DiffFields.UPDATEDATE)); //$NON-NLS-1$
+		assertEquals(ResourceDescriptor.TYPE_FOLDER, cached.get(1).getWsType());
+	}
+
+	public void testContentIsCurrent() throws Exception {
+		RepositoryCache cache = createCache();
+		File f = download(cache);
+
+		assertEquals(f, cache.getValidContent(REPORT));
+		assertTrue(cache.isCurrent(REPORT, createResource(REPORT, ResourceDescriptor.TYPE_JRXML, 1,
+				"2023-01-02T03:04:05"), f)); //$NON-NLS-1$
+		assertFalse(cache.isCurrent(REPORT, createResource(REPORT, ResourceDescriptor.TYPE_JRXML, 2,
+				"2023-01-02T03:04:05"), f)); //$NON-NLS-1$
+		assertFalse(cache.isCurrent(REPORT, createResource(REPORT, ResourceDescriptor.TYPE_JRXML, 1,
+				"2023-02-02T03:04:05"), f)); //$NON-NLS-1$
+		assertFalse(cache.isCurrent(REPORT, createResource(REPORT, ResourceDescriptor.TYPE_JRXML, 1,
+				"2023-01-02T03:04:05"), new File(dir, "other.jrxml"))); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testListingRevalidatesContent() throws Exception {
+		RepositoryCache cache = createCache();
+		File f = download(cache);
+
+		// same version on the server, the downloaded content is still valid
+		listFolder(cache, FOLDER);
+		assertEquals(f, cache.getValidContent(REPORT));
+
+		// the report is changed on the server, the next listing drops it
+		repository.get(FOLDER).set(0,
+				createResource(REPORT, ResourceDescriptor.TYPE_JRXML, 2, "2023-03-04T05:06:07")); //$NON-NLS-1$
+		listFolder(cache, FOLDER);
+		assertNull(cache.getValidContent(REPORT));
+		assertFalse(cache.isCurrent(REPORT, repository.get(FOLDER).get(0), f));
+		assertEquals(2, cache.getFolder(FOLDER).get(0).getVersion());
+	}
+
+	public void testContentDeleted() throws Exception {
+		RepositoryCache cache = createCache();
+		File f = download(cache);
+		f.delete();
+
+		assertNull(cache.getValidContent(REPORT));
+		assertFalse(cache.isCurrent(REPORT, repository.get(FOLDER).get(0), f));
+	}
+
+	public void testRemove() throws Exception {
+		RepositoryCache cache = createCache();
+		listFolder(cache, FOLDER);
+		download(cache);
+
+		cache.remove(REPORT);
+		assertNull(cache.getValidContent(REPORT));
+		assertNotNull(cache.getFolder(FOLDER));
+		cache.remove(FOLDER);
+		assertNull(cache.getFolder(FOLDER));
+	}
+
+	public void testSaveAndLoad() throws Exception {
+		RepositoryCache cache = createCache();
+		listFolder(cache, FOLDER);
+		File f = download(cache);
+		cache.save();
+		assertTrue(cacheFile.exists());
+
+		RepositoryCache loaded = createCache();
+		List<ResourceDescriptor> cached = loaded.getFolder(FOLDER);
+		assertEquals(2, cached.size());
+		assertEquals(REPORT, cached.get(0).getUriString());
+		// the time of the validation is not saved, after a restart the content
+		// must be validated again before to be used
+		assertNull(loaded.getValidContent(REPORT));
+		assertTrue(loaded.isCurrent(REPORT, repository.get(FOLDER).get(0), f));
+		assertEquals(f, loaded.getValidContent(REPORT));
+	}
+
+	public void testCorruptedFile() throws Exception {
+		Files.write(cacheFile.toPath(), new byte[] { 1, 2, 3 });
+
+		RepositoryCache cache = createCache();
+		assertNull(cache.getFolder(FOLDER));
+		assertFalse(cacheFile.exists());
+	}
+}
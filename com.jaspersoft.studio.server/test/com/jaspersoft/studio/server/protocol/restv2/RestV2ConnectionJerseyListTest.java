@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.server.protocol.restv2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.client.ClientBuilder;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.jackson.JacksonFeature;
+
+import com.jaspersoft.jasperserver.api.metadata.xml.domain.impl.ResourceDescriptor;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Test of the paged listing of a folder done by {@link RestV2ConnectionJersey},
+ * against a stub server answering to the resources service of JasperReports
+ * Server. The connection is set up without login, so only the listing is
+ * tested.
+ */
+public class RestV2ConnectionJerseyListTest extends TestCase {
+	private static final String FOLDER = "/big"; //$NON-NLS-1$
+
+	private HttpServer server;
+	private volatile int folderSize;
+	/** the query parameters of every request received by the stub */
+	private final List<Map<String, String>> requests = Collections.synchronizedList(new ArrayList<>());
+	private RestV2ConnectionJersey connection;
+
+	@Override
+	protected void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0); //$NON-NLS-1$
+		server.createContext("/jasperserver/rest_v2/resources", this::listResources); //$NON-NLS-1$
+		server.start();
+
+		connection = new RestV2ConnectionJersey();
+		connection.eh = new RESTv2ExceptionHandler(connection);
+		connection.timestampFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss"); //$NON-NLS-1$
+		connection.connector = new JSSApacheConnectorFactory();
+		ClientConfig config = new ClientConfig();
+		config.connectorProvider(connection.connector);
+		config.register(JacksonFeature.class).register(ClientQueryMapperProvider.class);
+		connection.client = ClientBuilder.newBuilder().withConfig(config).build();
+		connection.target = connection.client.target("http://127.0.0.1:" + server.getAddress().getPort() //$NON-NLS-1$
+				+ "/jasperserver/" + ARestV2Connection.SUFFIX); //$NON-NLS-1$
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		connection.client.close();
+		server.stop(0);
+	}
+
+	/**
+	 * Stub of the resources service, it returns the page of the folder selected
+	 * by offset and limit, or no content after the last resource
+	 */
+	private void listResources(HttpExchange exchange) throws IOException {
+		Map<String, String> params = new HashMap<>();
+		String query = exchange.getRequestURI().getRawQuery();
+		if (query != null)
+			for (String p : query.split("&")) { //$NON-NLS-1$
+				int ind = p.indexOf('=');
+				params.put(URLDecoder.decode(p.substring(0, ind), "UTF-8"), //$NON-NLS-1$
+						URLDecoder.decode(p.substring(ind + 1), "UTF-8")); //$NON-NLS-1$
+			}
+		requests.add(params);
+
+		int offset = Integer.parseInt(params.getOrDefault("offset", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+		int limit = Integer.parseInt(params.getOrDefault("limit", "0")); //$NON-NLS-1$ //$NON-NLS-2$
+		int end = limit == 0 ? folderSize : Math.min(folderSize, offset + limit);
+		if (offset >= end) {
+			exchange.sendResponseHeaders(204, -1);
+			exchange.close();
+			return;
+		}
+		StringBuilder json = new StringBuilder("{\"resourceLookup\":["); //$NON-NLS-1$
+		for (int i = offset; i < end; i++) {
+			if (i > offset)
+				json.append(',');
+			json.append("{\"uri\":\"").append(FOLDER).append("/r").append(i) //$NON-NLS-1$ //$NON-NLS-2$
+					.append("\",\"label\":\"r").append(i) //$NON-NLS-1$
+					.append("\",\"resourceType\":\"folder\",\"version\":").append(i % 7) //$NON-NLS-1$
+					.append(",\"permissionMask\":1,\"creationDate\":\"2023-01-02T03:04:05\"") //$NON-NLS-1$
+					.append(",\"updateDate\":\"2023-01-02T03:04:05\"}"); //$NON-NLS-1$
+		}
+		json.append("]}"); //$NON-NLS-1$
+		byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json"); //$NON-NLS-1$ //$NON-NLS-2$
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private List<ResourceDescriptor> list() throws Exception {
+		ResourceDescriptor rd = new ResourceDescriptor();
+		rd.setUriString(FOLDER);
+		rd.setWsType(ResourceDescriptor.TYPE_FOLDER);
+		return connection.list(new NullProgressMonitor(), rd);
+	}
+
+	public void testListInPages() throws Exception {
+		folderSize = 1203;
+		List<ResourceDescriptor> rds = list();
+
+		assertEquals(folderSize, rds.size());
+		for (int i = 0; i < folderSize; i++) {
+			ResourceDescriptor rd = rds.get(i);
+			assertEquals(FOLDER + "/r" + i, rd.getUriString()); //$NON-NLS-1$
+			assertEquals(FOLDER, rd.getParentFolder());
+			assertEquals(ResourceDescriptor.TYPE_FOLDER, rd.getWsType());
+			assertEquals(i % 7, rd.getVersion());
+		}
+
+		assertEquals(3, requests.size());
+		for (int i = 0; i < requests.size(); i++) {
+			Map<String, String> params = requests.get(i);
+			assertEquals(FOLDER, params.get("folderUri")); //$NON-NLS-1$
+			assertEquals("500", params.get("limit")); //$NON-NLS-1$ //$NON-NLS-2$
+			assertEquals(String.valueOf(i * 500), params.get("offset")); //$NON-NLS-1$
+			assertEquals("true", params.get("forceFullPage")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	public void testListFullLastPage() throws Exception {
+		folderSize = 1000;
+		List<ResourceDescriptor> rds = list();
+
+		assertEquals(folderSize, rds.size());
+		// the second page is full, so one more request returns no content
+		assertEquals(3, requests.size());
+		assertEquals("1000", requests.get(2).get("offset")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testListEmptyFolder() throws Exception {
+		folderSize = 0;
+		List<ResourceDescriptor> rds = list();
+
+		assertTrue(rds.isEmpty());
+		assertEquals(1, requests.size());
+		assertEquals("0", requests.get(0).get("offset")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -5,6 +5,7 @@ package com.jaspersoft.studio;
 
 import java.beans.PropertyChangeEvent;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.eclipse.gef.EditPart;
@@ -19,6 +20,7 @@ import com.jaspersoft.studio.editor.report.AbstractVisualEditor;
 import com.jaspersoft.studio.model.ANode;
 import com.jaspersoft.studio.model.INode;
 import com.jaspersoft.studio.model.MLockableRefresh;
+import com.jaspersoft.studio.model.ModelChangeBatch;
 import com.jaspersoft.studio.model.MRoot;
 import com.jaspersoft.studio.utils.SelectionHelper;
 
@@ -38,6 +40,12 @@ public class JSSCompoundCommand extends CompoundCommand {
 
 	public static final String REFRESH_UI_EVENT = "refreshUIEvent";
 
+	/**
+	 * Event to refresh only some nodes in the editor, the new value of the event
+	 * is the collection of the nodes
+	 */
+	public static final String REFRESH_NODES_EVENT = "refreshNodesEvent";
+
 	/**
 	 * Node used to go back into the model until the mpage or an mreport ( or
 	 * more generally an MLockableRefresh) is found. In this class, for every
@@ -266,6 +274,21 @@ public class JSSCompoundCommand extends CompoundCommand {
 		}
 	}
 
+	/**
+	 * Force the refresh of the passed nodes in the editor of the main node, this
+	 * override the disable refresh flag but, differently from
+	 * {@link #forceRefreshVisuals(ANode)}, the other nodes are not refreshed
+	 * 
+	 * @param mainNode the main node of the editor
+	 * @param nodes the nodes to refresh
+	 */
+	public static void forceRefreshNodes(ANode mainNode, Collection<ANode> nodes) {
+		if (mainNode != null && mainNode.getValue() != null && !nodes.isEmpty()) {
+			PropertyChangeEvent event = new PropertyChangeEvent(mainNode.getValue(), REFRESH_NODES_EVENT, null, nodes);
+			mainNode.getPropertyChangeSupport().firePropertyChange(event);
+		}
+	}
+
 	/**
 	 * Set to ignore or not the refresh on the root of the model of the actual
 	 * reference node
@@ -337,7 +360,9 @@ public class JSSCompoundCommand extends CompoundCommand {
 
 	/**
 	 * Override of the execute command, disable the refresh before the first
-	 * command and enable it at the end
+	 * command and enable it at the end. The commands are executed inside a
+	 * {@link ModelChangeBatch}, so the model events are coalesced and the nodes
+	 * are revalidated once
 	 */
 	@Override
 	public void execute() {
@@ -345,9 +370,14 @@ public class JSSCompoundCommand extends CompoundCommand {
 			backupSelection();
 			List<?> commands = getCommands();
 			setIgnoreEvents(true);
-			for (int i = 0; i < size(); i++) {
-				Command cmd = (Command) commands.get(i);
-				cmd.execute();
+			ModelChangeBatch.begin();
+			try {
+				for (int i = 0; i < size(); i++) {
+					Command cmd = (Command) commands.get(i);
+					cmd.execute();
+				}
+			} finally {
+				ModelChangeBatch.end();
 			}
 			setIgnoreEvents(false);
 			// Since there could be multiple compound command executed at the
@@ -370,8 +400,13 @@ public class JSSCompoundCommand extends CompoundCommand {
 		if (size() > 0) {
 			List<?> commands = getCommands();
 			setIgnoreEvents(true);
-			for (int i = size() - 1; i >= 0; i--) {
-				((Command) commands.get(i)).undo();
+			ModelChangeBatch.begin();
+			try {
+				for (int i = size() - 1; i >= 0; i--) {
+					((Command) commands.get(i)).undo();
+				}
+			} finally {
+				ModelChangeBatch.end();
 			}
 			setIgnoreEvents(false);
 			if (!isIgnoreEvents())
@@ -393,8 +428,13 @@ public class JSSCompoundCommand extends CompoundCommand {
 			backupSelection();
 			List<?> commands = getCommands();
 			setIgnoreEvents(true);
-			for (int i = 0; i < size(); i++) {
-				((Command) commands.get(i)).redo();
+			ModelChangeBatch.begin();
+			try {
+				for (int i = 0; i < size(); i++) {
+					((Command) commands.get(i)).redo();
+				}
+			} finally {
+				ModelChangeBatch.end();
 			}
 			setIgnoreEvents(false);
 			if (!isIgnoreEvents())
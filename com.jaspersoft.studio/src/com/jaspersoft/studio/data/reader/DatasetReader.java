@@ -15,6 +15,7 @@ import java.util.Set;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -25,7 +26,9 @@ import com.jaspersoft.studio.data.adapter.DataAdapterParameterContributorFactory
 import com.jaspersoft.studio.editor.preview.view.control.ReportController;
 import com.jaspersoft.studio.utils.ExpressionUtil;
 import com.jaspersoft.studio.utils.ModelUtils;
+import com.jaspersoft.studio.utils.jasper.CompiledReportCache;
 import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
+import com.jaspersoft.studio.utils.parameter.ParameterUtil;
 
 import net.sf.jasperreports.data.DataAdapterService;
 import net.sf.jasperreports.data.DataAdapterServiceUtil;
@@ -37,10 +40,12 @@ import net.sf.jasperreports.eclipse.builder.jdt.JRErrorHandler;
 import net.sf.jasperreports.eclipse.ui.util.UIUtils;
 import net.sf.jasperreports.eclipse.util.FileUtils;
 import net.sf.jasperreports.eclipse.util.Misc;
+import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRField;
 import net.sf.jasperreports.engine.JRGroup;
 import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRQuery;
 import net.sf.jasperreports.engine.JRScriptlet;
 import net.sf.jasperreports.engine.JRSortField;
 import net.sf.jasperreports.engine.JRVariable;
@@ -57,6 +62,9 @@ import net.sf.jasperreports.engine.design.JRDesignVariable;
 import net.sf.jasperreports.engine.design.JasperDesign;
 import net.sf.jasperreports.engine.fill.JRFiller;
 import net.sf.jasperreports.engine.fill.ReportFiller;
+import net.sf.jasperreports.engine.query.JRQueryExecuter;
+import net.sf.jasperreports.engine.query.QueryExecuterFactory;
+import net.sf.jasperreports.engine.util.JRQueryExecuterUtils;
 import net.sf.jasperreports.engine.xml.JRXmlLoader;
 import net.sf.jasperreports.utils.JasperReportsModelUtils;
 
@@ -192,14 +200,25 @@ public class DatasetReader {
 
 	public static JasperReport compile(JasperReportsConfiguration jConfig, JasperDesign dataJD,
 			IProgressMonitor monitor) throws CoreException, JRException {
-		JasperReport jrobj = null;
 		IFile f = (IFile) jConfig.get(FileUtils.KEY_FILE);
+		IProject project = f != null ? f.getProject() : null;
+		CompiledReportCache cache = CompiledReportCache.getInstance();
+		String key = cache.getKey(jConfig, dataJD, project);
+		JasperReport jrobj = cache.get(key, project, jConfig);
+		if (jrobj != null) {
+			if (f != null)
+				Markers.deleteMarkers(f);
+			return jrobj;
+		}
 		if (f != null) {
 			Markers.deleteMarkers(f);
 			JasperReportCompiler compiler = new JasperReportCompiler();
 			compiler.setErrorHandler(new JRErrorHandler(f));
-			compiler.setProject(f.getProject());
+			compiler.setProject(project);
 			jrobj = compiler.compileReport(jConfig, dataJD, monitor);
+			// a report compiled with errors is not cached
+			if (jrobj != null && ((JRErrorHandler) compiler.getErrorHandler()).hasErrors())
+				return jrobj;
 			if (jrobj == null) {
 				IMarker[] markers = f.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
 				if (!Misc.isNullOrEmpty(markers)) {
@@ -215,6 +234,7 @@ public class DatasetReader {
 			}
 		} else
 			jrobj = JasperCompileManager.getInstance(jConfig).compile(dataJD);
+		cache.put(key, project, jrobj);
 		return jrobj;
 	}
 
@@ -239,6 +259,9 @@ public class DatasetReader {
 
 	private ReportFiller rf;
 
+	// Query executer used when the records are read without filling a report
+	private volatile JRQueryExecuter queryExecuter;
+
 	public JasperPrint fillReport(JasperReportsConfiguration jConfig, JRDesignDataset designDataset,
 			DataAdapterDescriptor dataAdapterDesc, JasperReport jrobj, Map<String, Object> hm) throws JRException {
 		DataAdapterService das = null;
@@ -288,6 +311,9 @@ public class DatasetReader {
 	 * map</li>
 	 * <li>filling the report</li>
 	 * </ol>
+	 * When the dataset has no sort fields, filter expression or scriptlets the
+	 * report is not needed: the records are read directly from the query
+	 * executer, see {@link #readRecords(JasperReportsConfiguration)}.
 	 * 
 	 * @param jConfig the configuration instance
 	 */
@@ -302,6 +328,10 @@ public class DatasetReader {
 		Map<String, Object> hm = null;
 		try {
 			running = true;
+			// Read the records without compiling and filling a report if possible
+			if (readRecords(jConfig))
+				return;
+
 			// Load JD from custom data preview report
 			JasperDesign dataJD = getJasperDesign(jConfig);
 			
@@ -358,6 +388,103 @@ public class DatasetReader {
 		}
 	}
 
+	/**
+	 * Check if the records of the dataset can be read directly from its data
+	 * source. The preview report is needed to sort the records, to apply the
+	 * filter expression and to run the scriptlets.
+	 * 
+	 * @return true if the records can be read without filling a report
+	 */
+	protected boolean canReadRecords() {
+		return designDataset.getSortFieldsList().isEmpty() && designDataset.getFilterExpression() == null
+				&& designDataset.getScriptletsList().isEmpty();
+	}
+
+	/**
+	 * Reads the records running the query executer of the dataset, or from the
+	 * data source contributed by the data adapter, and notifies them to the
+	 * listeners. Nothing is compiled, unless some parameter has a default value
+	 * expression that must be evaluated.
+	 * 
+	 * @param jConfig the configuration instance
+	 * @return true if the records were read, false if the preview report must be
+	 *         filled
+	 */
+	protected boolean readRecords(JasperReportsConfiguration jConfig) throws JRException {
+		if (!canReadRecords())
+			return false;
+		Map<String, Object> hm = prepareParameters(jConfig, maxRecords);
+		ReportContext rc = (ReportContext) hm.get(JRParameter.REPORT_CONTEXT);
+		if (rc == null)
+			return false;
+		// a populated data snapshot is read by the filler
+		Object obj = rc.getParameterValue(DataCacheHandler.PARAMETER_DATA_CACHE_HANDLER);
+		if (obj != null
+				&& !(obj instanceof ColumnDataCacheHandler && !((ColumnDataCacheHandler) obj).isSnapshotPopulated()))
+			return false;
+		if (recalcParameters && jConfig.getJRParameters() != null) {
+			ParameterUtil.setParameters(jConfig, designDataset, jConfig.getJRParameters());
+			recalcParameters = false;
+			hm = prepareParameters(jConfig, maxRecords);
+		}
+		hm.remove(JRParameter.REPORT_CONTEXT);
+
+		DataAdapterService das = null;
+		JRQueryExecuter qe = null;
+		try {
+			if (dataAdapterDesc != null) {
+				hm.put(DataAdapterParameterContributorFactory.PARAMETER_DATA_ADAPTER, dataAdapterDesc.getDataAdapter());
+				das = DataAdapterServiceUtil.getInstance(new ParameterContributorContext(jConfig, designDataset, hm))
+						.getService(dataAdapterDesc.getDataAdapter());
+				das.contributeParameters(hm);
+			}
+			// evaluate the default values only if they are really needed
+			for (JRParameter p : designDataset.getParametersList()) {
+				if (!p.isSystemDefined() && p.getDefaultValueExpression() != null && !hm.containsKey(p.getName())) {
+					ParameterUtil.setParameters(jConfig, designDataset, hm);
+					break;
+				}
+			}
+
+			JRDataSource ds = null;
+			JRQuery query = designDataset.getQuery();
+			if (query != null && !Misc.isNullOrEmpty(query.getText())) {
+				QueryExecuterFactory qef = JRQueryExecuterUtils.getInstance(jConfig)
+						.getExecuterFactory(query.getLanguage());
+				qe = qef.createQueryExecuter(jConfig, designDataset, ParameterUtil.convertMap(hm, designDataset));
+				queryExecuter = qe;
+				ds = qe.createDatasource();
+			} else {
+				ds = (JRDataSource) hm.get(JRParameter.REPORT_DATA_SOURCE);
+			}
+			if (ds == null)
+				return true;
+
+			JRField[] fields = new JRField[columns.size()];
+			for (int i = 0; i < fields.length; i++)
+				fields[i] = designDataset.getFieldsMap().get(columns.get(i));
+			int count = 0;
+			while ((maxRecords <= 0 || count < maxRecords) && ds.next()) {
+				Object[] record = new Object[fields.length];
+				for (int i = 0; i < fields.length; i++)
+					record[i] = fields[i] != null ? ds.getFieldValue(fields[i]) : null;
+				for (DatasetReaderListener l : listeners) {
+					if (!l.isValidStatus())
+						return true;
+					l.newRecord(record);
+				}
+				count++;
+			}
+			return true;
+		} finally {
+			queryExecuter = null;
+			if (qe != null)
+				qe.close();
+			if (das != null)
+				das.dispose();
+		}
+	}
+
 	/**
 	 * Ends the dataset reading task.
 	 */
@@ -369,6 +496,13 @@ public class DatasetReader {
 				} catch (JRException e) {
 					e.printStackTrace();
 				}
+			JRQueryExecuter qe = queryExecuter;
+			if (qe != null)
+				try {
+					qe.cancelQuery();
+				} catch (JRException e) {
+					e.printStackTrace();
+				}
 			for (DatasetReaderListener l : listeners) {
 				// Invalidating the listener will cause the running scriptlet
 				// to launch a JRScriptletException, that will abort the running
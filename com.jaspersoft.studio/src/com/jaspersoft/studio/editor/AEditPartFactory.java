@@ -11,6 +11,7 @@ import com.jaspersoft.studio.JaspersoftStudioPlugin;
 import com.jaspersoft.studio.editor.gef.parts.FigureEditPart;
 import com.jaspersoft.studio.jasper.JSSDrawVisitor;
 import com.jaspersoft.studio.jasper.JSSReportConverter;
+import com.jaspersoft.studio.jasper.PrintElementCache;
 import com.jaspersoft.studio.model.ANode;
 import com.jaspersoft.studio.plugin.ExtensionManager;
 import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
@@ -31,12 +32,14 @@ public abstract class AEditPartFactory implements EditPartFactory {
 			jDesign = tjd;
 			JSSReportConverter converter = new JSSReportConverter(jrContext, jDesign, true);
 			drawVisitor = new JSSDrawVisitor(converter, null);
+			drawVisitor.setPrintElementCache(PrintElementCache.getInstance(jrContext));
 			jrContext.setValue(JasperReportsConfiguration.KEY_DRAWER, drawVisitor);
 			jrContext.setValue(JasperReportsConfiguration.KEY_CONVERTER, converter);
 		}
 		if (drawVisitor == null){
 			JSSReportConverter converter = new JSSReportConverter(jrContext, jDesign, true);
 			drawVisitor = new JSSDrawVisitor(converter, null);
+			drawVisitor.setPrintElementCache(PrintElementCache.getInstance(jrContext));
 			jrContext.setValue(JasperReportsConfiguration.KEY_DRAWER, drawVisitor);
 			jrContext.setValue(JasperReportsConfiguration.KEY_CONVERTER, converter);
 		}
@@ -3,10 +3,10 @@
  *******************************************************************************/
 package com.jaspersoft.studio.editor;
 
+import java.beans.PropertyChangeListener;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
-import java.util.Arrays;
 import java.util.HashMap;
 
 import org.eclipse.core.resources.IFile;
@@ -69,6 +69,8 @@ import com.jaspersoft.studio.editor.defaults.DefaultManager;
 import com.jaspersoft.studio.editor.outline.page.EmptyOutlinePage;
 import com.jaspersoft.studio.editor.outline.page.MultiOutlineView;
 import com.jaspersoft.studio.editor.preview.PreviewContainer;
+import com.jaspersoft.studio.editor.xml.XMLDocumentUpdater;
+import com.jaspersoft.studio.editor.xml.XMLElementReloader;
 import com.jaspersoft.studio.editor.xml.XMLEditor;
 import com.jaspersoft.studio.messages.Messages;
 import com.jaspersoft.studio.model.INode;
@@ -151,6 +153,33 @@ public abstract class AbstractJRXMLEditor extends MultiPageEditorPart
 
 	protected boolean partActivated = true;
 
+	/**
+	 * The last XML synchronized between the model and the source editor, null
+	 * if they are not synchronized
+	 */
+	private String syncedXml = null;
+
+	/**
+	 * Revision of the model when {@link #syncedXml} was synchronized
+	 */
+	private long syncedRevision = -1;
+
+	/**
+	 * The JasperReports version {@link #syncedXml} was written for, null if it
+	 * was loaded from the source editor
+	 */
+	private String syncedVersion = null;
+
+	/**
+	 * Revision of the model, incremented on every change of the model
+	 */
+	private long modelRevision = 0;
+
+	/**
+	 * Listener on the root of the model, all the changes are propagated up to it
+	 */
+	private PropertyChangeListener modelRevisionListener = evt -> modelRevision++;
+
 	/**
 	 * Listener called when the source editor is modified
 	 */
@@ -849,9 +878,13 @@ public abstract class AbstractJRXMLEditor extends MultiPageEditorPart
 					// This flag avoid to have the xml editor dirty when
 					// switching
 					// because of the timestamp
-					isRefreshing = true;
-					model2xml(ver);
-					isRefreshing = false;
+					if (isSourceSynchronized(ver))
+						xmlFresh = true;
+					else {
+						isRefreshing = true;
+						model2xml(ver);
+						isRefreshing = false;
+					}
 				}
 				if (context != null)
 					// it could be activated somewhere else, we don't know, so I
@@ -867,7 +900,7 @@ public abstract class AbstractJRXMLEditor extends MultiPageEditorPart
 					} catch (Exception e) {
 						handleJRException(getEditorInput(), e, false);
 					}
-				else if (isDesignerDirty()) {
+				else if (isDesignerDirty() && !isSourceSynchronized(ver)) {
 					isRefreshing = true;
 					model2xml(ver);
 					isRefreshing = false;
@@ -957,11 +990,25 @@ public abstract class AbstractJRXMLEditor extends MultiPageEditorPart
 		try {
 			IDocumentProvider dp = xmlEditor.getDocumentProvider();
 			IDocument doc = dp.getDocument(xmlEditor.getEditorInput());
-			in = new ByteArrayInputStream(doc.get().getBytes(FileUtils.UTF8_ENCODING));
+			String xml = doc.get();
+			if (syncedXml != null && syncedRevision == modelRevision) {
+				// the source was edited but it is the same written from the model (ie
+				// the edit was undone), and the model is not changed since then
+				if (xml.equals(syncedXml))
+					return;
+				// the edit is inside a single element, only that one is parsed
+				JasperDesign jd = getJasperDesign();
+				if (jd != null && XMLElementReloader.reload(jrContext, jd, syncedXml, xml)) {
+					setSynchronizedXml(xml, null);
+					return;
+				}
+			}
+			in = new ByteArrayInputStream(xml.getBytes(FileUtils.UTF8_ENCODING));
 			JasperDesign jd = new JRXmlLoader(jrContext, JRXmlDigesterFactory.createDigester(jrContext)).loadXML(in);
 			jrContext.setJasperDesign(jd);
 			JaspersoftStudioPlugin.getExtensionManager().onLoad(jd, this);
 			setModel(createEditorModel());
+			setSynchronizedXml(xml, null);
 		} finally {
 			FileUtils.closeStream(in);
 		}
@@ -994,8 +1041,10 @@ public abstract class AbstractJRXMLEditor extends MultiPageEditorPart
 			IDocumentProvider dp = xmlEditor.getDocumentProvider();
 			IDocument doc = dp.getDocument(xmlEditor.getEditorInput());
 			xmlFresh = true;
-			if (xml != null && !Arrays.equals(doc.get().getBytes(), xml.getBytes())) {
-				doc.set(xml);
+			if (xml != null) {
+				// replace only the changed region, not the whole document
+				XMLDocumentUpdater.update(doc, xml);
+				setSynchronizedXml(xml, version);
 			}
 		} catch (Throwable e) {
 			UIUtils.showError(e);
@@ -1003,6 +1052,36 @@ public abstract class AbstractJRXMLEditor extends MultiPageEditorPart
 		return xml;
 	}
 
+	/**
+	 * Mark the passed XML as synchronized with the current model
+	 * 
+	 * @param xml     the XML equivalent to the model
+	 * @param version the JasperReports version the XML was written for, null if
+	 *                it was loaded from the source editor
+	 */
+	protected void setSynchronizedXml(String xml, String version) {
+		syncedXml = xml;
+		syncedRevision = modelRevision;
+		syncedVersion = version;
+	}
+
+	/**
+	 * Check if the source editor already contains the XML of the current model,
+	 * in that case there is no need to write the model again
+	 * 
+	 * @param version the JasperReports version the XML should be compliant with
+	 * @return true if the model is not changed since the XML of the source editor
+	 *         was written or loaded
+	 */
+	protected boolean isSourceSynchronized(String version) {
+		if (syncedXml == null || syncedRevision != modelRevision)
+			return false;
+		if (syncedVersion != null && !syncedVersion.equals(version))
+			return false;
+		IDocument doc = xmlEditor.getDocumentProvider().getDocument(xmlEditor.getEditorInput());
+		return doc != null && syncedXml.equals(doc.get());
+	}
+
 	/**
 	 * Check if the current editor is dirty
 	 * 
@@ -1049,7 +1128,12 @@ public abstract class AbstractJRXMLEditor extends MultiPageEditorPart
 	 * @param model the new model
 	 */
 	public void setModel(INode model) {
+		if (this.model != null)
+			this.model.getPropertyChangeSupport().removePropertyChangeListener(modelRevisionListener);
 		this.model = model;
+		modelRevision++;
+		if (model != null)
+			model.getPropertyChangeSupport().addPropertyChangeListener(modelRevisionListener);
 		updateVisualView();
 		if (jrContext != null) {
 			jrContext.setJasperDesign(getJasperDesign());
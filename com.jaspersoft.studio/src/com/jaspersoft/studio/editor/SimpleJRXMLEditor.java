@@ -358,8 +358,10 @@ public class SimpleJRXMLEditor extends AbstractJRXMLEditor implements  IJROBject
 				IDocumentProvider dp = xmlEditor.getDocumentProvider();
 				IDocument doc = dp.getDocument(xmlEditor.getEditorInput());
 				xmlFresh = true;
-				if (xml != null && !Arrays.equals(doc.get().getBytes(), xml.getBytes())) {
-					doc.set(xml);
+				if (xml != null) {
+					if (!Arrays.equals(doc.get().getBytes(), xml.getBytes()))
+						doc.set(xml);
+					setSynchronizedXml(xml, version);
 				}
 			}
 		} catch (Throwable e) {
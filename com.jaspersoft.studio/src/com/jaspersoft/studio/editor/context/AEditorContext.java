@@ -208,14 +208,17 @@ public class AEditorContext {
 	public Properties getJrProperties() {
 		Properties props = null;
 		MScopedPreferenceStore pStore = jConf.getPrefStore();
-		try {
-			pStore.setWithDefault(false);
-			props = FileUtils.load(pStore.getString(FilePrefUtil.NET_SF_JASPERREPORTS_JRPROPERTIES));
-		} catch (IOException e) {
-			e.printStackTrace();
-			props = new Properties();
-		} finally {
-			pStore.setWithDefault(true);
+		// the store flag is shared, the same lock is used by the configuration
+		synchronized (pStore) {
+			try {
+				pStore.setWithDefault(false);
+				props = FileUtils.load(pStore.getString(FilePrefUtil.NET_SF_JASPERREPORTS_JRPROPERTIES));
+			} catch (IOException e) {
+				e.printStackTrace();
+				props = new Properties();
+			} finally {
+				pStore.setWithDefault(true);
+			}
 		}
 		return props;
 	}
@@ -6,7 +6,9 @@ package com.jaspersoft.studio.editor.gef.parts;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.draw2d.ColorConstants;
 import org.eclipse.draw2d.IFigure;
@@ -411,6 +413,36 @@ public class PageEditPart extends AJDEditPart implements PropertyChangeListener
 		}
 	}
 
+	/**
+	 * Refresh only the edit parts of the passed nodes, the other parts and the
+	 * children of the page are not refreshed
+	 * 
+	 * @param nodes the nodes to refresh
+	 */
+	private void refreshNodes(final Collection<?> nodes) {
+		if (Display.getCurrent() == null) {
+			UIUtils.getDisplay().asyncExec(new Runnable() {
+
+				@Override
+				public void run() {
+					refreshNodes(nodes);
+				}
+			});
+			return;
+		}
+		if (getViewer() == null)
+			return;
+		IEditorPart refreshedEditor = ((DefaultEditDomain) getViewer().getEditDomain()).getEditorPart();
+		if (refreshedEditor instanceof AbstractVisualEditor && !((AbstractVisualEditor) refreshedEditor).isEditorVisible())
+			return;
+		Map<?, ?> registry = getViewer().getEditPartRegistry();
+		for (Object node : nodes) {
+			Object part = registry.get(node);
+			if (part instanceof EditPart)
+				((EditPart) part).refresh();
+		}
+	}
+
 	private boolean isRefreshing = false;
 	
 	private PropertyChangeEvent pendingRefreshRequestEvent = null;
@@ -421,6 +453,10 @@ public class PageEditPart extends AJDEditPart implements PropertyChangeListener
 	 * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
 	 */
 	public void propertyChange(PropertyChangeEvent arg0) {
+		if (JSSCompoundCommand.REFRESH_NODES_EVENT.equals(arg0.getPropertyName())) {
+			refreshNodes((Collection<?>) arg0.getNewValue());
+			return;
+		}
 		synchronized (this) {
 			if (isRefreshing) {
 				if (pendingRefreshRequestEvent == null) {
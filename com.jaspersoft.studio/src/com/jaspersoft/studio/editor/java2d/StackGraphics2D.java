@@ -25,10 +25,9 @@ import java.awt.image.BufferedImageOp;
 import java.awt.image.ImageObserver;
 import java.awt.image.RenderedImage;
 import java.awt.image.renderable.RenderableImage;
-import java.lang.reflect.Method;
 import java.text.AttributedCharacterIterator;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -42,7 +41,8 @@ import com.jaspersoft.studio.editor.gef.figures.ACachedGraphics;
  * when some graphical property is changed, otherwise it will be necessary only to repeat
  * the stored paint steps. Essentially this class store a series of step into a stack and 
  * then can execute all of them at the same time.
- * All the methods are stored and called trought reflection
+ * The steps are stored as a typed display list: every command keeps its parameters with
+ * their own types and calls the graphics method directly, without reflection or boxing
  * 
  * 
  * @author Orlandin Marco
@@ -56,11 +56,14 @@ public class StackGraphics2D extends ACachedGraphics {
 	 * @author Orlandin Marco
 	 *
 	 */
+	@FunctionalInterface
 	private interface ExecutableCommand{
 		/**
 		 * Execute the command
+		 * 
+		 * @param graphics the graphics where the command is executed
 		 */
-		public void execute();
+		public void execute(Graphics2D graphics);
 	}
 	
 	/**
@@ -80,253 +83,33 @@ public class StackGraphics2D extends ACachedGraphics {
 	 * @author Orlandin Marco
 	 *
 	 */
-	private class BackupProperty implements ExecutableCommand{
-		
-		/**
-		 * The name of the property backupped
-		 */
-		private String propertyName;
+	private static class BackupTransform implements ExecutableCommand{
 		
 		/**
-		 * The value of the property
-		 */
-		private Object propertyValue;
-		
-		/**
-		 * The type of the return value of the property
-		 */
-		private Class<?> returnType;
-		
-		/**
-		 * Create the command
-		 *  
-		 * @param propertyName method to call to get the property value brought reflection
-		 */
-		public BackupProperty(String propertyName){
-			this.propertyName = propertyName;
-			propertyValue = null;
-		}
-		
-		/**
-		 * Return the result of the call
-		 * 
-		 * @return result of the call, could be essentially anything (also void), it depends from the 
-		 * called method
+		 * The value of the property, read when the command is executed
 		 */
-		public Object getReturnValue(){
-			return propertyValue;
-		}
+		private AffineTransform propertyValue;
 		
-		/**
-		 * Return the type of the getReturnedValue, check this to avoid to read a void value
-		 * 
-		 * @return the return type
- 		 */
-		public Class<?> getReturnType(){
-			return returnType;
-		}
-		
-		/**
-		 * Execute the command by calling the method by reflection and saving its result
-		 */
-		public void execute(){
-			try {
-				Method method = realDrawer.getClass().getMethod(propertyName);
-				returnType = method.getReturnType();
-				propertyValue = method.invoke(realDrawer);
-			} catch (Exception e) {
-			  e.printStackTrace();
-			}
+		public void execute(Graphics2D graphics){
+			propertyValue = graphics.getTransform();
 		}
 	}
 	
-	
 	/**
-	 * Same stuff of the backup property, but this time it is called to restore the 
-	 * value of a property
+	 * Same stuff of the {@link BackupTransform}, but for the clip
 	 * 
 	 * @author Orlandin Marco
 	 *
 	 */
-	private class RestoreProperty implements ExecutableCommand{
+	private static class BackupClip implements ExecutableCommand{
 		
 		/**
-		 * Name of the method to call with the reflection to save the  property
+		 * The value of the property, read when the command is executed
 		 */
-		private String propertyName;
-		
-		/**
-		 * Reference to the backupped property element
-		 */
-		private BackupProperty propertyInfo;
-		
-		/**
-		 * Create a restore command, it need a backup command already created to 
-		 * be executed
-		 * 
-		 * @param propertyName Name of the method to call with the reflection to save the  property
-		 * @param propertyInfo Reference to the backupped property element
-		 */
-		public RestoreProperty(String propertyName, BackupProperty propertyInfo){
-			this.propertyName = propertyName;
-			this.propertyInfo = propertyInfo;
-		}
-		
-		/**
-		 * Execute the restore
-		 */
-		public void execute(){
-			try {
-				Method method = realDrawer.getClass().getMethod(propertyName, propertyInfo.getReturnType());
-				method.invoke(realDrawer, propertyInfo.getReturnValue());
-			} catch (Exception e) {
-			  e.printStackTrace();
-			}
-		}
-	}
-	
-	/**
-	 * Command to call a generic method with any number of parameters. The return 
-	 * value is not saved or used. The call is done trough the java reflection
-	 * 
-	 * @author Orlandin Marco
-	 *
-	 */
-	@SuppressWarnings("unused")
-	private class CallDefinition implements ExecutableCommand{
-		
-		/**
-		 * Types of the parameters
-		 */
-		private List<Class<?>> parametersType = new ArrayList<Class<?>>();
-		
-		/**
-		 * Values of the parameters
-		 */
-		private List<Object> parametersValue = new ArrayList<Object>();
-		
-		/**
-		 * Name of the method to call
-		 */
-		private String methodName;
-
-		/**
-		 * Create the command 
-		 * @param name name of the method to call
-		 */
-		public CallDefinition(String name){
-			methodName = name;
-		}
+		private Shape propertyValue;
 		
-		/**
-		 * Return the name of the method to call
-		 * @return name of the method
-		 */
-		public String getMethodName(){
-			return methodName;
-		}
-		
-		/**
-		 * Add a new type for a parameter. The number of 
-		 * parameters any types must be the same 
-		 * 
-		 * @param newType new type
-		 */
-		public void addType(Class<?> newType){
-			parametersType.add(newType);
-		}
-		
-		/**
-		 * Add a new value for a parameter. The number of 
-		 * parameters any types must be the same 
-		 * 
-		 * @param newValue the new value
-		 */
-		public void addValue(Object newValue){
-			parametersValue.add(newValue);
-		}
-		
-		/**
-		 * Return an array of values for the parameters 
-		 * @return the values for the parameters, could be empty but not null
-		 */
-		public Object[] getValues(){
-			return parametersValue.toArray(new Object[parametersValue.size()]);
-		}
-		
-		/**
-		 * Return an array of types for the parameters 
-		 * @return the types for the parameters, could be empty but not null
-		 */
-		public Class<?>[] getTypes(){
-			return parametersType.toArray(new Class<?>[parametersType.size()]);
-		}
-		
-		/**
-		 * Execute the specified command with the specified parameters values\types
-		 */
-		public void execute(){
-			try {
-				Method method = Graphics2D.class.getMethod(getMethodName(), getTypes());
-				method.invoke(realDrawer, getValues());
-			} catch (Exception e) {
-			  e.printStackTrace();
-			}
-		}
-	}
-	
-	/**
-	 * Command to call a generic method with any number of parameters. The return 
-	 * value is not saved or used. The call is done trough a static binding
-	 * 
-	 * @author Orlandin Marco
-	 *
-	 */
-	private class StaticCallDefinition implements ExecutableCommand{
-		
-		/**
-		 * The id of the method to call
-		 */
-		private int methodId;
-		
-		/**
-		 * Values of the parameters
-		 */
-		private Object[] parametersValue;
-		
-		/**
-		 * The numer of parameter values actually added
-		 */
-		private int actualAddedParameters = 0;
-		
-		/**
-		 * Create the command
-		 * 
-		 * @param methodId id of the method to call, look at the StaticCallResolver class for the list of ids
-		 * @param parametersNumber the maximum number of parameter values passed with the addValue method
-		 */
-		public StaticCallDefinition(int methodId, int parametersNumber){
-			this.methodId = methodId;
-			parametersValue = new Object[parametersNumber];
-		}
-		
-		
-		/**
-		 * Add a new value for a parameter. 
-		 * 
-		 * @param newValue the new value
-		 */
-		public void addValue(Object newValue){
-			parametersValue[actualAddedParameters] = newValue;
-			actualAddedParameters++;
-		}
-		
-	
-		/**
-		 * Execute the specified command with the specified parameters values
-		 */
-		public void execute(){
-				StaticCallResolver.resolveCall(methodId, parametersValue, realDrawer);
+		public void execute(Graphics2D graphics){
+			propertyValue = graphics.getClip();
 		}
 	}
 	
@@ -337,21 +120,17 @@ public class StackGraphics2D extends ACachedGraphics {
 	
 	/**
 	 * Trough a reference of an element bind a return command with a restore command. If the 
-	 * reference returned by a get is used inside a set then this is a backup\restore operation
+	 * reference returned by a get is used inside a set then this is a backup\restore operation.
+	 * The references are compared by identity, since a different transform with the same values
+	 * is not a restore
 	 */
-	private HashMap<Object, BackupProperty> statusRestorer = new HashMap<Object, BackupProperty>();
+	private IdentityHashMap<Object, ExecutableCommand> statusRestorer = new IdentityHashMap<Object, ExecutableCommand>();
 	
 	/**
 	 * List of command in the stack
 	 */
 	private List<ExecutableCommand> stack = new ArrayList<StackGraphics2D.ExecutableCommand>();
 	
-	/**
-	 * List of subgraphics. A subgraphics is create when from this graphics a new one is
-	 * requested using the method create()
-	 */
-	private List<StackGraphics2D> subGraphics = new ArrayList<StackGraphics2D>();
-	
 	/**
 	 * Create an instance of the class
 	 * 
@@ -371,27 +150,34 @@ public class StackGraphics2D extends ACachedGraphics {
 	}
 	
 	/**
-	 * Execute all the commands in the stack and recursively also
-	 * in all the subgraphics
+	 * Execute all the commands in the stack, the subgraphics are 
+	 * executed where they were created
 	 */
 	public void paintCache(){
-		for(ExecutableCommand definition : stack){
-			definition.execute();
-		}
-		for(StackGraphics2D subGraphic : subGraphics){
-			subGraphic.paintCache();
-		}
+		replay(realDrawer);
 		double scaleX = realDrawer.getTransform().getScaleX();
 		double scaleY = realDrawer.getTransform().getScaleY();
 		this.scaleX = scaleX;
 		this.scaleY = scaleY;
 	}
 	
+	/**
+	 * Execute all the commands in the stack on the passed graphics
+	 * 
+	 * @param graphics a not null graphics
+	 */
+	private void replay(Graphics2D graphics){
+		for(int i = 0; i < stack.size(); i++){
+			stack.get(i).execute(graphics);
+		}
+	}
+	
 	/**
 	 * Clear the stack
 	 */
 	public void clearStack(){
 		stack.clear();
+		statusRestorer.clear();
 	}
 
 	/**
@@ -406,621 +192,304 @@ public class StackGraphics2D extends ACachedGraphics {
 	
 	@Override
 	public void addRenderingHints(Map<?, ?> arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(0,1);
-		call.addValue(arg0);
-		stack.add(call);
+		stack.add(g -> g.addRenderingHints(arg0));
 	}
 
 	@Override
 	public void setRenderingHints(Map<?, ?> arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(1,1);
-		call.addValue(arg0);
-		stack.add(call);
+		stack.add(g -> g.setRenderingHints(arg0));
 	}
 	
 	@Override
 	public void clip(Shape arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(2,1);
-
-		call.addValue(arg0);
-		stack.add(call);
+		stack.add(g -> g.clip(arg0));
 	}
 
 	@Override
 	public void draw(Shape arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(3,1);
-		call.addValue(arg0);
-		stack.add(call);
+		stack.add(g -> g.draw(arg0));
 	}
 
 	@Override
 	public void drawGlyphVector(GlyphVector arg0, float arg1, float arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(4,3);
-		
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.drawGlyphVector(arg0, arg1, arg2));
 	}
 	
 
 	@Override
 	public boolean drawImage(Image arg0, AffineTransform arg1, ImageObserver arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(5,3);
-		
-		call.addValue(arg0);
-		call.addValue(copyTransform(arg1));
-		call.addValue(arg2);
-		
-		stack.add(call);
-		
+		AffineTransform transform = copyTransform(arg1);
+		stack.add(g -> g.drawImage(arg0, transform, arg2));
 		return false;
 	}
 
 	@Override
 	public void drawImage(BufferedImage arg0, BufferedImageOp arg1, int arg2, int arg3) {
-		StaticCallDefinition call = new StaticCallDefinition(6,4);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		
-		stack.add(call);
+		stack.add(g -> g.drawImage(arg0, arg1, arg2, arg3));
 	}
 
 	@Override
 	public void drawRenderableImage(RenderableImage arg0, AffineTransform arg1) {
-		StaticCallDefinition call = new StaticCallDefinition(7,2);
-		
-		call.addValue(arg0);
-		call.addValue(copyTransform(arg1));
-		
-		stack.add(call);
+		AffineTransform transform = copyTransform(arg1);
+		stack.add(g -> g.drawRenderableImage(arg0, transform));
 	}
 
 	@Override
 	public void drawRenderedImage(RenderedImage arg0, AffineTransform arg1) {
-		StaticCallDefinition call = new StaticCallDefinition(8,2);
-	
-		call.addValue(arg0);
-		call.addValue(copyTransform(arg1));
-		
-		stack.add(call);
+		AffineTransform transform = copyTransform(arg1);
+		stack.add(g -> g.drawRenderedImage(arg0, transform));
 	}
 
 	@Override
 	public void drawString(String arg0, int arg1, int arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(9,3);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.drawString(arg0, arg1, arg2));
 	}
 
 	@Override
 	public void drawString(String arg0, float arg1, float arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(10,3);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.drawString(arg0, arg1, arg2));
 	}
 
 	@Override
 	public void drawString(AttributedCharacterIterator arg0, int arg1, int arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(11,3);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.drawString(arg0, arg1, arg2));
 	}
 
 	@Override
 	public void drawString(AttributedCharacterIterator arg0, float arg1, float arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(12,3);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.drawString(arg0, arg1, arg2));
 	}
 
 	@Override
 	public void fill(Shape arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(13,1);
-		
-		call.addValue(arg0);
-		
-		stack.add(call);
+		stack.add(g -> g.fill(arg0));
 	}
 	
 
 	@Override
 	public boolean hit(Rectangle arg0, Shape arg1, boolean arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(14,3);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.hit(arg0, arg1, arg2));
 		return false;
 	}
 
 	@Override
 	public void rotate(double arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(15,1);
-
-		call.addValue(arg0);
-		
-		stack.add(call);
+		stack.add(g -> g.rotate(arg0));
 	}
 
 	@Override
 	public void rotate(double arg0, double arg1, double arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(16,3);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.rotate(arg0, arg1, arg2));
 	}
 
 	@Override
 	public void scale(double arg0, double arg1) {
-		StaticCallDefinition call = new StaticCallDefinition(17,2);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		
-		stack.add(call);
+		stack.add(g -> g.scale(arg0, arg1));
 	}
 
 	@Override
 	public void setBackground(Color arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(18,1);
-
-		call.addValue(arg0);
-		
-		stack.add(call);
+		stack.add(g -> g.setBackground(arg0));
 	}
 
 	@Override
 	public void setComposite(Composite arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(19,1);
-		
-		call.addValue(arg0);
-		
-		stack.add(call);
+		stack.add(g -> g.setComposite(arg0));
 	}
 
 	@Override
 	public void setPaint(Paint arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(20,1);
-
-		call.addValue(arg0);
-		
-		stack.add(call);
+		stack.add(g -> g.setPaint(arg0));
 	}
 
 	@Override
 	public void setRenderingHint(Key arg0, Object arg1) {
-		StaticCallDefinition call = new StaticCallDefinition(21,2);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		
-		stack.add(call);
+		stack.add(g -> g.setRenderingHint(arg0, arg1));
 	}
 
-
-
 	@Override
 	public void setStroke(Stroke arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(22,1);
-
-		call.addValue(arg0);
-		
-		stack.add(call);
+		stack.add(g -> g.setStroke(arg0));
 	}
 
 	@Override
 	public void setTransform(AffineTransform arg0) {
-		if (!statusRestorer.containsKey(arg0)){
-			//It's not a status restoring operation
-			StaticCallDefinition call = new StaticCallDefinition(23,1);
-			call.addValue(copyTransform(arg0));
-			stack.add(call);
-		} else {
+		ExecutableCommand backup = statusRestorer.get(arg0);
+		if (backup instanceof BackupTransform){
 			//status restoring operation
-			BackupProperty backup = statusRestorer.get(arg0);
-			RestoreProperty call = new RestoreProperty("setTransform", backup);
-			stack.add(call);
+			BackupTransform transformBackup = (BackupTransform)backup;
+			stack.add(g -> g.setTransform(transformBackup.propertyValue));
+		} else {
+			//It's not a status restoring operation
+			AffineTransform transform = copyTransform(arg0);
+			stack.add(g -> g.setTransform(transform));
 		}
 	}
 
 	@Override
 	public void shear(double arg0, double arg1) {
-		StaticCallDefinition call = new StaticCallDefinition(24,2);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		
-		stack.add(call);
+		stack.add(g -> g.shear(arg0, arg1));
 	}
 
 	@Override
 	public void transform(AffineTransform arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(25,1);
-		
-		call.addValue(copyTransform(arg0));
-		
-		stack.add(call);
+		AffineTransform transform = copyTransform(arg0);
+		stack.add(g -> g.transform(transform));
 	}
 
 	@Override
 	public void translate(int arg0, int arg1) {
-		StaticCallDefinition call = new StaticCallDefinition(26,2);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		
-		stack.add(call);
+		stack.add(g -> g.translate(arg0, arg1));
 	}
 
 	@Override
 	public void translate(double arg0, double arg1) {
-		StaticCallDefinition call = new StaticCallDefinition(27,2);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		
-		stack.add(call);
-
+		stack.add(g -> g.translate(arg0, arg1));
 	}
 
 	@Override
 	public void clearRect(int arg0, int arg1, int arg2, int arg3) {
-		StaticCallDefinition call = new StaticCallDefinition(28,4);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		
-		stack.add(call);
+		stack.add(g -> g.clearRect(arg0, arg1, arg2, arg3));
 	}
 
 	@Override
 	public void clipRect(int arg0, int arg1, int arg2, int arg3) {
-		StaticCallDefinition call = new StaticCallDefinition(29,4);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		
-		stack.add(call);
+		stack.add(g -> g.clipRect(arg0, arg1, arg2, arg3));
 	}
 
 	@Override
 	public void copyArea(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5) {
-		StaticCallDefinition call = new StaticCallDefinition(30,6);
-		
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		call.addValue(arg5);
-		
-		stack.add(call);
+		stack.add(g -> g.copyArea(arg0, arg1, arg2, arg3, arg4, arg5));
 	}
 
 
 	@Override
 	public void drawArc(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5) {
-		StaticCallDefinition call = new StaticCallDefinition(31,6);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		call.addValue(arg5);
-		
-		stack.add(call);
+		stack.add(g -> g.drawArc(arg0, arg1, arg2, arg3, arg4, arg5));
 	}
 
 	@Override
 	public boolean drawImage(Image arg0, int arg1, int arg2, ImageObserver arg3) {
-		StaticCallDefinition call = new StaticCallDefinition(32,4);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		
-		stack.add(call);
+		stack.add(g -> g.drawImage(arg0, arg1, arg2, arg3));
 		return false;
 	}
 
 	@Override
 	public boolean drawImage(Image arg0, int arg1, int arg2, Color arg3, ImageObserver arg4) {
-		StaticCallDefinition call = new StaticCallDefinition(33,5);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		
-		stack.add(call);
+		stack.add(g -> g.drawImage(arg0, arg1, arg2, arg3, arg4));
 		return false;
 	}
 
 	@Override
 	public boolean drawImage(Image arg0, int arg1, int arg2, int arg3, int arg4, ImageObserver arg5) {
-		StaticCallDefinition call = new StaticCallDefinition(34,6);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		call.addValue(arg5);
-		
-		stack.add(call);
+		stack.add(g -> g.drawImage(arg0, arg1, arg2, arg3, arg4, arg5));
 		return false;
 	}
 
 	@Override
 	public boolean drawImage(Image arg0, int arg1, int arg2, int arg3, int arg4, Color arg5, ImageObserver arg6) {
-		StaticCallDefinition call = new StaticCallDefinition(35,7);
-		
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		call.addValue(arg5);
-		call.addValue(arg6);
-		
-		stack.add(call);
+		stack.add(g -> g.drawImage(arg0, arg1, arg2, arg3, arg4, arg5, arg6));
 		return false;
 	}
 
 	@Override
 	public boolean drawImage(Image arg0, int arg1, int arg2, int arg3, int arg4, int arg5, int arg6, int arg7, int arg8, ImageObserver arg9) {
-		StaticCallDefinition call = new StaticCallDefinition(36,10);
-		
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		call.addValue(arg5);
-		call.addValue(arg6);
-		call.addValue(arg7);
-		call.addValue(arg8);
-		call.addValue(arg9);
-		
-		stack.add(call);
+		stack.add(g -> g.drawImage(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9));
 		return false;
 	}
 
 	@Override
 	public boolean drawImage(Image arg0, int arg1, int arg2, int arg3, int arg4, int arg5, int arg6, int arg7, int arg8, Color arg9, ImageObserver arg10) {
-		StaticCallDefinition call = new StaticCallDefinition(37,11);
-		
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		call.addValue(arg5);
-		call.addValue(arg6);
-		call.addValue(arg7);
-		call.addValue(arg8);
-		call.addValue(arg9);
-		call.addValue(arg10);
-		
-		stack.add(call);
+		stack.add(g -> g.drawImage(arg0, arg1, arg2, arg3, arg4, arg5, arg6, arg7, arg8, arg9, arg10));
 		return false;
 	}
 
 	@Override
 	public void drawLine(int arg0, int arg1, int arg2, int arg3) {
-		StaticCallDefinition call = new StaticCallDefinition(38,4);
-		
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		
-		stack.add(call);
+		stack.add(g -> g.drawLine(arg0, arg1, arg2, arg3));
 	}
 
 	@Override
 	public void drawOval(int arg0, int arg1, int arg2, int arg3) {
-		StaticCallDefinition call = new StaticCallDefinition(39,4);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		
-		stack.add(call);
+		stack.add(g -> g.drawOval(arg0, arg1, arg2, arg3));
 	}
 
 	@Override
 	public void drawPolygon(int[] arg0, int[] arg1, int arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(40,3);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.drawPolygon(arg0, arg1, arg2));
 	}
 
 	@Override
 	public void drawPolyline(int[] arg0, int[] arg1, int arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(41,3);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.drawPolyline(arg0, arg1, arg2));
 	}
 
 	@Override
 	public void drawRoundRect(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5) {
-		StaticCallDefinition call = new StaticCallDefinition(42,6);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		call.addValue(arg5);
-		
-		stack.add(call);
+		stack.add(g -> g.drawRoundRect(arg0, arg1, arg2, arg3, arg4, arg5));
 	}
 
 	@Override
 	public void fillArc(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5) {
-		StaticCallDefinition call = new StaticCallDefinition(43,6);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		call.addValue(arg5);
-		
-		stack.add(call);
+		stack.add(g -> g.fillArc(arg0, arg1, arg2, arg3, arg4, arg5));
 	}
 
 	@Override
 	public void fillOval(int arg0, int arg1, int arg2, int arg3) {
-		StaticCallDefinition call = new StaticCallDefinition(44,4);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		
-		stack.add(call);
+		stack.add(g -> g.fillOval(arg0, arg1, arg2, arg3));
 	}
 
 	@Override
 	public void fillPolygon(int[] arg0, int[] arg1, int arg2) {
-		StaticCallDefinition call = new StaticCallDefinition(45,3);
-		
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		
-		stack.add(call);
+		stack.add(g -> g.fillPolygon(arg0, arg1, arg2));
 	}
 
 	@Override
 	public void fillRect(int arg0, int arg1, int arg2, int arg3) {
-		StaticCallDefinition call = new StaticCallDefinition(46,4);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		
-		stack.add(call);
+		stack.add(g -> g.fillRect(arg0, arg1, arg2, arg3));
 	}
 
 	@Override
 	public void fillRoundRect(int arg0, int arg1, int arg2, int arg3, int arg4, int arg5) {
-		StaticCallDefinition call = new StaticCallDefinition(47,6);
-
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		call.addValue(arg4);
-		call.addValue(arg5);
-		
-		stack.add(call);
+		stack.add(g -> g.fillRoundRect(arg0, arg1, arg2, arg3, arg4, arg5));
 	}
 
 	@Override
 	public void setClip(Shape arg0) {
-		if (!statusRestorer.containsKey(arg0)){
-			//It's not a status restoring operation
-			StaticCallDefinition call = new StaticCallDefinition(48,1);
-			call.addValue(arg0);
-			stack.add(call);
-		} else {
+		ExecutableCommand backup = statusRestorer.get(arg0);
+		if (backup instanceof BackupClip){
 			//status restoring operation
-			BackupProperty backup = statusRestorer.get(arg0);
-			RestoreProperty call = new RestoreProperty("setClip", backup);
-			stack.add(call);
+			BackupClip clipBackup = (BackupClip)backup;
+			stack.add(g -> g.setClip(clipBackup.propertyValue));
+		} else {
+			//It's not a status restoring operation
+			stack.add(g -> g.setClip(arg0));
 		}
 	}
 
 	@Override
 	public void setClip(int arg0, int arg1, int arg2, int arg3) {
-		StaticCallDefinition call = new StaticCallDefinition(49,4);
-		
-		call.addValue(arg0);
-		call.addValue(arg1);
-		call.addValue(arg2);
-		call.addValue(arg3);
-		
-		stack.add(call);
+		stack.add(g -> g.setClip(arg0, arg1, arg2, arg3));
 	}
 
 	@Override
 	public void setColor(Color arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(50,1);
-
-		call.addValue(arg0);
-		
-		stack.add(call);
+		stack.add(g -> g.setColor(arg0));
 	}
 
 	@Override
 	public void setFont(Font arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(51,1);
-		
-		call.addValue(arg0);
-		
-		stack.add(call);
+		stack.add(g -> g.setFont(arg0));
 	}
 
 	@Override
 	public void setPaintMode() {
-		StaticCallDefinition call = new StaticCallDefinition(52,0);
-		
-		stack.add(call);
+		stack.add(g -> g.setPaintMode());
 	}
 
 	@Override
 	public void setXORMode(Color arg0) {
-		StaticCallDefinition call = new StaticCallDefinition(53,1);
-		
-		call.addValue(arg0);
-		
-		stack.add(call);
+		stack.add(g -> g.setXORMode(arg0));
 	}
 	
 	@Override
@@ -1065,7 +534,7 @@ public class StackGraphics2D extends ACachedGraphics {
 
 	@Override
 	public AffineTransform getTransform() {
-		BackupProperty backupCommand = new BackupProperty("getTransform");
+		BackupTransform backupCommand = new BackupTransform();
 		stack.add(backupCommand);
 		AffineTransform bindingReference = realDrawer.getTransform();
 		statusRestorer.put(bindingReference, backupCommand);
@@ -1074,7 +543,7 @@ public class StackGraphics2D extends ACachedGraphics {
 	
 	@Override
 	public Shape getClip() {
-		BackupProperty backupCommand = new BackupProperty("getClip");
+		BackupClip backupCommand = new BackupClip();
 		stack.add(backupCommand);
 		Shape bindingReference = realDrawer.getClip();
 		statusRestorer.put(bindingReference, backupCommand);
@@ -1102,12 +571,21 @@ public class StackGraphics2D extends ACachedGraphics {
 	}
 
 	/**
-	 * Create a new subgraphic for the curren graphic
+	 * Create a new subgraphic for the curren graphic. When the stack is executed the
+	 * subgraphic is replayed on a graphics created from the current one at the same point
+	 * where it was created, and then disposed
 	 */
 	@Override
 	public Graphics create() {
 		StackGraphics2D subGraphic = new StackGraphics2D((Graphics2D)realDrawer.create());
-		subGraphics.add(subGraphic);
+		stack.add(g -> {
+			Graphics2D subDrawer = (Graphics2D)g.create();
+			try {
+				subGraphic.replay(subDrawer);
+			} finally {
+				subDrawer.dispose();
+			}
+		});
 		return subGraphic;
 	}
 
@@ -3,10 +3,10 @@
  *******************************************************************************/
 package com.jaspersoft.studio.editor.java2d.figure;
 
+import java.awt.Graphics2D;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-
-import net.sf.jasperreports.soutils.EnvironmentUtils;
+import java.util.Map;
 
 import org.eclipse.draw2d.Figure;
 import org.eclipse.draw2d.FigureListener;
@@ -18,6 +18,8 @@ import org.eclipse.draw2d.LayoutListener;
 import org.eclipse.draw2d.MouseEvent;
 import org.eclipse.draw2d.MouseListener;
 import org.eclipse.draw2d.MouseMotionListener;
+import org.eclipse.draw2d.UpdateListener;
+import org.eclipse.draw2d.UpdateManager;
 import org.eclipse.draw2d.Viewport;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Point;
@@ -25,18 +27,26 @@ import org.eclipse.draw2d.geometry.Rectangle;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Image;
-import org.eclipse.swt.graphics.ImageData;
-import org.eclipse.swt.graphics.PaletteData;
 import org.eclipse.swt.graphics.RGB;
 import org.eclipse.swt.widgets.Display;
 
 import com.jaspersoft.studio.editor.java2d.J2DGraphics;
 import com.jaspersoft.studio.editor.java2d.J2DGraphicsSource;
+import com.jaspersoft.studio.model.INode;
 import com.jaspersoft.studio.model.MRoot;
 
 /**
  * Class to show a thumbnail figure of the report and used to move the main
- * editor when the thumbnail image is clicked
+ * editor when the thumbnail image is clicked.
+ * <p>
+ * The thumbnail listens the update manager of the source figure and redraws
+ * only the regions of the source that were repainted, inside an image kept
+ * for the whole life of the thumbnail. The editor repaints only what is inside
+ * its viewport, so when a part of the report is outside of it a change of the
+ * model redraws the whole image. The refreshes are executed by the
+ * {@link ThumbnailRefreshScheduler}, and nothing is listened or redrawn while
+ * the thumbnail is hidden.
+ * </p>
  * 
  * @author Orlandin Marco
  *
@@ -64,42 +74,86 @@ public class JSSScrollableThumbnail extends Figure {
 	 */
 	private IFigure sourceFigure;
 	
+	/**
+	 * Root node of the actually edited model
+	 */
+	private MRoot rootNode;
+	
+	/**
+	 * The node of the model listened while the thumbnail is visible, the first
+	 * child of the root (it should be an mpage or an mreport)
+	 */
+	private INode modelNode;
+	
 	/**
 	 * Size of the thumbnail
 	 */
 	protected Dimension targetSize = new Dimension(0, 0);
 	
 	/**
-	 * The last thumbnail created is cached, so it will be 
-	 * recalculated only when something changes
+	 * The thumbnail image, it is created once and updated in the regions
+	 * that change. It is created again only when its size changes
 	 */
-	private ImageData cachedImage = null; 
+	private Image thumbnailImage = null;
 	
 	/**
-	 * Flag used to know if the figure was deactivated. If is deactivated
-	 * the thread to refresh the thumbnail can terminate
+	 * The region of the source figure painted in the thumbnail image
 	 */
-	private boolean deactivated = false;
+	private Rectangle renderedSource = null;
 	
 	/**
-	 * Flag to know if the thumbnail image must be regenerated by the refresh thread
+	 * The size of the area of the source figure scaled in the thumbnail image
 	 */
-	private boolean needRefresh = false;
+	private Dimension renderedSize = null;
 	
 	/**
-	 * Root node of the actually edited model
+	 * Region of the source figure, in the coordinates of its bounds, that must be
+	 * redrawn in the thumbnail image. Null if nothing changed
+	 */
+	private Rectangle dirtyRegion = null;
+	
+	/**
+	 * Flag to know if the whole thumbnail image must be redrawn
 	 */
-	private MRoot rootNode = null;
+	private boolean fullRefresh = true;
+	
+	/**
+	 * Flag used to know if the figure was deactivated
+	 */
+	private boolean deactivated = false;
 	
 	/**
-	 * Property change listener for the report model, if something change the 
-	 * thumbnail is regenerated
+	 * The update manager of the source figure, it is listened only when the
+	 * thumbnail is visible
 	 */
-	private PropertyChangeListener listener = new PropertyChangeListener() {
+	private UpdateManager sourceUpdateManager = null;
+	
+	/**
+	 * Listener of the paints of the source figure, it collects the regions
+	 * to redraw in the thumbnail
+	 */
+	private UpdateListener updateListener = new UpdateListener() {
 		
+		@SuppressWarnings("rawtypes")
 		@Override
-		public void propertyChange(PropertyChangeEvent evt) {
-			setNeedRefresh(true);
+		public void notifyPainting(Rectangle damage, Map dirtyRegions) {
+			//the damage is in the coordinates of the root figure, it is already
+			//scaled by the zoom, moved by the scroll and clipped to the viewport
+			Rectangle region = toSourceCoordinates(damage);
+			if (region == null)
+				return;
+			region.intersect(getSourceRectangle());
+			if (region.isEmpty())
+				return;
+			if (dirtyRegion == null)
+				dirtyRegion = region;
+			else
+				dirtyRegion.union(region);
+			ThumbnailRefreshScheduler.schedule(JSSScrollableThumbnail.this);
+		}
+		
+		@Override
+		public void notifyValidating() {
 		}
 	};
 	
@@ -192,42 +246,31 @@ public class JSSScrollableThumbnail extends Figure {
 	};
 
 	/**
-	 * Listener called when the viewport changes
+	 * Listener of the model, the changes outside the viewport of the editor are
+	 * not repainted, so if the source is not completely visible the whole
+	 * thumbnail is redrawn
 	 */
-	private PropertyChangeListener propListener = new PropertyChangeListener() {
+	private PropertyChangeListener modelListener = new PropertyChangeListener() {
+		
+		@Override
 		public void propertyChange(PropertyChangeEvent evt) {
-			reconfigureSelectorBounds();
+			if (Display.getCurrent() == null) {
+				Display.getDefault().asyncExec(() -> modelChanged());
+			} else {
+				modelChanged();
+			}
 		}
 	};
 	
 	/**
-	 * Thread that regenerate the thumbnail image when a refresh is requested and
-	 * that terminate only when the part is deactivated
+	 * Listener called when the viewport changes
 	 */
-	public Runnable refreshScheduler = new Runnable() {
-		
-		@Override
-		public void run() {
-			while(!deactivated){
-				if (isNeedRefresh() && isVisible()){
-					try {
-						Thread.sleep(200);
-					} catch (InterruptedException e) {
-						e.printStackTrace();
-					}
-					Display.getDefault().asyncExec(new Runnable() {
-						@Override
-						public void run() {
-							cachedImage = getThumbnailImage();
-							repaint();
-						}
-					});
-					setNeedRefresh(false);
-				}
-			}
+	private PropertyChangeListener propListener = new PropertyChangeListener() {
+		public void propertyChange(PropertyChangeEvent evt) {
+			reconfigureSelectorBounds();
 		}
 	};
-
+	
 	/**
 	 * Figure where the thumbnail image is painted
 	 * 
@@ -247,12 +290,12 @@ public class JSSScrollableThumbnail extends Figure {
 		}
 		
 		public void paintFigure(Graphics g) {
-			if (cachedImage == null){
-				cachedImage = getThumbnailImage();
+			if (thumbnailImage == null){
+				renderThumbnail();
+			}
+			if (thumbnailImage != null){
+				g.drawImage(thumbnailImage, 0, 0);
 			}
-			Image imageToDraw = new Image(Display.getCurrent(), cachedImage);
-			g.drawImage(imageToDraw, 0, 0);
-			imageToDraw.dispose();
 			//g.setForegroundColor(ColorConstants.menuBackgroundSelected);
 			//g.drawRectangle(viewPortBounds);
 		}
@@ -270,68 +313,178 @@ public class JSSScrollableThumbnail extends Figure {
 	private FigureListener figureListener = new FigureListener() {
 		public void figureMoved(IFigure source) {
 			reconfigureSelectorBounds();
-			needRefresh = true;
+			requestRefresh();
 		}
 	};
 	
 	
 
 	/**
-	 * Generate and return the thumbnail image data
-	 * 
-	 * @return a not null thumbnail image data
+	 * Executed by the {@link ThumbnailRefreshScheduler}, redraw in the thumbnail
+	 * image the regions of the source changed since the last refresh. The whole
+	 * image is redrawn if the source changed its bounds
+	 */
+	void refresh() {
+		if (deactivated || !isVisible() || sourceFigure == null)
+			return;
+		if (fullRefresh || thumbnailImage == null || !getSourceRectangle().equals(renderedSource)) {
+			renderThumbnail();
+		} else if (dirtyRegion != null) {
+			renderRegion(dirtyRegion);
+			dirtyRegion = null;
+		}
+		selector.repaint();
+	}
+
+	/**
+	 * Called on the UI thread when the model changes, if the change could be outside
+	 * the viewport of the editor the whole image is redrawn
+	 */
+	private void modelChanged() {
+		if (deactivated || !isVisible() || sourceFigure == null || isSourceVisible())
+			return;
+		fullRefresh = true;
+		requestRefresh();
+	}
+
+	/**
+	 * Request a refresh of the thumbnail, the whole image is redrawn if it was
+	 * requested or if the bounds of the source are changed
+	 */
+	private void requestRefresh() {
+		if (deactivated || !isVisible())
+			return;
+		ThumbnailRefreshScheduler.schedule(this);
+	}
+
+	/**
+	 * Redraw the whole thumbnail image, creating it again if its size changed
 	 */
-	protected ImageData getThumbnailImage() {
-		Rectangle e = getSourceRectangle();
+	protected void renderThumbnail() {
+		if (sourceFigure == null || deactivated)
+			return;
+		Rectangle e = getSourceRectangle().getCopy();
 		targetSize = getPreferredSize();
-		Rectangle fullSize = new Rectangle(0, 0, e.width + Math.abs(e.x), e.height + Math.abs(e.y));
-		
-		
-		//Generate a full size image
-		PaletteData palette = new PaletteData(0x0000ff, 0x00ff00,0xff0000);
-		//The graphics should paint the image with a depth of 32 bit but for some reason it's always 24
-		ImageData data = new ImageData(fullSize.width, fullSize.height, 24, palette);
-		Image fullImage = new Image(Display.getCurrent(), data);
-		GC fullImageGC = new GC(fullImage);
-		J2DGraphicsSource gs = new J2DGraphicsSource(fullImageGC);
-		Graphics graphics = gs.getGraphics(fullSize); 
-		RGB backgroundColor = getBackgroundColor().getRGB();
-		((J2DGraphics)graphics).getGraphics2D().translate(-e.x, -e.y);
-		((J2DGraphics)graphics).getGraphics2D().setColor(new java.awt.Color(backgroundColor.red, backgroundColor.green, backgroundColor.blue));
-		((J2DGraphics)graphics).getGraphics2D().fillRect(e.x,e.y,data.width, data.height);
-		sourceFigure.paint(graphics);
-		gs.flushGraphics(fullSize);
-		
+		Dimension fullSize = new Dimension(e.width + Math.abs(e.x), e.height + Math.abs(e.y));
+		if (fullSize.width <= 0 || fullSize.height <= 0 || targetSize.width <= 0 || targetSize.height <= 0)
+			return;
+
 		//Calculate the maximum size for the painting area keeping the aspect ratio
 		Point thumbNailSize = calculateMaximumSize(fullSize.width, fullSize.height);
-		int height = thumbNailSize.y;
-		int width = thumbNailSize.x;
+		int height = Math.max(1, thumbNailSize.y);
+		int width = Math.max(1, thumbNailSize.x);
 				
 		int offset_x = (e.x * width) / fullSize.width; 
 		int offset_y = (e.y * height) / fullSize.height; 
 		targetSize.setSize(new Dimension(width + offset_x, height + offset_y));
 		
-		palette = new PaletteData(0x0000ff, 0x00ff00,0xff0000);
-		ImageData resizedImageData = new ImageData(width,height,24,palette);
-		
-		Image resizedImage = new Image(Display.getCurrent(), resizedImageData);
-		GC resizedImageGC = new GC(resizedImage);
-		ImageData fixedImage;
+		if (thumbnailImage != null) {
+			org.eclipse.swt.graphics.Rectangle imageBounds = thumbnailImage.getBounds();
+			if (imageBounds.width != width || imageBounds.height != height) {
+				thumbnailImage.dispose();
+				thumbnailImage = null;
+			}
+		}
+		if (thumbnailImage == null)
+			thumbnailImage = new Image(Display.getCurrent(), width, height);
+		renderedSource = e;
+		renderedSize = fullSize;
+		fullRefresh = false;
+		dirtyRegion = null;
+		renderRegion(new Rectangle(e.x, e.y, fullSize.width, fullSize.height));
+		reconfigureSelectorBounds();
+	}
+
+	/**
+	 * Paint a region of the source figure and draw it scaled in the thumbnail
+	 * image. The region is painted at full size in a temporary image only as
+	 * big as the region
+	 * 
+	 * @param region the region of the source figure, in the coordinates of its bounds
+	 */
+	private void renderRegion(Rectangle region) {
+		Rectangle e = renderedSource;
+		org.eclipse.swt.graphics.Rectangle imageBounds = thumbnailImage.getBounds();
+		double scaleX = (double) imageBounds.width / renderedSize.width;
+		double scaleY = (double) imageBounds.height / renderedSize.height;
+		Rectangle r = region.getCopy().expand(2, 2).intersect(new Rectangle(e.getLocation(), renderedSize));
+		if (r.isEmpty())
+			return;
+		//The pixels of the thumbnail covering the region
+		int tx = (int) Math.floor((r.x - e.x) * scaleX);
+		int ty = (int) Math.floor((r.y - e.y) * scaleY);
+		int tx2 = Math.min(imageBounds.width, (int) Math.ceil((r.right() - e.x) * scaleX));
+		int ty2 = Math.min(imageBounds.height, (int) Math.ceil((r.bottom() - e.y) * scaleY));
+		if (tx2 <= tx || ty2 <= ty)
+			return;
+		//The area of the source covered by those pixels
+		int x = (int) Math.floor(tx / scaleX);
+		int y = (int) Math.floor(ty / scaleY);
+		int x2 = Math.min(renderedSize.width, (int) Math.ceil(tx2 / scaleX));
+		int y2 = Math.min(renderedSize.height, (int) Math.ceil(ty2 / scaleY));
+		Rectangle area = new Rectangle(0, 0, x2 - x, y2 - y);
+		if (area.isEmpty())
+			return;
+
+		Image regionImage = new Image(Display.getCurrent(), area.width, area.height);
+		GC regionGC = new GC(regionImage);
+		GC thumbnailGC = new GC(thumbnailImage);
 		try {
-			resizedImageGC.setAntialias(SWT.ON);
-			resizedImageGC.setInterpolation(SWT.HIGH);
-			//resize the image for the available space
-			resizedImageGC.drawImage(fullImage, 0, 0, fullImage.getBounds().width, fullImage.getBounds().height, 0, 0, width, height);
-			resizedImageData = resizedImage.getImageData();
-			//call the method that eventually will fix the image colors
-			fixedImage = fixColor(resizedImage.getImageData());
+			J2DGraphicsSource gs = new J2DGraphicsSource(regionGC);
+			Graphics graphics = gs.getGraphics(area);
+			if (graphics != null) {
+				Graphics2D g2d = ((J2DGraphics) graphics).getGraphics2D();
+				RGB backgroundColor = getBackgroundColor().getRGB();
+				g2d.setColor(new java.awt.Color(backgroundColor.red, backgroundColor.green, backgroundColor.blue));
+				g2d.fillRect(0, 0, area.width, area.height);
+				graphics.translate(-(e.x + x), -(e.y + y));
+				sourceFigure.paint(graphics);
+				gs.flushGraphics(area);
+				graphics.dispose();
+			}
+			thumbnailGC.setAntialias(SWT.ON);
+			thumbnailGC.setInterpolation(SWT.HIGH);
+			//resize the region for the thumbnail
+			thumbnailGC.drawImage(regionImage, 0, 0, area.width, area.height, tx, ty, tx2 - tx, ty2 - ty);
 		} finally {
-			resizedImageGC.dispose();
-			resizedImage.dispose();
-			fullImageGC.dispose();
-			fullImage.dispose();
+			thumbnailGC.dispose();
+			regionGC.dispose();
+			regionImage.dispose();
 		}
-		return fixedImage;//fullImage.getImageData();
+	}
+
+	/**
+	 * Convert a region in the coordinates of the root figure in the coordinates
+	 * of the bounds of the source figure
+	 * 
+	 * @param rect the region in the coordinates of the root figure
+	 * @return a copy of the region in the coordinates of the source, or null if
+	 *         there is no source or the region is empty
+	 */
+	private Rectangle toSourceCoordinates(Rectangle rect) {
+		if (sourceFigure == null || rect == null || rect.isEmpty())
+			return null;
+		Rectangle r = rect.getCopy();
+		sourceFigure.translateToRelative(r);
+		//the relative coordinates of a figure with its own coordinate system start
+		//from its client area, move them where its bounds are
+		if (sourceFigure.isCoordinateSystem())
+			sourceFigure.translateToParent(r);
+		return r;
+	}
+
+	/**
+	 * Check if the whole source figure is inside the viewport of the editor, in
+	 * this case every change is repainted
+	 * 
+	 * @return true if the source is completely visible, false otherwise
+	 */
+	private boolean isSourceVisible() {
+		Rectangle visible = viewport.getBounds().getCopy();
+		if (viewport.getParent() != null)
+			viewport.getParent().translateToAbsolute(visible);
+		Rectangle r = toSourceCoordinates(visible);
+		return r != null && r.contains(getSourceRectangle());
 	}
 	
 	private Point calculateMaximumSize(int fullWidth, int fullHeight){
@@ -349,48 +502,6 @@ public class JSSScrollableThumbnail extends Figure {
 			else return new Point(width2, height2);
 		}
 	}
-	/*
-	private void getRightLowerMostAngle(List<INode> nodes, Rectangle insets){
-		if (nodes == null) return;
-		for(INode node : nodes){
-			if (node.getValue() instanceof JRDesignElement){
-				JRDesignElement element = (JRDesignElement)node.getValue();
-				int positionY = element.getHeight() + element.getY();
-				int positionX = element.getWidth() + element.getX();
-				System.out.println(positionY +  " " +  positionX);
-				if (positionY > insets.height) insets.setHeight(positionY);
-				if (positionY < insets.y) insets.setY(positionY);
-				if (positionX > insets.width) insets.setWidth(positionX);
-				if (positionX < insets.x) insets.setX(positionX);
-			}
-			getRightLowerMostAngle(node.getChildren(), insets);
-		}
-	}*/
-
-	/**
-	 * The image painted by the figure seems to has some problems with depth and color.
-	 * Even if the depth should be 32 it was 24 and other than that on Windows the blue and red components
-	 * of the rgb were switched. So this method switch the blue and red components when the operative 
-	 * system is Windows. The switch is done directly on the original image data with the bytes shifting method, 
-	 * for the sake of the performances
-	 * 
-	 * @param data original image data
-	 * @return the original image data with the red and blue components switched if the operative system is windows,
-	 * or untouched otherwise
-	 */
-	private ImageData fixColor(ImageData data){
-		if (EnvironmentUtils.IS_WINDOWS){
-			for (int i = 0; i < data.width; i++) {
-				for (int j = 0; j < data.height; j++) {
-					int pixel = data.getPixel(i, j);
-					int newPixel = (pixel >> 16) + (pixel << 16) + (pixel & 0x00FF00);
-					data.setPixel(i, j, newPixel);
-				}
-			}
-		}
-		return data;
-	}
-
 	/**
 	 * Creates a new JSSScrollableThumbnail that synchs with the given Viewport.
 	 * 
@@ -399,6 +510,7 @@ public class JSSScrollableThumbnail extends Figure {
 	 */
 	public JSSScrollableThumbnail(Viewport port, MRoot rootNode) {
 		super();
+		this.rootNode = rootNode;
 		setViewport(port);
 		initialize();
 		addLayoutListener(new LayoutListener() {
@@ -411,7 +523,9 @@ public class JSSScrollableThumbnail extends Figure {
 			
 			@Override
 			public void postLayout(IFigure container) {
-				setNeedRefresh(true);
+				//the size of the thumbnail could be changed
+				fullRefresh = true;
+				requestRefresh();
 			}
 			
 			@Override
@@ -422,18 +536,43 @@ public class JSSScrollableThumbnail extends Figure {
 			@Override
 			public void invalidate(IFigure container) {}
 		});
-		this.rootNode = rootNode;
-		new Thread(refreshScheduler).start();
 	}
 
 	/**
-	 * Deactivate the figure by removing the listener and opening the 
-	 * flag for the thread termination
+	 * Deactivate the figure by removing the listeners and disposing the
+	 * thumbnail image
 	 */
 	public void deactivate() {
+		if (deactivated)
+			return;
 		unhookViewport();
 		unhookSelector();
+		unhookSource();
+		ThumbnailRefreshScheduler.cancel(this);
 		deactivated = true;
+		if (thumbnailImage != null) {
+			thumbnailImage.dispose();
+			thumbnailImage = null;
+		}
+	}
+
+	/**
+	 * When the thumbnail is hidden it stops to listen the source, when it is
+	 * shown again the whole image is redrawn
+	 */
+	@Override
+	public void setVisible(boolean visible) {
+		super.setVisible(visible);
+		if (deactivated)
+			return;
+		if (visible) {
+			hookSource();
+			fullRefresh = true;
+			requestRefresh();
+		} else {
+			unhookSource();
+			ThumbnailRefreshScheduler.cancel(this);
+		}
 	}
 
 	/**
@@ -518,6 +657,33 @@ public class JSSScrollableThumbnail extends Figure {
 		remove(selector);
 	}
 
+	/**
+	 * Listen the paints of the source figure and the changes of the model
+	 */
+	private void hookSource() {
+		unhookSource();
+		if (sourceFigure != null && sourceFigure.getUpdateManager() != null) {
+			sourceUpdateManager = sourceFigure.getUpdateManager();
+			sourceUpdateManager.addUpdateListener(updateListener);
+		}
+		if (rootNode != null && rootNode.getChildren() != null && !rootNode.getChildren().isEmpty()) {
+			modelNode = rootNode.getChildren().get(0);
+			modelNode.getPropertyChangeSupport().addPropertyChangeListener(modelListener);
+		}
+	}
+
+	private void unhookSource() {
+		if (sourceUpdateManager != null) {
+			sourceUpdateManager.removeUpdateListener(updateListener);
+			sourceUpdateManager = null;
+		}
+		if (modelNode != null) {
+			modelNode.getPropertyChangeSupport().removePropertyChangeListener(modelListener);
+			modelNode = null;
+		}
+		dirtyRegion = null;
+	}
+
 	private void unhookViewport() {
 		viewport.removePropertyChangeListener(Viewport.PROPERTY_VIEW_LOCATION, propListener);
 		viewport.removeFigureListener(figureListener);
@@ -543,35 +709,12 @@ public class JSSScrollableThumbnail extends Figure {
 		if (sourceFigure == fig)
 			return;
 		sourceFigure = fig;
-		//Add the listener for changes in the model on the first children of the root node (it should be an mpage or an mreport).
-		if (rootNode != null && rootNode.getChildren() != null && rootNode.getChildren().size()>0){
-			rootNode.getChildren().get(0).getPropertyChangeSupport().removePropertyChangeListener(listener);
-			rootNode.getChildren().get(0).getPropertyChangeSupport().addPropertyChangeListener(listener);
+		fullRefresh = true;
+		if (isVisible() && !deactivated) {
+			hookSource();
 		}
 		if (sourceFigure != null) {
 			reconfigureSelectorBounds();
 		}
 	}
-	
-	/**
-	 * Return if the thumbnail image must be refreshed
-	 * 
-	 * @return true if the thumbnail must be refreshed, false otherwise
-	 */
-	private boolean isNeedRefresh(){
-		synchronized (this) {
-			return needRefresh;
-		}
-	}
-	
-	/**
-	 * Set if the thumbnail image must be refreshed
-	 *  
-	 * @param value true if the thumbnail must be refreshed, false otherwise
-	 */
-	private void setNeedRefresh(boolean value){
-		synchronized (this) {
-			needRefresh = value;
-		}
-	}
 }
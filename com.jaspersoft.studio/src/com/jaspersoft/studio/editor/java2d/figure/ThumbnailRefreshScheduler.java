@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.java2d.figure;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Scheduler shared by the thumbnails of all the open editors. A thumbnail asks
+ * for a refresh when its source is repainted, and the requests are merged and
+ * executed on the UI thread at most once every {@link #MIN_INTERVAL}
+ * milliseconds. Nothing is executed while no thumbnail needs to be refreshed.
+ * <p>
+ * All the methods must be called from the UI thread.
+ * </p>
+ */
+final class ThumbnailRefreshScheduler {
+
+	/**
+	 * Minimum time between two refreshes of the thumbnails
+	 */
+	private static final int MIN_INTERVAL = 200;
+
+	/**
+	 * Delay used to merge the requests arriving together
+	 */
+	private static final int MIN_DELAY = 50;
+
+	/**
+	 * The thumbnails waiting for the refresh
+	 */
+	private static final Set<JSSScrollableThumbnail> pending = new LinkedHashSet<>();
+
+	/**
+	 * Flag to know if the refresh is already scheduled
+	 */
+	private static boolean scheduled = false;
+
+	/**
+	 * Time of the last refresh
+	 */
+	private static long lastRefresh = 0;
+
+	private static final Runnable refresher = new Runnable() {
+
+		@Override
+		public void run() {
+			scheduled = false;
+			lastRefresh = System.currentTimeMillis();
+			List<JSSScrollableThumbnail> thumbnails = new ArrayList<>(pending);
+			pending.clear();
+			for (JSSScrollableThumbnail thumbnail : thumbnails) {
+				thumbnail.refresh();
+			}
+		}
+	};
+
+	private ThumbnailRefreshScheduler() {
+	}
+
+	/**
+	 * Request the refresh of a thumbnail
+	 *
+	 * @param thumbnail the thumbnail to refresh, must be not null
+	 */
+	static void schedule(JSSScrollableThumbnail thumbnail) {
+		pending.add(thumbnail);
+		if (!scheduled) {
+			scheduled = true;
+			long elapsed = System.currentTimeMillis() - lastRefresh;
+			int delay = (int) Math.max(MIN_DELAY, MIN_INTERVAL - elapsed);
+			Display.getDefault().timerExec(delay, refresher);
+		}
+	}
+
+	/**
+	 * Remove a pending request of refresh
+	 *
+	 * @param thumbnail the thumbnail that doesn't need the refresh anymore
+	 */
+	static void cancel(JSSScrollableThumbnail thumbnail) {
+		pending.remove(thumbnail);
+	}
+}
@@ -49,13 +49,18 @@ import org.eclipse.swt.events.MouseMoveListener;
 import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Tree;
 import org.eclipse.swt.widgets.TreeItem;
 import org.eclipse.ui.IActionBars;
+import org.eclipse.ui.IPartListener2;
+import org.eclipse.ui.IWorkbenchPart;
+import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.actions.ActionFactory;
 import org.eclipse.ui.part.IPageSite;
 import org.eclipse.ui.part.PageBook;
+import org.eclipse.ui.part.PageBookView;
 import org.eclipse.ui.part.ResourceTransfer;
 
 import com.jaspersoft.studio.JaspersoftStudioPlugin;
@@ -121,6 +126,73 @@ public class JDReportOutlineView extends ContentOutlinePage implements IAdaptabl
 	/** The dispose listener. */
 	private DisposeListener disposeListener;
 
+	/**
+	 * Flag to know if the view showing this page is visible, it is false when the
+	 * view is minimized or behind another view
+	 */
+	private boolean viewVisible = true;
+
+	/**
+	 * Flag to know if this page is shown by the view, it is false when the view
+	 * shows the page of another editor
+	 */
+	private boolean pageShown = true;
+
+	/**
+	 * Listener of the parts of the workbench page, used to stop the thumbnail when
+	 * the view showing this page is hidden
+	 */
+	private IPartListener2 partListener = new IPartListener2() {
+
+		@Override
+		public void partActivated(IWorkbenchPartReference partRef) {
+		}
+
+		@Override
+		public void partBroughtToTop(IWorkbenchPartReference partRef) {
+		}
+
+		@Override
+		public void partClosed(IWorkbenchPartReference partRef) {
+		}
+
+		@Override
+		public void partDeactivated(IWorkbenchPartReference partRef) {
+		}
+
+		@Override
+		public void partOpened(IWorkbenchPartReference partRef) {
+		}
+
+		@Override
+		public void partHidden(IWorkbenchPartReference partRef) {
+			if (isShowingView(partRef)) {
+				viewVisible = false;
+				updateThumbnailVisibility();
+			}
+		}
+
+		@Override
+		public void partVisible(IWorkbenchPartReference partRef) {
+			if (isShowingView(partRef)) {
+				viewVisible = true;
+				updateThumbnailVisibility();
+			}
+		}
+
+		@Override
+		public void partInputChanged(IWorkbenchPartReference partRef) {
+		}
+
+		/**
+		 * Check if a part is the view showing this page
+		 */
+		private boolean isShowingView(IWorkbenchPartReference partRef) {
+			IWorkbenchPart part = partRef.getPart(false);
+			return part instanceof PageBookView && ((PageBookView) part).getCurrentPage() == JDReportOutlineView.this;
+		}
+	};
+
 	private Point mousePosition = new Point(-1, -1);
 
 	/**
@@ -353,6 +425,15 @@ public class JDReportOutlineView extends ContentOutlinePage implements IAdaptabl
 
 		overview = new Canvas(pageBook, SWT.NONE);
 		pageBook.showPage(outline);
+		// the page is hidden when the outline view shows the page of another editor,
+		// the hide event is sent before the control is hidden so the flag is used
+		Listener visibilityListener = e -> {
+			pageShown = e.type == SWT.Show;
+			updateThumbnailVisibility();
+		};
+		pageBook.addListener(SWT.Show, visibilityListener);
+		pageBook.addListener(SWT.Hide, visibilityListener);
+		getSite().getPage().addPartListener(partListener);
 		configureOutlineViewer();
 		hookOutlineViewer();
 		setContents(editor.getModel());
@@ -480,9 +561,12 @@ public class JDReportOutlineView extends ContentOutlinePage implements IAdaptabl
 	@Override
 	public void dispose() {
 		JaspersoftStudioPlugin.getInstance().removePreferenceListener(preferenceListener);
+		getSite().getPage().removePartListener(partListener);
 		unhookOutlineViewer();
-		if (thumbnail != null)
+		if (thumbnail != null) {
+			thumbnail.deactivate();
 			thumbnail = null;
+		}
 		super.dispose();
 	}
 
@@ -543,8 +627,9 @@ public class JDReportOutlineView extends ContentOutlinePage implements IAdaptabl
 		RootEditPart rep = editor.getGraphicalViewer().getRootEditPart();
 		if (rep instanceof MainDesignerRootEditPart) {
 			MainDesignerRootEditPart root = (MainDesignerRootEditPart) rep;
+			Object model = getViewer().getContents() != null ? getViewer().getContents().getModel() : null;
 			thumbnail = new JSSScrollableThumbnail((Viewport) root.getFigure(),
-					(MRoot) getViewer().getContents().getModel());
+					model instanceof MRoot ? (MRoot) model : null);
 			thumbnail.setSource(root.getLayer(LayerConstants.PRINTABLE_LAYERS));
 			lws.setContents(thumbnail);
 			disposeListener = new DisposeListener() {
@@ -593,8 +678,7 @@ public class JDReportOutlineView extends ContentOutlinePage implements IAdaptabl
 			showOverviewAction.setChecked(false);
 			pageBook.showPage(outline);
 			((JSSScrollingGraphicalViewer) editor.getGraphicalViewer()).setPaintOnlyVisibleElements(true);
-			if (thumbnail != null)
-				thumbnail.setVisible(false);
+			updateThumbnailVisibility();
 		} else if (ID_ACTION_OVERVIEW.equals(id)) {
 			((JSSScrollingGraphicalViewer) editor.getGraphicalViewer()).setPaintOnlyVisibleElements(false);
 			if (thumbnail == null)
@@ -602,10 +686,23 @@ public class JDReportOutlineView extends ContentOutlinePage implements IAdaptabl
 			showOutlineAction.setChecked(false);
 			showOverviewAction.setChecked(true);
 			pageBook.showPage(overview);
-			thumbnail.setVisible(true);
+			updateThumbnailVisibility();
 		}
 	}
 
+	/**
+	 * The thumbnail listens the editor and refreshes its image only when it can
+	 * be seen: the overview is selected, this page is the one shown by the view
+	 * and the view is not hidden
+	 */
+	protected void updateThumbnailVisibility() {
+		if (thumbnail == null)
+			return;
+		boolean visible = viewVisible && pageShown && showOverviewAction != null && showOverviewAction.isChecked();
+		if (thumbnail.isVisible() != visible)
+			thumbnail.setVisible(visible);
+	}
+
 	/**
 	 * Unhook outline viewer.
 	 */
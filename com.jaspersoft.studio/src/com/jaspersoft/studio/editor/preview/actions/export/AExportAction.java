@@ -61,6 +61,18 @@ public abstract class AExportAction extends AReportViewerAction {
 	protected void setFileExtensions() {
 	}
 
+	/**
+	 * Return the extension of the file where a report is exported, without
+	 * changing the state of the action, so it can be used also when the action
+	 * is not run from the menu
+	 * 
+	 * @param jrPrint the report to export, must be not null
+	 * @return the extension of the file, can be null
+	 */
+	public String getExportFileExtension(JasperPrint jrPrint) {
+		return defaultFileExtension;
+	}
+
 	public void setFileExtensions(String[] fileExtensions) {
 		this.fileExtensions = fileExtensions;
 	}
@@ -211,8 +223,25 @@ public abstract class AExportAction extends AReportViewerAction {
 	}
 
 	protected void exportWithProgress(File file, JRExportProgressMonitor monitor) throws Throwable {
+		try {
+			exportReport(getReportViewer().getReport(), file, monitor);
+		} catch (Throwable e) {
+			UIUtils.showError(e);
+			JaspersoftStudioPlugin.getInstance().logError(Messages.AExportAction_ExportErrorMsg, e);
+		}
+	}
+
+	/**
+	 * Export the report in the file, the errors are thrown to the caller. It
+	 * doesn't use the viewer or the UI, so it can be called from any thread
+	 * 
+	 * @param jrPrint the report to export
+	 * @param file the destination file
+	 * @param monitor monitor for the operation
+	 */
+	protected void exportReport(JasperPrint jrPrint, File file, JRExportProgressMonitor monitor) throws Throwable {
 		JRAbstractExporter<?, ?, ?, ?> exporter = getExporter(jContext, monitor, file);
-		exporter.setExporterInput(new SimpleExporterInput(getReportViewer().getReport()));
+		exporter.setExporterInput(new SimpleExporterInput(jrPrint));
 		// Trying to prevent possible issues related to a "wrong" class loader set
 		// during some of the core operations related to report rendering/previewing/exporting
 		ClassLoader oldLoader = Thread.currentThread().getContextClassLoader();
@@ -222,9 +251,6 @@ public abstract class AExportAction extends AReportViewerAction {
 				Thread.currentThread().setContextClassLoader((ClassLoader) contextCL);
 			}
 			exporter.exportReport();
-		} catch (Throwable e) {
-			UIUtils.showError(e);
-			JaspersoftStudioPlugin.getInstance().logError(Messages.AExportAction_ExportErrorMsg, e);
 		} finally {
 			Thread.currentThread().setContextClassLoader(oldLoader);
 		}
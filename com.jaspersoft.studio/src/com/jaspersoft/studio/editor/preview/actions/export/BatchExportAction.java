@@ -0,0 +1,315 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.preview.actions.export;
+
+import java.io.File;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.action.ActionContributionItem;
+import org.eclipse.jface.action.IContributionItem;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.window.Window;
+import org.eclipse.swt.widgets.DirectoryDialog;
+import org.eclipse.ui.dialogs.ListSelectionDialog;
+
+import com.jaspersoft.studio.JaspersoftStudioPlugin;
+import com.jaspersoft.studio.editor.preview.stats.FillProfiler;
+import com.jaspersoft.studio.editor.preview.stats.Statistics;
+import com.jaspersoft.studio.editor.preview.view.control.ReportController;
+import com.jaspersoft.studio.messages.Messages;
+
+import net.sf.jasperreports.eclipse.ui.util.UIUtils;
+import net.sf.jasperreports.eclipse.util.Misc;
+import net.sf.jasperreports.eclipse.viewer.IReportViewer;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.export.JRExportProgressMonitor;
+
+/**
+ * Export the report shown in the viewer in several formats at once. The
+ * exporters read the same {@link JasperPrint}, so the report is not filled
+ * again, and run in parallel on a bounded thread pool, each one writing
+ * directly to its file.
+ *
+ * The file of a format is named as the report with the extension of the
+ * format, when more selected formats have the same extension (for example CSV
+ * and CSV Metadata) the name of the format is added to the file name.
+ *
+ * The time and the size of every export are stored in the {@link Statistics}
+ * of the report, with the keys {@link ReportController#ST_EXPORTTIME} and
+ * {@link ReportController#ST_REPORTSIZE} followed by the name of the format
+ * (for example "csvmetadata"), the keys without it contain the time of the
+ * whole batch and the total size.
+ */
+public class BatchExportAction extends AReportViewerAction {
+	/** maximum number of exporters running at the same time */
+	private static final int MAX_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	/**
+	 * Preference with the formats selected the last time, the class names of the
+	 * export actions separated by comma
+	 */
+	public static final String PREF_BATCH_FORMATS = "exporterBatchFormats"; //$NON-NLS-1$
+
+	private ExportMenuAction exportMenu;
+	private Supplier<Statistics> stats;
+
+	public BatchExportAction(IReportViewer viewer, ExportMenuAction exportMenu, Supplier<Statistics> stats) {
+		super(viewer);
+		this.exportMenu = exportMenu;
+		this.stats = stats;
+		setText(Messages.BatchExportAction_title);
+		setToolTipText(Messages.BatchExportAction_tooltip);
+	}
+
+	@Override
+	protected boolean calculateEnabled() {
+		return getReportViewer().hasReport();
+	}
+
+	private List<AExportAction> getExportActions() {
+		List<AExportAction> actions = new ArrayList<>();
+		for (IContributionItem item : exportMenu.getMenuManager().getItems())
+			if (item instanceof ActionContributionItem
+					&& ((ActionContributionItem) item).getAction() instanceof AExportAction)
+				actions.add((AExportAction) ((ActionContributionItem) item).getAction());
+		return actions;
+	}
+
+	@Override
+	public void run() {
+		final JasperPrint jrPrint = getReportViewer().getReport();
+		if (jrPrint == null || jrPrint.getPages() == null)
+			return;
+		List<AExportAction> actions = getExportActions();
+		ListSelectionDialog dialog = new ListSelectionDialog(UIUtils.getShell(), actions, new ArrayContentProvider(),
+				new LabelProvider() {
+					@Override
+					public String getText(Object element) {
+						return ((AExportAction) element).getText();
+					}
+				}, Messages.BatchExportAction_selectFormats);
+		dialog.setTitle(Messages.BatchExportAction_title);
+		Set<String> lastSelection = new HashSet<>(Arrays.asList(
+				JaspersoftStudioPlugin.getInstance().getPreferenceStore().getString(PREF_BATCH_FORMATS).split(","))); //$NON-NLS-1$
+		List<AExportAction> selected = new ArrayList<>();
+		for (AExportAction a : actions)
+			if (lastSelection.contains(a.getClass().getName()))
+				selected.add(a);
+		dialog.setInitialElementSelections(selected);
+		if (dialog.open() != Window.OK || dialog.getResult() == null || dialog.getResult().length == 0)
+			return;
+
+		DirectoryDialog dd = new DirectoryDialog(UIUtils.getShell());
+		dd.setMessage(Messages.BatchExportAction_selectFolder);
+		String dir = dd.open();
+		if (dir == null)
+			return;
+
+		StringBuilder formats = new StringBuilder();
+		Map<String, Integer> extensions = new HashMap<>();
+		for (Object obj : dialog.getResult()) {
+			AExportAction a = (AExportAction) obj;
+			if (formats.length() > 0)
+				formats.append(',');
+			formats.append(a.getClass().getName());
+			extensions.merge(getExtension(a, jrPrint), 1, Integer::sum);
+		}
+		JaspersoftStudioPlugin.getInstance().getPreferenceStore().setValue(PREF_BATCH_FORMATS, formats.toString());
+
+		String name = Misc.isNullOrEmpty(jrPrint.getName()) ? "report" : jrPrint.getName(); //$NON-NLS-1$
+		final List<ExportTask> tasks = new ArrayList<>();
+		boolean exists = false;
+		for (Object obj : dialog.getResult()) {
+			AExportAction a = (AExportAction) obj;
+			String ext = getExtension(a, jrPrint);
+			String format = getFormatName(a);
+			// formats with the same extension would write the same file
+			String fileName = extensions.get(ext) > 1 ? name + "_" + format : name; //$NON-NLS-1$
+			File file = new File(dir, ext.isEmpty() ? fileName : fileName + "." + ext); //$NON-NLS-1$
+			exists |= file.exists();
+			tasks.add(new ExportTask(a, format, file));
+		}
+		if (exists && !tasks.get(0).action.continueIfFileExist())
+			return;
+
+		Job job = new Job(Messages.BatchExportAction_title) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				doExport(tasks, jrPrint, monitor);
+				return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+			}
+		};
+		job.setPriority(Job.LONG);
+		job.setUser(true);
+		job.schedule();
+	}
+
+	/**
+	 * @return the extension of the file of a format, without the leading dot
+	 */
+	private static String getExtension(AExportAction action, JasperPrint jrPrint) {
+		String ext = Misc.nvl(action.getExportFileExtension(jrPrint));
+		if (ext.startsWith(".")) //$NON-NLS-1$
+			ext = ext.substring(1);
+		return ext;
+	}
+
+	/**
+	 * @return the name of a format, from the name of its action class (for
+	 *         example it is csvmetadata for ExportAsCsvMetadataAction)
+	 */
+	private static String getFormatName(AExportAction action) {
+		String format = action.getClass().getSimpleName();
+		if (format.startsWith("ExportAs")) //$NON-NLS-1$
+			format = format.substring("ExportAs".length()); //$NON-NLS-1$
+		if (format.endsWith("Action")) //$NON-NLS-1$
+			format = format.substring(0, format.length() - "Action".length()); //$NON-NLS-1$
+		return format.toLowerCase(Locale.ENGLISH);
+	}
+
+	private void doExport(List<ExportTask> tasks, JasperPrint jrPrint, IProgressMonitor monitor) {
+		monitor.beginTask(Messages.BatchExportAction_title, tasks.size() * jrPrint.getPages().size());
+		Statistics st = stats != null ? stats.get() : null;
+		if (st != null)
+			st.startCount(ReportController.ST_EXPORTTIME);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(), MAX_THREADS), r -> {
+			Thread t = new Thread(r, "Batch Export"); //$NON-NLS-1$
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (ExportTask task : tasks)
+				futures.add(executor.submit(() -> task.export(jrPrint, monitor)));
+			for (Future<?> f : futures) {
+				while (!monitor.isCanceled()) {
+					try {
+						f.get(200, TimeUnit.MILLISECONDS);
+						break;
+					} catch (TimeoutException e) {
+						// check the monitor again
+					} catch (ExecutionException | CancellationException e) {
+						// the error is in the task
+						break;
+					}
+				}
+			}
+			if (monitor.isCanceled()) {
+				// the waiting exports don't start, the running ones stop at the next page
+				for (Future<?> f : futures)
+					f.cancel(false);
+			}
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			monitor.done();
+		}
+
+		if (monitor.isCanceled()) {
+			// the files of the interrupted exports are incomplete
+			for (ExportTask task : tasks)
+				if (task.canceled)
+					task.file.delete();
+			if (st != null)
+				st.endCount(ReportController.ST_EXPORTTIME);
+			return;
+		}
+
+		long total = 0;
+		StringBuilder summary = new StringBuilder();
+		FillProfiler profiler = st != null ? (FillProfiler) st.getValue(ReportController.ST_PROFILE) : null;
+		for (ExportTask task : tasks) {
+			if (task.error != null) {
+				JaspersoftStudioPlugin.getInstance().logError(Messages.AExportAction_ExportErrorMsg, task.error);
+				summary.append(MessageFormat.format(Messages.BatchExportAction_failed, task.file.getName(),
+						Misc.nvl(task.error.getMessage(), task.error.getClass().getName())));
+			} else {
+				total += task.size;
+				summary.append(MessageFormat.format(Messages.BatchExportAction_exported, task.file.getName(),
+						TimeUnit.NANOSECONDS.toMillis(task.time), task.size));
+				if (st != null) {
+					st.setValue(ReportController.ST_EXPORTTIME + "." + task.format, //$NON-NLS-1$
+							TimeUnit.NANOSECONDS.toMillis(task.time));
+					st.setValue(ReportController.ST_REPORTSIZE + "." + task.format, task.size); //$NON-NLS-1$
+				}
+				if (profiler != null)
+					profiler.set(Messages.FillProfiler_categoryExport, task.file.getName(), 1, task.time);
+			}
+			summary.append('\n');
+		}
+		if (st != null) {
+			st.endCount(ReportController.ST_EXPORTTIME);
+			st.setValue(ReportController.ST_REPORTSIZE, total);
+		}
+		UIUtils.getDisplay().asyncExec(() -> UIUtils.showInformation(summary.toString()));
+	}
+
+	private static class ExportTask {
+		private final AExportAction action;
+		private final String format;
+		private final File file;
+		private long time;
+		private long size;
+		private Throwable error;
+		/** true if the export was stopped by the user while writing the file */
+		private volatile boolean canceled;
+
+		private ExportTask(AExportAction action, String format, File file) {
+			this.action = action;
+			this.format = format;
+			this.file = file;
+		}
+
+		private void export(JasperPrint jrPrint, IProgressMonitor monitor) {
+			if (monitor.isCanceled())
+				return;
+			long start = System.nanoTime();
+			try {
+				action.exportReport(jrPrint, file, new JRExportProgressMonitor() {
+					@Override
+					public void afterPageExport() {
+						// the exporters don't check the interrupted flag, the exception stops them
+						if (monitor.isCanceled())
+							throw new OperationCanceledException();
+						synchronized (monitor) {
+							monitor.worked(1);
+						}
+					}
+				});
+				size = file.length();
+			} catch (Throwable e) {
+				if (monitor.isCanceled())
+					canceled = true;
+				else
+					error = e;
+			}
+			time = System.nanoTime() - start;
+		}
+	}
+}
@@ -8,6 +8,7 @@ import java.io.File;
 import net.sf.jasperreports.eclipse.util.FileExtension;
 import net.sf.jasperreports.eclipse.viewer.IReportViewer;
 import net.sf.jasperreports.engine.JRAbstractExporter;
+import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.export.JRExportProgressMonitor;
 import net.sf.jasperreports.engine.util.JRSaver;
 
@@ -45,6 +46,11 @@ public class ExportAsJasperReportsAction extends AExportAction {
 			throw ex[0];
 	}
 
+	@Override
+	protected void exportReport(JasperPrint jrPrint, File file, JRExportProgressMonitor monitor) throws Throwable {
+		JRSaver.saveObject(jrPrint, file.getAbsoluteFile());
+	}
+
 	@Override
 	protected JRAbstractExporter<?, ?, ?, ?> getExporter(JasperReportsConfiguration jContext,
 			JRExportProgressMonitor monitor, File file) {
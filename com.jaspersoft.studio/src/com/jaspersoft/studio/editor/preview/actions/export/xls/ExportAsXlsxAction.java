@@ -28,11 +28,15 @@ public class ExportAsXlsxAction extends AExportXlsAction {
 	}
 
 	@Override
-	protected void setFileExtensions() {
-		JasperPrint jrPrint = getReportViewer().getReport();
-		String ext = ".xlsx";
+	public String getExportFileExtension(JasperPrint jrPrint) {
 		if (jrPrint.getProperty(XlsxExporterConfiguration.PROPERTY_MACRO_TEMPLATE) != null)
-			ext = ".xlsm";
+			return "xlsm";
+		return "xlsx";
+	}
+
+	@Override
+	protected void setFileExtensions() {
+		String ext = "." + getExportFileExtension(getReportViewer().getReport());
 
 		setDefaultFileExtension(ext);
 		setFilterNames(new String[] { ext.toUpperCase() + " (*." + ext + ")" });
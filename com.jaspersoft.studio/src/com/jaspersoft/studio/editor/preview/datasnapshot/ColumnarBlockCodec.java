@@ -0,0 +1,497 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.preview.datasnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encodes and decodes the typed column blocks of the columnar data snapshot
+ * format. A block is a single array of the snapshot object graph: primitive
+ * arrays are stored raw, object arrays are stored only when all their non null
+ * values share the same simple type, with a null bitmap and, for strings, an
+ * optional dictionary. Every block is deflated on its own, so blocks can be
+ * decoded independently and in parallel.
+ */
+final class ColumnarBlockCodec {
+	/** arrays shorter than this are left inside the serialized skeleton */
+	static final int MIN_BLOCK_LENGTH = 64;
+
+	static final byte T_NONE = 0;
+	static final byte T_BOOLEAN = 1;
+	static final byte T_BYTE = 2;
+	static final byte T_SHORT = 3;
+	static final byte T_CHAR = 4;
+	static final byte T_INT = 5;
+	static final byte T_LONG = 6;
+	static final byte T_FLOAT = 7;
+	static final byte T_DOUBLE = 8;
+	static final byte T_OBJECT = 9;
+
+	private static final byte V_NULL = 0;
+	private static final byte V_STRING = 1;
+	private static final byte V_INTEGER = 2;
+	private static final byte V_LONG = 3;
+	private static final byte V_DOUBLE = 4;
+	private static final byte V_BIGDECIMAL = 5;
+	private static final byte V_BIGINTEGER = 6;
+	private static final byte V_DATE = 7;
+	private static final byte V_SQLDATE = 8;
+	private static final byte V_TIME = 9;
+	private static final byte V_TIMESTAMP = 10;
+	private static final byte V_BOOLEAN = 11;
+	private static final byte V_SHORT = 12;
+	private static final byte V_BYTE = 13;
+	private static final byte V_FLOAT = 14;
+
+	/** array component types we are able to recreate, the position is stored in the block */
+	private static final Class<?>[] COMPONENTS = { Object.class, Serializable.class, Comparable.class, Number.class,
+			String.class, Integer.class, Long.class, Double.class, BigDecimal.class, BigInteger.class, Date.class,
+			java.sql.Date.class, Time.class, Timestamp.class, Boolean.class, Short.class, Byte.class, Float.class };
+
+	private static final Map<Class<?>, Byte> VALUE_KINDS = new HashMap<>();
+	static {
+		VALUE_KINDS.put(String.class, V_STRING);
+		VALUE_KINDS.put(Integer.class, V_INTEGER);
+		VALUE_KINDS.put(Long.class, V_LONG);
+		VALUE_KINDS.put(Double.class, V_DOUBLE);
+		VALUE_KINDS.put(BigDecimal.class, V_BIGDECIMAL);
+		VALUE_KINDS.put(BigInteger.class, V_BIGINTEGER);
+		VALUE_KINDS.put(Date.class, V_DATE);
+		VALUE_KINDS.put(java.sql.Date.class, V_SQLDATE);
+		VALUE_KINDS.put(Time.class, V_TIME);
+		VALUE_KINDS.put(Timestamp.class, V_TIMESTAMP);
+		VALUE_KINDS.put(Boolean.class, V_BOOLEAN);
+		VALUE_KINDS.put(Short.class, V_SHORT);
+		VALUE_KINDS.put(Byte.class, V_BYTE);
+		VALUE_KINDS.put(Float.class, V_FLOAT);
+	}
+
+	private ColumnarBlockCodec() {
+	}
+
+	/**
+	 * @return the block type for the object, or {@link #T_NONE} if the object
+	 *         should be serialized as usual. The values of an object array are
+	 *         checked only by {@link #encode(Object, byte)}
+	 */
+	static byte getBlockType(Object obj) {
+		if (obj == null || !obj.getClass().isArray())
+			return T_NONE;
+		if (obj instanceof boolean[])
+			return ((boolean[]) obj).length >= MIN_BLOCK_LENGTH ? T_BOOLEAN : T_NONE;
+		if (obj instanceof byte[])
+			return ((byte[]) obj).length >= MIN_BLOCK_LENGTH ? T_BYTE : T_NONE;
+		if (obj instanceof short[])
+			return ((short[]) obj).length >= MIN_BLOCK_LENGTH ? T_SHORT : T_NONE;
+		if (obj instanceof char[])
+			return ((char[]) obj).length >= MIN_BLOCK_LENGTH ? T_CHAR : T_NONE;
+		if (obj instanceof int[])
+			return ((int[]) obj).length >= MIN_BLOCK_LENGTH ? T_INT : T_NONE;
+		if (obj instanceof long[])
+			return ((long[]) obj).length >= MIN_BLOCK_LENGTH ? T_LONG : T_NONE;
+		if (obj instanceof float[])
+			return ((float[]) obj).length >= MIN_BLOCK_LENGTH ? T_FLOAT : T_NONE;
+		if (obj instanceof double[])
+			return ((double[]) obj).length >= MIN_BLOCK_LENGTH ? T_DOUBLE : T_NONE;
+		if (obj instanceof Object[]) {
+			Object[] values = (Object[]) obj;
+			if (values.length < MIN_BLOCK_LENGTH || getComponentIndex(obj.getClass().getComponentType()) < 0)
+				return T_NONE;
+			return T_OBJECT;
+		}
+		return T_NONE;
+	}
+
+	private static int getComponentIndex(Class<?> c) {
+		for (int i = 0; i < COMPONENTS.length; i++)
+			if (COMPONENTS[i] == c)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * @return the common value kind of all the non null values, -1 if values
+	 *         are of mixed or unsupported types
+	 */
+	private static int getValueKind(Object[] values) {
+		Class<?> type = null;
+		for (Object v : values) {
+			if (v == null)
+				continue;
+			if (type == null) {
+				type = v.getClass();
+				if (!VALUE_KINDS.containsKey(type))
+					return -1;
+			} else if (type != v.getClass())
+				return -1;
+		}
+		return type == null ? V_NULL : VALUE_KINDS.get(type);
+	}
+
+	static int getLength(Object array) {
+		return java.lang.reflect.Array.getLength(array);
+	}
+
+	/**
+	 * @return the encoded array, null if it is an object array with values of
+	 *         mixed or unsupported types, that should be serialized as usual
+	 */
+	static byte[] encode(Object array, byte type) throws IOException {
+		ByteBuffer bb;
+		switch (type) {
+		case T_BOOLEAN:
+			boolean[] bools = (boolean[]) array;
+			byte[] bbools = new byte[bools.length];
+			for (int i = 0; i < bools.length; i++)
+				bbools[i] = (byte) (bools[i] ? 1 : 0);
+			return bbools;
+		case T_BYTE:
+			return (byte[]) array;
+		case T_SHORT:
+			short[] shorts = (short[]) array;
+			bb = ByteBuffer.allocate(shorts.length * Short.BYTES);
+			bb.asShortBuffer().put(shorts);
+			return bb.array();
+		case T_CHAR:
+			char[] chars = (char[]) array;
+			bb = ByteBuffer.allocate(chars.length * Character.BYTES);
+			bb.asCharBuffer().put(chars);
+			return bb.array();
+		case T_INT:
+			int[] ints = (int[]) array;
+			bb = ByteBuffer.allocate(ints.length * Integer.BYTES);
+			bb.asIntBuffer().put(ints);
+			return bb.array();
+		case T_LONG:
+			long[] longs = (long[]) array;
+			bb = ByteBuffer.allocate(longs.length * Long.BYTES);
+			bb.asLongBuffer().put(longs);
+			return bb.array();
+		case T_FLOAT:
+			float[] floats = (float[]) array;
+			bb = ByteBuffer.allocate(floats.length * Float.BYTES);
+			bb.asFloatBuffer().put(floats);
+			return bb.array();
+		case T_DOUBLE:
+			double[] doubles = (double[]) array;
+			bb = ByteBuffer.allocate(doubles.length * Double.BYTES);
+			bb.asDoubleBuffer().put(doubles);
+			return bb.array();
+		case T_OBJECT:
+			return encodeObjects((Object[]) array);
+		default:
+			throw new IOException("Unsupported block type " + type); //$NON-NLS-1$
+		}
+	}
+
+	private static byte[] encodeObjects(Object[] values) throws IOException {
+		int kind = getValueKind(values);
+		if (kind < 0)
+			return null;
+		ByteArrayOutputStream bout = new ByteArrayOutputStream(values.length * 8);
+		DataOutputStream out = new DataOutputStream(bout);
+		out.writeByte(getComponentIndex(values.getClass().getComponentType()));
+		out.writeByte(kind);
+		// null bitmap
+		byte[] nulls = new byte[(values.length + 7) / 8];
+		for (int i = 0; i < values.length; i++)
+			if (values[i] == null)
+				nulls[i >> 3] |= 1 << (i & 7);
+		out.write(nulls);
+		if (kind == V_STRING)
+			encodeStrings(values, out);
+		else
+			for (Object v : values) {
+				if (v == null)
+					continue;
+				switch (kind) {
+				case V_INTEGER:
+					out.writeInt((Integer) v);
+					break;
+				case V_LONG:
+					out.writeLong((Long) v);
+					break;
+				case V_DOUBLE:
+					out.writeDouble((Double) v);
+					break;
+				case V_BIGDECIMAL:
+					BigDecimal bd = (BigDecimal) v;
+					out.writeInt(bd.scale());
+					writeBytes(out, bd.unscaledValue().toByteArray());
+					break;
+				case V_BIGINTEGER:
+					writeBytes(out, ((BigInteger) v).toByteArray());
+					break;
+				case V_TIMESTAMP:
+					out.writeLong(((Timestamp) v).getTime());
+					out.writeInt(((Timestamp) v).getNanos());
+					break;
+				case V_DATE:
+				case V_SQLDATE:
+				case V_TIME:
+					out.writeLong(((Date) v).getTime());
+					break;
+				case V_BOOLEAN:
+					out.writeBoolean((Boolean) v);
+					break;
+				case V_SHORT:
+					out.writeShort((Short) v);
+					break;
+				case V_BYTE:
+					out.writeByte((Byte) v);
+					break;
+				case V_FLOAT:
+					out.writeFloat((Float) v);
+					break;
+				default:
+					break;
+				}
+			}
+		out.flush();
+		return bout.toByteArray();
+	}
+
+	private static void encodeStrings(Object[] values, DataOutputStream out) throws IOException {
+		Map<String, Integer> dictionary = new HashMap<>();
+		int notNull = 0;
+		for (Object v : values)
+			if (v != null) {
+				notNull++;
+				dictionary.putIfAbsent((String) v, dictionary.size());
+			}
+		boolean useDictionary = dictionary.size() <= notNull / 2;
+		out.writeBoolean(useDictionary);
+		if (useDictionary) {
+			String[] words = new String[dictionary.size()];
+			for (Map.Entry<String, Integer> e : dictionary.entrySet())
+				words[e.getValue()] = e.getKey();
+			out.writeInt(words.length);
+			for (String w : words)
+				writeBytes(out, w.getBytes(StandardCharsets.UTF_8));
+			for (Object v : values) {
+				if (v == null)
+					continue;
+				int ind = dictionary.get(v);
+				if (words.length <= 0xFF)
+					out.writeByte(ind);
+				else if (words.length <= 0xFFFF)
+					out.writeShort(ind);
+				else
+					out.writeInt(ind);
+			}
+		} else
+			for (Object v : values)
+				if (v != null)
+					writeBytes(out, ((String) v).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+		out.writeInt(b.length);
+		out.write(b);
+	}
+
+	static Object decode(ByteBuffer bb, byte type, int length) throws IOException {
+		switch (type) {
+		case T_BOOLEAN:
+			boolean[] bools = new boolean[length];
+			for (int i = 0; i < length; i++)
+				bools[i] = bb.get() != 0;
+			return bools;
+		case T_BYTE:
+			byte[] bytes = new byte[length];
+			bb.get(bytes);
+			return bytes;
+		case T_SHORT:
+			short[] shorts = new short[length];
+			bb.asShortBuffer().get(shorts);
+			return shorts;
+		case T_CHAR:
+			char[] chars = new char[length];
+			bb.asCharBuffer().get(chars);
+			return chars;
+		case T_INT:
+			int[] ints = new int[length];
+			bb.asIntBuffer().get(ints);
+			return ints;
+		case T_LONG:
+			long[] longs = new long[length];
+			bb.asLongBuffer().get(longs);
+			return longs;
+		case T_FLOAT:
+			float[] floats = new float[length];
+			bb.asFloatBuffer().get(floats);
+			return floats;
+		case T_DOUBLE:
+			double[] doubles = new double[length];
+			bb.asDoubleBuffer().get(doubles);
+			return doubles;
+		case T_OBJECT:
+			return decodeObjects(bb, length);
+		default:
+			throw new IOException("Unsupported block type " + type); //$NON-NLS-1$
+		}
+	}
+
+	private static Object[] decodeObjects(ByteBuffer bb, int length) throws IOException {
+		int component = bb.get();
+		if (component < 0 || component >= COMPONENTS.length)
+			throw new IOException("Unsupported array component " + component); //$NON-NLS-1$
+		Object[] values = (Object[]) java.lang.reflect.Array.newInstance(COMPONENTS[component], length);
+		byte kind = bb.get();
+		byte[] nulls = new byte[(length + 7) / 8];
+		bb.get(nulls);
+		if (kind == V_NULL)
+			return values;
+		if (kind == V_STRING) {
+			decodeStrings(bb, values, nulls);
+			return values;
+		}
+		for (int i = 0; i < length; i++) {
+			if ((nulls[i >> 3] & (1 << (i & 7))) != 0)
+				continue;
+			switch (kind) {
+			case V_INTEGER:
+				values[i] = bb.getInt();
+				break;
+			case V_LONG:
+				values[i] = bb.getLong();
+				break;
+			case V_DOUBLE:
+				values[i] = bb.getDouble();
+				break;
+			case V_BIGDECIMAL:
+				int scale = bb.getInt();
+				values[i] = new BigDecimal(new BigInteger(readBytes(bb)), scale);
+				break;
+			case V_BIGINTEGER:
+				values[i] = new BigInteger(readBytes(bb));
+				break;
+			case V_DATE:
+				values[i] = new Date(bb.getLong());
+				break;
+			case V_SQLDATE:
+				values[i] = new java.sql.Date(bb.getLong());
+				break;
+			case V_TIME:
+				values[i] = new Time(bb.getLong());
+				break;
+			case V_TIMESTAMP:
+				Timestamp ts = new Timestamp(bb.getLong());
+				ts.setNanos(bb.getInt());
+				values[i] = ts;
+				break;
+			case V_BOOLEAN:
+				values[i] = bb.get() != 0;
+				break;
+			case V_SHORT:
+				values[i] = bb.getShort();
+				break;
+			case V_BYTE:
+				values[i] = bb.get();
+				break;
+			case V_FLOAT:
+				values[i] = bb.getFloat();
+				break;
+			default:
+				throw new IOException("Unsupported value kind " + kind); //$NON-NLS-1$
+			}
+		}
+		return values;
+	}
+
+	private static void decodeStrings(ByteBuffer bb, Object[] values, byte[] nulls) {
+		boolean useDictionary = bb.get() != 0;
+		if (useDictionary) {
+			String[] words = new String[bb.getInt()];
+			for (int i = 0; i < words.length; i++)
+				words[i] = new String(readBytes(bb), StandardCharsets.UTF_8);
+			for (int i = 0; i < values.length; i++) {
+				if ((nulls[i >> 3] & (1 << (i & 7))) != 0)
+					continue;
+				int ind;
+				if (words.length <= 0xFF)
+					ind = bb.get() & 0xFF;
+				else if (words.length <= 0xFFFF)
+					ind = bb.getShort() & 0xFFFF;
+				else
+					ind = bb.getInt();
+				values[i] = words[ind];
+			}
+		} else
+			for (int i = 0; i < values.length; i++)
+				if ((nulls[i >> 3] & (1 << (i & 7))) == 0)
+					values[i] = new String(readBytes(bb), StandardCharsets.UTF_8);
+	}
+
+	private static byte[] readBytes(ByteBuffer bb) {
+		byte[] b = new byte[bb.getInt()];
+		bb.get(b);
+		return b;
+	}
+
+	static byte[] deflate(byte[] raw) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(raw);
+			deflater.finish();
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+			byte[] buf = new byte[64 * 1024];
+			while (!deflater.finished()) {
+				int n = deflater.deflate(buf);
+				out.write(buf, 0, n);
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	static ByteBuffer inflate(ByteBuffer compressed, int rawLength) throws IOException {
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			byte[] raw = new byte[rawLength];
+			int off = 0;
+			while (off < rawLength && !inflater.finished()) {
+				int n = inflater.inflate(raw, off, rawLength - off);
+				if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					throw new IOException("Truncated data snapshot block"); //$NON-NLS-1$
+				off += n;
+			}
+			return ByteBuffer.wrap(raw);
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * Placeholder written in the serialized skeleton instead of an extracted
+	 * array.
+	 */
+	static final class BlockRef implements Serializable {
+		private static final long serialVersionUID = 1L;
+		final int index;
+
+		BlockRef(int index) {
+			this.index = index;
+		}
+	}
+}
@@ -0,0 +1,282 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.preview.datasnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.jaspersoft.studio.JaspersoftStudioPlugin;
+import com.jaspersoft.studio.editor.preview.datasnapshot.ColumnarBlockCodec.BlockRef;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.util.ContextClassLoaderObjectInputStream;
+
+/**
+ * Columnar data snapshot file. The snapshot object graph is written with java
+ * serialization, but every large array inside it (the column values recorded
+ * by the data cache) is moved out of the stream into a typed, separately
+ * compressed block. The file layout is:
+ *
+ * <pre>
+ * MAGIC, version
+ * block 0 ... block n     deflated, typed column data
+ * skeleton                deflated java serialization, arrays replaced by block references
+ * block index             type, length, offset, compressed length, raw length for every block
+ * trailer                 index offset, block count, skeleton offset, skeleton length, MAGIC
+ * </pre>
+ *
+ * The regions of the file are read into heap buffers, so the file is not kept
+ * locked by a mapping after the read, blocks are inflated in parallel while the
+ * skeleton is deserialized, so the load time is bound by
+ * the decompression and not by the java serialization of millions of boxed
+ * values.
+ */
+public class ColumnarSnapshotFile {
+	private static final byte[] MAGIC = { 'J', 'S', 'S', 'C', 'O', 'L', 'D', 'S' };
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = MAGIC.length + Integer.BYTES;
+	private static final int INDEX_ENTRY_SIZE = 1 + Integer.BYTES + Long.BYTES + Integer.BYTES + Integer.BYTES;
+	private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES + MAGIC.length;
+
+	private ColumnarSnapshotFile() {
+	}
+
+	/**
+	 * @return true if the file is in the columnar format, false for old java
+	 *         serialized snapshots
+	 */
+	public static boolean isColumnar(File file) {
+		if (file == null || !file.isFile() || file.length() < HEADER_SIZE + TRAILER_SIZE)
+			return false;
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			byte[] b = new byte[MAGIC.length];
+			return in.read(b) == b.length && Arrays.equals(b, MAGIC);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	public static void write(JssDataSnapshot snapshot, File file) throws JRException {
+		Path target = file.getAbsoluteFile().toPath();
+		Path tmp = null;
+		try {
+			tmp = Files.createTempFile(target.getParent(), file.getName(), ".tmp"); //$NON-NLS-1$
+			try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.put(MAGIC).putInt(VERSION).flip();
+				writeFully(channel, header);
+
+				List<BlockEntry> blocks = new ArrayList<>();
+				ByteArrayOutputStream skeleton = new ByteArrayOutputStream();
+				try (BlockObjectOutputStream out = new BlockObjectOutputStream(new DeflaterOutputStream(skeleton),
+						channel, blocks)) {
+					out.writeObject(snapshot);
+				}
+				long skeletonOffset = channel.position();
+				writeFully(channel, ByteBuffer.wrap(skeleton.toByteArray()));
+
+				long indexOffset = channel.position();
+				ByteBuffer index = ByteBuffer.allocate(blocks.size() * INDEX_ENTRY_SIZE);
+				for (BlockEntry be : blocks)
+					index.put(be.type).putInt(be.length).putLong(be.offset).putInt(be.compressedLength)
+							.putInt(be.rawLength);
+				index.flip();
+				writeFully(channel, index);
+
+				ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+				trailer.putLong(indexOffset).putInt(blocks.size()).putLong(skeletonOffset).putInt(skeleton.size())
+						.put(MAGIC).flip();
+				writeFully(channel, trailer);
+			}
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new JRException(e);
+		} finally {
+			try {
+				if (tmp != null)
+					Files.deleteIfExists(tmp);
+			} catch (IOException e) {
+				JaspersoftStudioPlugin.getInstance().logError(e);
+			}
+		}
+	}
+
+	public static JssDataSnapshot read(JasperReportsContext jContext, File file) throws JRException {
+		ExecutorService executor = null;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_SIZE + TRAILER_SIZE)
+				throw new JRException("Invalid columnar data snapshot: " + file); //$NON-NLS-1$
+			ByteBuffer header = readRegion(channel, 0, HEADER_SIZE);
+			byte[] magic = new byte[MAGIC.length];
+			header.get(magic);
+			if (!Arrays.equals(magic, MAGIC))
+				throw new JRException("Invalid columnar data snapshot: " + file); //$NON-NLS-1$
+			int version = header.getInt();
+			if (version > VERSION)
+				throw new JRException("Unsupported columnar data snapshot version " + version); //$NON-NLS-1$
+
+			ByteBuffer trailer = readRegion(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+			long indexOffset = trailer.getLong();
+			int blockCount = trailer.getInt();
+			long skeletonOffset = trailer.getLong();
+			int skeletonLength = trailer.getInt();
+
+			if (blockCount < 0 || indexOffset < 0 || indexOffset + (long) blockCount * INDEX_ENTRY_SIZE > size)
+				throw new JRException("Invalid columnar data snapshot: " + file); //$NON-NLS-1$
+			ByteBuffer index = readRegion(channel, indexOffset, blockCount * INDEX_ENTRY_SIZE);
+			BlockEntry[] blocks = new BlockEntry[blockCount];
+			for (int i = 0; i < blockCount; i++)
+				blocks[i] = new BlockEntry(index.get(), index.getInt(), index.getLong(), index.getInt(),
+						index.getInt());
+
+			// the blocks are decoded in background, while the skeleton is deserialized
+			List<Future<Object>> decoded = new ArrayList<>(blockCount);
+			if (blockCount > 0) {
+				executor = Executors.newFixedThreadPool(
+						Math.min(blockCount, Runtime.getRuntime().availableProcessors()), r -> {
+							Thread t = new Thread(r, "Data Snapshot Loader"); //$NON-NLS-1$
+							t.setDaemon(true);
+							return t;
+						});
+				for (BlockEntry be : blocks) {
+					ByteBuffer region = readRegion(channel, be.offset, be.compressedLength);
+					decoded.add(executor.submit(() -> ColumnarBlockCodec
+							.decode(ColumnarBlockCodec.inflate(region, be.rawLength), be.type, be.length)));
+				}
+			}
+
+			ByteBuffer skeleton = readRegion(channel, skeletonOffset, skeletonLength);
+			try (BlockObjectInputStream in = new BlockObjectInputStream(jContext,
+					new InflaterInputStream(new ByteArrayInputStream(skeleton.array())), decoded)) {
+				Object obj = in.readObject();
+				if (obj instanceof JssDataSnapshot)
+					return (JssDataSnapshot) obj;
+				throw new JRException("Invalid columnar data snapshot: " + file); //$NON-NLS-1$
+			}
+		} catch (IOException | ClassNotFoundException e) {
+			throw new JRException(e);
+		} finally {
+			if (executor != null)
+				executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Reads a region of the file into a heap buffer, positioned at its start
+	 */
+	private static ByteBuffer readRegion(FileChannel channel, long position, int length) throws IOException {
+		if (length < 0 || position < 0 || position + length > channel.size())
+			throw new IOException("Invalid data snapshot region"); //$NON-NLS-1$
+		ByteBuffer bb = ByteBuffer.allocate(length);
+		while (bb.hasRemaining()) {
+			int n = channel.read(bb, position + bb.position());
+			if (n < 0)
+				throw new IOException("Truncated data snapshot"); //$NON-NLS-1$
+		}
+		bb.flip();
+		return bb;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer bb) throws IOException {
+		while (bb.hasRemaining())
+			channel.write(bb);
+	}
+
+	private static class BlockEntry {
+		private final byte type;
+		private final int length;
+		private final long offset;
+		private final int compressedLength;
+		private final int rawLength;
+
+		private BlockEntry(byte type, int length, long offset, int compressedLength, int rawLength) {
+			this.type = type;
+			this.length = length;
+			this.offset = offset;
+			this.compressedLength = compressedLength;
+			this.rawLength = rawLength;
+		}
+	}
+
+	private static class BlockObjectOutputStream extends ObjectOutputStream {
+		private final FileChannel channel;
+		private final List<BlockEntry> blocks;
+
+		private BlockObjectOutputStream(OutputStream out, FileChannel channel, List<BlockEntry> blocks)
+				throws IOException {
+			super(out);
+			this.channel = channel;
+			this.blocks = blocks;
+			enableReplaceObject(true);
+		}
+
+		@Override
+		protected Object replaceObject(Object obj) throws IOException {
+			byte type = ColumnarBlockCodec.getBlockType(obj);
+			if (type == ColumnarBlockCodec.T_NONE)
+				return obj;
+			byte[] raw = ColumnarBlockCodec.encode(obj, type);
+			if (raw == null)
+				return obj;
+			byte[] compressed = ColumnarBlockCodec.deflate(raw);
+			BlockEntry be = new BlockEntry(type, ColumnarBlockCodec.getLength(obj), channel.position(),
+					compressed.length, raw.length);
+			writeFully(channel, ByteBuffer.wrap(compressed));
+			blocks.add(be);
+			return new BlockRef(blocks.size() - 1);
+		}
+	}
+
+	private static class BlockObjectInputStream extends ContextClassLoaderObjectInputStream {
+		private final List<Future<Object>> decoded;
+
+		private BlockObjectInputStream(JasperReportsContext jContext, InputStream in, List<Future<Object>> decoded)
+				throws IOException {
+			super(jContext, in);
+			this.decoded = decoded;
+			enableResolveObject(true);
+		}
+
+		@Override
+		protected Object resolveObject(Object obj) throws IOException {
+			if (obj instanceof BlockRef) {
+				int ind = ((BlockRef) obj).index;
+				if (ind < 0 || ind >= decoded.size())
+					throw new IOException("Invalid data snapshot block " + ind); //$NON-NLS-1$
+				try {
+					return decoded.get(ind).get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				} catch (ExecutionException e) {
+					throw new IOException(e.getCause());
+				}
+			}
+			return obj;
+		}
+	}
+}
@@ -12,7 +12,9 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
+import com.jaspersoft.studio.JaspersoftStudioPlugin;
 import com.jaspersoft.studio.messages.Messages;
+import com.jaspersoft.studio.preferences.execution.ReportExecutionPreferencePage;
 import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
 
 import net.sf.jasperreports.data.cache.DataCacheHandler;
@@ -22,6 +24,7 @@ import net.sf.jasperreports.eclipse.ui.util.UIUtils;
 import net.sf.jasperreports.eclipse.util.Misc;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.ReportContext;
 import net.sf.jasperreports.engine.SimpleReportContext;
 import net.sf.jasperreports.engine.util.JRLoader;
@@ -129,9 +132,9 @@ public class DataSnapshotManager {
 				monitor.beginTask(Messages.Savingdatasnapshotto + ": " + fname, IProgressMonitor.UNKNOWN);
 				try {
 					// should save it to IFile?
-					new JssDataSnapshot(creationTimestamp, snapshot);
 					if (!Misc.isNullOrEmpty(fname))
-						JRSaver.saveObject(new JssDataSnapshot(creationTimestamp, snapshot), new File(fname));
+						writeSnapshot(new JssDataSnapshot(creationTimestamp, snapshot), new File(fname),
+								isColumnarFormat());
 				} catch (JRException e) {
 					UIUtils.showError(e);
 				}
@@ -143,7 +146,7 @@ public class DataSnapshotManager {
 
 	public static void loadSnapshot(JasperReportsConfiguration jConfig, String fname) throws JRException {
 		Map<String, Object> hm = jConfig.getJRParameters();
-		Object obj = JRLoader.loadObject(new File(fname));
+		Object obj = readSnapshot(jConfig, new File(fname));
 		if (obj instanceof JssDataSnapshot) {
 			JssDataSnapshot snapshot = (JssDataSnapshot) obj;
 			DataSnapshotManager.setDataSnapshot(hm,
@@ -157,5 +160,47 @@ public class DataSnapshotManager {
 		jConfig.getMap().put(DataSnapshotManager.SAVE_SNAPSHOT, fname);
 	}
 
+	/**
+	 * Read a data snapshot file, the format (columnar or java serialized) is
+	 * detected from the file content
+	 */
+	public static Object readSnapshot(JasperReportsContext jContext, File file) throws JRException {
+		if (ColumnarSnapshotFile.isColumnar(file))
+			return ColumnarSnapshotFile.read(jContext, file);
+		return JRLoader.loadObject(jContext, file);
+	}
+
+	public static void writeSnapshot(JssDataSnapshot snapshot, File file, boolean columnar) throws JRException {
+		if (columnar)
+			ColumnarSnapshotFile.write(snapshot, file);
+		else
+			JRSaver.saveObject(snapshot, file);
+	}
+
+	/**
+	 * Convert a data snapshot file from a format to the other one, old java
+	 * serialized snapshots are converted to the columnar format and viceversa
+	 * 
+	 * @return true if the destination file is in the columnar format
+	 */
+	public static boolean convertSnapshot(JasperReportsContext jContext, File src, File dest) throws JRException {
+		boolean columnar = !ColumnarSnapshotFile.isColumnar(src);
+		Object obj = readSnapshot(jContext, src);
+		JssDataSnapshot snapshot;
+		if (obj instanceof JssDataSnapshot)
+			snapshot = (JssDataSnapshot) obj;
+		else if (obj instanceof DataSnapshot)
+			snapshot = new JssDataSnapshot(new Date(src.lastModified()), (DataSnapshot) obj);
+		else
+			throw new JRException(Messages.DataSnapshotManager_invalidSnapshot + ": " + src); //$NON-NLS-1$
+		writeSnapshot(snapshot, dest, columnar);
+		return columnar;
+	}
+
+	private static boolean isColumnarFormat() {
+		return JaspersoftStudioPlugin.getInstance().getPreferenceStore()
+				.getBoolean(ReportExecutionPreferencePage.JSS_DATASNAPSHOT_COLUMNAR);
+	}
+
 	public static final String SAVE_SNAPSHOT = "net.sf.jasperreports.datasnapshot.SAVESNAPSHOT";
 }
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.preview.stats;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jaspersoft.studio.messages.Messages;
+
+import net.sf.jasperreports.engine.fill.JREvaluator;
+
+/**
+ * Collects the timings of a report fill, when the profiling is enabled in the
+ * preferences.
+ *
+ * The fill phases, the bands and the subreports are measured by the
+ * {@link ProfilingScriptlet}s, one for every filled dataset. The expression hot
+ * spots are found sampling the stack of the fill threads: every sample taken
+ * inside the report evaluator is attributed to the method called by the
+ * expression, so their time is an estimation.
+ */
+public class FillProfiler {
+	/** interval between two samples of the fill threads, in milliseconds */
+	private static final long SAMPLE_INTERVAL = 5;
+
+	private static final String EVALUATOR_CLASS = JREvaluator.class.getName();
+
+	public static class Entry {
+		private final String category;
+		private final String name;
+		private long count;
+		private long nanos;
+
+		private Entry(String category, String name) {
+			this.category = category;
+			this.name = name;
+		}
+
+		public String getCategory() {
+			return category;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return the time in milliseconds
+		 */
+		public synchronized double getTime() {
+			return nanos / 1000000d;
+		}
+
+		private synchronized void add(long count, long nanos) {
+			this.count += count;
+			this.nanos += nanos;
+		}
+
+		private synchronized void set(long count, long nanos) {
+			this.count = count;
+			this.nanos = nanos;
+		}
+	}
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+	private final Set<Thread> fillThreads = ConcurrentHashMap.newKeySet();
+	private final List<ProfilingScriptlet> scriptlets = new ArrayList<>();
+	private volatile long fillStart;
+	private volatile long queryEnd = -1;
+	private volatile long firstRow = -1;
+	private volatile boolean running;
+	private Thread sampler;
+
+	/**
+	 * Start the profiling, must be called just before the fill starts
+	 */
+	public synchronized void start() {
+		fillStart = System.nanoTime();
+		running = true;
+		sampler = new Thread(this::sample, "Fill Profiler"); //$NON-NLS-1$
+		sampler.setDaemon(true);
+		sampler.start();
+	}
+
+	/**
+	 * Stop the profiling, closing the phases that are still open
+	 */
+	public synchronized void stop() {
+		if (!running)
+			return;
+		running = false;
+		sampler.interrupt();
+		long end = System.nanoTime();
+		synchronized (scriptlets) {
+			for (ProfilingScriptlet s : scriptlets)
+				s.finish(end);
+		}
+		add(Messages.FillProfiler_categoryFill, Messages.FillProfiler_fill, end - fillStart);
+		if (queryEnd >= 0)
+			add(Messages.FillProfiler_categoryFill, Messages.FillProfiler_queryExecution, queryEnd - fillStart);
+		if (firstRow >= 0)
+			add(Messages.FillProfiler_categoryFill, Messages.FillProfiler_firstRow, firstRow - fillStart);
+		fillThreads.clear();
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	void register(ProfilingScriptlet scriptlet) {
+		synchronized (scriptlets) {
+			scriptlets.add(scriptlet);
+		}
+	}
+
+	void registerThread(Thread thread) {
+		if (running)
+			fillThreads.add(thread);
+	}
+
+	/**
+	 * Called when the main dataset starts the report initialization, the query is
+	 * already executed
+	 */
+	void queryExecuted(long time) {
+		if (queryEnd < 0)
+			queryEnd = time;
+	}
+
+	void firstRow(long time) {
+		if (firstRow < 0)
+			firstRow = time;
+	}
+
+	/**
+	 * Add a measure to the profile
+	 *
+	 * @param category
+	 *          the category of the measure
+	 * @param name
+	 *          the name of the measure, unique in its category
+	 * @param nanos
+	 *          the measured time in nanoseconds
+	 */
+	public void add(String category, String name, long nanos) {
+		getEntry(category, name).add(1, nanos);
+	}
+
+	/**
+	 * Set a measure of the profile, replacing the previous value
+	 */
+	public void set(String category, String name, long count, long nanos) {
+		getEntry(category, name).set(count, nanos);
+	}
+
+	private Entry getEntry(String category, String name) {
+		return entries.computeIfAbsent(category + "\n" + name, k -> new Entry(category, name)); //$NON-NLS-1$
+	}
+
+	public List<Entry> getEntries() {
+		return new ArrayList<>(entries.values());
+	}
+
+	/**
+	 * @return the total fill time in milliseconds, it is the base for the
+	 *         percentages
+	 */
+	public double getFillTime() {
+		Entry e = entries.get(Messages.FillProfiler_categoryFill + "\n" + Messages.FillProfiler_fill); //$NON-NLS-1$
+		return e != null ? e.getTime() : 0;
+	}
+
+	public String toJSON() throws JsonProcessingException {
+		Map<String, Object> root = new LinkedHashMap<>();
+		root.put("fillTime", getFillTime()); //$NON-NLS-1$
+		root.put("sampleInterval", SAMPLE_INTERVAL); //$NON-NLS-1$
+		root.put("entries", getEntries()); //$NON-NLS-1$
+		return new ObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(root);
+	}
+
+	private void sample() {
+		long interval = TimeUnit.MILLISECONDS.toNanos(SAMPLE_INTERVAL);
+		while (running) {
+			try {
+				Thread.sleep(SAMPLE_INTERVAL);
+			} catch (InterruptedException e) {
+				return;
+			}
+			for (Thread t : fillThreads) {
+				if (!t.isAlive()) {
+					fillThreads.remove(t);
+					continue;
+				}
+				String hotSpot = getHotSpot(t.getStackTrace());
+				if (hotSpot != null)
+					add(Messages.FillProfiler_categoryExpression, hotSpot, interval);
+			}
+		}
+	}
+
+	/**
+	 * @return the method called by the expression that is running, or null if the
+	 *         thread is not evaluating an expression
+	 */
+	private static String getHotSpot(StackTraceElement[] stack) {
+		for (int i = 1; i < stack.length; i++) {
+			if (!stack[i].getClassName().equals(EVALUATOR_CLASS) || !stack[i].getMethodName().startsWith("evaluate")) //$NON-NLS-1$
+				continue;
+			// the report evaluator extends JREvaluator, skip its frames
+			String evaluator = stack[i - 1].getClassName();
+			if (evaluator.equals(EVALUATOR_CLASS))
+				continue;
+			int j = i - 1;
+			while (j >= 0 && stack[j].getClassName().equals(evaluator))
+				j--;
+			String report = getReportName(evaluator);
+			if (j < 0)
+				return report;
+			return report + " > " + stack[j].getClassName() + "." + stack[j].getMethodName(); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return null;
+	}
+
+	/**
+	 * The compiled evaluators are named after the report and the dataset, with a
+	 * unique suffix
+	 */
+	private static String getReportName(String evaluator) {
+		String name = evaluator.substring(evaluator.lastIndexOf('.') + 1);
+		int ind = name.lastIndexOf('_');
+		if (ind > 0 && name.substring(ind + 1).chars().allMatch(Character::isDigit))
+			name = name.substring(0, ind);
+		return name;
+	}
+}
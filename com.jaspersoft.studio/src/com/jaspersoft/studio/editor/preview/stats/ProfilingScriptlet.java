@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.preview.stats;
+
+import java.text.MessageFormat;
+
+import com.jaspersoft.studio.messages.Messages;
+
+import net.sf.jasperreports.engine.JRDefaultScriptlet;
+import net.sf.jasperreports.engine.JRScriptletException;
+
+/**
+ * Measures the fill of a dataset for the {@link FillProfiler}. The time between
+ * two scriptlet callbacks is attributed to the phase started by the first one,
+ * so the time after the group initialization is the time spent in the group
+ * header bands, the time after the detail evaluation is the time spent in the
+ * detail bands and in reading the next record.
+ */
+public class ProfilingScriptlet extends JRDefaultScriptlet {
+	private final FillProfiler profiler;
+	private final String dataset;
+	private final boolean main;
+	private String phase;
+	private long phaseStart;
+	private long datasetStart = -1;
+	private long lastEvent;
+	private boolean finished;
+
+	public ProfilingScriptlet(FillProfiler profiler, String dataset, boolean main) {
+		this.profiler = profiler;
+		this.dataset = dataset;
+		this.main = main;
+		profiler.register(this);
+	}
+
+	private synchronized void enter(String newPhase) {
+		if (finished)
+			return;
+		long now = System.nanoTime();
+		if (phase != null)
+			profiler.add(Messages.FillProfiler_categoryBand, dataset + ": " + phase, now - phaseStart); //$NON-NLS-1$
+		phase = newPhase;
+		phaseStart = now;
+		lastEvent = now;
+	}
+
+	/**
+	 * Close the dataset. The last phase of the main dataset lasts until the end of
+	 * the fill, while for the subreports the last callback is taken as their end
+	 */
+	synchronized void finish(long end) {
+		if (finished || datasetStart < 0)
+			return;
+		if (main) {
+			enter(null);
+			lastEvent = end;
+		}
+		finished = true;
+		profiler.add(Messages.FillProfiler_categoryDataset, dataset, lastEvent - datasetStart);
+	}
+
+	@Override
+	public void beforeReportInit() throws JRScriptletException {
+		profiler.registerThread(Thread.currentThread());
+		long now = System.nanoTime();
+		if (datasetStart >= 0)
+			// the scriptlet is reused, for a new fill of the same dataset
+			finish(now);
+		synchronized (this) {
+			finished = false;
+			phase = null;
+			datasetStart = now;
+		}
+		if (main)
+			profiler.queryExecuted(now);
+		enter(Messages.ProfilingScriptlet_reportInit);
+	}
+
+	@Override
+	public void beforePageInit() throws JRScriptletException {
+		enter(Messages.ProfilingScriptlet_pageInit);
+	}
+
+	@Override
+	public void afterPageInit() throws JRScriptletException {
+		enter(Messages.ProfilingScriptlet_pageBands);
+	}
+
+	@Override
+	public void afterColumnInit() throws JRScriptletException {
+		enter(Messages.ProfilingScriptlet_columnBands);
+	}
+
+	@Override
+	public void afterGroupInit(String groupName) throws JRScriptletException {
+		enter(MessageFormat.format(Messages.ProfilingScriptlet_groupBands, groupName));
+	}
+
+	@Override
+	public void beforeDetailEval() throws JRScriptletException {
+		if (main)
+			profiler.firstRow(System.nanoTime());
+		enter(Messages.ProfilingScriptlet_detailEval);
+	}
+
+	@Override
+	public void afterDetailEval() throws JRScriptletException {
+		enter(Messages.ProfilingScriptlet_detailBands);
+	}
+}
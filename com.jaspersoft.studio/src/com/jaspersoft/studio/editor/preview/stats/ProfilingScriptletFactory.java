@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.preview.stats;
+
+import java.util.Collections;
+import java.util.List;
+
+import net.sf.jasperreports.engine.JRAbstractScriptlet;
+import net.sf.jasperreports.engine.JRDataset;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.scriptlets.ScriptletFactory;
+import net.sf.jasperreports.engine.scriptlets.ScriptletFactoryContext;
+
+/**
+ * Creates a {@link ProfilingScriptlet} for every dataset filled, the first main
+ * dataset is the one of the report, the others are subreports
+ */
+public class ProfilingScriptletFactory implements ScriptletFactory {
+	private final FillProfiler profiler;
+	private boolean mainCreated = false;
+
+	public ProfilingScriptletFactory(FillProfiler profiler) {
+		this.profiler = profiler;
+	}
+
+	public FillProfiler getProfiler() {
+		return profiler;
+	}
+
+	public List<JRAbstractScriptlet> getScriplets(ScriptletFactoryContext context) throws JRException {
+		JRDataset dataset = context.getDataset();
+		boolean main = false;
+		synchronized (this) {
+			if (!mainCreated && dataset.isMainDataset())
+				main = mainCreated = true;
+		}
+		return Collections.singletonList(new ProfilingScriptlet(profiler, dataset.getName(), main));
+	}
+}
@@ -3,6 +3,7 @@
  *******************************************************************************/
 package com.jaspersoft.studio.editor.preview.toolbar;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Map;
@@ -10,6 +11,10 @@ import java.util.Map;
 import org.apache.commons.io.FilenameUtils;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IMenuCreator;
 import org.eclipse.jface.action.IToolBarManager;
@@ -48,6 +53,7 @@ import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
 import net.sf.jasperreports.data.cache.DataCacheHandler;
 import net.sf.jasperreports.eclipse.ui.util.UIUtils;
 import net.sf.jasperreports.eclipse.util.FileUtils;
+import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JRQuery;
 import net.sf.jasperreports.engine.SimpleReportContext;
@@ -249,6 +255,16 @@ public class PreviewTopToolBarManager extends ATopToolBarManager {
 					}
 				});
 
+				final MenuItem itemConvert = new MenuItem(menu, SWT.PUSH);
+				itemConvert.setText(Messages.PreviewTopToolBarManager_convertSnapshot);
+				UIUtil.safeApplyMenuItemTooltip(itemConvert, Messages.PreviewTopToolBarManager_convertSnapshotTooltip);
+				itemConvert.addSelectionListener(new SelectionAdapter() {
+					@Override
+					public void widgetSelected(SelectionEvent e) {
+						doConvertDataSnapshotFile(parent.getShell());
+					}
+				});
+
 				new MenuItem(menu, SWT.SEPARATOR);
 
 				itemFilter = new MenuItem(menu, SWT.CHECK);
@@ -321,6 +337,40 @@ public class PreviewTopToolBarManager extends ATopToolBarManager {
 			return null;
 		}
 
+		protected void doConvertDataSnapshotFile(final Shell shell) {
+			FileDialog fd = new FileDialog(shell, SWT.OPEN);
+			fd.setText(Messages.PreviewTopToolBarManager_9);
+			fd.setFilterExtensions(new String[] { "*.jrds", "*.*" }); //$NON-NLS-1$ //$NON-NLS-2$
+			final String src = fd.open();
+			if (src == null)
+				return;
+			fd = new FileDialog(shell, SWT.SAVE);
+			fd.setText(Messages.PreviewTopToolBarManager_convertSnapshotDest);
+			fd.setFilterPath(new File(src).getParent());
+			fd.setFileName(FilenameUtils.getBaseName(src) + "_converted.jrds"); //$NON-NLS-1$
+			fd.setOverwrite(true);
+			fd.setFilterExtensions(new String[] { "*.jrds", "*.*" }); //$NON-NLS-1$ //$NON-NLS-2$
+			final String dest = fd.open();
+			if (dest == null)
+				return;
+			final JasperReportsConfiguration jConfig = container.getJrContext();
+			Job job = new Job(Messages.PreviewTopToolBarManager_convertingSnapshot + ": " + src) { //$NON-NLS-1$
+
+				@Override
+				protected IStatus run(IProgressMonitor monitor) {
+					monitor.beginTask(Messages.PreviewTopToolBarManager_convertingSnapshot + ": " + dest, //$NON-NLS-1$
+							IProgressMonitor.UNKNOWN);
+					try {
+						DataSnapshotManager.convertSnapshot(jConfig, new File(src), new File(dest));
+					} catch (JRException e) {
+						UIUtils.showError(e);
+					}
+					return Status.OK_STATUS;
+				}
+			};
+			job.schedule();
+		}
+
 		protected void doSelectDataSnapshotFile(final Shell shell) {
 			FileDialog fd = new FileDialog(shell, SWT.SAVE);
 			fd.setText(Messages.PreviewTopToolBarManager_3);
@@ -5,6 +5,7 @@ package com.jaspersoft.studio.editor.preview.view.control;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -13,6 +14,8 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -54,14 +57,20 @@ import com.jaspersoft.studio.editor.preview.input.TimeZoneInput;
 import com.jaspersoft.studio.editor.preview.input.URLInput;
 import com.jaspersoft.studio.editor.preview.input.array.CollectionInput;
 import com.jaspersoft.studio.editor.preview.input.map.MapInput;
+import com.jaspersoft.studio.editor.preview.stats.FillProfiler;
+import com.jaspersoft.studio.editor.preview.stats.ProfilingScriptletFactory;
 import com.jaspersoft.studio.editor.preview.stats.RecordCountScriptletFactory;
 import com.jaspersoft.studio.editor.preview.stats.Statistics;
 import com.jaspersoft.studio.editor.preview.view.APreview;
 import com.jaspersoft.studio.editor.preview.view.report.IJRPrintable;
+import com.jaspersoft.studio.editor.preview.view.report.swt.SWTViewer;
 import com.jaspersoft.studio.messages.Messages;
+import com.jaspersoft.studio.preferences.execution.IVirtualizerStatistics;
+import com.jaspersoft.studio.preferences.execution.ReportExecutionPreferencePage;
 import com.jaspersoft.studio.preferences.execution.VirtualizerHelper;
 import com.jaspersoft.studio.utils.Console;
 import com.jaspersoft.studio.utils.ExpressionUtil;
+import com.jaspersoft.studio.utils.jasper.CompiledReportCache;
 import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
 
 import net.sf.jasperreports.data.cache.DataCacheHandler;
@@ -308,6 +317,8 @@ public class ReportController {
 		jasperReport = null;
 		stats = new Statistics();
 		stats.startCount(ST_REPORTEXECUTIONTIME);
+		propertyLookups = jrContext.getPropertyLookups();
+		propertyHits = jrContext.getPropertyHits();
 		c.addMessage(Messages.ReportControler_stats_start);
 
 		pcontainer.setNotRunning(false);
@@ -361,6 +372,7 @@ public class ReportController {
 
 	private JasperReport jasperReport;
 	private RecordCountScriptletFactory scfactory;
+	private FillProfiler profiler;
 
 	private void runJob(final PreviewContainer pcontainer) {
 		fillError = null;
@@ -470,18 +482,31 @@ public class ReportController {
 			throws CoreException {
 		stats.startCount(ST_COMPILATIONTIME);
 		c.startMessage(Messages.ReportControler_msg_compiling);
+		IProject project = (IProject) jrContext.get(FileUtils.KEY_IPROJECT);
+		if (file != null) {
+			project = file.getProject();
+		}
 		if (compiler == null) {
 			compiler = new JasperReportCompiler();
 			compiler.setErrorHandler(new JRMarkerErrorHandler(c, file));
-			IProject project = (IProject) jrContext.get(FileUtils.KEY_IPROJECT);
-			if (file != null) {
-				project = file.getProject();
-			}
 			compiler.setProject(project);
 			jrContext.getPropertyChangeSupport().addPropertyChangeListener(evt -> compiler.clean());
 		} else
 			((JRErrorHandler) compiler.getErrorHandler()).reset();
-		JasperReport jr = compiler.compileReport(jrContext, jd, monitor);
+		CompiledReportCache cache = CompiledReportCache.getInstance();
+		String key = null;
+		JasperReport jr = null;
+		try {
+			key = cache.getKey(jrContext, jd, project);
+			jr = cache.get(key, project, jrContext);
+		} catch (JRException e) {
+			JaspersoftStudioPlugin.getInstance().logError(e);
+		}
+		if (jr == null) {
+			jr = compiler.compileReport(jrContext, jd, monitor);
+			if (jr != null && key != null && !((JRErrorHandler) compiler.getErrorHandler()).hasErrors())
+				cache.put(key, project, jr);
+		}
 		stats.endCount(ST_COMPILATIONTIME);
 		if (((JRErrorHandler) compiler.getErrorHandler()).hasErrors()) {
 			UIUtils.getDisplay().syncExec(() -> {
@@ -538,16 +563,18 @@ public class ReportController {
 			fh.addFillListener(pgListener);
 			fh.addListener(pgListener);
 			stats.startCount(ST_FILLINGTIME);
+			if (profiler != null)
+				profiler.start();
+			fillDone = new CountDownLatch(1);
 			fh.startFill();
-			finished = true;
-			while (finished && fillError == null) {
+			// wake up as soon as the fill is done, the timeout is only to check the monitor
+			while (!fillDone.await(CANCEL_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
 				if (pmonitor.isCanceled()) {
 					fh.cancellFill();
 					retstatus = Status.CANCEL_STATUS;
 					break;
 				}
-				Thread.sleep(500);
-				pmonitor.worked(10);
+				pmonitor.worked(1);
 			}
 			if (fillError != null)
 				throw new JRException(fillError);
@@ -558,6 +585,7 @@ public class ReportController {
 			handleFillException(e);
 			throw e;
 		} finally {
+			stopProfiler();
 			pmonitor.done();
 		}
 
@@ -589,6 +617,8 @@ public class ReportController {
 			UIUtils.getDisplay().asyncExec(() -> {
 				stats.endCount(ST_FILLINGTIME);
 				stats.setValue(ST_PAGECOUNT, page);
+				setViewerLag();
+				setVirtualizerPaging();
 				if (scfactory != null)
 					stats.setValue(ST_RECORDCOUNTER, scfactory.getRecordCount());
 				stats.endCount(ST_REPORTEXECUTIONTIME);
@@ -612,12 +642,53 @@ public class ReportController {
 		public void reportCancelled() {
 			if (jrPrint != null)
 				finishUpdateViewer(pcontainer, jrPrint);
+			else
+				fillDone.countDown();
 			c.addMessage(Messages.PreviewEditor_report_fill_canceled);
 		}
 	}
 
-	private boolean finished = true;
-	private Throwable fillError = null;
+	/**
+	 * Store in the statistics how many pages the viewer was behind the filler
+	 */
+	private void setViewerLag() {
+		APreview pv = getDefaultViewer();
+		if (pv instanceof SWTViewer && ((SWTViewer) pv).getPageQueue() != null)
+			stats.setValue(ST_VIEWERLAG, ((SWTViewer) pv).getPageQueue().getMaxLag());
+	}
+
+	/**
+	 * Store in the statistics how many pages the virtualizer moved out of the heap
+	 */
+	private void setVirtualizerPaging() {
+		Object v = jasperParameters.get(JRParameter.REPORT_VIRTUALIZER);
+		if (v instanceof IVirtualizerStatistics) {
+			IVirtualizerStatistics vs = (IVirtualizerStatistics) v;
+			stats.setValue(ST_VIRTUALIZER_PAGEOUTS, vs.getPageOuts());
+			stats.setValue(ST_VIRTUALIZER_DISKPAGEOUTS, vs.getDiskPageOuts());
+			stats.setValue(ST_VIRTUALIZER_PAGEINS, vs.getPageIns());
+		}
+	}
+
+	private long propertyLookups;
+	private long propertyHits;
+
+	/**
+	 * Store in the statistics the property lookups done during this run
+	 */
+	private void setPropertyLookups() {
+		long lookups = jrContext.getPropertyLookups() - propertyLookups;
+		long hits = jrContext.getPropertyHits() - propertyHits;
+		stats.setValue(ST_PROPERTYLOOKUPS, lookups);
+		stats.setValue(ST_PROPERTYHITS, hits);
+		stats.setValue(ST_PROPERTYMISSES, lookups - hits);
+	}
+
+	/** how often, in milliseconds, the fill job checks if the user cancelled it */
+	private static final long CANCEL_CHECK_INTERVAL = 100;
+
+	private CountDownLatch fillDone = new CountDownLatch(0);
+	private volatile Throwable fillError = null;
 
 	private VParameters prmInput;
 
@@ -627,20 +698,52 @@ public class ReportController {
 
 	public static final String ST_EXPORTTIME = "ST_EXPORTTIME"; //$NON-NLS-1$
 
+	public static final String ST_VIEWERLAG = "VIEWERLAG"; //$NON-NLS-1$
+
+	public static final String ST_PROPERTYLOOKUPS = "PROPERTYLOOKUPS"; //$NON-NLS-1$
+	public static final String ST_PROPERTYHITS = "PROPERTYHITS"; //$NON-NLS-1$
+	public static final String ST_PROPERTYMISSES = "PROPERTYMISSES"; //$NON-NLS-1$
+
+	public static final String ST_VIRTUALIZER_PAGEOUTS = "VIRTUALIZERPAGEOUTS"; //$NON-NLS-1$
+	public static final String ST_VIRTUALIZER_DISKPAGEOUTS = "VIRTUALIZERDISKPAGEOUTS"; //$NON-NLS-1$
+	public static final String ST_VIRTUALIZER_PAGEINS = "VIRTUALIZERPAGEINS"; //$NON-NLS-1$
+
+	public static final String ST_PROFILE = "PROFILE"; //$NON-NLS-1$
+
 	private JasperReportCompiler compiler;
 
 	private IProgressMonitor pmonitor;
 
 	private void handleFillException(Throwable t) {
 		fillError = t;
+		fillDone.countDown();
 	}
 
 	protected void setupRecordCounters() {
 		scfactory = new RecordCountScriptletFactory();
-		jrContext.setExtensions(ScriptletFactory.class, Collections.singletonList(scfactory));
+		if (jrContext.getPropertyBoolean(ReportExecutionPreferencePage.JSS_PROFILE_FILL, false)) {
+			profiler = new FillProfiler();
+			jrContext.setExtensions(ScriptletFactory.class,
+					Arrays.asList(scfactory, new ProfilingScriptletFactory(profiler)));
+		} else {
+			profiler = null;
+			jrContext.setExtensions(ScriptletFactory.class, Collections.singletonList(scfactory));
+		}
+	}
+
+	/**
+	 * Stop the profiler, if the profiling is enabled, and store the profile in the
+	 * statistics
+	 */
+	private void stopProfiler() {
+		if (profiler != null) {
+			profiler.stop();
+			stats.setValue(ST_PROFILE, profiler);
+		}
 	}
 
 	private void finishUpdateViewer(final PreviewContainer pcontainer, final JasperPrint jPrint) {
+		stopProfiler();
 		UIUtils.getDisplay().asyncExec(() -> {
 			stats.endCount(ST_FILLINGTIME);
 			if (jPrint != null)
@@ -658,9 +761,12 @@ public class ReportController {
 					e.printStackTrace();
 				}
 
+			setViewerLag();
+			setVirtualizerPaging();
+			setPropertyLookups();
 			pcontainer.setJasperPrint(stats, jPrint);
 			c.setStatistics(stats);
-			finished = false;
+			fillDone.countDown();
 		});
 	}
 
@@ -3,12 +3,17 @@
  *******************************************************************************/
 package com.jaspersoft.studio.editor.preview.view.control;
 
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.gef.commands.CommandStack;
 import org.eclipse.jdt.core.compiler.IProblem;
@@ -32,9 +37,11 @@ import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
@@ -47,9 +54,13 @@ import com.jaspersoft.studio.JaspersoftStudioPlugin;
 import com.jaspersoft.studio.editor.AbstractJRXMLEditor;
 import com.jaspersoft.studio.editor.expression.ExpressionContext;
 import com.jaspersoft.studio.editor.expression.ExpressionEditorSupportUtil;
+import com.jaspersoft.studio.editor.preview.stats.FillProfiler;
 import com.jaspersoft.studio.editor.preview.stats.Statistics;
 import com.jaspersoft.studio.editor.preview.view.APreview;
 import com.jaspersoft.studio.messages.Messages;
+import com.jaspersoft.studio.preferences.editor.sorttable.model.ITableContentProvider;
+import com.jaspersoft.studio.preferences.editor.sorttable.model.TableViewerSorter;
+import com.jaspersoft.studio.preferences.editor.sorttable.model.TableViewerSorterHandler;
 import com.jaspersoft.studio.preferences.editor.table.TableLabelProvider;
 import com.jaspersoft.studio.preferences.fonts.utils.FontUtils;
 import com.jaspersoft.studio.property.SetExpressionValueCommand;
@@ -90,6 +101,9 @@ public class VErrorPreview extends APreview {
 	private Label exportTime;
 	private Label execTime;
 	private Label totalPages;
+	private Label viewerLag;
+	private Label propertyLookups;
+	private Label virtualizerPaging;
 	private Label fillSize;
 	private Label recordCount;
 	private Text tmessage;
@@ -103,6 +117,12 @@ public class VErrorPreview extends APreview {
 	private Action errAction;
 	private Action statAction;
 	private Action msgAction;
+	private Action profAction;
+	private Composite profileComposite;
+	private Label profileInfo;
+	private Button profileExport;
+	private TableViewer profileViewer;
+	private FillProfiler profiler;
 	private CTabFolder tabFolder;
 
 	@Override
@@ -143,6 +163,15 @@ public class VErrorPreview extends APreview {
 			}
 		};
 		tbManager.add(statAction);
+
+		profAction = new Action(Messages.VErrorPreview_profileLabel) {
+			@Override
+			public void run() {
+				stackLayout.topControl = profileComposite;
+				body.layout();
+			}
+		};
+		tbManager.add(profAction);
 		tbManager.update(true);
 		topToolBar.pack();
 
@@ -159,6 +188,8 @@ public class VErrorPreview extends APreview {
 
 		createStatistics(body);
 
+		createProfile(body);
+
 		stackLayout.topControl = tmessage;
 		body.layout();
 		PlatformUI.getWorkbench().getHelpSystem().setHelp(container, "com.jaspersoft.studio.doc.view_reportstate"); //$NON-NLS-1$
@@ -384,6 +415,29 @@ public class VErrorPreview extends APreview {
 		com.jaspersoft.studio.utils.UIUtil.setBold(totalPages);
 		new Label(statComposite, SWT.NONE).setText(Messages.VErrorPreview_pagesLabel);
 
+		new Label(statComposite, SWT.NONE).setText(Messages.VErrorPreview_viewerLagLabel);
+
+		viewerLag = new Label(statComposite, SWT.BOLD);
+		viewerLag.setLayoutData(new GridData(GridData.HORIZONTAL_ALIGN_END));
+		com.jaspersoft.studio.utils.UIUtil.setBold(viewerLag);
+		new Label(statComposite, SWT.NONE).setText(Messages.VErrorPreview_pagesLabel);
+
+		new Label(statComposite, SWT.NONE).setText(Messages.VErrorPreview_propertyLookupsLabel);
+
+		propertyLookups = new Label(statComposite, SWT.BOLD);
+		GridData lookupsData = new GridData(GridData.FILL_HORIZONTAL);
+		lookupsData.horizontalSpan = 2;
+		propertyLookups.setLayoutData(lookupsData);
+		com.jaspersoft.studio.utils.UIUtil.setBold(propertyLookups);
+
+		new Label(statComposite, SWT.NONE).setText(Messages.VErrorPreview_virtualizerPagingLabel);
+
+		virtualizerPaging = new Label(statComposite, SWT.BOLD);
+		GridData pagingData = new GridData(GridData.FILL_HORIZONTAL);
+		pagingData.horizontalSpan = 2;
+		virtualizerPaging.setLayoutData(pagingData);
+		com.jaspersoft.studio.utils.UIUtil.setBold(virtualizerPaging);
+
 		new Label(statComposite, SWT.NONE).setText(Messages.VErrorPreview_processedRecordsLabel);
 
 		recordCount = new Label(statComposite, SWT.BOLD);
@@ -423,9 +477,118 @@ public class VErrorPreview extends APreview {
 		setStats(null);
 	}
 
+	private void createProfile(Composite parent) {
+		profileComposite = new Composite(parent, SWT.NONE);
+		GridLayout layout = new GridLayout(2, false);
+		layout.marginWidth = 0;
+		layout.marginHeight = 0;
+		profileComposite.setLayout(layout);
+
+		profileInfo = new Label(profileComposite, SWT.WRAP);
+		profileInfo.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+
+		profileExport = new Button(profileComposite, SWT.PUSH);
+		profileExport.setText(Messages.VErrorPreview_profileExport);
+		profileExport.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				exportProfile();
+			}
+		});
+
+		Table table = new Table(profileComposite, SWT.V_SCROLL | SWT.H_SCROLL | SWT.SINGLE | SWT.FULL_SELECTION | SWT.BORDER);
+		GridData gd = new GridData(GridData.FILL_BOTH);
+		gd.horizontalSpan = 2;
+		table.setLayoutData(gd);
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+
+		String[] names = new String[] { Messages.VErrorPreview_profileCategory, Messages.VErrorPreview_profileName,
+				Messages.VErrorPreview_profileCount, Messages.VErrorPreview_profileTime,
+				Messages.VErrorPreview_profilePercent };
+		int[] weights = new int[] { 15, 55, 10, 10, 10 };
+		TableLayout tlayout = new TableLayout();
+		for (int i = 0; i < names.length; i++) {
+			TableColumn col = new TableColumn(table, i < 2 ? SWT.LEFT : SWT.RIGHT);
+			col.setText(names[i]);
+			tlayout.addColumnData(new ColumnWeightData(weights[i], true));
+		}
+		table.setLayout(tlayout);
+
+		profileViewer = new TableViewer(table);
+		ITableContentProvider contentProvider = new ProfileContentProvider();
+		profileViewer.setContentProvider(contentProvider);
+		profileViewer.setLabelProvider(new TableLabelProvider() {
+			@Override
+			public String getColumnText(Object element, int columnIndex) {
+				Object value = contentProvider.getColumnValue(element, columnIndex);
+				if (value instanceof Double)
+					return pdf.format(value);
+				return Misc.nvl(value, ""); //$NON-NLS-1$
+			}
+		});
+		TableViewerSorter sorter = new TableViewerSorter(profileViewer, contentProvider);
+		profileViewer.setSorter(sorter);
+		new TableViewerSorterHandler(table, sorter).sort(3, false);
+		setProfile(null);
+	}
+
+	private class ProfileContentProvider extends ListContentProvider implements ITableContentProvider {
+
+		@Override
+		public Object getColumnValue(Object element, int columnIndex) {
+			FillProfiler.Entry entry = (FillProfiler.Entry) element;
+			switch (columnIndex) {
+			case 0:
+				return entry.getCategory();
+			case 1:
+				return entry.getName();
+			case 2:
+				return entry.getCount();
+			case 3:
+				return entry.getTime();
+			case 4:
+				double fillTime = profiler != null ? profiler.getFillTime() : 0;
+				return fillTime > 0 ? entry.getTime() * 100 / fillTime : null;
+			default:
+				return null;
+			}
+		}
+	}
+
+	private void setProfile(FillProfiler profiler) {
+		this.profiler = profiler;
+		profileExport.setEnabled(profiler != null);
+		profileInfo.setText(profiler != null ? "" : Messages.VErrorPreview_profileDisabled); //$NON-NLS-1$
+		profileViewer.setInput(profiler != null ? profiler.getEntries() : new ArrayList<>());
+		profileComposite.layout();
+	}
+
+	private void exportProfile() {
+		if (profiler == null)
+			return;
+		FileDialog dialog = new FileDialog(UIUtils.getShell(), SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*.json" }); //$NON-NLS-1$
+		dialog.setFileName("profile.json"); //$NON-NLS-1$
+		dialog.setOverwrite(true);
+		String path = dialog.open();
+		if (path == null)
+			return;
+		try {
+			Files.write(Paths.get(path), profiler.toJSON().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			UIUtils.showError(e);
+		}
+	}
+
 	public void setStats(Statistics stats) {
 		if (compilationTime.isDisposed())
 			return;
+		FillProfiler fp = stats != null ? (FillProfiler) stats.getValue(ReportController.ST_PROFILE) : null;
+		if (fp != null && stats.getDuration(ReportController.ST_EXPORTTIME) > 0)
+			fp.set(Messages.FillProfiler_categoryExport, Messages.FillProfiler_export, 1,
+					TimeUnit.MILLISECONDS.toNanos(stats.getDuration(ReportController.ST_EXPORTTIME)));
+		setProfile(fp);
 		if (stats != null) {
 			compilationTime.setText(format(stats.getDuration(ReportController.ST_COMPILATIONTIME)));
 			fillingTime.setText(format(stats.getDuration(ReportController.ST_FILLINGTIME)));
@@ -433,6 +596,21 @@ public class VErrorPreview extends APreview {
 			execTime.setText(format(stats.getDuration(ReportController.ST_REPORTEXECUTIONTIME)));
 
 			totalPages.setText(Misc.nvl(stats.getValue(ReportController.ST_PAGECOUNT), "0")); //$NON-NLS-1$
+			viewerLag.setText(Misc.nvl(stats.getValue(ReportController.ST_VIEWERLAG), "-")); //$NON-NLS-1$
+			if (stats.getValue(ReportController.ST_PROPERTYLOOKUPS) != null)
+				propertyLookups.setText(String.format(Messages.VErrorPreview_propertyLookupsValue,
+						stats.getValue(ReportController.ST_PROPERTYLOOKUPS),
+						stats.getValue(ReportController.ST_PROPERTYHITS),
+						stats.getValue(ReportController.ST_PROPERTYMISSES)));
+			else
+				propertyLookups.setText("-"); //$NON-NLS-1$
+			if (stats.getValue(ReportController.ST_VIRTUALIZER_PAGEOUTS) != null)
+				virtualizerPaging.setText(String.format(Messages.VErrorPreview_virtualizerPagingValue,
+						stats.getValue(ReportController.ST_VIRTUALIZER_PAGEOUTS),
+						stats.getValue(ReportController.ST_VIRTUALIZER_DISKPAGEOUTS),
+						stats.getValue(ReportController.ST_VIRTUALIZER_PAGEINS)));
+			else
+				virtualizerPaging.setText("-"); //$NON-NLS-1$
 			recordCount.setText(Misc.nvl(stats.getValue(ReportController.ST_RECORDCOUNTER), "-")); //$NON-NLS-1$
 			fillSize.setText(Misc.nvl(stats.getValue(ReportController.ST_REPORTSIZE), "0")); //$NON-NLS-1$
 			runTime.setText(Misc.nvl(stats.getValue(ReportController.ST_RUNTIMESTAMP), ""));
@@ -446,6 +624,9 @@ public class VErrorPreview extends APreview {
 			exportTime.setText("-"); //$NON-NLS-1$
 
 			totalPages.setText("-"); //$NON-NLS-1$
+			viewerLag.setText("-"); //$NON-NLS-1$
+			propertyLookups.setText("-"); //$NON-NLS-1$
+			virtualizerPaging.setText("-"); //$NON-NLS-1$
 			recordCount.setText("-"); //$NON-NLS-1$
 			fillSize.setText("-"); //$NON-NLS-1$
 			runTime.setText("");
@@ -457,6 +638,8 @@ public class VErrorPreview extends APreview {
 
 	private static DecimalFormat df = new DecimalFormat("#.###"); //$NON-NLS-1$
 
+	private static DecimalFormat pdf = new DecimalFormat("#,##0.0"); //$NON-NLS-1$
+
 	static {
 		df.setRoundingMode(RoundingMode.HALF_UP);
 	}
@@ -3,9 +3,12 @@
  *******************************************************************************/
 package com.jaspersoft.studio.editor.preview.view.report;
 
+import java.util.function.Supplier;
+
 import org.eclipse.jface.action.MenuManager;
 import org.eclipse.jface.action.Separator;
 
+import com.jaspersoft.studio.editor.preview.actions.export.BatchExportAction;
 import com.jaspersoft.studio.editor.preview.actions.export.ExportAsCsvAction;
 import com.jaspersoft.studio.editor.preview.actions.export.ExportAsCsvMetadataAction;
 import com.jaspersoft.studio.editor.preview.actions.export.ExportAsDocxAction;
@@ -25,12 +28,23 @@ import com.jaspersoft.studio.editor.preview.actions.export.xls.ExportAsXlsAction
 import com.jaspersoft.studio.editor.preview.actions.export.xls.ExportAsXlsMetadataAction;
 import com.jaspersoft.studio.editor.preview.actions.export.xls.ExportAsXlsxAction;
 import com.jaspersoft.studio.editor.preview.actions.export.xls.ExportAsXlsxMetadataAction;
+import com.jaspersoft.studio.editor.preview.stats.Statistics;
 import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
 
 import net.sf.jasperreports.eclipse.viewer.IReportViewer;
 
 public class ExportMenu {
 	public static ExportMenuAction getExportMenu(IReportViewer rptviewer, JasperReportsConfiguration jContext) {
+		return getExportMenu(rptviewer, jContext, null);
+	}
+
+	/**
+	 * @param stats
+	 *          provides the statistics of the report shown in the viewer, where
+	 *          the batch export stores its times, can be null
+	 */
+	public static ExportMenuAction getExportMenu(IReportViewer rptviewer, JasperReportsConfiguration jContext,
+			Supplier<Statistics> stats) {
 		ExportMenuAction exportMenu = new ExportMenuAction(rptviewer);
 
 		MenuManager mm = exportMenu.getMenuManager();
@@ -58,6 +72,9 @@ public class ExportMenu {
 		mm.add(new Separator());
 		mm.add(new ExportAsXmlAction(rptviewer, jContext, exportMenu));
 		mm.add(new ExportAsXmlWithImagesAction(rptviewer, jContext, exportMenu));
+
+		mm.add(new Separator());
+		mm.add(new BatchExportAction(rptviewer, exportMenu, stats));
 		// exportMenu.setDefaultAction(pdfAction);
 
 		return exportMenu;
@@ -63,7 +63,7 @@ public abstract class AFileViewer extends APreview implements IJRPrintable, IPre
 	public void contribute2ToolBar(IToolBarManager tmanager) {
 		super.contribute2ToolBar(tmanager);
 		if (jrprint != null) {
-			ExportMenuAction exportMenu = ExportMenu.getExportMenu(rptviewer, jContext);
+			ExportMenuAction exportMenu = ExportMenu.getExportMenu(rptviewer, jContext, () -> stats);
 			setDefaultExporter(exportMenu, createExporterAction(rptviewer));
 			tmanager.add(exportMenu);
 		}
@@ -86,6 +86,8 @@ public abstract class AFileViewer extends APreview implements IJRPrintable, IPre
 
 	private JasperPrint jrprint;
 
+	private Statistics stats;
+
 	@Override
 	public JasperPrint getJrPrint() {
 		return jrprint;
@@ -96,6 +98,7 @@ public abstract class AFileViewer extends APreview implements IJRPrintable, IPre
 	}
 
 	public void setJRPRint(final Statistics stats, final JasperPrint jrprint, boolean refresh) throws Exception {
+		this.stats = stats;
 		if (this.jrprint == null || this.jrprint != jrprint || refresh) {
 			rptviewer.setReport(jrprint);
 
@@ -32,6 +32,8 @@ public class HTMLViewer extends ABrowserViewer implements IJRPrintable, IPrefere
 
 	private JasperPrint jrprint;
 
+	private Statistics stats;
+
 	@Override
 	public JasperPrint getJrPrint() {
 		return jrprint;
@@ -54,7 +56,7 @@ public class HTMLViewer extends ABrowserViewer implements IJRPrintable, IPrefere
 	public void contribute2ToolBar(IToolBarManager tmanager) {
 		super.contribute2ToolBar(tmanager);
 		if (jrprint != null) {
-			ExportMenuAction exportMenu = ExportMenu.getExportMenu(rptviewer, jContext);
+			ExportMenuAction exportMenu = ExportMenu.getExportMenu(rptviewer, jContext, () -> stats);
 			setDefaultExporter(exportMenu, createExporter(rptviewer));
 			tmanager.add(exportMenu);
 		}
@@ -72,6 +74,7 @@ public class HTMLViewer extends ABrowserViewer implements IJRPrintable, IPrefere
 	}
 
 	public void setJRPRint(final Statistics stats, JasperPrint jrprint, boolean refresh) throws Exception {
+		this.stats = stats;
 		if (this.jrprint != jrprint || refresh) {
 			rptviewer.setReport(jrprint);
 			if (tmpFile == null)
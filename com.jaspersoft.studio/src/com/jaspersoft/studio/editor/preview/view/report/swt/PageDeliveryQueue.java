@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.preview.view.report.swt;
+
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Display;
+
+import net.sf.jasperreports.eclipse.ui.util.UIUtils;
+import net.sf.jasperreports.eclipse.viewer.ReportViewer;
+import net.sf.jasperreports.engine.JasperPrint;
+
+/**
+ * Delivers the pages produced by the filler to the {@link ReportViewer}.
+ *
+ * The fill notifications are coalesced: there is at most one refresh pending
+ * on the UI thread, whatever the number of pages generated meanwhile. The
+ * visible page is re-rendered as soon as it is generated or updated, pages that
+ * are not on screen only refresh the page count, at most once every
+ * {@link #PAGECOUNT_REFRESH} milliseconds.
+ *
+ * The queue also keeps track of how many pages the viewer is behind the filler.
+ */
+public class PageDeliveryQueue {
+	/** minimum delay between two refreshes caused by pages not on screen */
+	public static final int PAGECOUNT_REFRESH = 1000;
+
+	private final ReportViewer viewer;
+	private final Control control;
+	private final Object lock = new Object();
+
+	private JasperPrint pendingPrint;
+	private JasperPrint deliveredPrint;
+	private int generatedPages;
+	private int deliveredPages;
+	private boolean visiblePageDirty;
+	private boolean scheduled;
+	private boolean timerScheduled;
+	private long lastDelivery;
+	private int maxLag;
+
+	public PageDeliveryQueue(ReportViewer viewer, Control control) {
+		this.viewer = viewer;
+		this.control = control;
+	}
+
+	/**
+	 * Reset the queue, for a new fill
+	 */
+	public void reset() {
+		synchronized (lock) {
+			pendingPrint = null;
+			deliveredPrint = null;
+			generatedPages = 0;
+			deliveredPages = 0;
+			visiblePageDirty = false;
+			maxLag = 0;
+		}
+	}
+
+	public void pageGenerated(JasperPrint jrPrint, int page) {
+		synchronized (lock) {
+			pendingPrint = jrPrint;
+			generatedPages = Math.max(generatedPages, page + 1);
+			if (jrPrint != deliveredPrint || page == getVisiblePage())
+				visiblePageDirty = true;
+			maxLag = Math.max(maxLag, generatedPages - deliveredPages);
+			schedule();
+		}
+	}
+
+	public void pageUpdated(JasperPrint jrPrint, int page) {
+		synchronized (lock) {
+			pendingPrint = jrPrint;
+			if (page != getVisiblePage())
+				return;
+			visiblePageDirty = true;
+			schedule();
+		}
+	}
+
+	/**
+	 * Show immediately the report, bypassing the queue
+	 */
+	public void deliver(JasperPrint jrPrint, int page) {
+		if (Display.getCurrent() == null) {
+			UIUtils.getDisplay().asyncExec(() -> deliver(jrPrint, page));
+			return;
+		}
+		synchronized (lock) {
+			pendingPrint = null;
+			visiblePageDirty = false;
+			deliveredPrint = jrPrint;
+			if (jrPrint != null)
+				generatedPages = deliveredPages = jrPrint.getPages().size();
+			lastDelivery = System.currentTimeMillis();
+		}
+		if (!control.isDisposed())
+			viewer.setReport(jrPrint, page);
+	}
+
+	/**
+	 * @return the number of pages generated by the filler and not yet delivered
+	 *         to the viewer
+	 */
+	public int getLag() {
+		synchronized (lock) {
+			return generatedPages - deliveredPages;
+		}
+	}
+
+	/**
+	 * @return the maximum lag, in pages, between the viewer and the filler since
+	 *         the last reset
+	 */
+	public int getMaxLag() {
+		synchronized (lock) {
+			return maxLag;
+		}
+	}
+
+	private int getVisiblePage() {
+		return Math.max(0, viewer.getPageIndex());
+	}
+
+	private void schedule() {
+		final Display display = UIUtils.getDisplay();
+		if (visiblePageDirty) {
+			if (!scheduled) {
+				scheduled = true;
+				display.asyncExec(() -> doDeliver(false));
+			}
+			return;
+		}
+		if (scheduled || timerScheduled)
+			return;
+		long delay = PAGECOUNT_REFRESH - (System.currentTimeMillis() - lastDelivery);
+		if (delay <= 0) {
+			scheduled = true;
+			display.asyncExec(() -> doDeliver(false));
+		} else {
+			timerScheduled = true;
+			display.asyncExec(() -> display.timerExec((int) delay, () -> doDeliver(true)));
+		}
+	}
+
+	private void doDeliver(boolean timer) {
+		JasperPrint jrPrint;
+		int page;
+		synchronized (lock) {
+			if (timer)
+				timerScheduled = false;
+			else
+				scheduled = false;
+			jrPrint = pendingPrint;
+			if (jrPrint == null)
+				return;
+			pendingPrint = null;
+			visiblePageDirty = false;
+			page = jrPrint == deliveredPrint ? getVisiblePage() : 0;
+			deliveredPrint = jrPrint;
+			deliveredPages = generatedPages;
+			lastDelivery = System.currentTimeMillis();
+		}
+		if (!control.isDisposed())
+			viewer.setReport(jrPrint, page);
+	}
+}
@@ -69,6 +69,7 @@ public class SWTViewer extends APreview implements IJRPrintable, IPreferencePage
 		rptviewer = new ReportViewer(jContext);
 		Control ctrl = rptviewer.createControl(composite);
 		ctrl.setLayoutData(new GridData(SWT.FILL, SWT.FILL,true,true));
+		pageQueue = new PageDeliveryQueue(rptviewer, ctrl);
 
 		return composite;
 	}
@@ -95,13 +96,15 @@ public class SWTViewer extends APreview implements IJRPrintable, IPreferencePage
 		tmanager.add(new ExportImageAction(rptviewer));
 		tmanager.add(new Separator());
 
-		ExportMenuAction exportMenu = ExportMenu.getExportMenu(rptviewer, jContext);
+		ExportMenuAction exportMenu = ExportMenu.getExportMenu(rptviewer, jContext, () -> stats);
 		setDefaultExporter(exportMenu, createExporterAction(rptviewer));
 		tmanager.add(exportMenu);
 	}
 
 	protected JasperPrint jrprint;
 
+	protected Statistics stats;
+
 	@Override
 	public JasperPrint getJrPrint() {
 		return jrprint;
@@ -112,40 +115,34 @@ public class SWTViewer extends APreview implements IJRPrintable, IPreferencePage
 	}
 
 	public void setJRPRint(Statistics stats, JasperPrint jrprint, boolean refresh) {
-		rptviewer.setPageIndex(Math.max(0, rptviewer.getPageIndex()));
-		doUpdatePage(jrprint, rptviewer.getPageIndex());
+		int page = Math.max(0, rptviewer.getPageIndex());
+		if (jrprint == null || jrprint != this.jrprint)
+			page = 0;
+		this.jrprint = jrprint;
+		this.stats = stats;
+		pageQueue.deliver(jrprint, page);
 	}
 
-	private boolean refresh = false;
-	private JasperPrint lastJR;
-	private int lastPage;
+	private PageDeliveryQueue pageQueue;
+
+	/**
+	 * @return the queue delivering the filled pages to the viewer
+	 */
+	public PageDeliveryQueue getPageQueue() {
+		return pageQueue;
+	}
 
 	@Override
 	public void pageGenerated(final JasperPrint arg0, int page) {
-		doUpdatePage(arg0, page);
+		if (page == 0)
+			pageQueue.reset();
+		jrprint = arg0;
+		pageQueue.pageGenerated(arg0, page);
 	}
 
 	@Override
 	public void pageUpdated(final JasperPrint arg0, final int page) {
-		if (rptviewer.getPageIndex() == page)
-			doUpdatePage(arg0, page);
-	}
-
-	private void doUpdatePage(final JasperPrint arg0, final int page) {
-		if (refresh) {
-			lastJR = arg0;
-			lastPage = page;
-			return;
-		}
-		lastJR = null;
-		refresh = true;
-		UIUtils.getDisplay().asyncExec(() -> {
-			rptviewer.setReport(arg0, page);
-			jrprint = arg0;
-			refresh = false;
-			if (lastJR != null)
-				doUpdatePage(lastJR, lastPage);
-		});
+		pageQueue.pageUpdated(arg0, page);
 	}
 
 	public void setPageNumber(final int page) {
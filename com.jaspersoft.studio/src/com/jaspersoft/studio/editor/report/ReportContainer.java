@@ -275,7 +275,8 @@ public class ReportContainer extends MultiPageToolbarEditorPart
 			}
 			getPropertyChangeSupport().firePropertyChange(evt);
 			if (!propertyName.equals(MGraphicElement.FORCE_GRAPHICAL_REFRESH)
-					&& !propertyName.equals(JSSCompoundCommand.REFRESH_UI_EVENT)) {
+					&& !propertyName.equals(JSSCompoundCommand.REFRESH_UI_EVENT)
+					&& !propertyName.equals(JSSCompoundCommand.REFRESH_NODES_EVENT)) {
 				firePropertyChange(ISaveablePart.PROP_DIRTY);
 			}
 		}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.xml;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+
+/**
+ * Update the content of a document replacing only the region that is really
+ * changed, instead of setting the whole text. On big JRXML the full replace
+ * forces the partitioning, the coloring and the reconciling of the whole
+ * document, while an edit on the design usually changes only few elements
+ */
+public class XMLDocumentUpdater {
+
+	/**
+	 * When the changed region is bigger than this fraction of the document the
+	 * whole text is replaced
+	 */
+	private static final double MAX_PATCH_RATIO = 0.5;
+
+	private XMLDocumentUpdater() {
+	}
+
+	/**
+	 * Set the new content of the document, replacing only the text between the
+	 * common prefix and the common suffix of the old and the new content
+	 *
+	 * @param doc
+	 *          the document to update, must be not null
+	 * @param text
+	 *          the new content of the document, must be not null
+	 * @return true if the document was changed, false if it had already the
+	 *         passed content
+	 */
+	public static boolean update(IDocument doc, String text) {
+		String old = doc.get();
+		int[] region = getChangedRegion(old, text);
+		if (region == null)
+			return false;
+		int oldLength = old.length();
+		int replaced = region[1] - region[0];
+		if (oldLength == 0 || Math.max(replaced, region[2] - region[0]) > oldLength * MAX_PATCH_RATIO) {
+			doc.set(text);
+			return true;
+		}
+		try {
+			doc.replace(region[0], replaced, text.substring(region[0], region[2]));
+		} catch (BadLocationException e) {
+			doc.set(text);
+		}
+		return true;
+	}
+
+	/**
+	 * Compare two texts, excluding their common prefix and their common suffix
+	 * 
+	 * @param old
+	 *          the old text, must be not null
+	 * @param text
+	 *          the new text, must be not null
+	 * @return null if the texts are equal, otherwise the start of the changed
+	 *         region, its end in the old text and its end in the new text
+	 */
+	public static int[] getChangedRegion(String old, String text) {
+		if (old.equals(text))
+			return null;
+		int oldLength = old.length();
+		int newLength = text.length();
+		int maxPrefix = Math.min(oldLength, newLength);
+		int prefix = 0;
+		while (prefix < maxPrefix && old.charAt(prefix) == text.charAt(prefix))
+			prefix++;
+		int maxSuffix = maxPrefix - prefix;
+		int suffix = 0;
+		while (suffix < maxSuffix && old.charAt(oldLength - 1 - suffix) == text.charAt(newLength - 1 - suffix))
+			suffix++;
+		return new int[] { prefix, oldLength - suffix, newLength - suffix };
+	}
+}
@@ -0,0 +1,399 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.xml;
+
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.xml.sax.InputSource;
+
+import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
+
+import net.sf.jasperreports.engine.JRBand;
+import net.sf.jasperreports.engine.JRChild;
+import net.sf.jasperreports.engine.JRElementGroup;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JRDesignElement;
+import net.sf.jasperreports.engine.design.JRDesignElementGroup;
+import net.sf.jasperreports.engine.design.JRDesignFrame;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.xml.JRXmlDigester;
+import net.sf.jasperreports.engine.xml.JRXmlDigesterFactory;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+
+/**
+ * Apply an edit of the JRXML to the design by parsing again only the edited
+ * element. The changed text is found comparing the JRXML synchronized with the
+ * design and the edited one, the innermost report element that encloses all
+ * the changes is parsed alone, with the digester of JasperReports, and it
+ * replaces the element with the same uuid in the design. The model of the
+ * editor listens to the design, so only the nodes of that element are created
+ * again.
+ * <p>
+ * Only the simple elements are handled, the ones that do not reference groups
+ * and that contain only the tags listed in {@link #CONTENT}. In every other
+ * case, or when the edit is not inside a single element, the caller must load
+ * the whole JRXML.
+ * </p>
+ */
+public class XMLElementReloader {
+
+	/** the report elements that can be parsed alone */
+	private static final Set<String> ELEMENTS = new HashSet<>(Arrays.asList("staticText", "textField", "image", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"rectangle", "ellipse", "line", "break", "frame")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+	/** the tags that can be inside the elements parsed alone */
+	private static final Set<String> CONTENT = new HashSet<>(Arrays.asList("reportElement", "property", //$NON-NLS-1$ //$NON-NLS-2$
+			"propertyExpression", "printWhenExpression", "box", "pen", "topPen", "leftPen", "bottomPen", "rightPen", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+			"graphicElement", "textElement", "font", "paragraph", "tabStop", "text", "textFieldExpression", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$
+			"patternExpression", "imageExpression", "anchorNameExpression", "hyperlinkReferenceExpression", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"hyperlinkWhenExpression", "hyperlinkAnchorExpression", "hyperlinkPageExpression", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			"hyperlinkTooltipExpression", "hyperlinkParameter", "hyperlinkParameterExpression")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	/**
+	 * The attributes referencing a group, they are resolved by the loader only
+	 * after the whole report is parsed
+	 */
+	private static final Pattern GROUP_ATTRIBUTES = Pattern
+			.compile("\\b(evaluationGroup|printWhenGroupChanges)\\s*="); //$NON-NLS-1$
+
+	private static final Pattern ATTRIBUTE = Pattern.compile("([\\w:.-]+)\\s*=\\s*(\"[^\"]*\"|'[^']*')"); //$NON-NLS-1$
+
+	private XMLElementReloader() {
+	}
+
+	/**
+	 * Apply the changes between the old and the new JRXML to the design, if they
+	 * are all inside a single element that can be parsed alone
+	 *
+	 * @param jrContext
+	 *          the context of the report
+	 * @param jd
+	 *          the design, it must be the one loaded from the old JRXML or written
+	 *          to it
+	 * @param oldXml
+	 *          the JRXML of the design
+	 * @param newXml
+	 *          the edited JRXML
+	 * @return true if the design was updated, false if the whole JRXML must be
+	 *         loaded again
+	 */
+	public static boolean reload(JasperReportsConfiguration jrContext, JasperDesign jd, String oldXml,
+			String newXml) {
+		int[] region = XMLDocumentUpdater.getChangedRegion(oldXml, newXml);
+		if (region == null)
+			return true;
+		// the innermost element still valid after the edit, an outer one is used
+		// when the edit adds or removes siblings of the inner one
+		String fragment = null;
+		String name = null;
+		String uuid = null;
+		for (int[] element : findEnclosingElements(oldXml, region[0], region[1])) {
+			String oldFragment = oldXml.substring(element[0], element[1]);
+			String newFragment = newXml.substring(element[0], element[1] + newXml.length() - oldXml.length());
+			String n = getSingleElement(newFragment);
+			String id = getUUID(newFragment);
+			if (n != null && n.equals(getSingleElement(oldFragment)) && id != null
+					&& id.equals(getUUID(oldFragment))) {
+				fragment = newFragment;
+				name = n;
+				uuid = id;
+				break;
+			}
+		}
+		if (fragment == null || GROUP_ATTRIBUTES.matcher(fragment).find())
+			return false;
+		String namespaces = getNamespaces(newXml);
+		if (namespaces == null)
+			return false;
+
+		ElementLocation location;
+		try {
+			location = findElement(jd, UUID.fromString(uuid));
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+		if (location == null)
+			return false;
+
+		JRDesignElement newElement = parse(jrContext, jd,
+				"<" + name + " " + namespaces + fragment.substring(name.length() + 1)); //$NON-NLS-1$ //$NON-NLS-2$
+		if (newElement == null || newElement.getClass() != location.element.getClass())
+			return false;
+		if (location.parent instanceof JRDesignFrame) {
+			JRDesignFrame frame = (JRDesignFrame) location.parent;
+			frame.removeElement(location.element);
+			frame.addElement(location.index, newElement);
+		} else {
+			JRDesignElementGroup group = (JRDesignElementGroup) location.parent;
+			group.removeElement(location.element);
+			group.addElement(location.index, newElement);
+		}
+		return true;
+	}
+
+	/**
+	 * Parse a single element, resolving the styles on the design
+	 *
+	 * @return the element or null if it can not be parsed
+	 */
+	private static JRDesignElement parse(JasperReportsConfiguration jrContext, JasperDesign jd, String fragment) {
+		try {
+			JRXmlDigester digester = JRXmlDigesterFactory.createDigester(jrContext);
+			JRXmlLoader loader = new JRXmlLoader(jrContext, digester);
+			// the stack is the same of a full load, the element factories take the
+			// loader and the design from the bottom of it, the container receives
+			// the parsed element
+			JRDesignBand container = new JRDesignBand();
+			try {
+				digester.push(loader);
+				digester.push(jd);
+				digester.push(container);
+				digester.parse(new InputSource(new StringReader(fragment)));
+			} finally {
+				digester.clear();
+			}
+			List<JRChild> children = container.getChildren();
+			if (children.size() != 1 || !(children.get(0) instanceof JRDesignElement))
+				return null;
+			JRDesignElement element = (JRDesignElement) children.get(0);
+			container.removeElement(element);
+			return element;
+		} catch (Exception e) {
+			// the whole report will be loaded, and the error reported to the user
+			return null;
+		}
+	}
+
+	private static class ElementLocation {
+		private JRElementGroup parent;
+		private int index;
+		private JRDesignElement element;
+		private int count;
+	}
+
+	/**
+	 * @return the location of the element with the uuid, null if it is not found
+	 *         or if there are more elements with it
+	 */
+	private static ElementLocation findElement(JasperDesign jd, UUID uuid) {
+		ElementLocation location = new ElementLocation();
+		for (JRBand band : jd.getAllBands())
+			if (band instanceof JRDesignBand)
+				findElement((JRDesignBand) band, uuid, location);
+		return location.count == 1 ? location : null;
+	}
+
+	private static void findElement(JRElementGroup group, UUID uuid, ElementLocation location) {
+		List<JRChild> children = group.getChildren();
+		for (int i = 0; i < children.size(); i++) {
+			JRChild child = children.get(i);
+			if (child instanceof JRDesignElement && uuid.equals(((JRDesignElement) child).getUUID())) {
+				location.parent = group;
+				location.index = i;
+				location.element = (JRDesignElement) child;
+				location.count++;
+			}
+			if (child instanceof JRDesignElementGroup || child instanceof JRDesignFrame)
+				findElement((JRElementGroup) child, uuid, location);
+		}
+	}
+
+	/**
+	 * @return the start and the end of the elements, between the ones that can be
+	 *         parsed alone, that strictly enclose the region, from the innermost.
+	 *         Empty if the XML is not well formed
+	 */
+	private static List<int[]> findEnclosingElements(String xml, int start, int end) {
+		List<int[]> elements = new ArrayList<>();
+		Deque<Tag> open = new ArrayDeque<>();
+		Tag tag = new Tag();
+		int pos = 0;
+		while (next(xml, pos, xml.length(), tag)) {
+			pos = tag.end;
+			int elementStart;
+			if (tag.closing) {
+				Tag startTag = open.poll();
+				if (startTag == null || !startTag.name.equals(tag.name))
+					return Collections.emptyList();
+				elementStart = startTag.start;
+			} else if (tag.empty)
+				elementStart = tag.start;
+			else {
+				open.push(tag.copy());
+				continue;
+			}
+			if (ELEMENTS.contains(tag.name) && elementStart < start && end < tag.end)
+				elements.add(new int[] { elementStart, tag.end });
+		}
+		return elements;
+	}
+
+	/**
+	 * @return the name of the element if the text is a single element that
+	 *         contains only tags that can be parsed alone, null otherwise
+	 */
+	private static String getSingleElement(String xml) {
+		Deque<String> open = new ArrayDeque<>();
+		Tag tag = new Tag();
+		String name = null;
+		int pos = 0;
+		while (next(xml, pos, xml.length(), tag)) {
+			if (name == null) {
+				if (tag.start != 0 || tag.closing || !ELEMENTS.contains(tag.name))
+					return null;
+				name = tag.name;
+			} else if (!tag.closing && !ELEMENTS.contains(tag.name) && !CONTENT.contains(tag.name))
+				return null;
+			pos = tag.end;
+			if (tag.closing) {
+				if (!tag.name.equals(open.poll()))
+					return null;
+			} else if (!tag.empty)
+				open.push(tag.name);
+			if (open.isEmpty())
+				return pos == xml.length() ? name : null;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the uuid of the first reportElement of the text
+	 */
+	private static String getUUID(String xml) {
+		Tag tag = new Tag();
+		int pos = 0;
+		while (next(xml, pos, xml.length(), tag)) {
+			if (!tag.closing && tag.name.equals("reportElement")) //$NON-NLS-1$
+				return getAttribute(xml.substring(tag.start, tag.end), "uuid"); //$NON-NLS-1$
+			pos = tag.end;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the declarations of the namespaces and of the schema location of
+	 *         the root of the JRXML, null if it does not declare the default
+	 *         namespace (like the JRXML using the DTD)
+	 */
+	private static String getNamespaces(String xml) {
+		Tag tag = new Tag();
+		if (!next(xml, 0, xml.length(), tag) || tag.closing || !tag.name.equals("jasperReport")) //$NON-NLS-1$
+			return null;
+		StringBuilder sb = new StringBuilder();
+		boolean defaultNamespace = false;
+		Matcher m = ATTRIBUTE.matcher(xml.substring(tag.start, tag.end));
+		while (m.find()) {
+			String attr = m.group(1);
+			if (attr.equals("xmlns")) //$NON-NLS-1$
+				defaultNamespace = true;
+			else if (!attr.startsWith("xmlns:") && !attr.equals("xsi:schemaLocation")) //$NON-NLS-1$ //$NON-NLS-2$
+				continue;
+			sb.append(m.group()).append(' ');
+		}
+		return defaultNamespace ? sb.toString() : null;
+	}
+
+	private static String getAttribute(String tag, String name) {
+		Matcher m = ATTRIBUTE.matcher(tag);
+		while (m.find())
+			if (m.group(1).equals(name)) {
+				String value = m.group(2);
+				return value.substring(1, value.length() - 1);
+			}
+		return null;
+	}
+
+	private static class Tag {
+		private String name;
+		private int start;
+		private int end;
+		private boolean closing;
+		private boolean empty;
+
+		private Tag copy() {
+			Tag t = new Tag();
+			t.name = name;
+			t.start = start;
+			t.end = end;
+			t.closing = closing;
+			t.empty = empty;
+			return t;
+		}
+	}
+
+	/**
+	 * Find the next start or end tag, skipping comments, CDATA sections,
+	 * processing instructions and declarations
+	 *
+	 * @return true if a tag was found, false at the end of the text or if it is
+	 *         not well formed
+	 */
+	private static boolean next(String xml, int pos, int end, Tag tag) {
+		while (true) {
+			int lt = xml.indexOf('<', pos);
+			if (lt < 0 || lt >= end)
+				return false;
+			String close = null;
+			if (xml.startsWith("<!--", lt)) //$NON-NLS-1$
+				close = "-->"; //$NON-NLS-1$
+			else if (xml.startsWith("<![CDATA[", lt)) //$NON-NLS-1$
+				close = "]]>"; //$NON-NLS-1$
+			else if (xml.startsWith("<?", lt)) //$NON-NLS-1$
+				close = "?>"; //$NON-NLS-1$
+			else if (xml.startsWith("<!", lt)) //$NON-NLS-1$
+				close = ">"; //$NON-NLS-1$
+			if (close != null) {
+				int c = xml.indexOf(close, lt + 2);
+				if (c < 0 || c + close.length() > end)
+					return false;
+				pos = c + close.length();
+				continue;
+			}
+			int i = lt + 1;
+			boolean closing = i < end && xml.charAt(i) == '/';
+			if (closing)
+				i++;
+			int nameStart = i;
+			while (i < end) {
+				char c = xml.charAt(i);
+				if (Character.isWhitespace(c) || c == '>' || c == '/')
+					break;
+				i++;
+			}
+			if (i == nameStart)
+				return false;
+			tag.name = xml.substring(nameStart, i);
+			char quote = 0;
+			while (i < end) {
+				char c = xml.charAt(i);
+				if (quote != 0) {
+					if (c == quote)
+						quote = 0;
+				} else if (c == '"' || c == '\'')
+					quote = c;
+				else if (c == '>')
+					break;
+				i++;
+			}
+			if (i >= end)
+				return false;
+			tag.start = lt;
+			tag.end = i + 1;
+			tag.closing = closing;
+			tag.empty = !closing && xml.charAt(i - 1) == '/';
+			return true;
+		}
+	}
+}
@@ -35,6 +35,12 @@ public class JSSDrawVisitor extends UniformElementVisitor {
 	
 	private boolean minPrintJobSize;
 
+	/**
+	 * Cache of the converted elements, when null every element is converted each
+	 * time it is painted
+	 */
+	private PrintElementCache printElementCache;
+
 	/**
 	 *
 	 */
@@ -64,6 +70,22 @@ public class JSSDrawVisitor extends UniformElementVisitor {
 		AwtTextRenderer textRenderer = new AwtTextRenderer(jasperReportsContext, minPrintJobSize, ignoreFont, true, false);
 		TextDrawer textDrawer = new TextDrawer(jasperReportsContext, textRenderer);
 		drawVisitor.setTextDrawer(textDrawer);
+		if (printElementCache != null)
+			printElementCache.invalidateAll();
+	}
+
+	/**
+	 * Set the cache used to reuse the converted elements between the paints
+	 *
+	 * @param printElementCache the cache, can be null to convert the elements at
+	 *          every paint
+	 */
+	public void setPrintElementCache(PrintElementCache printElementCache) {
+		this.printElementCache = printElementCache;
+	}
+
+	public PrintElementCache getPrintElementCache() {
+		return printElementCache;
 	}
 
 	public void setClip(boolean clip) {
@@ -107,8 +129,12 @@ public class JSSDrawVisitor extends UniformElementVisitor {
 	@Override
 	protected void visitElement(JRElement element) {
 		try {
-			JRPrintElement printElement = convertVisitor.getVisitPrintElement(element);
-		
+			JRPrintElement printElement;
+			if (printElementCache != null)
+				printElement = printElementCache.getPrintElement(element, reportConverter, convertVisitor);
+			else
+				printElement = convertVisitor.getVisitPrintElement(element);
+
 			printElement.accept(drawVisitor, elementOffset(element));
 		} catch (Throwable t) {
 			t.printStackTrace();
@@ -3,11 +3,35 @@
  *******************************************************************************/
 package com.jaspersoft.studio.jasper;
 
+import java.awt.geom.Dimension2D;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
@@ -41,6 +65,8 @@ import net.sf.jasperreports.engine.type.OnErrorTypeEnum;
 import net.sf.jasperreports.engine.type.ScaleImageEnum;
 import net.sf.jasperreports.engine.util.JRExpressionUtil;
 import net.sf.jasperreports.engine.util.JRImageLoader;
+import net.sf.jasperreports.renderers.DataRenderable;
+import net.sf.jasperreports.renderers.DimensionRenderable;
 import net.sf.jasperreports.renderers.Renderable;
 import net.sf.jasperreports.renderers.util.RendererUtil;
 import net.sf.jasperreports.repo.RepositoryContext;
@@ -108,6 +134,18 @@ public class LazyImageConverter extends ElementConverter {
 	 */
 	public static long imageRefreshTime = -1;
 
+	/**
+	 * Maximum memory, in bytes, that the images in the cache can take once
+	 * decoded. When this size is exceeded the least recently used images are
+	 * removed from the cache, they will be loaded again when needed
+	 */
+	public static long maxCacheWeight = Math.min(256L * 1024 * 1024, Runtime.getRuntime().maxMemory() / 8);
+
+	/**
+	 * Weight of an image when its decoded size can not be estimated
+	 */
+	private static final long DEFAULT_WEIGHT = 64 * 1024;
+
 	/**
 	 * 
 	 * Class to keep in the map an image and the time when it was saved, so it
@@ -139,6 +177,32 @@ public class LazyImageConverter extends ElementConverter {
 		 */
 		private Renderable image;
 
+		/**
+		 * Estimated size of the decoded item, in bytes
+		 */
+		private long weight;
+
+		/**
+		 * Flag set when the resource of the item is changed on the workspace
+		 */
+		private volatile boolean stale = false;
+
+		/**
+		 * Flag set when the item is removed from the cache because it is full
+		 */
+		private boolean evicted = false;
+
+		/**
+		 * The absolute paths of the workspace files from where the item was loaded
+		 */
+		private Set<String> locations = Collections.emptySet();
+
+		/**
+		 * The elements that are displaying the item, to repaint them when it is
+		 * changed. The elements are weakly referenced
+		 */
+		private Set<MGraphicElement> users = Collections.newSetFromMap(new WeakHashMap<MGraphicElement, Boolean>());
+
 		@SuppressWarnings("unused")
 		public TimedCache(Renderable image) {
 			this.image = image;
@@ -160,6 +224,33 @@ public class LazyImageConverter extends ElementConverter {
 		public void update(Renderable image) {
 			this.image = image;
 			newtime = System.currentTimeMillis();
+			stale = false;
+		}
+
+		/**
+		 * Mark the item as expired, the old item is still returned until it is
+		 * replaced
+		 */
+		public void invalidate() {
+			stale = true;
+		}
+
+		/**
+		 * Add an element to the ones that are displaying the item
+		 */
+		public void addUser(MGraphicElement element) {
+			synchronized (users) {
+				users.add(element);
+			}
+		}
+
+		/**
+		 * Return the elements that are displaying the item
+		 */
+		public List<MGraphicElement> getUsers() {
+			synchronized (users) {
+				return new ArrayList<MGraphicElement>(users);
+			}
 		}
 
 		/**
@@ -180,7 +271,7 @@ public class LazyImageConverter extends ElementConverter {
 		 */
 		public boolean isExpired() {
 			long actualTime = System.currentTimeMillis();
-			return (image == null || (((actualTime - newtime) > timeout) && timeout != -1));
+			return (image == null || stale || (((actualTime - newtime) > timeout) && timeout != -1));
 		}
 
 	}
@@ -188,9 +279,23 @@ public class LazyImageConverter extends ElementConverter {
 	/**
 	 * Cache where the actually loaded images are saved. The Key is composed by
 	 * context + location and the value is a timed cache that will contains the
-	 * real image and the methods to know if it is expired
+	 * real image and the methods to know if it is expired. The map is in access
+	 * order, so the first entries are the least recently used, and it is bound
+	 * by {@link #maxCacheWeight}. Every access must be synchronized on the map
+	 */
+	private LinkedHashMap<KeyValue<JasperReportsContext, String>, TimedCache> imgCache = new LinkedHashMap<KeyValue<JasperReportsContext, String>, TimedCache>(
+			16, 0.75f, true);
+
+	/**
+	 * The sum of the weights of the images in the cache
+	 */
+	private long cacheWeight = 0;
+
+	/**
+	 * For every absolute path of a workspace file the keys of the images loaded
+	 * from it. Guarded by the lock of {@link #imgCache}
 	 */
-	private HashMap<KeyValue<JasperReportsContext, String>, TimedCache> imgCache = new HashMap<KeyValue<JasperReportsContext, String>, TimedCache>();
+	private HashMap<String, Set<KeyValue<JasperReportsContext, String>>> fileIndex = new HashMap<String, Set<KeyValue<JasperReportsContext, String>>>();
 
 	/**
 	 * Pending request for a specific resource, the key is the pair of
@@ -200,13 +305,45 @@ public class LazyImageConverter extends ElementConverter {
 	 * structure allow to queue multiple request from many elements for the same
 	 * resource, and refresh them all when the resource is available
 	 */
-	private HashMap<KeyValue<JasperReportsContext, String>, HashSet<MGraphicElement>> pendingRequests = new HashMap<KeyValue<JasperReportsContext, String>, HashSet<MGraphicElement>>();
+	private Map<KeyValue<JasperReportsContext, String>, HashSet<MGraphicElement>> pendingRequests = new ConcurrentHashMap<KeyValue<JasperReportsContext, String>, HashSet<MGraphicElement>>();
 
 	/**
 	 * Keep track of the not valuable expression to avoid to evaluate them, more
 	 * then one time, since the evaluation is an heavy operation
 	 */
-	private HashSet<KeyValue<JasperReportsContext, String>> notEvaluableExpressions = new HashSet<KeyValue<JasperReportsContext, String>>();
+	private Set<KeyValue<JasperReportsContext, String>> notEvaluableExpressions = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Invalidate the images loaded from the workspace files that are changed or
+	 * removed
+	 */
+	private IResourceChangeListener resourceListener = new IResourceChangeListener() {
+
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			IResourceDelta delta = event.getDelta();
+			if (delta == null)
+				return;
+			final Set<String> changedFiles = new HashSet<String>();
+			try {
+				delta.accept(d -> {
+					IResource resource = d.getResource();
+					if (resource.getType() != IResource.FILE)
+						return true;
+					boolean changed = d.getKind() == IResourceDelta.REMOVED || (d.getKind() == IResourceDelta.CHANGED
+							&& (d.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0);
+					IPath location = resource.getLocation();
+					if (changed && location != null)
+						changedFiles.add(location.toOSString());
+					return true;
+				});
+			} catch (CoreException e) {
+				JaspersoftStudioPlugin.getInstance().logError(e);
+			}
+			if (!changedFiles.isEmpty())
+				invalidateFiles(changedFiles);
+		}
+	};
 
 	/**
 	 * The class can not be build from the outside, so only this instance can be
@@ -219,6 +356,11 @@ public class LazyImageConverter extends ElementConverter {
 	 * getInstance() static method
 	 */
 	protected LazyImageConverter() {
+		try {
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(resourceListener, IResourceChangeEvent.POST_CHANGE);
+		} catch (IllegalStateException e) {
+			// workspace closed, no need to track the changes
+		}
 	}
 
 	/**
@@ -295,6 +437,7 @@ public class LazyImageConverter extends ElementConverter {
 				if (!key.value.isEmpty()) {
 					// expression resolved and valid
 					TimedCache imageInfo = getImageInfo(key);
+					imageInfo.addUser(modelElement);
 
 					// If the image is expired (it is also expired when is
 					// empty, the refresh thread is started)
@@ -321,14 +464,225 @@ public class LazyImageConverter extends ElementConverter {
 	 * @return the {@link TimedCache} of that resource
 	 */
 	protected TimedCache getImageInfo(KeyValue<JasperReportsContext, String> key) {
-		TimedCache imageInfo = imgCache.get(key);
+		synchronized (imgCache) {
+			TimedCache imageInfo = imgCache.get(key);
 
-		// Check if the image was cached
-		if (imageInfo == null) {
-			imageInfo = new TimedCache();
-			imgCache.put(key, imageInfo);
+			// Check if the image was cached
+			if (imageInfo == null) {
+				imageInfo = new TimedCache();
+				imgCache.put(key, imageInfo);
+			}
+			return imageInfo;
+		}
+	}
+
+	/**
+	 * Store a loaded image in its cache container, update the weight of the
+	 * cache and remove the least recently used images if the cache is too big.
+	 * Called outside the UI thread, since the estimation of the size could need
+	 * to read the image header
+	 * 
+	 * @param info
+	 *            the container of the image
+	 * @param image
+	 *            the loaded image
+	 * @param jrContext
+	 *            the context of the report where the image is used
+	 * @param key
+	 *            the key of the image in the cache map
+	 */
+	protected void imageLoaded(TimedCache info, Renderable image, JasperReportsContext jrContext,
+			KeyValue<JasperReportsContext, String> key) {
+		long weight = getWeight(jrContext, image);
+		Set<String> locations = getResourceLocations(jrContext, key.value);
+		synchronized (imgCache) {
+			info.update(image);
+			if (imgCache.get(key) != info) {
+				// an entry evicted while it was loading is put back, since it was
+				// just requested, otherwise it was removed and must be dropped
+				if (!info.evicted || imgCache.containsKey(key))
+					return;
+				imgCache.put(key, info);
+			}
+			info.evicted = false;
+			cacheWeight += weight - info.weight;
+			info.weight = weight;
+			unindex(key, info);
+			info.locations = locations;
+			for (String l : locations)
+				fileIndex.computeIfAbsent(l, k -> new HashSet<KeyValue<JasperReportsContext, String>>()).add(key);
+			Iterator<Map.Entry<KeyValue<JasperReportsContext, String>, TimedCache>> it = imgCache.entrySet()
+					.iterator();
+			while (cacheWeight > maxCacheWeight && it.hasNext()) {
+				Map.Entry<KeyValue<JasperReportsContext, String>, TimedCache> entry = it.next();
+				if (entry.getValue() == info)
+					continue;
+				it.remove();
+				entry.getValue().evicted = true;
+				removed(entry.getKey(), entry.getValue());
+			}
 		}
-		return imageInfo;
+	}
+
+	/**
+	 * Update the weight and the file index when an entry is removed from the
+	 * cache. Must be called holding the lock of the cache
+	 */
+	private void removed(KeyValue<JasperReportsContext, String> key, TimedCache info) {
+		cacheWeight -= info.weight;
+		info.weight = 0;
+		unindex(key, info);
+	}
+
+	/**
+	 * Remove a key from the file index. Must be called holding the lock of the
+	 * cache
+	 */
+	private void unindex(KeyValue<JasperReportsContext, String> key, TimedCache info) {
+		for (String l : info.locations) {
+			Set<KeyValue<JasperReportsContext, String>> keys = fileIndex.get(l);
+			if (keys != null) {
+				keys.remove(key);
+				if (keys.isEmpty())
+					fileIndex.remove(l);
+			}
+		}
+		info.locations = Collections.emptySet();
+	}
+
+	/**
+	 * Remove an image from the cache
+	 */
+	private void removeCacheEntry(KeyValue<JasperReportsContext, String> key) {
+		synchronized (imgCache) {
+			TimedCache info = imgCache.remove(key);
+			if (info != null)
+				removed(key, info);
+		}
+	}
+
+	/**
+	 * Invalidate the images loaded from the passed files and repaint the elements
+	 * displaying them. The old images are shown until the new ones are loaded
+	 * 
+	 * @param paths
+	 *            absolute paths of the changed files
+	 */
+	protected void invalidateFiles(Set<String> paths) {
+		final Set<MGraphicElement> toRefresh = new HashSet<MGraphicElement>();
+		synchronized (imgCache) {
+			for (String path : paths) {
+				Set<KeyValue<JasperReportsContext, String>> keys = fileIndex.get(path);
+				if (keys == null)
+					continue;
+				for (KeyValue<JasperReportsContext, String> key : new ArrayList<KeyValue<JasperReportsContext, String>>(
+						keys)) {
+					TimedCache info = imgCache.get(key);
+					if (info != null) {
+						info.invalidate();
+						toRefresh.addAll(info.getUsers());
+					}
+				}
+			}
+		}
+		for (MGraphicElement element : toRefresh)
+			refreshElement(element);
+	}
+
+	/**
+	 * Estimate the memory taken by an image once it is decoded. For raster
+	 * images only the header is read to get the size
+	 * 
+	 * @param jrContext
+	 *            the context of the report where the image is used
+	 * @param image
+	 *            the image, can be null
+	 * @return the estimated size in bytes
+	 */
+	protected long getWeight(JasperReportsContext jrContext, Renderable image) {
+		if (image == null)
+			return 0;
+		try {
+			byte[] data = null;
+			if (image instanceof DataRenderable) {
+				data = ((DataRenderable) image).getData(jrContext);
+				if (data != null) {
+					try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+						Iterator<ImageReader> readers = iis != null ? ImageIO.getImageReaders(iis)
+								: Collections.emptyIterator();
+						if (readers.hasNext()) {
+							ImageReader reader = readers.next();
+							try {
+								reader.setInput(iis, true, true);
+								return Math.max(data.length, 4L * reader.getWidth(0) * reader.getHeight(0));
+							} finally {
+								reader.dispose();
+							}
+						}
+					} catch (IOException e) {
+						// not a raster image
+					}
+				}
+			}
+			if (image instanceof DimensionRenderable) {
+				Dimension2D dim = ((DimensionRenderable) image).getDimension(jrContext);
+				if (dim != null)
+					return Math.max(data != null ? data.length : 0,
+							4L * (long) dim.getWidth() * (long) dim.getHeight());
+			}
+			if (data != null)
+				return data.length;
+		} catch (Exception e) {
+			// use the default weight
+		}
+		return DEFAULT_WEIGHT;
+	}
+
+	/**
+	 * Return the absolute paths of the files from where an image location could
+	 * be loaded, to invalidate the cached image when one of them changes
+	 * 
+	 * @param jrContext
+	 *            the context of the report where the image is used
+	 * @param location
+	 *            the location of the image
+	 * @return a not null set of absolute paths
+	 */
+	protected Set<String> getResourceLocations(JasperReportsContext jrContext, String location) {
+		Set<String> result = new HashSet<String>();
+		if (location == null || location.isEmpty())
+			return result;
+		String path = location;
+		if (path.startsWith("repo:")) //$NON-NLS-1$
+			path = path.substring("repo:".length()); //$NON-NLS-1$
+		try {
+			if (path.startsWith("file:")) //$NON-NLS-1$
+				path = new File(new URI(path)).getAbsolutePath();
+		} catch (Exception e) {
+			return result;
+		}
+		File f = new File(path);
+		if (f.isAbsolute()) {
+			if (f.isFile())
+				result.add(f.getAbsolutePath());
+		} else if (jrContext instanceof JasperReportsConfiguration) {
+			IFile file = (IFile) ((JasperReportsConfiguration) jrContext).get(FileUtils.KEY_FILE);
+			if (file != null) {
+				IPath parent = file.getParent().getLocation();
+				if (parent != null) {
+					File rf = new File(parent.toFile(), path);
+					if (rf.isFile())
+						result.add(rf.getAbsolutePath());
+				}
+				IPath project = file.getProject().getLocation();
+				if (project != null) {
+					File pf = new File(project.toFile(), path);
+					if (pf.isFile())
+						result.add(pf.getAbsolutePath());
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -439,11 +793,8 @@ public class LazyImageConverter extends ElementConverter {
 	 */
 	private void refreshImageInfo(TimedCache info, MGraphicElement modelElement, String location,
 			JasperReportsContext jrContext, KeyValue<JasperReportsContext, String> key) {
-		HashSet<MGraphicElement> resourceRequest = pendingRequests.get(key);
-		if (resourceRequest == null) {
-			resourceRequest = new HashSet<MGraphicElement>();
-			pendingRequests.put(key, resourceRequest);
-		}
+		HashSet<MGraphicElement> resourceRequest = pendingRequests.computeIfAbsent(key,
+				k -> new HashSet<MGraphicElement>());
 		synchronized (resourceRequest) {
 			if (resourceRequest.isEmpty()) {
 				// there are not request for this resource, create one
@@ -482,7 +833,7 @@ public class LazyImageConverter extends ElementConverter {
 						SimpleRepositoryResourceContext context = SimpleRepositoryResourceContext.of(reportPath);
 						RepositoryContext repoContext = SimpleRepositoryContext.of(jrContext, context);
 						Renderable r = RendererUtil.getInstance(repoContext).getNonLazyRenderable(location, OnErrorTypeEnum.ERROR);
-						info.update(r);
+						imageLoaded(info, r, jrContext, key);
 						refreshElements(key);
 					}
 				} catch (Throwable e) {
@@ -511,22 +862,31 @@ public class LazyImageConverter extends ElementConverter {
 		synchronized (resourceRequest) {
 			if (resourceRequest != null) {
 				for (final MGraphicElement refreshElement : resourceRequest) {
-					// The editor refresh must be executed inside the graphic
-					// threads
-					Display.getDefault().asyncExec(new Runnable() {
-						@Override
-						public void run() {
-							refreshElement.setChangedProperty(true);
-							refreshElement.getValue().getEventSupport()
-									.firePropertyChange(MGraphicElement.FORCE_GRAPHICAL_REFRESH, null, null);
-						}
-					});
+					refreshElement(refreshElement);
 				}
 				resourceRequest.clear();
 			}
 		}
 	}
 
+	/**
+	 * Trigger the repaint of an element. The editor refresh is executed inside
+	 * the graphic thread
+	 * 
+	 * @param refreshElement
+	 *            the element to repaint
+	 */
+	private void refreshElement(final MGraphicElement refreshElement) {
+		Display.getDefault().asyncExec(new Runnable() {
+			@Override
+			public void run() {
+				refreshElement.setChangedProperty(true);
+				refreshElement.getValue().getEventSupport()
+						.firePropertyChange(MGraphicElement.FORCE_GRAPHICAL_REFRESH, null, null);
+			}
+		});
+	}
+
 	/**
 	 * Return the standard printable element when the image is not found
 	 * 
@@ -552,20 +912,22 @@ public class LazyImageConverter extends ElementConverter {
 	 *            not null
 	 */
 	public void removeCachedImages(JasperReportsConfiguration jConfig) {
-		for (KeyValue<JasperReportsContext, String> key : new ArrayList<KeyValue<JasperReportsContext, String>>(
-				imgCache.keySet())) {
-			if (key.key == jConfig) {
-				imgCache.remove(key);
+		synchronized (imgCache) {
+			Iterator<Map.Entry<KeyValue<JasperReportsContext, String>, TimedCache>> it = imgCache.entrySet()
+					.iterator();
+			while (it.hasNext()) {
+				Map.Entry<KeyValue<JasperReportsContext, String>, TimedCache> entry = it.next();
+				if (entry.getKey().key == jConfig) {
+					it.remove();
+					removed(entry.getKey(), entry.getValue());
+				}
 			}
 		}
 
-		// clear the not evaluable expressions for the current configuration
-		for (KeyValue<JasperReportsContext, String> key : new ArrayList<KeyValue<JasperReportsContext, String>>(
-				notEvaluableExpressions)) {
-			if (key.key == jConfig) {
-				notEvaluableExpressions.remove(key);
-			}
-		}
+		// clear the not evaluable expressions and the pending requests for the
+		// current configuration
+		notEvaluableExpressions.removeIf(key -> key.key == jConfig);
+		pendingRequests.keySet().removeIf(key -> key.key == jConfig);
 	}
 
 	/**
@@ -587,7 +949,7 @@ public class LazyImageConverter extends ElementConverter {
 		notEvaluableExpressions.remove(exprKey);
 
 		KeyValue<JasperReportsContext, String> key = getKey(jConfig, imageModel, expr);
-		imgCache.remove(key);
+		removeCacheEntry(key);
 	}
 
 	/**
@@ -617,7 +979,7 @@ public class LazyImageConverter extends ElementConverter {
 				SimpleRepositoryResourceContext context = SimpleRepositoryResourceContext.of(reportPath);
 				RepositoryContext repoContext = SimpleRepositoryContext.of(jrContext, context);
 				Renderable r = RendererUtil.getInstance(repoContext).getNonLazyRenderable(location, OnErrorTypeEnum.ERROR);
-				imageInfo.update(r);
+				imageLoaded(imageInfo, r, jrContext, key);
 			} catch (JRException e) {
 				try {
 					JaspersoftStudioPlugin.getInstance().logError(e);
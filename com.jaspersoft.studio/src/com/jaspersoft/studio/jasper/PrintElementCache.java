@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.jasper;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
+
+import net.sf.jasperreports.engine.JRElement;
+import net.sf.jasperreports.engine.JREllipse;
+import net.sf.jasperreports.engine.JRLine;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRRectangle;
+import net.sf.jasperreports.engine.JRTextElement;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.convert.ReportConverter;
+
+/**
+ * Cache of the print elements converted from the design elements by the
+ * {@link JSSDrawVisitor}, there is one for every editor and it is stored in its
+ * configuration. The conversion of an element (style resolution, text
+ * measuring) is done only the first time the element is painted, the following
+ * paints (scroll, zoom, selection) reuse the converted element.
+ * <p>
+ * Only the elements converted from their design alone are cached, see
+ * {@link #isCacheable(JRElement)}: the images and the charts are loaded in
+ * background by their converters, that check at every conversion if the
+ * loaded image expired, so they must be converted at every paint.
+ * </p>
+ * <p>
+ * An element is removed from the cache when the model notifies that one of its
+ * graphical properties changed, or when the element is refreshed by a style.
+ * The whole cache is discarded when a style or the fonts change.
+ * </p>
+ */
+public class PrintElementCache {
+
+	/**
+	 * Maximum number of cached elements, when it is reached the cache is emptied to
+	 * release also the elements removed from the report
+	 */
+	private static final int MAX_ENTRIES = 10000;
+
+	private static class Entry {
+
+		/**
+		 * The converter used for the conversion, an element converted with another
+		 * report is not valid
+		 */
+		private ReportConverter converter;
+
+		private JRPrintElement printElement;
+
+		private Entry(ReportConverter converter, JRPrintElement printElement) {
+			this.converter = converter;
+			this.printElement = printElement;
+		}
+	}
+
+	/**
+	 * The converted elements, by identity of the design element
+	 */
+	private Map<JRElement, Entry> entries = new IdentityHashMap<>();
+
+	/**
+	 * Return the cache of the editor, creating it if it doesn't exist
+	 *
+	 * @param jrContext the context of the editor, must be not null
+	 * @return a not null cache
+	 */
+	public static synchronized PrintElementCache getInstance(JasperReportsContext jrContext) {
+		PrintElementCache cache = getCache(jrContext);
+		if (cache == null) {
+			cache = new PrintElementCache();
+			jrContext.setValue(JasperReportsConfiguration.KEY_PRINT_ELEMENT_CACHE, cache);
+		}
+		return cache;
+	}
+
+	/**
+	 * Return the cache of the editor, if it was already created
+	 *
+	 * @param jrContext the context of the editor, can be null
+	 * @return the cache or null if the editor doesn't have a cache
+	 */
+	public static PrintElementCache getCache(JasperReportsContext jrContext) {
+		if (jrContext == null)
+			return null;
+		Object cache = jrContext.getValue(JasperReportsConfiguration.KEY_PRINT_ELEMENT_CACHE);
+		return cache instanceof PrintElementCache ? (PrintElementCache) cache : null;
+	}
+
+	/**
+	 * Return true if the conversion of the element depends only on its design and
+	 * its style. The images and the charts are not, their converters use timed
+	 * caches refreshed during the conversion, and the frames and the components
+	 * can contain them
+	 */
+	public static boolean isCacheable(JRElement element) {
+		return element instanceof JRTextElement || element instanceof JRRectangle || element instanceof JREllipse
+				|| element instanceof JRLine;
+	}
+
+	/**
+	 * Return the converted element, converting it if it is not in the cache or
+	 * it can not be cached
+	 *
+	 * @param element the design element
+	 * @param converter the converter of the report
+	 * @param convertVisitor the visitor used for the conversion
+	 * @return the print element
+	 */
+	public synchronized JRPrintElement getPrintElement(JRElement element, ReportConverter converter,
+			JSSConvertVisitor convertVisitor) {
+		if (!isCacheable(element))
+			return convertVisitor.getVisitPrintElement(element);
+		Entry entry = entries.get(element);
+		if (entry != null && entry.converter == converter)
+			return entry.printElement;
+		JRPrintElement printElement = convertVisitor.getVisitPrintElement(element);
+		if (printElement != null) {
+			if (entries.size() >= MAX_ENTRIES)
+				entries.clear();
+			entries.put(element, new Entry(converter, printElement));
+		}
+		return printElement;
+	}
+
+	/**
+	 * Remove an element from the cache, it will be converted again the next time
+	 * it is painted
+	 */
+	public synchronized void invalidate(JRElement element) {
+		entries.remove(element);
+	}
+
+	/**
+	 * Remove all the elements from the cache
+	 */
+	public synchronized void invalidateAll() {
+		entries.clear();
+	}
+}
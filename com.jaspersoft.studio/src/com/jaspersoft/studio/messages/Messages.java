@@ -2048,6 +2048,9 @@ public class Messages extends NLS {
 	public static String ReportExecutionPreferencePage_minGrowLabel;
 	public static String ReportExecutionPreferencePage_pageElementSizeLabel;
 	public static String ReportExecutionPreferencePage_singleSwapFileVirtualizer;
+	public static String ReportExecutionPreferencePage_adaptiveVirtualizer;
+	public static String ReportExecutionPreferencePage_offHeapSizeLabel;
+	public static String ReportExecutionPreferencePage_offHeapSizeTooltip;
 	public static String ReportExecutionPreferencePage_tempPathLabel;
 	public static String ReportExecutionPreferencePage_timeZoneLabel;
 	public static String ReportExecutionPreferencePage_typeLabel;
@@ -2749,6 +2752,50 @@ public class Messages extends NLS {
 	public static String createdestinationdirectory;
 	public static String movetodestingationdirectory;
 	public static String Gettingfields;
+	public static String DataSnapshotManager_invalidSnapshot;
+	public static String ReportExecutionPreferencePage_columnarSnapshotLabel;
+	public static String ReportExecutionPreferencePage_columnarSnapshotTooltip;
+	public static String PreviewTopToolBarManager_convertSnapshot;
+	public static String PreviewTopToolBarManager_convertSnapshotTooltip;
+	public static String PreviewTopToolBarManager_convertSnapshotDest;
+	public static String PreviewTopToolBarManager_convertingSnapshot;
+	public static String VErrorPreview_viewerLagLabel;
+	public static String VErrorPreview_propertyLookupsLabel;
+	public static String VErrorPreview_propertyLookupsValue;
+	public static String VErrorPreview_virtualizerPagingLabel;
+	public static String VErrorPreview_virtualizerPagingValue;
+	public static String ReportExecutionPreferencePage_profileFillLabel;
+	public static String ReportExecutionPreferencePage_profileFillTooltip;
+	public static String FillProfiler_categoryFill;
+	public static String FillProfiler_categoryBand;
+	public static String FillProfiler_categoryDataset;
+	public static String FillProfiler_categoryExpression;
+	public static String FillProfiler_categoryExport;
+	public static String FillProfiler_fill;
+	public static String FillProfiler_queryExecution;
+	public static String FillProfiler_firstRow;
+	public static String FillProfiler_export;
+	public static String ProfilingScriptlet_reportInit;
+	public static String ProfilingScriptlet_pageInit;
+	public static String ProfilingScriptlet_pageBands;
+	public static String ProfilingScriptlet_columnBands;
+	public static String ProfilingScriptlet_groupBands;
+	public static String ProfilingScriptlet_detailEval;
+	public static String ProfilingScriptlet_detailBands;
+	public static String VErrorPreview_profileLabel;
+	public static String VErrorPreview_profileDisabled;
+	public static String VErrorPreview_profileCategory;
+	public static String VErrorPreview_profileName;
+	public static String VErrorPreview_profileCount;
+	public static String VErrorPreview_profileTime;
+	public static String VErrorPreview_profilePercent;
+	public static String VErrorPreview_profileExport;
+	public static String BatchExportAction_title;
+	public static String BatchExportAction_tooltip;
+	public static String BatchExportAction_selectFormats;
+	public static String BatchExportAction_selectFolder;
+	public static String BatchExportAction_exported;
+	public static String BatchExportAction_failed;
 	private Messages() {
 	}
 
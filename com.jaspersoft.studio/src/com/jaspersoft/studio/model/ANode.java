@@ -368,8 +368,18 @@ public abstract class ANode implements INode, Serializable, IAdaptable, Cloneabl
 	 */
 	public void propertyChange(PropertyChangeEvent evt) {
 		// Redo the validation when something changes, for this element and the
-		// children
-		revalidateChildren();
+		// children. When the event comes from a descendant its subtree was already
+		// marked, so only this node is marked and the siblings are left untouched
+		ModelChangeBatch batch = ModelChangeBatch.getCurrent();
+		if (isAncestorOf(evt.getPropagationId()))
+			redoValidation = true;
+		else {
+			evt.setPropagationId(this);
+			if (batch != null)
+				batch.revalidateLater(this);
+			else
+				revalidateChildren();
+		}
 		if (evt.getPropertyName().equals(JRDesignElementGroup.PROPERTY_CHILDREN) && evt.getSource() == getValue()) {
 			if (evt.getOldValue() == null && evt.getNewValue() != null) {
 				int newIndex = -1;
@@ -413,7 +423,26 @@ public abstract class ANode implements INode, Serializable, IAdaptable, Cloneabl
 		// evt.getOldValue(),
 		// evt.getNewValue());
 		// }
-		firePropertyChange(evt);
+		if (batch == null)
+			firePropertyChange(evt);
+		else if (evt.getPropertyName().equals(JRDesignElementGroup.PROPERTY_CHILDREN)) {
+			// the structural changes are not delayed, but the pending events go first
+			batch.fireEvents();
+			firePropertyChange(evt);
+		} else
+			batch.fireLater(this, evt);
+	}
+
+	/**
+	 * @return true if the object is a node contained in the subtree of this node
+	 */
+	private boolean isAncestorOf(Object obj) {
+		if (!(obj instanceof ANode))
+			return false;
+		for (ANode n = ((ANode) obj).getParent(); n != null; n = n.getParent())
+			if (n == this)
+				return true;
+		return false;
 	}
 
 	protected void firePropertyChange(PropertyChangeEvent evt) {
@@ -19,6 +19,7 @@ import org.eclipse.ui.views.properties.IPropertyDescriptor;
 import com.jaspersoft.studio.editor.defaults.DefaultManager;
 import com.jaspersoft.studio.editor.gef.rulers.ReportRulerGuide;
 import com.jaspersoft.studio.help.HelpReferenceBuilder;
+import com.jaspersoft.studio.jasper.PrintElementCache;
 import com.jaspersoft.studio.messages.Messages;
 import com.jaspersoft.studio.model.band.MBand;
 import com.jaspersoft.studio.model.frame.MFrame;
@@ -941,6 +942,7 @@ public class MGraphicElement extends APropertyNode implements IGraphicElement, I
 			visualPropertyChanged = value;
 		}
 		if (value) {
+			invalidatePrintElement();
 			RefreshPropertyEvent refreshEvent = null;
 			if (event == null || !RefreshPropertyEvent.class.equals(event.getClass())) {
 				refreshEvent = new RefreshPropertyEvent(event.getSource());
@@ -993,10 +995,31 @@ public class MGraphicElement extends APropertyNode implements IGraphicElement, I
 			if (graphicalProperties.contains(evt.getPropertyName())) {
 				setChangedProperty(true, evt);
 			}
+		} else if (getGraphicalProperties().contains(evt.getPropertyName())) {
+			// the figure could be still marked to be refreshed, but the converted element
+			// must be discarded anyway
+			invalidatePrintElement();
 		}
 		super.propertyChange(evt);
 	}
 
+	/**
+	 * Remove the element and the elements containing it from the cache of the
+	 * converted elements, so they are converted again the next time they are
+	 * painted
+	 */
+	protected void invalidatePrintElement() {
+		PrintElementCache cache = PrintElementCache.getCache(getJasperConfiguration());
+		if (cache == null)
+			return;
+		ANode node = this;
+		while (node != null) {
+			if (node.getValue() instanceof JRElement)
+				cache.invalidate((JRElement) node.getValue());
+			node = node.getParent();
+		}
+	}
+
 	/**
 	 * Return the styles used by this element and eventually by its children.
 	 * 
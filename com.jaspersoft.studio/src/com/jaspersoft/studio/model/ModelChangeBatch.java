@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.model;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Batch of changes to the model, opened by a command that changes many
+ * elements at once (for example moving or resizing a selection).
+ *
+ * While a batch is open on the current thread the nodes don't notify their
+ * listeners for every change: the events are coalesced by node, source and
+ * property, keeping the first old value and the last new value, and are fired
+ * when the batch is closed. The revalidation of a node and of its children is
+ * done once for the whole batch, instead of once for every change. The events
+ * that change the structure of the model are never delayed, the pending events
+ * are fired before them to keep the order.
+ *
+ * The batches can be nested, the changes are propagated when the outermost
+ * batch is closed. Since an unclosed batch would block the notifications, the
+ * calls must be done in a try/finally block:
+ *
+ * <pre>
+ * ModelChangeBatch.begin();
+ * try {
+ * 	...
+ * } finally {
+ * 	ModelChangeBatch.end();
+ * }
+ * </pre>
+ */
+public class ModelChangeBatch {
+
+	private static final ThreadLocal<ModelChangeBatch> current = new ThreadLocal<>();
+
+	private static final class EventKey {
+		private final ANode node;
+		private final Object source;
+		private final String property;
+
+		private EventKey(ANode node, PropertyChangeEvent evt) {
+			this.node = node;
+			this.source = evt.getSource();
+			this.property = evt.getPropertyName();
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * System.identityHashCode(node) + System.identityHashCode(source)) + property.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof EventKey))
+				return false;
+			EventKey k = (EventKey) obj;
+			return k.node == node && k.source == source && k.property.equals(property);
+		}
+	}
+
+	private int depth;
+	private boolean firing;
+	private Set<ANode> toRevalidate = Collections.newSetFromMap(new IdentityHashMap<>());
+	private Map<EventKey, PropertyChangeEvent> events = new LinkedHashMap<>();
+
+	/**
+	 * Open a batch of changes on the current thread
+	 */
+	public static void begin() {
+		ModelChangeBatch batch = current.get();
+		if (batch == null) {
+			batch = new ModelChangeBatch();
+			current.set(batch);
+		}
+		batch.depth++;
+	}
+
+	/**
+	 * Close the batch opened with {@link #begin()}, if it is the outermost one
+	 * the nodes are revalidated and the coalesced events are fired
+	 */
+	public static void end() {
+		ModelChangeBatch batch = current.get();
+		if (batch == null)
+			return;
+		batch.depth--;
+		if (batch.depth > 0)
+			return;
+		current.remove();
+		batch.revalidate();
+		batch.fireEvents();
+	}
+
+	/**
+	 * @return the batch open on the current thread, null if there is none or if
+	 *         it is firing its events
+	 */
+	static ModelChangeBatch getCurrent() {
+		ModelChangeBatch batch = current.get();
+		return batch != null && !batch.firing ? batch : null;
+	}
+
+	/**
+	 * Schedule the revalidation of a node and of its children
+	 */
+	void revalidateLater(ANode node) {
+		toRevalidate.add(node);
+	}
+
+	/**
+	 * Delay an event of a node, if there is already an event for the same node,
+	 * source and property the two are merged
+	 */
+	void fireLater(ANode node, PropertyChangeEvent evt) {
+		EventKey key = new EventKey(node, evt);
+		PropertyChangeEvent old = events.get(key);
+		if (old != null) {
+			PropertyChangeEvent merged = new PropertyChangeEvent(evt.getSource(), evt.getPropertyName(),
+					old.getOldValue(), evt.getNewValue());
+			merged.setPropagationId(evt.getPropagationId());
+			evt = merged;
+		}
+		events.put(key, evt);
+	}
+
+	private void revalidate() {
+		List<ANode> nodes = new ArrayList<>(toRevalidate);
+		toRevalidate.clear();
+		for (ANode n : nodes)
+			n.revalidateChildren();
+	}
+
+	/**
+	 * Fire the events delayed so far, in the order of the first change
+	 */
+	void fireEvents() {
+		if (events.isEmpty())
+			return;
+		firing = true;
+		try {
+			while (!events.isEmpty()) {
+				List<Map.Entry<EventKey, PropertyChangeEvent>> toFire = new ArrayList<>(events.entrySet());
+				events.clear();
+				for (Map.Entry<EventKey, PropertyChangeEvent> e : toFire)
+					e.getKey().node.firePropertyChange(e.getValue());
+			}
+		} finally {
+			firing = false;
+		}
+	}
+}
@@ -198,14 +198,6 @@ public class MConditionalStyle extends MStyle implements IPropertySource {
 		}
 	}
 
-	/**
-	 * The attribute of the conditional styles are never shown at design time
-	 */
-	@Override
-	protected boolean isDependencyStyle(){
-		return false;
-	}
-	
 	/**
 	 * Creates the jr style.
 	 * 
@@ -5,6 +5,8 @@ package com.jaspersoft.studio.model.style;
 
 import java.awt.Color;
 import java.beans.PropertyChangeEvent;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +20,7 @@ import com.jaspersoft.studio.ExternalStylesManager;
 import com.jaspersoft.studio.JSSCompoundCommand;
 import com.jaspersoft.studio.JaspersoftStudioPlugin;
 import com.jaspersoft.studio.help.HelpReferenceBuilder;
+import com.jaspersoft.studio.jasper.PrintElementCache;
 import com.jaspersoft.studio.messages.Messages;
 import com.jaspersoft.studio.model.ANode;
 import com.jaspersoft.studio.model.APropertyNode;
@@ -30,6 +33,7 @@ import com.jaspersoft.studio.model.INode;
 import com.jaspersoft.studio.model.IPastable;
 import com.jaspersoft.studio.model.MLineBox;
 import com.jaspersoft.studio.model.MLinePen;
+import com.jaspersoft.studio.model.MLockableRefresh;
 import com.jaspersoft.studio.model.MRoot;
 import com.jaspersoft.studio.model.text.MFont;
 import com.jaspersoft.studio.model.text.MParagraph;
@@ -64,6 +68,7 @@ import com.jaspersoft.studio.utils.AlfaRGB;
 import com.jaspersoft.studio.utils.Colors;
 import com.jaspersoft.studio.utils.ModelUtils;
 
+import net.sf.jasperreports.eclipse.ui.util.UIUtils;
 import net.sf.jasperreports.eclipse.util.Misc;
 import net.sf.jasperreports.engine.JRConstants;
 import net.sf.jasperreports.engine.JRStyle;
@@ -92,6 +97,17 @@ public class MStyle extends APropertyNode
 
 	public static final long serialVersionUID = JRConstants.SERIAL_VERSION_UID;
 
+	/**
+	 * Flag to know if a refresh of the elements using this style is waiting to be
+	 * executed
+	 */
+	private transient boolean refreshPending = false;
+
+	/**
+	 * Flag to know if the pending refresh must refresh all the elements
+	 */
+	private transient boolean refreshForced = false;
+
 	/** The icon descriptor. */
 	private static IIconDescriptor iconDescriptor;
 
@@ -867,94 +883,26 @@ public class MStyle extends APropertyNode
 	}
 
 	/**
-	 * Search all the nodes that are using this styles and set the flag to tell the
-	 * graphic manager to repaint them At the first iteration the node must be the
-	 * root
+	 * Set the flag to tell the graphic manager to repaint the node and all its
+	 * children. At the first iteration the node must be the root
 	 * 
-	 * @param childerns
-	 *            the children of the actual level
-	 * @param force
-	 *            force the refresh in all the nodes, ignoring if they are using or
-	 *            not the style
-	 */
-	private void setStyleRefresh(INode node, boolean force) {
-		if (force || getValue().isDefault()) {
-			if (node instanceof IGraphicalPropertiesHandler) {
-				IGraphicalPropertiesHandler graphicalElement = (IGraphicalPropertiesHandler) node;
-				graphicalElement.setChangedProperty(true);
-				// Since a style change can change the presence of an error decorator (the fault
-				// property can be inherited)
-				// we need to refresh also the elements depending on this style
-				((ANode) node).revalidateChildren();
-			}
-			// update all the nodes
-			for (INode child : node.getChildren()) {
-				setStyleRefresh(child, force);
-			}
-		} else {
-			Map<String, List<ANode>> nodesUsingStyle = ((ANode) node).getUsedStyles();
-			List<ANode> nodes = nodesUsingStyle.get(getValue().getName());
-			if (nodes == null)
-				return;
-			for (ANode aNode : nodes) {
-				if (aNode.getUsedStyles().containsKey(getValue().getName())
-						&& aNode instanceof IGraphicalPropertiesHandler) {
-					IGraphicalPropertiesHandler graphicalElement = (IGraphicalPropertiesHandler) aNode;
-					// ask the refresh of the element
-					graphicalElement.setStyleChangedProperty();
-					// Since a style change can change the presence of an error decorator (the fault
-					// property can be inherited)
-					// we need to refresh also the elements depending on this style
-					aNode.revalidateChildren();
-				}
-			}
-		}
-	}
-	
-	/**
-	 * Return true if this style is inherited from another style
-	 */
-	protected boolean isDependencyStyle(){
-		ANode stylesRoot = getStylesRoot();
-		if (stylesRoot != null) {
-			String styleName = getValue().getName();
-			return searchStyleDependency(stylesRoot, styleName);
-		}
-		return false;
-	}
-	
-	/**
-	 * Search recursively if a style name is used by another style
+	 * @param node
+	 *            the node of the actual level
 	 */
-	protected boolean searchStyleDependency(ANode parent, String name) {
-		for(INode child : parent.getChildren()) {
-			if (child instanceof MStyle) {
-				MStyle style = (MStyle)child;
-				JRStyle jrStyle = style.getValue().getStyle();
-				if (jrStyle != null && jrStyle.getName().equals(name)) {
-					return true;
-				}
-				searchStyleDependency(style, name);
-			}
+	private void setStyleRefresh(INode node) {
+		if (node instanceof IGraphicalPropertiesHandler) {
+			IGraphicalPropertiesHandler graphicalElement = (IGraphicalPropertiesHandler) node;
+			graphicalElement.setChangedProperty(true);
+			// Since a style change can change the presence of an error decorator (the fault
+			// property can be inherited)
+			// we need to refresh also the elements depending on this style
+			((ANode) node).revalidateChildren();
 		}
-		return false;
-	}
-	
-	/**
-	 * Return a reference to the node father of all the styles
-	 *  
-	 * @param element a node of the model. It will be used to get the root and then explored to 
-	 * get the styles
-	 * @return reference to the father of all the styles
-	 */
-	protected ANode getStylesRoot() {
-		ANode parent = getParent();
-		while(parent != null && !(parent instanceof MStyles)){
-			parent = parent.getParent();
+		// update all the nodes
+		for (INode child : node.getChildren()) {
+			setStyleRefresh(child);
 		}
-		return parent;
 	}
-	
 
 	/**
 	 * Return the styles used by this element and eventually by its children.
@@ -1019,28 +967,98 @@ public class MStyle extends APropertyNode
 			}
 		}
 		evt = new PropertyChangeEvent(getValue(), evt.getPropertyName(), evt.getOldValue(), evt.getNewValue());
-		//if this style is used by another style refresh all the elements
-		boolean isDependencyStyle = isDependencyStyle();
-		fireUpdateForElements(evt.getPropertyName().equals(JRDesignStyle.PROPERTY_DEFAULT) || isDependencyStyle);
+		fireUpdateForElements(evt.getPropertyName().equals(JRDesignStyle.PROPERTY_DEFAULT));
 		super.propertyChange(evt);
 	}
 
 	/**
 	 * Search in background the elements that are using this styles and mark them
-	 * for the refresh
+	 * for the refresh. The requests arriving while a refresh is pending are merged
+	 * with it
+	 * 
+	 * @param force
+	 *            force the refresh in all the nodes, ignoring if they are using or
+	 *            not the style
 	 */
 	public void fireUpdateForElements(final boolean force) {
-		Runnable notifier = new Runnable() {
+		synchronized (this) {
+			refreshForced |= force;
+			if (refreshPending)
+				return;
+			refreshPending = true;
+		}
+		StyleDependencyIndex.execute(new Runnable() {
 			public void run() {
-				// Avoid the refresh if the style is not in the hierarchy
-				final INode root = getRoot();
-				if (root != null) {
-					setStyleRefresh(root, force);
-					JSSCompoundCommand.forceRefreshVisuals(JSSCompoundCommand.getMainNode((ANode) root));
+				boolean forced;
+				synchronized (MStyle.this) {
+					forced = refreshForced;
+					refreshPending = false;
+					refreshForced = false;
 				}
+				refreshElements(forced);
 			}
-		};
-		new Thread(notifier).start();
+		});
+	}
+
+	/**
+	 * Mark for the refresh the elements that are using this style, directly or
+	 * by inheriting it. The elements are found with the
+	 * {@link StyleDependencyIndex} of the report and only their edit parts are
+	 * refreshed, when the refresh is forced or this is the default style all the
+	 * elements are refreshed
+	 */
+	private void refreshElements(boolean force) {
+		// Avoid the refresh if the style is not in the hierarchy
+		final INode root = getRoot();
+		JRStyle style = getValue();
+		// a conditional style has no name, its changes are notified also by the parent style
+		if (root == null || style == null || (style.getName() == null && !force))
+			return;
+		final ANode mainNode = JSSCompoundCommand.getMainNode((ANode) root);
+		Collection<ANode> nodes = null;
+		if (!force && !style.isDefault() && mainNode != null) {
+			try {
+				nodes = StyleDependencyIndex.getInstance(mainNode).getDependentNodes((ANode) root, style.getName());
+			} catch (ConcurrentModificationException ex) {
+				// the model changed during the search, everything is refreshed
+			}
+		}
+		if (nodes == null) {
+			// the style could be inherited by all the elements, so all the converted
+			// elements are discarded
+			PrintElementCache cache = PrintElementCache.getCache(getJasperConfiguration());
+			if (cache != null)
+				cache.invalidateAll();
+			setStyleRefresh(root);
+			JSSCompoundCommand.forceRefreshVisuals(mainNode);
+		} else if (!nodes.isEmpty()) {
+			final Collection<ANode> dependentNodes = nodes;
+			UIUtils.getDisplay().asyncExec(new Runnable() {
+				public void run() {
+					// the events of the marked elements would refresh all the editor
+					MLockableRefresh lockNode = mainNode instanceof MLockableRefresh ? (MLockableRefresh) mainNode
+							: null;
+					if (lockNode != null)
+						lockNode.setIgnoreEvents(true, MStyle.this);
+					try {
+						for (ANode node : dependentNodes) {
+							if (node instanceof IGraphicalPropertiesHandler) {
+								// ask the refresh of the element
+								((IGraphicalPropertiesHandler) node).setStyleChangedProperty();
+								// Since a style change can change the presence of an error decorator (the fault
+								// property can be inherited)
+								// we need to refresh also the elements depending on this style
+								node.revalidateChildren();
+							}
+						}
+					} finally {
+						if (lockNode != null)
+							lockNode.setIgnoreEvents(false, MStyle.this);
+					}
+					JSSCompoundCommand.forceRefreshNodes(mainNode, dependentNodes);
+				}
+			});
+		}
 	}
 
 	/**
@@ -263,6 +263,8 @@ public class MStyleTemplate extends APropertyNode implements IPropertySource, IC
 			String path = ExternalStylesManager.evaluateStyleExpression(jrTemplate, project, jConf);
 			if (path != null) {
 				boolean result = StyleTemplateFactory.createTemplateReference(this, path, -1, new HashSet<String>(), false);
+				// the styles of the template are not notified to the index
+				StyleDependencyIndex.invalidate(jConf);
 				fireChildrenChangeEvent();
 				return result;
 			}
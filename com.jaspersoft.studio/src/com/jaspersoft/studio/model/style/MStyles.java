@@ -163,7 +163,7 @@ public class MStyles extends ANode implements IPastable, IContainerEditPart {
 	  		}
 	    }
 		};
-		new Thread(notifier).start();
+		StyleDependencyIndex.execute(notifier);
 	}
 	
 	
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.model.style;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.jaspersoft.studio.model.ANode;
+import com.jaspersoft.studio.model.INode;
+import com.jaspersoft.studio.model.util.ModelVisitor;
+import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
+
+import net.sf.jasperreports.engine.JRCloneable;
+import net.sf.jasperreports.engine.JRReportTemplate;
+import net.sf.jasperreports.engine.JRStyle;
+import net.sf.jasperreports.engine.design.JRDesignElement;
+import net.sf.jasperreports.engine.design.JRDesignStyle;
+import net.sf.jasperreports.engine.design.JasperDesign;
+
+/**
+ * Reverse index from the name of a style to the nodes that are using it, there
+ * is one for every report and it is stored in its configuration. The index
+ * contains the elements using the style directly or by name (the styles of the
+ * templates) and the styles inheriting from it, so the nodes to refresh when a
+ * style changes are found without visiting the whole model. The conditional
+ * styles are not indexed, a change on them is notified by their parent style.
+ * <p>
+ * The index listens the main node of the report and it is marked as stale when
+ * the structure of the model or the style of a node changes, it is rebuilt
+ * only the next time it is queried.
+ * </p>
+ */
+public class StyleDependencyIndex implements PropertyChangeListener {
+
+	/**
+	 * Properties that can change the style used by a node
+	 */
+	private static final Set<String> STYLE_PROPERTIES = new HashSet<>();
+
+	static {
+		STYLE_PROPERTIES.add(JRDesignElement.PROPERTY_PARENT_STYLE);
+		STYLE_PROPERTIES.add(JRDesignElement.PROPERTY_PARENT_STYLE_NAME_REFERENCE);
+		STYLE_PROPERTIES.add(JRDesignStyle.PROPERTY_NAME);
+		STYLE_PROPERTIES.add(JRDesignStyle.PROPERTY_CONDITIONAL_STYLES);
+		STYLE_PROPERTIES.add(JasperDesign.PROPERTY_STYLES);
+		STYLE_PROPERTIES.add(JasperDesign.PROPERTY_TEMPLATES);
+	}
+
+	/**
+	 * Executor where the refresh of the elements using a style is done, it is
+	 * shared by all the reports so the refreshes are executed one at time, in the
+	 * order they are requested
+	 */
+	private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "Style Refresh"); //$NON-NLS-1$
+		t.setDaemon(true);
+		return t;
+	});
+
+	/**
+	 * The main node of the report, the index listen its events
+	 */
+	private ANode mainNode;
+
+	/**
+	 * Nodes using a style directly, by style name
+	 */
+	private Map<String, List<ANode>> elements = new HashMap<>();
+
+	/**
+	 * Styles inheriting from a style, by style name
+	 */
+	private Map<String, Set<String>> childStyles = new HashMap<>();
+
+	/**
+	 * Flag to know if the index must be rebuilt before to be used
+	 */
+	private volatile boolean stale = true;
+
+	private StyleDependencyIndex(ANode mainNode) {
+		this.mainNode = mainNode;
+		if (mainNode != null)
+			mainNode.getPropertyChangeSupport().addPropertyChangeListener(this);
+	}
+
+	/**
+	 * Execute a task on the executor of the style refreshes
+	 *
+	 * @param task the task to execute, must be not null
+	 */
+	public static void execute(Runnable task) {
+		executor.execute(task);
+	}
+
+	/**
+	 * Return the index of a report, creating it if it doesn't exist
+	 *
+	 * @param mainNode the main node of the report, must be not null
+	 * @return a not null index
+	 */
+	public static synchronized StyleDependencyIndex getInstance(ANode mainNode) {
+		JasperReportsConfiguration jConfig = mainNode.getJasperConfiguration();
+		if (jConfig == null)
+			return new StyleDependencyIndex(null);
+		Object value = jConfig.getValue(JasperReportsConfiguration.KEY_STYLE_DEPENDENCY_INDEX);
+		if (value instanceof StyleDependencyIndex) {
+			StyleDependencyIndex index = (StyleDependencyIndex) value;
+			if (index.mainNode == mainNode)
+				return index;
+			// the model was reloaded
+			index.dispose();
+		}
+		StyleDependencyIndex index = new StyleDependencyIndex(mainNode);
+		jConfig.setValue(JasperReportsConfiguration.KEY_STYLE_DEPENDENCY_INDEX, index);
+		return index;
+	}
+
+	/**
+	 * Mark the index of a report to be rebuilt, if the report has an index
+	 *
+	 * @param jConfig the configuration of the report, can be null
+	 */
+	public static void invalidate(JasperReportsConfiguration jConfig) {
+		if (jConfig == null)
+			return;
+		Object value = jConfig.getValue(JasperReportsConfiguration.KEY_STYLE_DEPENDENCY_INDEX);
+		if (value instanceof StyleDependencyIndex)
+			((StyleDependencyIndex) value).invalidate();
+	}
+
+	/**
+	 * Mark the index as stale when a node is added or removed, or when the style
+	 * of a node changes
+	 */
+	@Override
+	public void propertyChange(PropertyChangeEvent evt) {
+		if (stale)
+			return;
+		if (STYLE_PROPERTIES.contains(evt.getPropertyName()) || isStructural(evt.getOldValue())
+				|| isStructural(evt.getNewValue()))
+			stale = true;
+	}
+
+	/**
+	 * Check if a value of an event could be a node of the model
+	 */
+	private static boolean isStructural(Object value) {
+		return value instanceof JRCloneable || value instanceof JRReportTemplate || value instanceof Collection;
+	}
+
+	/**
+	 * Mark the index to be rebuilt
+	 */
+	public void invalidate() {
+		stale = true;
+	}
+
+	/**
+	 * Stop to listen the report
+	 */
+	public void dispose() {
+		if (mainNode != null)
+			mainNode.getPropertyChangeSupport().removePropertyChangeListener(this);
+		mainNode = null;
+	}
+
+	/**
+	 * Return the nodes using a style, directly or by inheriting one of the styles
+	 * depending on it
+	 *
+	 * @param root the root of the model, used to rebuild the index
+	 * @param styleName the name of the style
+	 * @return a not null collection of nodes
+	 * @throws java.util.ConcurrentModificationException if the model was changed while the
+	 *         index was rebuilt
+	 */
+	public synchronized Collection<ANode> getDependentNodes(ANode root, String styleName) {
+		if (stale || mainNode == null) {
+			try {
+				rebuild(root);
+			} catch (RuntimeException ex) {
+				stale = true;
+				throw ex;
+			}
+		}
+		Set<ANode> result = new LinkedHashSet<>();
+		Set<String> visited = new HashSet<>();
+		Deque<String> toVisit = new ArrayDeque<>();
+		toVisit.add(styleName);
+		while (!toVisit.isEmpty()) {
+			String name = toVisit.poll();
+			if (!visited.add(name))
+				continue;
+			List<ANode> nodes = elements.get(name);
+			if (nodes != null)
+				result.addAll(nodes);
+			Set<String> children = childStyles.get(name);
+			if (children != null)
+				toVisit.addAll(children);
+		}
+		return result;
+	}
+
+	private void rebuild(ANode root) {
+		// the flag is reset before the visit, so a change done during the visit
+		// will invalidate the index again
+		stale = false;
+		Map<String, List<ANode>> newElements = new HashMap<>();
+		for (Map.Entry<String, List<ANode>> entry : root.getUsedStyles().entrySet())
+			newElements.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+		Map<String, Set<String>> newChildStyles = new HashMap<>();
+		new ModelVisitor<Object>(root) {
+
+			@Override
+			public boolean visit(INode n) {
+				Object value = n.getValue();
+				if (n instanceof MConditionalStyle) {
+					return false;
+				} else if (n instanceof MStyle) {
+					JRStyle style = (JRStyle) value;
+					String parentName = style.getStyle() != null ? style.getStyle().getName()
+							: style.getStyleNameReference();
+					if (parentName != null && style.getName() != null)
+						newChildStyles.computeIfAbsent(parentName, k -> new HashSet<>()).add(style.getName());
+					return false;
+				} else if (value instanceof JRDesignElement) {
+					JRDesignElement element = (JRDesignElement) value;
+					if (element.getStyle() == null && element.getStyleNameReference() != null) {
+						List<ANode> nodes = newElements.computeIfAbsent(element.getStyleNameReference(),
+								k -> new ArrayList<>());
+						if (!nodes.contains(n))
+							nodes.add((ANode) n);
+					}
+				}
+				return true;
+			}
+		};
+		elements = newElements;
+		childStyles = newChildStyles;
+	}
+}
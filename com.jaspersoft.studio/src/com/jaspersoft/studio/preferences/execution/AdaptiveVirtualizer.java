@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.preferences.execution;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.sf.jasperreports.engine.JRVirtualizable;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import net.sf.jasperreports.engine.util.JRSwapFile.SwapHandle;
+
+/**
+ * Virtualizer with three tiers. The number of pages kept on the heap is sized
+ * from the heap headroom when the virtualizer is created, the pages moved out
+ * of the heap are stored serialized in direct buffers, outside the heap, and
+ * only when the off-heap budget is exhausted they are written to a swap file.
+ */
+public class AdaptiveVirtualizer extends JRAbstractLRUVirtualizer implements IVirtualizerStatistics {
+
+	/** fraction of the free heap that the pages kept in memory can use */
+	private static final double HEAP_FRACTION = 0.25;
+
+	/** estimated heap size of a page, before any page was measured */
+	private static final long DEFAULT_PAGE_SIZE = 1024 * 1024;
+
+	/** ratio between the heap size of a page and its serialized size */
+	private static final int SERIALIZED_RATIO = 4;
+
+	private static final int MIN_PAGES = 10;
+
+	private static final int MAX_PAGES = 10000;
+
+	/** serialized bytes and pages written by all the instances, to estimate the page size */
+	private static final AtomicLong measuredBytes = new AtomicLong();
+	private static final AtomicLong measuredPages = new AtomicLong();
+
+	private final long offHeapLimit;
+	private final AtomicLong offHeapUsed = new AtomicLong();
+	private final Map<String, ByteBuffer> offHeapPages = new ConcurrentHashMap<>();
+
+	private final String directory;
+	private final int blockSize;
+	private final int minGrowCount;
+	private JRSwapFile swapFile;
+	private final Map<String, SwapHandle> diskPages = new ConcurrentHashMap<>();
+
+	private final AtomicLong pageIns = new AtomicLong();
+	private final AtomicLong pageOuts = new AtomicLong();
+	private final AtomicLong diskPageOuts = new AtomicLong();
+
+	/**
+	 * @param offHeapLimit
+	 *          maximum number of bytes stored outside the heap
+	 * @param directory
+	 *          directory of the swap file
+	 * @param blockSize
+	 *          block size of the swap file
+	 * @param minGrowCount
+	 *          minimum number of blocks the swap file grows
+	 */
+	public AdaptiveVirtualizer(long offHeapLimit, String directory, int blockSize, int minGrowCount) {
+		super(getAdaptiveMaxSize());
+		this.offHeapLimit = offHeapLimit;
+		this.directory = directory;
+		this.blockSize = blockSize;
+		this.minGrowCount = minGrowCount;
+	}
+
+	/**
+	 * @return the number of pages to keep on the heap, computed from the heap
+	 *         headroom and from the size of the pages measured so far
+	 */
+	public static int getAdaptiveMaxSize() {
+		Runtime rt = Runtime.getRuntime();
+		long headroom = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+		long pages = measuredPages.get();
+		long pageSize = pages > 0 ? Math.max(1, measuredBytes.get() / pages) * SERIALIZED_RATIO : DEFAULT_PAGE_SIZE;
+		long size = (long) (headroom * HEAP_FRACTION) / pageSize;
+		return (int) Math.max(MIN_PAGES, Math.min(MAX_PAGES, size));
+	}
+
+	@Override
+	protected void pageOut(JRVirtualizable o) throws IOException {
+		String uid = o.getUID();
+		if (offHeapPages.containsKey(uid) || diskPages.containsKey(uid)) {
+			if (!isReadOnly(o))
+				throw new IllegalStateException("Cannot virtualize data because the data for object UID \"" + uid //$NON-NLS-1$
+						+ "\" already exists."); //$NON-NLS-1$
+			return;
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(3000);
+		writeData(o, baos);
+		byte[] data = baos.toByteArray();
+		measuredBytes.addAndGet(data.length);
+		measuredPages.incrementAndGet();
+		pageOuts.incrementAndGet();
+
+		if (offHeapUsed.addAndGet(data.length) <= offHeapLimit) {
+			try {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+				buffer.put(data).flip();
+				offHeapPages.put(uid, buffer);
+				return;
+			} catch (OutOfMemoryError e) {
+				// no more direct memory available, use the disk
+			}
+		}
+		offHeapUsed.addAndGet(-data.length);
+		diskPages.put(uid, getSwapFile().write(data));
+		diskPageOuts.incrementAndGet();
+	}
+
+	@Override
+	protected void pageIn(JRVirtualizable o) throws IOException {
+		String uid = o.getUID();
+		boolean free = !isReadOnly(o);
+		byte[] data;
+		ByteBuffer buffer = free ? offHeapPages.remove(uid) : offHeapPages.get(uid);
+		if (buffer != null) {
+			data = new byte[buffer.remaining()];
+			buffer.duplicate().get(data);
+			if (free)
+				offHeapUsed.addAndGet(-data.length);
+		} else {
+			SwapHandle handle = free ? diskPages.remove(uid) : diskPages.get(uid);
+			if (handle == null)
+				throw new IllegalStateException("No data found for object UID \"" + uid + "\""); //$NON-NLS-1$ //$NON-NLS-2$
+			data = getSwapFile().read(handle, free);
+		}
+		readData(o, new ByteArrayInputStream(data));
+		pageIns.incrementAndGet();
+	}
+
+	@Override
+	protected void dispose(String id) {
+		ByteBuffer buffer = offHeapPages.remove(id);
+		if (buffer != null)
+			offHeapUsed.addAndGet(-buffer.capacity());
+		SwapHandle handle = diskPages.remove(id);
+		if (handle != null && swapFile != null)
+			swapFile.free(handle);
+	}
+
+	@Override
+	public synchronized void cleanup() {
+		offHeapPages.clear();
+		offHeapUsed.set(0);
+		diskPages.clear();
+		if (swapFile != null) {
+			swapFile.dispose();
+			swapFile = null;
+		}
+	}
+
+	/**
+	 * The swap file is created only when the first page does not fit outside the
+	 * heap
+	 */
+	private synchronized JRSwapFile getSwapFile() {
+		if (swapFile == null)
+			swapFile = new JRSwapFile(directory, blockSize, minGrowCount);
+		return swapFile;
+	}
+
+	@Override
+	public long getPageIns() {
+		return pageIns.get();
+	}
+
+	@Override
+	public long getPageOuts() {
+		return pageOuts.get();
+	}
+
+	@Override
+	public long getDiskPageOuts() {
+		return diskPageOuts.get();
+	}
+
+	/**
+	 * @return the number of bytes currently stored outside the heap
+	 */
+	public long getOffHeapUsed() {
+		return offHeapUsed.get();
+	}
+}
@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.preferences.execution;
+
+/**
+ * Implemented by the virtualizers created by {@link VirtualizerHelper}, to show
+ * in the preview statistics when a fill starts swapping
+ */
+public interface IVirtualizerStatistics {
+
+	/**
+	 * @return the number of pages read back from the page store
+	 */
+	public long getPageIns();
+
+	/**
+	 * @return the number of pages moved out of the heap
+	 */
+	public long getPageOuts();
+
+	/**
+	 * @return the number of pages written to disk, it is less than the page outs
+	 *         when the virtualizer keeps some pages in memory
+	 */
+	public long getDiskPageOuts();
+}
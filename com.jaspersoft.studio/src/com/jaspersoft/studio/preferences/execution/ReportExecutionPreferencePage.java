@@ -38,6 +38,7 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 	public static final String JSS_VIRTUALIZER_TMP = "com.jaspersoft.studio.virtualizer.tmp"; //$NON-NLS-1$
 	public static final String JSS_VIRTUALIZER_BLOCK_SIZE = "com.jaspersoft.studio.virtualizer.block.size"; //$NON-NLS-1$
 	public static final String JSS_VIRTUALIZER_MIN_GROW_COUNT = "com.jaspersoft.studio.virtualizer.min.grow.count"; //$NON-NLS-1$
+	public static final String JSS_VIRTUALIZER_OFFHEAP_SIZE = "com.jaspersoft.studio.virtualizer.offheap.size"; //$NON-NLS-1$
 
 	public static final String JSS_VIRTUALIZER_PAGE_ELEMENT_SIZE = "net.sf.jasperreports.virtual.page.element.size"; //$NON-NLS-1$
 
@@ -53,6 +54,10 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 
 	public static final String JSS_RUNREPORTONDACHANGE = "com.jaspersoft.studio.run.report.on.da.change"; //$NON-NLS-1$
 
+	public static final String JSS_DATASNAPSHOT_COLUMNAR = "com.jaspersoft.studio.datasnapshot.columnar"; //$NON-NLS-1$
+
+	public static final String JSS_PROFILE_FILL = "com.jaspersoft.studio.profile.fill"; //$NON-NLS-1$
+
 	private BooleanFieldEditor bfeONEXIT;
 	private JSSComboFieldEditor cfeType;
 	private SpinnerFieldEditor msfe;
@@ -60,6 +65,7 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 	private BooleanFieldEditor bfeUSE;
 	private SpinnerFieldEditor sfeBLOCKSIZE;
 	private SpinnerFieldEditor sfeMINGROWCOUNT;
+	private SpinnerFieldEditor sfeOFFHEAPSIZE;
 	private SpinnerFieldEditor sfePAGEELSIZE;
 
 	public ReportExecutionPreferencePage() {
@@ -104,6 +110,18 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 		addField(new BooleanFieldEditor(JSS_IGNOREPAGINATION,
 				Messages.ReportExecutionPreferencePage_ignorePaginationLabel, getFieldEditorParent()));
 
+		BooleanFieldEditor bColumnar = new BooleanFieldEditor(JSS_DATASNAPSHOT_COLUMNAR,
+				Messages.ReportExecutionPreferencePage_columnarSnapshotLabel, getFieldEditorParent());
+		bColumnar.getDescriptionControl(getFieldEditorParent())
+				.setToolTipText(Messages.ReportExecutionPreferencePage_columnarSnapshotTooltip);
+		addField(bColumnar);
+
+		BooleanFieldEditor bProfile = new BooleanFieldEditor(JSS_PROFILE_FILL,
+				Messages.ReportExecutionPreferencePage_profileFillLabel, getFieldEditorParent());
+		bProfile.getDescriptionControl(getFieldEditorParent())
+				.setToolTipText(Messages.ReportExecutionPreferencePage_profileFillTooltip);
+		addField(bProfile);
+
 		GridData gd = new GridData(GridData.FILL_HORIZONTAL);
 		gd.horizontalSpan = 3;
 		new Label(getFieldEditorParent(), SWT.SEPARATOR | SWT.HORIZONTAL).setLayoutData(gd);
@@ -131,7 +149,9 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 						{ Messages.ReportExecutionPreferencePage_gzipMemoryVirtualizer,
 								JRGzipVirtualizer.class.getName() },
 						{ Messages.ReportExecutionPreferencePage_singleSwapFileVirtualizer,
-								JRSwapFileVirtualizer.class.getName() } },
+								JRSwapFileVirtualizer.class.getName() },
+						{ Messages.ReportExecutionPreferencePage_adaptiveVirtualizer,
+								AdaptiveVirtualizer.class.getName() } },
 				getFieldEditorParent());
 		addField(cfeType);
 
@@ -159,12 +179,20 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 		sfeMINGROWCOUNT.setMaximum(Integer.MAX_VALUE);
 		addField(sfeMINGROWCOUNT);
 
+		sfeOFFHEAPSIZE = new SpinnerFieldEditor(JSS_VIRTUALIZER_OFFHEAP_SIZE,
+				Messages.ReportExecutionPreferencePage_offHeapSizeLabel, getFieldEditorParent(), 0);
+		sfeOFFHEAPSIZE.setMinimum(0);
+		sfeOFFHEAPSIZE.setMaximum(Integer.MAX_VALUE);
+		sfeOFFHEAPSIZE.getLabelControl(getFieldEditorParent())
+				.setToolTipText(Messages.ReportExecutionPreferencePage_offHeapSizeTooltip);
+		addField(sfeOFFHEAPSIZE);
+
 		vtype = getVirtualizerType(getPreferenceStore().getString(JSS_VIRTUALIZER_TYPE));
 
 		enableVirtualizers(getPreferenceStore().getBoolean(JSS_VIRTUALIZER_USE));
 		enableLimitRecords(getPreferenceStore().getBoolean(JSS_LIMIT_RECORDS));
 
-		enableSwapVirtualizer(vtype.equals(VirtualizerType.SWAP));
+		enableSwapVirtualizer(isSwapFile());
 
 		// Eventually create the extensions for the page
 		super.createFieldEditors();
@@ -175,6 +203,8 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 			return VirtualizerType.FILE;
 		if (type.equals(JRSwapFileVirtualizer.class.getName()))
 			return VirtualizerType.SWAP;
+		if (type.equals(AdaptiveVirtualizer.class.getName()))
+			return VirtualizerType.ADAPTIVE;
 		return VirtualizerType.ZIP;
 	}
 
@@ -186,7 +216,8 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 				enableVirtualizers((Boolean) event.getNewValue());
 			else if (event.getSource() == cfeType) {
 				vtype = getVirtualizerType((String) event.getNewValue());
-				enableSwapVirtualizer(vtype.equals(VirtualizerType.SWAP));
+				msfe.setEnabled(!vtype.equals(VirtualizerType.ADAPTIVE), getFieldEditorParent());
+				enableSwapVirtualizer(isSwapFile());
 			} else if (event.getSource() == mnumrec)
 				enableLimitRecords((Integer) event.getNewValue() >= 0);
 			else if (event.getSource() == bLimRec)
@@ -195,7 +226,7 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 	}
 
 	enum VirtualizerType {
-		SWAP, FILE, ZIP;
+		SWAP, FILE, ZIP, ADAPTIVE;
 	}
 
 	private VirtualizerType vtype = VirtualizerType.FILE;
@@ -206,18 +237,26 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 		mnumrec.setEnabled(newVal, getFieldEditorParent());
 	}
 
+	/**
+	 * @return true if the selected virtualizer writes the pages in a swap file
+	 */
+	private boolean isSwapFile() {
+		return vtype.equals(VirtualizerType.SWAP) || vtype.equals(VirtualizerType.ADAPTIVE);
+	}
+
 	private void enableSwapVirtualizer(boolean isSwap) {
 		bfeONEXIT.setEnabled(vtype.equals(VirtualizerType.FILE), getFieldEditorParent());
 		dfeTMP.setEnabled(isSwap || vtype.equals(VirtualizerType.FILE), getFieldEditorParent());
 		sfeBLOCKSIZE.setEnabled(isSwap, getFieldEditorParent());
 		sfeMINGROWCOUNT.setEnabled(isSwap, getFieldEditorParent());
+		sfeOFFHEAPSIZE.setEnabled(isSwap && vtype.equals(VirtualizerType.ADAPTIVE), getFieldEditorParent());
 	}
 
 	private void enableVirtualizers(boolean newVal) {
 		bfeONEXIT.setEnabled(newVal && vtype.equals(VirtualizerType.FILE), getFieldEditorParent());
 		cfeType.setEnabled(newVal, getFieldEditorParent());
-		msfe.setEnabled(newVal, getFieldEditorParent());
-		enableSwapVirtualizer(newVal && vtype.equals(VirtualizerType.SWAP));
+		msfe.setEnabled(newVal && !vtype.equals(VirtualizerType.ADAPTIVE), getFieldEditorParent());
+		enableSwapVirtualizer(newVal && isSwapFile());
 		sfePAGEELSIZE.setEnabled(newVal, getFieldEditorParent());
 	}
 
@@ -238,6 +277,7 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 		store.setDefault(JSS_VIRTUALIZER_TMP, ""); //$NON-NLS-1$
 		store.setDefault(JSS_VIRTUALIZER_BLOCK_SIZE, 100);
 		store.setDefault(JSS_VIRTUALIZER_MIN_GROW_COUNT, 100);
+		store.setDefault(JSS_VIRTUALIZER_OFFHEAP_SIZE, 128);
 		store.setDefault(JSS_VIRTUALIZER_PAGE_ELEMENT_SIZE, 1);
 
 		store.setDefault(JRFileVirtualizer.PROPERTY_TEMP_FILES_SET_DELETE_ON_EXIT, "false"); //$NON-NLS-1$
@@ -249,6 +289,8 @@ public class ReportExecutionPreferencePage extends FieldEditorOverlayPage {
 		store.setDefault(JSS_REPORT_TIMEZONE, TimeZone.getDefault().getID());// $NON-NLS-1$
 		store.setDefault(JSS_REPORT_FORCE_PARAMETER_TIMEZONE, false);
 		store.setDefault(JSS_RUNREPORTONDACHANGE, "true");
+		store.setDefault(JSS_DATASNAPSHOT_COLUMNAR, false);
+		store.setDefault(JSS_PROFILE_FILL, false);
 	}
 
 	@Override
@@ -4,25 +4,28 @@
 package com.jaspersoft.studio.preferences.execution;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRVirtualizable;
 import net.sf.jasperreports.engine.JRVirtualizer;
+import net.sf.jasperreports.engine.JasperReportsContext;
 import net.sf.jasperreports.engine.design.JasperDesign;
 import net.sf.jasperreports.engine.fill.JRFileVirtualizer;
 import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
 import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
 import net.sf.jasperreports.engine.util.JRSwapFile;
 
-import org.eclipse.core.resources.IWorkspace;
-import org.eclipse.core.resources.ResourcesPlugin;
-
 import com.jaspersoft.studio.utils.jasper.JasperReportsConfiguration;
 
 public class VirtualizerHelper {
 	public static void setVirtualizer(JasperDesign jd, JasperReportsConfiguration jContext, Map<String, Object> parammap) {
 		if (jContext.getPropertyBoolean(ReportExecutionPreferencePage.JSS_VIRTUALIZER_USE, false))
 			parammap.put(JRParameter.REPORT_VIRTUALIZER, createVirtualizer(jContext));
+		else
+			parammap.remove(JRParameter.REPORT_VIRTUALIZER);
 	}
 
 	private static JRVirtualizer createVirtualizer(JasperReportsConfiguration jContext) {
@@ -30,15 +33,17 @@ public class VirtualizerHelper {
 		String vtype = jContext.getProperty(ReportExecutionPreferencePage.JSS_VIRTUALIZER_TYPE,
 				JRFileVirtualizer.class.getName());
 		int maxSize = jContext.getPropertyInteger(ReportExecutionPreferencePage.JSS_VIRTUALIZER_MAX_SIZE, 100);
+		int blockSize = jContext.getPropertyInteger(ReportExecutionPreferencePage.JSS_VIRTUALIZER_BLOCK_SIZE, 100);
+		int minGrowCount = jContext.getPropertyInteger(ReportExecutionPreferencePage.JSS_VIRTUALIZER_MIN_GROW_COUNT, 100);
 		if (vtype.equals(JRFileVirtualizer.class.getName())) {
-			v = new JRFileVirtualizer(jContext, maxSize, getDirectory(jContext));
+			v = new FileVirtualizer(jContext, maxSize, getDirectory(jContext));
 		} else if (vtype.equals(JRGzipVirtualizer.class.getName())) {
-			v = new JRGzipVirtualizer(maxSize);
+			v = new GzipVirtualizer(maxSize);
 		} else if (vtype.equals(JRSwapFileVirtualizer.class.getName())) {
-			int blockSize = jContext.getPropertyInteger(ReportExecutionPreferencePage.JSS_VIRTUALIZER_BLOCK_SIZE, 100);
-			int minGrowCount = jContext.getPropertyInteger(ReportExecutionPreferencePage.JSS_VIRTUALIZER_MIN_GROW_COUNT, 100);
-
-			v = new JRSwapFileVirtualizer(maxSize, new JRSwapFile(getDirectory(jContext), blockSize, minGrowCount), false);
+			v = new SwapFileVirtualizer(maxSize, new JRSwapFile(getDirectory(jContext), blockSize, minGrowCount));
+		} else if (vtype.equals(AdaptiveVirtualizer.class.getName())) {
+			long offHeapSize = jContext.getPropertyInteger(ReportExecutionPreferencePage.JSS_VIRTUALIZER_OFFHEAP_SIZE, 128);
+			v = new AdaptiveVirtualizer(offHeapSize * 1024 * 1024, getDirectory(jContext), blockSize, minGrowCount);
 		}
 		return v;
 	}
@@ -51,10 +56,118 @@ public class VirtualizerHelper {
 			if (!f.exists())
 				directory = null;
 		}
-		if (directory == null || directory.trim().equals("")) {
-			IWorkspace workspace = ResourcesPlugin.getWorkspace();
-			directory = workspace.getRoot().getLocation().toOSString();
-		}
+		// the workspace root is usually watched by the workspace refresh, use the
+		// system temporary directory for the swap files
+		if (directory == null || directory.trim().equals("")) //$NON-NLS-1$
+			directory = System.getProperty("java.io.tmpdir"); //$NON-NLS-1$
 		return directory;
 	}
+
+	private static class FileVirtualizer extends JRFileVirtualizer implements IVirtualizerStatistics {
+		private final AtomicLong pageIns = new AtomicLong();
+		private final AtomicLong pageOuts = new AtomicLong();
+
+		public FileVirtualizer(JasperReportsContext jContext, int maxSize, String directory) {
+			super(jContext, maxSize, directory);
+		}
+
+		@Override
+		protected void pageOut(JRVirtualizable o) throws IOException {
+			super.pageOut(o);
+			pageOuts.incrementAndGet();
+		}
+
+		@Override
+		protected void pageIn(JRVirtualizable o) throws IOException {
+			super.pageIn(o);
+			pageIns.incrementAndGet();
+		}
+
+		@Override
+		public long getPageIns() {
+			return pageIns.get();
+		}
+
+		@Override
+		public long getPageOuts() {
+			return pageOuts.get();
+		}
+
+		@Override
+		public long getDiskPageOuts() {
+			return pageOuts.get();
+		}
+	}
+
+	private static class GzipVirtualizer extends JRGzipVirtualizer implements IVirtualizerStatistics {
+		private final AtomicLong pageIns = new AtomicLong();
+		private final AtomicLong pageOuts = new AtomicLong();
+
+		public GzipVirtualizer(int maxSize) {
+			super(maxSize);
+		}
+
+		@Override
+		protected void pageOut(JRVirtualizable o) throws IOException {
+			super.pageOut(o);
+			pageOuts.incrementAndGet();
+		}
+
+		@Override
+		protected void pageIn(JRVirtualizable o) throws IOException {
+			super.pageIn(o);
+			pageIns.incrementAndGet();
+		}
+
+		@Override
+		public long getPageIns() {
+			return pageIns.get();
+		}
+
+		@Override
+		public long getPageOuts() {
+			return pageOuts.get();
+		}
+
+		@Override
+		public long getDiskPageOuts() {
+			return 0;
+		}
+	}
+
+	private static class SwapFileVirtualizer extends JRSwapFileVirtualizer implements IVirtualizerStatistics {
+		private final AtomicLong pageIns = new AtomicLong();
+		private final AtomicLong pageOuts = new AtomicLong();
+
+		public SwapFileVirtualizer(int maxSize, JRSwapFile swap) {
+			super(maxSize, swap, false);
+		}
+
+		@Override
+		protected void pageOut(JRVirtualizable o) throws IOException {
+			super.pageOut(o);
+			pageOuts.incrementAndGet();
+		}
+
+		@Override
+		protected void pageIn(JRVirtualizable o) throws IOException {
+			super.pageIn(o);
+			pageIns.incrementAndGet();
+		}
+
+		@Override
+		public long getPageIns() {
+			return pageIns.get();
+		}
+
+		@Override
+		public long getPageOuts() {
+			return pageOuts.get();
+		}
+
+		@Override
+		public long getDiskPageOuts() {
+			return pageOuts.get();
+		}
+	}
 }
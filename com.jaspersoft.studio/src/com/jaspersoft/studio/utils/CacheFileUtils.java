@@ -0,0 +1,228 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Common methods of the caches saved on disk by the plugins: atomic writes,
+ * reads that discard the unreadable files, hash keys, background jobs and the
+ * pruning of the least recently used files.
+ */
+public class CacheFileUtils {
+	/** delay of the prune after a file is added, to prune once for many files */
+	private static final long PRUNE_DELAY = 5000;
+	private static final char[] HEX = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	/**
+	 * Writes the content of a cache file
+	 */
+	public interface ContentWriter {
+		public void write(File file) throws Exception;
+	}
+
+	/**
+	 * Reads the content of a cache file
+	 */
+	public interface ContentReader<T> {
+		/**
+		 * @return the content, null if it can not be used
+		 */
+		public T read(File file) throws Exception;
+	}
+
+	/**
+	 * Writes a cache file. The content is written in a temporary file of the same
+	 * directory and then moved on the file, so the readers, and the other writers,
+	 * find the old or the new content but never a partial one
+	 *
+	 * @throws IOException
+	 *             if the content can not be written, the file is not changed
+	 */
+	public static void write(File file, ContentWriter writer) throws IOException {
+		File dir = file.getParentFile();
+		dir.mkdirs();
+		File tmp = File.createTempFile("cache", ".tmp", dir); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			writer.write(tmp);
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (Exception e) {
+			tmp.delete();
+			throw e instanceof IOException ? (IOException) e : new IOException(e);
+		}
+	}
+
+	/**
+	 * Reads a cache file, a file that can not be read or used is deleted
+	 *
+	 * @return the content, null if the file does not exist or can not be used
+	 */
+	public static <T> T read(File file, ContentReader<T> reader) {
+		if (!file.exists())
+			return null;
+		try {
+			T content = reader.read(file);
+			if (content != null)
+				return content;
+		} catch (Exception e) {
+			// corrupted, or written by an incompatible version
+		}
+		file.delete();
+		return null;
+	}
+
+	/**
+	 * Writes a serializable object in a compressed cache file, preceded by the
+	 * version of its format
+	 */
+	public static void writeObject(File file, int version, Serializable obj) throws IOException {
+		write(file, tmp -> {
+			try (ObjectOutputStream out = new ObjectOutputStream(
+					new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tmp))))) {
+				out.writeInt(version);
+				out.writeObject(obj);
+			}
+		});
+	}
+
+	/**
+	 * Reads an object written by {@link #writeObject(File, int, Serializable)}
+	 *
+	 * @return the object, null if the file does not exist, has another version or
+	 *         can not be read
+	 */
+	public static Object readObject(File file, int version) {
+		return read(file, f -> {
+			try (ObjectInputStream in = new ObjectInputStream(
+					new GZIPInputStream(new BufferedInputStream(new FileInputStream(f))))) {
+				return in.readInt() == version ? in.readObject() : null;
+			}
+		});
+	}
+
+	/**
+	 * @return a SHA-256 digest, to compute the keys of the cached files
+	 */
+	public static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			// all the Java platforms support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return the hash computed by the digest, as hexadecimal string
+	 */
+	public static String toHex(MessageDigest md) {
+		byte[] hash = md.digest();
+		char[] chars = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			chars[i * 2] = HEX[(hash[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[hash[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * @return a system job running the task, to write the cache files outside the
+	 *         UI thread
+	 */
+	public static Job createJob(String name, Runnable task) {
+		Job job = new Job(name) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				task.run();
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		return job;
+	}
+
+	/**
+	 * Deletes the least recently used files of a cache, while they are bigger than
+	 * a maximum size. The files with the extension are searched in the directory
+	 * and in its subdirectories, the most recently used ones are the ones with the
+	 * most recent last modified time, so the cache must update it when it reads
+	 * a file.
+	 */
+	public static class Pruner {
+		private final String name;
+		private final File dir;
+		private final String extension;
+		private final long maxSize;
+		private Job job;
+
+		public Pruner(String name, File dir, String extension, long maxSize) {
+			this.name = name;
+			this.dir = dir;
+			this.extension = extension;
+			this.maxSize = maxSize;
+		}
+
+		/**
+		 * Prunes the cache a few seconds later, the requests done in the meantime
+		 * are merged
+		 */
+		public synchronized void schedule() {
+			if (job == null)
+				job = createJob(name, this::prune);
+			job.schedule(PRUNE_DELAY);
+		}
+
+		public void prune() {
+			List<File> files = new ArrayList<>();
+			long size = list(dir, files);
+			if (size <= maxSize)
+				return;
+			files.sort(Comparator.comparingLong(File::lastModified));
+			for (File f : files) {
+				if (size <= maxSize)
+					break;
+				size -= f.length();
+				f.delete();
+			}
+		}
+
+		private long list(File d, List<File> files) {
+			File[] fs = d.listFiles();
+			if (fs == null)
+				return 0;
+			long size = 0;
+			for (File f : fs)
+				if (f.isDirectory())
+					size += list(f, files);
+				else if (f.getName().endsWith(extension)) {
+					files.add(f);
+					size += f.length();
+				}
+			return size;
+		}
+	}
+}
@@ -6,7 +6,13 @@ package com.jaspersoft.studio.utils;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRSortField;
+import net.sf.jasperreports.engine.JRVariable;
 import net.sf.jasperreports.engine.design.JRDesignDataset;
+import net.sf.jasperreports.engine.design.JRDesignParameter;
+import net.sf.jasperreports.engine.design.JRDesignVariable;
 
 /**
  * Property change listener used by the intepreter cache utilities to 
@@ -38,15 +44,25 @@ public class DatasetChanges implements PropertyChangeListener{
 	}
 	
 	/**
-	 * When something change the interpreter cached for this dataset
-	 * is discared
-	 * 
-	 * FIXME: an improvement could be to check if the changed 
-	 * property invalidate the intepreter
+	 * When a parameter or a variable change only the cached expressions
+	 * using it are discarded, the fields are not evaluated so their
+	 * changes are ignored. When something else change the interpreter 
+	 * cached for this dataset is discared
 	 */
 	@Override
 	public void propertyChange(PropertyChangeEvent evt) {
-		ExpressionUtil.removeCachedInterpreter(parentDataset);
+		Object source = evt.getSource();
+		if (source instanceof JRParameter) {
+			ExpressionUtil.invalidateParameter(parentDataset, ((JRParameter) source).getName());
+			if (JRDesignParameter.PROPERTY_NAME.equals(evt.getPropertyName()) && evt.getOldValue() instanceof String)
+				ExpressionUtil.invalidateParameter(parentDataset, (String) evt.getOldValue());
+		} else if (source instanceof JRVariable) {
+			ExpressionUtil.invalidateVariable(parentDataset, ((JRVariable) source).getName());
+			if (JRDesignVariable.PROPERTY_NAME.equals(evt.getPropertyName()) && evt.getOldValue() instanceof String)
+				ExpressionUtil.invalidateVariable(parentDataset, (String) evt.getOldValue());
+		} else if (!(source instanceof JRField || source instanceof JRSortField)) {
+			ExpressionUtil.removeCachedInterpreter(parentDataset);
+		}
 	}
 	
 }
@@ -21,6 +21,11 @@ public class ExpressionInterpreter {
 	private AInterpreter interpreter;
 
 	private JasperReportsConfiguration jConfig;
+
+	/**
+	 * The class loader of the configuration when the interpreter was created
+	 */
+	private ClassLoader classLoader;
 	
 	public ExpressionInterpreter(JRDesignDataset dataset, JasperReportsConfiguration jConfig) {
 		this(dataset, jConfig.getJasperDesign(), jConfig);
@@ -29,6 +34,7 @@ public class ExpressionInterpreter {
 	public ExpressionInterpreter(JRDesignDataset dataset, JasperDesign jasperDesign, JasperReportsConfiguration jConfig) {
 		try {
 			this.jConfig = jConfig;
+			this.classLoader = jConfig.getClassLoader();
 			if (jasperDesign.getLanguage().equalsIgnoreCase(JRReport.LANGUAGE_JAVA))
 				interpreter = new JavaInterpreter();
 			else if (jasperDesign.getLanguage().equalsIgnoreCase(JRReport.LANGUAGE_GROOVY))
@@ -51,6 +57,36 @@ public class ExpressionInterpreter {
 		return jConfig;
 	}
 
+	/**
+	 * Check if the interpreter uses the actual class loader of the report, the
+	 * compiled expressions can't be reused when the class loader changes
+	 * 
+	 * @return true if the interpreter can still be used, false otherwise
+	 */
+	public boolean isClassLoaderValid() {
+		return jConfig == null || jConfig.getClassLoader() == classLoader;
+	}
+
+	/**
+	 * Discard the cached expressions using a parameter
+	 * 
+	 * @param name the name of the parameter
+	 */
+	public void invalidateParameter(String name) {
+		if (interpreter != null)
+			interpreter.invalidateParameter(name);
+	}
+
+	/**
+	 * Discard the cached expressions using a variable
+	 * 
+	 * @param name the name of the variable
+	 */
+	public void invalidateVariable(String name) {
+		if (interpreter != null)
+			interpreter.invalidateVariable(name);
+	}
+
 	/**
 	 * Try to interpret the java expression passed as argument. If dataset is provided, the parameters are recursively
 	 * interpreted. If a classloader is specified, it is used to load classes referred in the expression.
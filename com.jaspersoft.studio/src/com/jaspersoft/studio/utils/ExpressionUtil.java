@@ -171,6 +171,8 @@ public class ExpressionUtil {
 				boolean interpreterCreated = false;
 				synchronized (datasetsIntepreters) {
 					interpreter = datasetsIntepreters.get(dataset);
+					if (interpreter != null && !interpreter.isClassLoaderValid())
+						interpreter = null;
 					if (interpreter == null) {
 						if (exp != null && jd != null) {
 							interpreter = new ExpressionInterpreter(dataset, jd, jConfig);
@@ -209,6 +211,8 @@ public class ExpressionUtil {
 		boolean interpreterCreated = false;
 		synchronized (datasetsIntepreters) {
 			interpreter = datasetsIntepreters.get(ds);
+			if (interpreter != null && !interpreter.isClassLoaderValid())
+				interpreter = null;
 			if (interpreter == null) {
 				if (jd != null) {
 					interpreter = new ExpressionInterpreter(ds, jd, jConfig);
@@ -291,6 +295,32 @@ public class ExpressionUtil {
 		datasetsIntepreters.remove(dataset);
 	}
 
+	/**
+	 * Discard the cached expressions of a dataset that are using a parameter, the
+	 * interpreter of the dataset is kept
+	 * 
+	 * @param dataset dataset for whose the intepreter was created
+	 * @param name the name of the parameter
+	 */
+	public static void invalidateParameter(JRDesignDataset dataset, String name) {
+		ExpressionInterpreter interpreter = datasetsIntepreters.get(dataset);
+		if (interpreter != null)
+			interpreter.invalidateParameter(name);
+	}
+
+	/**
+	 * Discard the cached expressions of a dataset that are using a variable, the
+	 * interpreter of the dataset is kept
+	 * 
+	 * @param dataset dataset for whose the intepreter was created
+	 * @param name the name of the variable
+	 */
+	public static void invalidateVariable(JRDesignDataset dataset, String name) {
+		ExpressionInterpreter interpreter = datasetsIntepreters.get(dataset);
+		if (interpreter != null)
+			interpreter.invalidateVariable(name);
+	}
+
 	/**
 	 * Remove all the interpreters cached for a report
 	 * 
@@ -3,11 +3,16 @@
  *******************************************************************************/
 package com.jaspersoft.studio.utils.expr;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang.LocaleUtils;
 import org.eclipse.core.resources.IFile;
@@ -62,27 +67,239 @@ public abstract class AInterpreter {
 		}
 	}
 
+	/**
+	 * An expression ready to be evaluated, it is created once for every distinct
+	 * expression text and reused by the following evaluations
+	 */
+	protected interface CompiledExpression {
+		public Object evaluate() throws Exception;
+	}
+
+	/**
+	 * Maximum number of compiled expressions and of results kept by the
+	 * interpreter
+	 */
+	private static final int MAX_EXPRESSIONS = 1000;
+
+	/**
+	 * The compiled expressions, by expression text
+	 */
+	private Map<String, CompiledExpression> compiled = new LinkedHashMap<String, CompiledExpression>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+			if (size() > MAX_EXPRESSIONS) {
+				results.remove(eldest.getKey());
+				dependencies.remove(eldest.getKey());
+				constants.remove(eldest.getKey());
+				release(eldest.getValue());
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * The expressions, by expression text, that once prepared contain only
+	 * literals, constants and operators, so their value can be memoized
+	 */
+	private Set<String> constants = new HashSet<String>();
+
+	/**
+	 * The memoized values of the constant expressions, by expression text. At
+	 * design time the parameters and the variables have a single value, so an
+	 * immutable result of an expression without object creations or method calls
+	 * doesn't change until one of them changes
+	 */
+	private Map<String, Object> results = new LinkedHashMap<String, Object>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+			if (size() > MAX_EXPRESSIONS) {
+				if (!compiled.containsKey(eldest.getKey()))
+					dependencies.remove(eldest.getKey());
+				return true;
+			}
+			return false;
+		}
+	};
+
+	/**
+	 * The literals of the parameters and variables used directly by an expression,
+	 * by expression text
+	 */
+	private Map<String, Set<String>> dependencies = new HashMap<String, Set<String>>();
+
+	/**
+	 * The literals used directly by the expression of a parameter or variable, by
+	 * literal
+	 */
+	private Map<String, Set<String>> literalDependencies = new HashMap<String, Set<String>>();
+
 	protected abstract Object eval(String expression) throws Exception;
 
+	/**
+	 * Compile an expression, the default implementation interprets the text at
+	 * every evaluation
+	 * 
+	 * @param expression
+	 *          the expression with the parameters and variables already replaced
+	 * @return the compiled expression
+	 */
+	protected CompiledExpression compile(final String expression) throws Exception {
+		return () -> eval(expression);
+	}
+
+	/**
+	 * Called when a compiled expression is discarded, to free what it uses in the
+	 * interpreter. The default implementation does nothing
+	 * 
+	 * @param expression
+	 *          the discarded expression
+	 */
+	protected void release(CompiledExpression expression) {
+	}
+
 	protected abstract void set(String key, Object val) throws Exception;
 
 	protected abstract Object get(String key) throws Exception;
 
-	public Object interpretExpression(String expression) {
+	public synchronized Object interpretExpression(String expression) {
+		if (results.containsKey(expression))
+			return results.get(expression);
+		Set<String> used = new HashSet<String>();
+		boolean prepared = false;
 		try {
-			if (dataset != null)
-				expression = prepareExpression(expression, 0);
-			return eval(expression);
+			CompiledExpression ce = compiled.get(expression);
+			if (ce == null) {
+				String text = expression;
+				if (dataset != null)
+					text = prepareExpression(expression, 0, used);
+				prepared = true;
+				// the resources are read when the expression is prepared, so it is
+				// prepared again at every evaluation
+				if (expression.contains("$R{")) //$NON-NLS-1$
+					return eval(text);
+				ce = compile(text);
+				compiled.put(expression, ce);
+				dependencies.put(expression, used);
+				if (isConstant(text))
+					constants.add(expression);
+			}
+			Object value = ce.evaluate();
+			if (constants.contains(expression) && isImmutable(value))
+				results.put(expression, value);
+			return value;
 		} catch (Throwable e) {
 			System.out.println("Expression: " + expression);
 			e.printStackTrace();
+			// a failure of the preparation or of a constant expression is remembered
+			// until something used by the expression changes
+			if (!prepared || constants.contains(expression)) {
+				results.put(expression, null);
+				dependencies.put(expression, used);
+			}
 		}
 		return null;
 	}
 
+	private static boolean isImmutable(Object value) {
+		return value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+				|| value instanceof Character || value instanceof Enum;
+	}
+
+	/**
+	 * The string and char literals of an expression
+	 */
+	private static final Pattern STRING_LITERALS = Pattern.compile("\"(?:[^\"\\\\]|\\\\.)*\"|'(?:[^'\\\\]|\\\\.)*'"); //$NON-NLS-1$
+
+	/**
+	 * An object creation or a method call, with or without a target
+	 */
+	private static final Pattern CALLS = Pattern.compile("\\bnew\\b|[\\p{javaJavaIdentifierPart}\\])]\\s*\\("); //$NON-NLS-1$
+
+	/**
+	 * Check if a prepared expression contains only literals, constants and
+	 * operators. An expression creating objects or calling methods, like
+	 * <code>new Date()</code> or <code>new File(path).exists()</code>, can have a
+	 * different value at every evaluation
+	 * 
+	 * @param expression
+	 *          the expression with the parameters and variables already replaced
+	 * @return true if the value of the expression can be memoized
+	 */
+	protected boolean isConstant(String expression) {
+		String code = STRING_LITERALS.matcher(expression).replaceAll("\"\""); //$NON-NLS-1$
+		return !CALLS.matcher(code).find();
+	}
+
+	/**
+	 * Discard the value of a parameter and all the cached expressions using it,
+	 * directly or by the expression of another parameter or variable
+	 * 
+	 * @param name
+	 *          the name of the parameter
+	 */
+	public synchronized void invalidateParameter(String name) {
+		invalidateLiteral(getLiteral(name));
+	}
+
+	/**
+	 * Discard the value of a variable and all the cached expressions using it,
+	 * directly or by the expression of another parameter or variable
+	 * 
+	 * @param name
+	 *          the name of the variable
+	 */
+	public synchronized void invalidateVariable(String name) {
+		invalidateLiteral(getVariableLiteral(name));
+	}
+
+	private void invalidateLiteral(String literal) {
+		Set<String> invalid = new HashSet<String>();
+		invalid.add(literal);
+		boolean added = true;
+		while (added) {
+			added = false;
+			for (Map.Entry<String, Set<String>> entry : literalDependencies.entrySet()) {
+				if (!invalid.contains(entry.getKey()) && !Collections.disjoint(entry.getValue(), invalid)) {
+					invalid.add(entry.getKey());
+					added = true;
+				}
+			}
+		}
+		literals.removeAll(invalid);
+		literalDependencies.keySet().removeAll(invalid);
+		for (Iterator<Map.Entry<String, Set<String>>> it = dependencies.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, Set<String>> entry = it.next();
+			if (!Collections.disjoint(entry.getValue(), invalid)) {
+				CompiledExpression ce = compiled.remove(entry.getKey());
+				if (ce != null)
+					release(ce);
+				results.remove(entry.getKey());
+				constants.remove(entry.getKey());
+				it.remove();
+			}
+		}
+	}
+
 	private Set<String> literals = new HashSet<String>();
 
-	protected String prepareExpression(String expression, int recursion) throws Exception {
+	/**
+	 * Replace the parameters, the variables, the fields and the resources of the
+	 * expression with literals that can be interpreted
+	 * 
+	 * @param expression
+	 *          the text of the expression
+	 * @param recursion
+	 *          the depth of the parameters resolution
+	 * @param used
+	 *          set where the literals used by the expression are added
+	 * @return the expression to interpret
+	 */
+	protected String prepareExpression(String expression, int recursion, Set<String> used) throws Exception {
 		while (expression.indexOf("$P{") >= 0) {
 			String pname = Misc.extract(expression, "$P{", "}");
 			JRParameter pr = null;
@@ -93,9 +310,10 @@ public abstract class AInterpreter {
 			// break;
 			// }
 			// }
+			String pnameLiteral = getLiteral(pname);
+			used.add(pnameLiteral);
 			if (pr == null)
 				throw new JRException("Paramater $P{" + pname + "} does not exists in the dataset");
-			String pnameLiteral = getLiteral(pname);
 			expression = Misc.strReplace(pnameLiteral, "$P{" + pname + "}", expression);
 
 			if (!literals.contains(pnameLiteral))
@@ -107,9 +325,10 @@ public abstract class AInterpreter {
 			String vname = Misc.extract(expression, "$V{", "}");
 			JRVariable vr = null;
 			vr = dataset.getVariablesMap().get(vname);
+			String pnameLiteral = getVariableLiteral(vname);
+			used.add(pnameLiteral);
 			if (vr == null)
 				throw new JRException("Variable $V{" + vname + "} does not exists in the dataset");
-			String pnameLiteral = getVariableLiteral(vname);
 			expression = Misc.strReplace(pnameLiteral, "$V{" + vname + "}", expression);
 
 			if (!literals.contains(pnameLiteral))
@@ -148,7 +367,7 @@ public abstract class AInterpreter {
 		JRExpression exp = prm.getDefaultValueExpression();
 		if (recursion > 100 || exp == null || Misc.isNullOrEmpty(exp.getText()))
 			return getNull(pliteral, prm);
-		return setValue(eval(prepareExpression(exp.getText(), recursion)), pliteral);
+		return setValue(evalLiteral(exp.getText(), recursion, pliteral), pliteral);
 	}
 
 	protected Object recursiveInterpreter(int recursion, JRVariable vrb) throws Exception {
@@ -163,7 +382,17 @@ public abstract class AInterpreter {
 			else
 				return setValue(null, pliteral);
 		}
-		return setValue(eval(prepareExpression(exp.getText(), recursion)), pliteral);
+		return setValue(evalLiteral(exp.getText(), recursion, pliteral), pliteral);
+	}
+
+	/**
+	 * Evaluate the expression of a parameter or of a variable, remembering the
+	 * literals it uses
+	 */
+	private Object evalLiteral(String expression, int recursion, String literal) throws Exception {
+		Set<String> used = new HashSet<String>();
+		literalDependencies.put(literal, used);
+		return eval(prepareExpression(expression, recursion, used));
 	}
 
 	private Object getNull(String pliteral, JRParameter prm) throws Exception {
@@ -5,6 +5,7 @@ package com.jaspersoft.studio.utils.expr;
 
 import groovy.lang.Binding;
 import groovy.lang.GroovyShell;
+import groovy.lang.Script;
 import net.sf.jasperreports.engine.design.JRDesignDataset;
 import net.sf.jasperreports.engine.design.JasperDesign;
 
@@ -66,6 +67,16 @@ public class GroovyInterpretter extends AInterpreter {
 		return interpreter.evaluate(expression);
 	}
 
+	/**
+	 * The expression is parsed into a script that shares the binding of the shell,
+	 * so it is compiled only once and then executed at every evaluation
+	 */
+	@Override
+	protected CompiledExpression compile(String expression) throws Exception {
+		final Script script = interpreter.parse(expression);
+		return () -> script.run();
+	}
+
 	@Override
 	protected void set(String key, Object val) throws Exception {
 		interpreter.setVariable(key, val);
@@ -3,6 +3,9 @@
  *******************************************************************************/
 package com.jaspersoft.studio.utils.expr;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.jdt.launching.JavaRuntime;
 
@@ -16,6 +19,37 @@ import net.sf.jasperreports.engine.design.JasperDesign;
 public class JavaInterpreter extends AInterpreter {
 	private Interpreter interpreter = null;
 
+	/**
+	 * Counter used to give a unique name to the method of every compiled
+	 * expression
+	 */
+	private int methods = 0;
+
+	/**
+	 * Names of the methods of the discarded expressions, they are reused by the
+	 * next compiled expressions, so the methods declared in the interpreter are
+	 * never more than the cached expressions
+	 */
+	private Deque<String> freeMethods = new ArrayDeque<String>();
+
+	/**
+	 * An expression compiled as a method of the interpreter
+	 */
+	private class MethodExpression implements CompiledExpression {
+		private final String method;
+		private final String call;
+
+		private MethodExpression(String method) {
+			this.method = method;
+			this.call = method + "();"; //$NON-NLS-1$
+		}
+
+		@Override
+		public Object evaluate() throws Exception {
+			return interpreter.eval(call);
+		}
+	}
+
 	@Override
 	public void prepareExpressionEvaluator(JRDesignDataset dataset, JasperDesign jasperDesign,
 			JasperReportsConfiguration jConfig) throws Exception {
@@ -80,6 +114,32 @@ public class JavaInterpreter extends AInterpreter {
 		return interpreter.eval(expression);
 	}
 
+	/**
+	 * The expression is declared as the body of a method of the interpreter, so it
+	 * is parsed only once and then every evaluation is just the call of the method.
+	 * The name of a discarded method is reused, declaring it again replaces its body
+	 */
+	@Override
+	protected CompiledExpression compile(String expression) throws Exception {
+		String method = freeMethods.poll();
+		if (method == null)
+			method = "jssExpression" + methods++; //$NON-NLS-1$
+		try {
+			// the new line closes a line comment at the end of the expression
+			interpreter.eval(method + "() { return " + expression + "\n; }"); //$NON-NLS-1$ //$NON-NLS-2$
+		} catch (Exception e) {
+			freeMethods.push(method);
+			throw e;
+		}
+		return new MethodExpression(method);
+	}
+
+	@Override
+	protected void release(CompiledExpression expression) {
+		if (expression instanceof MethodExpression)
+			freeMethods.push(((MethodExpression) expression).method);
+	}
+
 	@Override
 	protected void set(String key, Object val) throws Exception {
 		interpreter.set(key, val);
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.utils.jasper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.JavaCore;
+
+import com.jaspersoft.studio.JaspersoftStudioPlugin;
+import com.jaspersoft.studio.utils.CacheFileUtils;
+
+import net.sf.jasperreports.eclipse.builder.JasperReportCompiler;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPropertiesUtil;
+import net.sf.jasperreports.engine.JRPropertiesUtil.PropertySuffix;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSaver;
+import net.sf.jasperreports.engine.xml.JRXmlWriter;
+
+/**
+ * Workspace cache of the compiled reports, shared by the preview, the dataset
+ * preview and the compilation of the subreports.
+ * <p>
+ * A compiled report is found by the hash of the design (its JRXML), of the
+ * compiler settings (JasperReports version, compatibility version and compiler
+ * properties) and of the classpath of the project, so an identical design is
+ * compiled only once, also when an editor is reopened. The last compiled
+ * reports are kept in memory, the others are saved in the state location of
+ * the plugin, up to {@link #MAX_DISK_SIZE}.
+ * </p>
+ * <p>
+ * The entries of a project are discarded when a class or a library of the
+ * project changes, since the compiled expressions could depend on them.
+ * </p>
+ */
+public class CompiledReportCache {
+	/** compiled reports kept in memory */
+	private static final int MAX_ENTRIES = 32;
+	/** maximum size of the compiled reports saved on disk */
+	private static final long MAX_DISK_SIZE = 256L * 1024 * 1024;
+	private static final String EXTENSION = ".jasper"; //$NON-NLS-1$
+	/** directory of the reports compiled outside of a project */
+	private static final String NO_PROJECT = "_"; //$NON-NLS-1$
+
+	private static CompiledReportCache instance;
+
+	public static synchronized CompiledReportCache getInstance() {
+		if (instance == null) {
+			instance = new CompiledReportCache(
+					JaspersoftStudioPlugin.getInstance().getStateLocation().append("compiled").toFile()); //$NON-NLS-1$
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(instance::resourceChanged,
+					IResourceChangeEvent.POST_CHANGE);
+		}
+		return instance;
+	}
+
+	/**
+	 * The compilation of a report, done when it is not in the cache
+	 */
+	public interface ReportCompiler {
+		/**
+		 * @return the compiled report, null if it was not compiled
+		 */
+		public JasperReport compile() throws Exception;
+	}
+
+	private static class Entry {
+		private final String project;
+		private final JasperReport report;
+
+		private Entry(String project, JasperReport report) {
+			this.project = project;
+			this.report = report;
+		}
+	}
+
+	private final File dir;
+	private final Map<String, Entry> memory = new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	private final CacheFileUtils.Pruner pruner;
+
+	public CompiledReportCache(File dir) {
+		this.dir = dir;
+		pruner = new CacheFileUtils.Pruner("Prune Compiled Reports", dir, EXTENSION, MAX_DISK_SIZE); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns the compiled report from the cache, or compiles and caches it
+	 *
+	 * @param jConfig
+	 *            the context of the report
+	 * @param jd
+	 *            the design to compile
+	 * @param project
+	 *            the project of the report, can be null
+	 * @param compiler
+	 *            the compilation done if the report is not in the cache
+	 * @return the compiled report, null if it was not compiled
+	 */
+	public JasperReport compile(JasperReportsContext jConfig, JasperDesign jd, IProject project,
+			ReportCompiler compiler) throws Exception {
+		String key = getKey(jConfig, jd, project);
+		JasperReport jr = get(key, project, jConfig);
+		if (jr == null) {
+			jr = compiler.compile();
+			if (jr != null)
+				put(key, project, jr);
+		}
+		return jr;
+	}
+
+	/**
+	 * @return the key of a design, the hash of its JRXML, of the compiler
+	 *         settings and of the classpath of the project
+	 */
+	public String getKey(JasperReportsContext jConfig, JasperDesign jd, IProject project) throws JRException {
+		MessageDigest md = CacheFileUtils.createDigest();
+		md.update(new JRXmlWriter(jConfig).write(jd, "UTF-8").getBytes(StandardCharsets.UTF_8)); //$NON-NLS-1$
+		StringBuilder env = new StringBuilder();
+		env.append(JasperCompileManager.class.getPackage().getImplementationVersion());
+		JRPropertiesUtil pu = JRPropertiesUtil.getInstance(jConfig);
+		env.append('|').append(pu.getProperty(JasperReportCompiler.JSS_COMPATIBILITY_COMPILER_VERSION));
+		for (PropertySuffix ps : pu.getProperties("net.sf.jasperreports.compiler.")) //$NON-NLS-1$
+			env.append('|').append(ps.getKey()).append('=').append(ps.getValue());
+		env.append('|').append(getClasspathKey(project));
+		md.update(env.toString().getBytes(StandardCharsets.UTF_8));
+		return CacheFileUtils.toHex(md);
+	}
+
+	/**
+	 * @return the libraries and the folders of the classpath of the project, with
+	 *         the time and the size of the libraries
+	 */
+	private static String getClasspathKey(IProject project) {
+		if (project == null)
+			return ""; //$NON-NLS-1$
+		StringBuilder sb = new StringBuilder(project.getName());
+		try {
+			if (project.isOpen() && project.hasNature(JavaCore.NATURE_ID))
+				for (IClasspathEntry e : JavaCore.create(project).getResolvedClasspath(true)) {
+					sb.append('|').append(e.getPath());
+					File f = e.getPath().toFile();
+					if (f.isFile())
+						sb.append(':').append(f.lastModified()).append(':').append(f.length());
+				}
+		} catch (CoreException e) {
+			JaspersoftStudioPlugin.getInstance().logError(e);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * @return the compiled report, from the memory or from the disk, null if it is
+	 *         not in the cache
+	 */
+	public JasperReport get(String key, IProject project, JasperReportsContext jConfig) {
+		synchronized (memory) {
+			Entry e = memory.get(key);
+			if (e != null)
+				return e.report;
+		}
+		File f = getFile(key, project);
+		JasperReport jr = CacheFileUtils.read(f, file -> (JasperReport) JRLoader.loadObject(jConfig, file));
+		if (jr != null) {
+			f.setLastModified(System.currentTimeMillis());
+			synchronized (memory) {
+				memory.put(key, new Entry(getProjectName(project), jr));
+			}
+		}
+		return jr;
+	}
+
+	/**
+	 * Keeps a compiled report in memory and saves it on disk, in background
+	 */
+	public void put(String key, IProject project, JasperReport report) {
+		synchronized (memory) {
+			memory.put(key, new Entry(getProjectName(project), report));
+		}
+		File f = getFile(key, project);
+		CacheFileUtils.createJob("Save Compiled Report", () -> { //$NON-NLS-1$
+			try {
+				CacheFileUtils.write(f, tmp -> JRSaver.saveObject(report, tmp));
+				pruner.schedule();
+			} catch (IOException e) {
+				JaspersoftStudioPlugin.getInstance().logError(e);
+			}
+		}).schedule();
+	}
+
+	/**
+	 * Discards the compiled reports of a project
+	 */
+	public void clear(IProject project) {
+		String name = getProjectName(project);
+		synchronized (memory) {
+			for (Iterator<Entry> it = memory.values().iterator(); it.hasNext();)
+				if (it.next().project.equals(name))
+					it.remove();
+		}
+		File[] files = new File(dir, name).listFiles();
+		if (files != null)
+			for (File f : files)
+				f.delete();
+	}
+
+	private File getFile(String key, IProject project) {
+		return new File(new File(dir, getProjectName(project)), key + EXTENSION);
+	}
+
+	private static String getProjectName(IProject project) {
+		return project != null ? project.getName() : NO_PROJECT;
+	}
+
+	/**
+	 * Discards the reports of the projects where a class or a library changed
+	 */
+	private void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null)
+			return;
+		Set<IProject> changed = new HashSet<>();
+		try {
+			delta.accept(d -> {
+				IResource r = d.getResource();
+				if (r.getType() == IResource.FILE) {
+					IPath path = r.getFullPath();
+					String ext = path.getFileExtension();
+					if ("class".equals(ext) || "jar".equals(ext)) //$NON-NLS-1$ //$NON-NLS-2$
+						changed.add(r.getProject());
+					return false;
+				}
+				// a project already changed doesn't need to be visited again
+				return r.getType() != IResource.PROJECT || !changed.contains(r);
+			});
+		} catch (CoreException e) {
+			JaspersoftStudioPlugin.getInstance().logError(e);
+		}
+		for (IProject p : changed)
+			clear(p);
+	}
+}
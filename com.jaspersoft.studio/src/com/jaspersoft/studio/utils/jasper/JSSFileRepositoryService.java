@@ -6,11 +6,13 @@ package com.jaspersoft.studio.utils.jasper;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -22,10 +24,15 @@ import com.jaspersoft.studio.messages.Messages;
 
 import net.sf.jasperreports.eclipse.builder.jdt.JDTUtils;
 import net.sf.jasperreports.eclipse.util.FileExtension;
+import net.sf.jasperreports.eclipse.util.FileUtils;
 import net.sf.jasperreports.eclipse.util.StringUtils;
 import net.sf.jasperreports.engine.JRRuntimeException;
 import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.design.JasperDesign;
 import net.sf.jasperreports.engine.util.JRResourcesUtil;
+import net.sf.jasperreports.engine.util.JRSaver;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
 import net.sf.jasperreports.repo.DefaultRepositoryService;
 import net.sf.jasperreports.repo.FileRepositoryService;
 import net.sf.jasperreports.repo.InputStreamResource;
@@ -104,15 +111,14 @@ public class JSSFileRepositoryService implements RepositoryService {
 					if(!new File(uri).isAbsolute()) {
 						destinationPath=jrxmlFile.getParent().concat("/"+uri);
 					}
-					JasperCompileManager.getInstance(jConfig).compileToFile(jrxmlFile.getAbsolutePath(),destinationPath);
+					JRSaver.saveObject(compile(new FileInputStream(jrxmlFile)), destinationPath);
 				} else {
 					OutputStreamResource or = new OutputStreamResource();
 					if (rs instanceof FileRepositoryService)
 						or.setOutputStream(((FileRepositoryService) rs).getOutputStream(uri));
 					else
 						or.setOutputStream(new ByteArrayOutputStream());
-					JasperCompileManager.getInstance(jConfig).compileToStream(new FileInputStream(jrxmlFile),
-							or.getOutputStream());
+					JRSaver.saveObject(compile(new FileInputStream(jrxmlFile)), or.getOutputStream());
 					rs.saveResource(uri, or);
 				}
 				refreshFile(rs,jrxmlFile.getAbsolutePath());
@@ -124,16 +130,14 @@ public class JSSFileRepositoryService implements RepositoryService {
 				String jruri = uri + FileExtension.PointJASPER;
 				if (rs instanceof DefaultRepositoryService) {
 					URI dUri = new URI(jruri);
-					JasperCompileManager.getInstance(jConfig).compileToFile(new URI(uri).getRawPath(),
-							dUri.getRawPath());
+					JRSaver.saveObject(compile(new FileInputStream(new URI(uri).getRawPath())), dUri.getRawPath());
 				} else {
 					OutputStreamResource or = new OutputStreamResource();
 					if (rs instanceof FileRepositoryService)
 						or.setOutputStream(((FileRepositoryService) rs).getOutputStream(jruri));
 					else
 						or.setOutputStream(new ByteArrayOutputStream());
-					JasperCompileManager.getInstance(jConfig).compileToStream(inr.getInputStream(),
-							or.getOutputStream());
+					JRSaver.saveObject(compile(inr.getInputStream()), or.getOutputStream());
 					rs.saveResource(jruri, or);
 				}
 				refreshFile(rs, jruri);
@@ -145,6 +149,19 @@ public class JSSFileRepositoryService implements RepositoryService {
 		return null;
 	}
 
+	/**
+	 * Compiles a JRXML, or takes the report from the {@link CompiledReportCache}
+	 * if the same design was already compiled
+	 */
+	private JasperReport compile(InputStream jrxml) throws Exception {
+		JasperDesign jd;
+		try (InputStream in = jrxml) {
+			jd = JRXmlLoader.load(jConfig, in);
+		}
+		return CompiledReportCache.getInstance().compile(jConfig, jd, (IProject) jConfig.get(FileUtils.KEY_IPROJECT),
+				() -> JasperCompileManager.getInstance(jConfig).compile(jd));
+	}
+
 	@Override
 	public ResourceInfo getResourceInfo(RepositoryContext context, String location) {
 		for (RepositoryService rs : new ArrayList<RepositoryService>(list)) {
@@ -16,6 +16,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -95,6 +97,18 @@ public class JasperReportsConfiguration extends SimpleJasperReportsContext {
 	 */
 	public static final String KEY_CONVERTER = "REPORT_CONVERTER";
 
+	/**
+	 * Key used to store the cache of the elements converted by the drawer, it is
+	 * stored in the configuration to be shared by all the drawers of the editor
+	 */
+	public static final String KEY_PRINT_ELEMENT_CACHE = "REPORT_PRINT_ELEMENT_CACHE";
+
+	/**
+	 * Key used to store the index of the nodes using each style, it is used to
+	 * refresh only the elements depending on a changed style
+	 */
+	public static final String KEY_STYLE_DEPENDENCY_INDEX = "REPORT_STYLE_DEPENDENCY_INDEX";
+
 	/**
 	 * The key which identified the file being edited
 	 */
@@ -106,6 +120,7 @@ public class JasperReportsConfiguration extends SimpleJasperReportsContext {
 
 		public void propertyChange(org.eclipse.jface.util.PropertyChangeEvent event) {
 			String property = event.getProperty();
+			invalidateProperty(property);
 			if (property.equals(FontsPreferencePage.FPP_FONT_LIST)) {
 				refreshFonts();
 				componentBundles.invalidate();
@@ -213,12 +228,18 @@ public class JasperReportsConfiguration extends SimpleJasperReportsContext {
 
 	protected JSSStyleResolver resolver;
 
+	/**
+	 * The parent context, its properties are the base of the properties map
+	 */
+	private final JasperReportsContext parentContext;
+
 	/**
 	 * @param parent
 	 * @param file
 	 */
 	public JasperReportsConfiguration(JasperReportsContext parent, IFile file) {
 		super(parent);
+		parentContext = parent;
 		init(file);
 		resolver = new JSSStyleResolver(this);
 	}
@@ -286,6 +307,7 @@ public class JasperReportsConfiguration extends SimpleJasperReportsContext {
 	}
 
 	public void resetCaches(PropertyChangeEvent arg0) {
+		propertyCache.clear();
 		refreshFonts = true;
 		fontList = null;
 		messageProviderFactory.invalidate();
@@ -401,12 +423,11 @@ public class JasperReportsConfiguration extends SimpleJasperReportsContext {
 	public Map<String, String> getProperties() {
 		if (isPropsCached)
 			return getPropertiesMap();
-		setPropertiesMap(null);
-		Map<String, String> smap = super.getProperties();
+		// the current map stays published while the new one is built
+		Map<String, String> smap = parentContext != null ? parentContext.getProperties() : null;
 		Map<String, String> propmap = new HashMap<>();
 		if (smap != null && !smap.isEmpty())
 			propmap.putAll(smap);
-		setPropertiesMap(propmap);
 		// get properties from eclipse stored jr properties (eclipse, project,
 		// file
 		// level)
@@ -418,39 +439,128 @@ public class JasperReportsConfiguration extends SimpleJasperReportsContext {
 			if (val != null)
 				propmap.put((String) key, val);
 		}
-		isPropsCached = true;
 		// let's look also into the preferences maybe there are some properties
-		pstore.setWithDefault(false);
-		for (String key : propmap.keySet()) {
-			String val = Misc.nullIfEmpty(pstore.getString(key));
-			if (val != null)
-				propmap.put(key, val);
+		synchronized (pstore) {
+			pstore.setWithDefault(false);
+			try {
+				for (String key : propmap.keySet()) {
+					String val = Misc.nullIfEmpty(pstore.getString(key));
+					if (val != null)
+						propmap.put(key, val);
+				}
+			} finally {
+				pstore.setWithDefault(true);
+			}
 		}
-		pstore.setWithDefault(true);
+		// publish the map only when it is complete, the cache is cleared after it
+		// so it can't keep values resolved from a partial map
+		setPropertiesMap(propmap);
+		propertyCache.clear();
+		isPropsCached = true;
 		return propmap;
 	}
 
+	/**
+	 * Resolved properties, a lookup in the scoped preferences is expensive and
+	 * the engine asks the same properties thousands of times during a fill. The
+	 * cache is invalidated by the preference listener, by
+	 * {@link #resetCaches(PropertyChangeEvent)} and when the properties map is
+	 * rebuilt
+	 */
+	private final Map<String, Object> propertyCache = new ConcurrentHashMap<>();
+
+	/** marker for the properties resolved to null */
+	private static final Object NULL_PROPERTY = new Object();
+
+	private final AtomicLong propertyLookups = new AtomicLong();
+	private final AtomicLong propertyHits = new AtomicLong();
+	private final AtomicLong propertyMisses = new AtomicLong();
+
 	@Override
 	public String getProperty(String key) {
-		pstore.setWithDefault(false);
-		String val = Platform.getPreferencesService().get(key, null, pstore.getPreferenceNodes(true));
-
-		// pstore.getString(key);// Misc.nullIfEmpty(pstore.getString(key));
+		if (key == null)
+			return null;
+		propertyLookups.incrementAndGet();
+		Object val = propertyCache.get(key);
+		if (val != null) {
+			propertyHits.incrementAndGet();
+			return val == NULL_PROPERTY ? null : (String) val;
+		}
+		propertyMisses.incrementAndGet();
+		String v = resolveProperty(key);
+		propertyCache.put(key, v == null ? NULL_PROPERTY : v);
+		return v;
+	}
 
-		pstore.setWithDefault(true);
+	private String resolveProperty(String key) {
+		String val;
+		// the store flag is shared, the lookup could come from a fill thread
+		synchronized (pstore) {
+			pstore.setWithDefault(false);
+			try {
+				val = Platform.getPreferencesService().get(key, null, pstore.getPreferenceNodes(true));
+			} finally {
+				pstore.setWithDefault(true);
+			}
+		}
 		if (val != null)
 			return val;
 		return super.getProperty(key);
+	}
+
+	@Override
+	public void setProperty(String propertyName, String value) {
+		super.setProperty(propertyName, value);
+		invalidateProperty(propertyName);
+	}
+
+	@Override
+	public void removeProperty(String propertyName) {
+		super.removeProperty(propertyName);
+		invalidateProperty(propertyName);
+	}
+
+	@Override
+	public void setPropertiesMap(Map<String, String> propertiesMap) {
+		super.setPropertiesMap(propertiesMap);
+		// could be called by the super constructor, before the cache exists
+		if (propertyCache != null)
+			propertyCache.clear();
+	}
+
+	/**
+	 * Remove a property from the resolved properties cache, the next lookup
+	 * will read it again from the preferences
+	 * 
+	 * @param key
+	 *            the property name, if null the whole cache is cleared
+	 */
+	public void invalidateProperty(String key) {
+		if (key == null || key.equals(FilePrefUtil.NET_SF_JASPERREPORTS_JRPROPERTIES))
+			propertyCache.clear();
+		else
+			propertyCache.remove(key);
+	}
+
+	/**
+	 * @return the number of calls to {@link #getProperty(String)}
+	 */
+	public long getPropertyLookups() {
+		return propertyLookups.get();
+	}
 
-		// let's try with ireport prefix prefix ? why we need it?
-		// val = Misc.nullIfEmpty(pstore.getString(PROPERTY_JRPROPERTY_PREFIX +
-		// key));
-		// if (val != null)
-		// return val;
-		// val = props.getProperty(PROPERTY_JRPROPERTY_PREFIX + key);
-		// if (val != null)
-		// return val;
-		// return super.getProperty(PROPERTY_JRPROPERTY_PREFIX + key);
+	/**
+	 * @return the number of properties served from the resolved properties cache
+	 */
+	public long getPropertyHits() {
+		return propertyHits.get();
+	}
+
+	/**
+	 * @return the number of properties resolved from the preferences
+	 */
+	public long getPropertyMisses() {
+		return propertyMisses.get();
 	}
 
 	public String getPropertyDef(String key, String def) {
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.editor.java2d;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Benchmark of the replay of the {@link StackGraphics2D} paint caches. It
+ * records a page of 500 elements, with the calls done by the JasperReports
+ * drawers for lines, rectangles and texts (save and restore of clip and
+ * transform, translate, clip, stroke, paint, fill, draw and strings), and
+ * replays it on an image at several zoom levels, like the editor does on scroll
+ * and zoom.
+ * <p>
+ * It is a plain main class, it needs only the JDK and the two classes of the
+ * cache: compile it with
+ * <code>StackGraphics2D.java</code> and <code>ACachedGraphics.java</code> and
+ * run it with <code>-Djava.awt.headless=true</code>. The arguments are the
+ * number of elements, the number of warmup and measured iterations.
+ * </p>
+ */
+public class StackGraphics2DBenchmark {
+
+	private static final double[] ZOOMS = new double[] { 0.5, 1, 2, 4 };
+
+	private static final int PAGE_WIDTH = 595;
+
+	private static final int PAGE_HEIGHT = 842;
+
+	public static void main(String[] args) {
+		int elements = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+		BufferedImage image = new BufferedImage((int) (PAGE_WIDTH * ZOOMS[ZOOMS.length - 1]),
+				(int) (PAGE_HEIGHT * ZOOMS[ZOOMS.length - 1]), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D recordGraphics = image.createGraphics();
+		StackGraphics2D cache = new StackGraphics2D(recordGraphics);
+		record(cache, elements);
+		recordGraphics.dispose();
+
+		System.out.println("elements=" + elements + " warmup=" + warmup + " iterations=" + iterations); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (double zoom : ZOOMS) {
+			for (int i = 0; i < warmup; i++)
+				replay(cache, image, zoom);
+			long start = System.nanoTime();
+			for (int i = 0; i < iterations; i++)
+				replay(cache, image, zoom);
+			double ms = (System.nanoTime() - start) / 1e6 / iterations;
+			System.out.println(String.format("zoom %.1f: %.3f ms/page", zoom, ms)); //$NON-NLS-1$
+		}
+	}
+
+	private static void replay(StackGraphics2D cache, BufferedImage image, double zoom) {
+		Graphics2D g = image.createGraphics();
+		try {
+			g.scale(zoom, zoom);
+			cache.setGraphics(g);
+			cache.paintCache();
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * Record the elements on the cache, placed on a grid of 20 columns
+	 */
+	private static void record(Graphics2D g, int elements) {
+		Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 10);
+		BasicStroke stroke = new BasicStroke(1f);
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		int w = PAGE_WIDTH / 20;
+		int h = Math.max(8, PAGE_HEIGHT / Math.max(1, elements / 20));
+		for (int i = 0; i < elements; i++) {
+			int x = (i % 20) * w;
+			int y = (i / 20) * h;
+			Shape oldClip = g.getClip();
+			AffineTransform oldTransform = g.getTransform();
+			g.translate(x, y);
+			g.clip(new Rectangle2D.Double(0, 0, w, h));
+			switch (i % 3) {
+			case 0:
+				g.setStroke(stroke);
+				g.setColor(Color.BLACK);
+				g.drawLine(0, h / 2, w, h / 2);
+				break;
+			case 1:
+				g.setColor(Color.LIGHT_GRAY);
+				g.fill(new Rectangle2D.Double(0, 0, w, h));
+				g.setColor(Color.DARK_GRAY);
+				g.setStroke(stroke);
+				g.draw(new Rectangle2D.Double(0, 0, w - 1, h - 1));
+				break;
+			default:
+				g.setFont(font);
+				g.setColor(Color.BLUE);
+				g.drawString("Field " + i, 2f, h - 2f); //$NON-NLS-1$
+			}
+			g.setTransform(oldTransform);
+			g.setClip(oldClip);
+		}
+	}
+}
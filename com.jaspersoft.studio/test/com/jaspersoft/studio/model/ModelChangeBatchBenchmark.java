@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright © 2010-2023. Cloud Software Group, Inc. All rights reserved.
+ *******************************************************************************/
+package com.jaspersoft.studio.model;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+
+import com.jaspersoft.studio.properties.view.validation.ValidationError;
+
+import net.sf.jasperreports.engine.design.JRDesignStaticText;
+
+/**
+ * Benchmark of the propagation of the model changes through the {@link ANode}
+ * tree, with and without a {@link ModelChangeBatch}. The model has a root, a
+ * number of bands, a frame for every band and the elements inside the frames,
+ * the values of the elements are {@link JRDesignStaticText}, so the events are
+ * the ones fired by JasperReports.
+ * <p>
+ * Every operation moves a selection of elements spread over all the bands,
+ * changing x and y of each one like a drag of the selection does, and then
+ * validates the whole model like the editor does when it paints the validation
+ * decorations. When the changes of every element are more than one, x and y
+ * are set more times in the same operation, like a command that moves and then
+ * aligns the selection. For every operation it prints the time, the number of
+ * events received by a listener of the root (like the edit part of the report)
+ * and the number of nodes validated again.
+ * </p>
+ * <p>
+ * It is a plain main class, run it with the classpath of the plugin. The
+ * arguments are the number of bands, of elements in every band, of selected
+ * elements, of changes of every element, of measured iterations and of rounds,
+ * the two modes are measured alternately in every round. By default the model
+ * has 50 bands of 100 elements, 5101 nodes, the size of a large report.
+ * </p>
+ */
+public class ModelChangeBatchBenchmark {
+
+	private static int validations;
+
+	private static class Node extends ANode {
+		private static final long serialVersionUID = 1L;
+
+		private Node(ANode parent, Object value) {
+			super(parent, value, -1);
+		}
+
+		@Override
+		public ImageDescriptor getImagePath() {
+			return null;
+		}
+
+		@Override
+		public String getDisplayText() {
+			return null;
+		}
+
+		@Override
+		protected List<ValidationError> doValidation() {
+			validations++;
+			return null;
+		}
+	}
+
+	private static class Counter implements PropertyChangeListener {
+		private int events;
+
+		@Override
+		public void propertyChange(PropertyChangeEvent evt) {
+			events++;
+		}
+	}
+
+	public static void main(String[] args) {
+		int bands = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+		int elements = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+		int selected = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		int changes = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+		int iterations = args.length > 4 ? Integer.parseInt(args[4]) : 500;
+		int rounds = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+
+		Node root = new Node(null, null);
+		List<Node> nodes = new ArrayList<>();
+		List<JRDesignStaticText> all = new ArrayList<>();
+		for (int i = 0; i < bands; i++) {
+			Node band = new Node(root, null);
+			Node frame = new Node(band, null);
+			nodes.add(band);
+			nodes.add(frame);
+			for (int j = 0; j < elements; j++) {
+				JRDesignStaticText text = new JRDesignStaticText();
+				nodes.add(new Node(frame, text));
+				all.add(text);
+			}
+		}
+		nodes.add(root);
+		List<JRDesignStaticText> selection = new ArrayList<>();
+		for (int i = 0; i < selected; i++)
+			selection.add(all.get((int) ((long) i * all.size() / selected)));
+		Counter counter = new Counter();
+		root.getPropertyChangeSupport().addPropertyChangeListener(counter);
+
+		System.out.println(String.format("nodes=%d selected=%d changes=%d iterations=%d", nodes.size(), selected, //$NON-NLS-1$
+				changes, iterations));
+		// warmup
+		for (int i = 0; i < iterations; i++) {
+			move(selection, nodes, false, changes, i);
+			move(selection, nodes, true, changes, i);
+		}
+		for (int r = 0; r < rounds; r++) {
+			for (boolean batched : new boolean[] { false, true }) {
+				counter.events = 0;
+				validations = 0;
+				long start = System.nanoTime();
+				for (int i = 0; i < iterations; i++)
+					move(selection, nodes, batched, changes, i);
+				double ms = (System.nanoTime() - start) / 1e6 / iterations;
+				System.out.println(String.format("%s: %.3f ms/move, %d root events/move, %d validations/move", //$NON-NLS-1$
+						batched ? "batched" : "unbatched", ms, counter.events / iterations, validations / iterations)); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	private static void move(List<JRDesignStaticText> selection, List<Node> nodes, boolean batched, int changes,
+			int step) {
+		if (batched)
+			ModelChangeBatch.begin();
+		try {
+			for (int c = 0; c < changes; c++) {
+				for (JRDesignStaticText text : selection) {
+					text.setX(step * changes + c);
+					text.setY(step * changes + c);
+				}
+			}
+		} finally {
+			if (batched)
+				ModelChangeBatch.end();
+		}
+		for (Node n : nodes)
+			n.validate();
+	}
+}
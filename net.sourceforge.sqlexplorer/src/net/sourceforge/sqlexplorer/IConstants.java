@@ -132,6 +132,9 @@ public interface IConstants {
     
     // convert binary data using char set
     String BLOB_AS_STRING_CHARSET = "DataSetResult.BlobAsStringCharSet";
+    
+    // show the first rows of the results while the remaining ones are loaded
+    String STREAM_RESULTS = "DataSetResult.StreamResults";
 
     // Whether unsaved editors should prompt to be saved when they are closed 
     String REQUIRE_SAVE_ON_CLOSE_EDITOR = "SQLEditor.RequireSaveOnClose";
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2006 Davy Vanherbergen
+ * dvanherbergen@users.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package net.sourceforge.sqlexplorer.dataset;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Column oriented storage for the rows of a DataSet.  Every column is kept in
+ * chunks of CHUNK_SIZE values, so that appending rows never copies the data
+ * already loaded; integer and floating point columns are stored as primitive
+ * long and double values (with a bitmap for the nulls) instead of one boxed
+ * object per cell.
+ *
+ * The rows are appended by the thread loading the ResultSet while the UI thread
+ * reads them, so all the access is synchronized.
+ */
+class ColumnBuffer {
+
+	// Number of values in each chunk of a column
+	private static final int CHUNK_SIZE = 4096;
+
+	private enum Kind {
+		LONG, DOUBLE, OBJECT
+	}
+
+	private static final class ColumnData {
+		private Kind kind;
+		private List<Object> chunks = new ArrayList<Object>();
+		private BitSet nulls;
+
+		public ColumnData(Kind kind) {
+			this.kind = kind;
+			if (kind != Kind.OBJECT)
+				nulls = new BitSet();
+		}
+	}
+
+	private ColumnData[] columns;
+
+	// Number of rows stored
+	private int size;
+
+	/**
+	 * Constructor
+	 * @param dataTypes The JDBC type of every column, null if unknown
+	 */
+	public ColumnBuffer(int[] dataTypes, int numberOfColumns) {
+		columns = new ColumnData[numberOfColumns];
+		for (int i = 0; i < numberOfColumns; i++)
+			columns[i] = new ColumnData(dataTypes != null ? getKind(dataTypes[i]) : Kind.OBJECT);
+	}
+
+	private static Kind getKind(int dataType) {
+		switch(dataType) {
+		case Types.INTEGER:
+		case Types.SMALLINT:
+		case Types.TINYINT:
+		case Types.BIGINT:
+			return Kind.LONG;
+		case Types.DOUBLE:
+		case Types.FLOAT:
+		case Types.REAL:
+			return Kind.DOUBLE;
+		default:
+			return Kind.OBJECT;
+		}
+	}
+
+	/**
+	 * Appends a row
+	 * @param values The values of the row, one for each column
+	 * @return The index of the new row
+	 */
+	public synchronized int add(Object[] values) {
+		int row = size;
+		int chunk = row / CHUNK_SIZE;
+		int offset = row % CHUNK_SIZE;
+		for (int i = 0; i < columns.length; i++) {
+			ColumnData column = columns[i];
+			if (offset == 0)
+				column.chunks.add(createChunk(column.kind));
+			set(column, chunk, offset, row, values[i]);
+		}
+		size++;
+		return row;
+	}
+
+	/**
+	 * Replaces the value of a cell
+	 */
+	public synchronized void set(int row, int colIndex, Object value) {
+		if (row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("Row index out of range: " + row);
+		set(columns[colIndex], row / CHUNK_SIZE, row % CHUNK_SIZE, row, value);
+	}
+
+	private void set(ColumnData column, int chunk, int offset, int row, Object value) {
+		switch(column.kind) {
+		case LONG:
+			if (value == null) {
+				column.nulls.set(row);
+				return;
+			}
+			if (value instanceof Long) {
+				column.nulls.clear(row);
+				((long[])column.chunks.get(chunk))[offset] = (Long)value;
+				return;
+			}
+			break;
+		case DOUBLE:
+			if (value == null) {
+				column.nulls.set(row);
+				return;
+			}
+			if (value instanceof Double) {
+				column.nulls.clear(row);
+				((double[])column.chunks.get(chunk))[offset] = (Double)value;
+				return;
+			}
+			break;
+		case OBJECT:
+			((Object[])column.chunks.get(chunk))[offset] = value;
+			return;
+		}
+
+		// The driver returned a different type than the one declared (eg an unsigned
+		//	BIGINT read as a BigDecimal), keep the column as objects from now on
+		toObjects(column);
+		((Object[])column.chunks.get(chunk))[offset] = value;
+	}
+
+	/**
+	 * Returns the value of a cell
+	 */
+	public synchronized Object get(int row, int colIndex) {
+		if (row < 0 || row >= size)
+			throw new IndexOutOfBoundsException("Row index out of range: " + row);
+		return get(columns[colIndex], row);
+	}
+
+	private static Object get(ColumnData column, int row) {
+		Object chunk = column.chunks.get(row / CHUNK_SIZE);
+		int offset = row % CHUNK_SIZE;
+		switch(column.kind) {
+		case LONG:
+			return column.nulls.get(row) ? null : Long.valueOf(((long[])chunk)[offset]);
+		case DOUBLE:
+			return column.nulls.get(row) ? null : Double.valueOf(((double[])chunk)[offset]);
+		default:
+			return ((Object[])chunk)[offset];
+		}
+	}
+
+	/**
+	 * @return The number of rows
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	private static Object createChunk(Kind kind) {
+		switch(kind) {
+		case LONG:
+			return new long[CHUNK_SIZE];
+		case DOUBLE:
+			return new double[CHUNK_SIZE];
+		default:
+			return new Object[CHUNK_SIZE];
+		}
+	}
+
+	/**
+	 * Converts a primitive column to a column of objects; the values are read up
+	 * to the allocated chunks, the last row may be the one being added
+	 */
+	private static void toObjects(ColumnData column) {
+		int allocated = column.chunks.size() * CHUNK_SIZE;
+		List<Object> chunks = new ArrayList<Object>(column.chunks.size());
+		Object[] current = null;
+		for (int row = 0; row < allocated; row++) {
+			if (row % CHUNK_SIZE == 0) {
+				current = new Object[CHUNK_SIZE];
+				chunks.add(current);
+			}
+			current[row % CHUNK_SIZE] = get(column, row);
+		}
+		column.chunks = chunks;
+		column.kind = Kind.OBJECT;
+		column.nulls = null;
+	}
+}
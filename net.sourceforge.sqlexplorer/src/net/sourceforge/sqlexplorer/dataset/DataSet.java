@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -60,11 +62,39 @@ import net.sourceforge.sqlexplorer.sqlpanel.AbstractSQLExecution;
  * instanceof if knowledge of the implementing type is required; however, be aware
  * that non-standard types (i.e. types not defined in java.lang) may be present.  
  * 
+ * The rows are held by column in a ColumnBuffer.  A DataSet can also be streamed:
+ * only the first rows are read when it is created, the owner of the ResultSet then
+ * calls loadNextPage() until it returns false, and the LoadListeners are notified
+ * as the rows are added; the BLOB and CLOB values are read after their rows have
+ * been notified.
+ * 
  * @author Davy Vanherbergen
  * @modified John Spackman
  */
 public class DataSet implements ResultProvider {
 	
+	/**
+	 * Notified while the rows of a streamed DataSet are loaded
+	 */
+	public interface LoadListener {
+		
+		/**
+		 * Called by the thread loading the rows when rows have been added or LOB
+		 * values have been loaded
+		 * @param dataSet
+		 * @param complete true when all the rows are loaded
+		 */
+		public void rowsLoaded(DataSet dataSet, boolean complete);
+	}
+	
+	// Number of rows read when a streamed DataSet is created
+	private static final int FIRST_PAGE_SIZE = 100;
+	
+	// Number of rows read by each call to loadNextPage()
+	private static final int PAGE_SIZE = 1000;
+	
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+	
 	public static class FormattedColumn extends Column {
 		private Format format;
 
@@ -83,7 +113,17 @@ public class DataSet implements ResultProvider {
 	
     private Column[] columns;
 
-    private DataSetRow[] _rows;
+    // The rows, stored by column
+    private ColumnBuffer buffer;
+    
+    // The position of the rows after sorting, null if not sorted
+    private int[] order;
+    
+    // The JDBC type of each column, when loaded from a ResultSet
+    private int[] dataTypes;
+    
+    // The columns which can contain LOB values loaded after their rows
+    private int[] lobColumns = new int[0];
 
     private DataSetTableSorter _sorter;
     
@@ -103,6 +143,19 @@ public class DataSet implements ResultProvider {
 	
 	// The update count for none data results (insert,update,delete,ddl)
 	private int updateCount = -1;
+	
+	// Streaming state: the open ResultSet and the columns to read from it
+	private boolean streaming;
+	private ResultSet resultSet;
+	private int[] columnIndexes;
+	private int maxRows;
+	
+	// Number of rows whose LOB values have been loaded
+	private int lobsLoaded;
+	
+	private volatile boolean loading;
+	private volatile boolean stopRequested;
+	private final List<LoadListener> listeners = new ArrayList<LoadListener>();
 
     /**
      * Create a new dataSet based on an updated row counter.
@@ -122,7 +175,21 @@ public class DataSet implements ResultProvider {
      * @throws Exception if the dataset could not be created
      */
     public DataSet(ResultSet resultSet, int[] relevantIndeces, int maxRows) throws SQLException {
-        initialize(null, resultSet, relevantIndeces, maxRows);
+        initialize(null, resultSet, relevantIndeces, maxRows, false);
+    }
+
+    /**
+     * Create a new dataSet based on an existing ResultSet.
+     * @param resultSet ResultSet with values [mandatory]
+     * @param relevantIndeces int[] of all columns to add to the dataSet, use
+     *            null if all columns should be included.
+     * @param streaming if true only the first rows are loaded, the caller must
+     *            call loadNextPage() before closing the ResultSet
+     * 
+     * @throws Exception if the dataset could not be created
+     */
+    public DataSet(ResultSet resultSet, int[] relevantIndeces, int maxRows, boolean streaming) throws SQLException {
+        initialize(null, resultSet, relevantIndeces, maxRows, streaming);
     }
 
     /**
@@ -147,7 +214,7 @@ public class DataSet implements ResultProvider {
      */
     public DataSet(String caption, ResultSet resultSet, int[] relevantIndeces, int maxRows) throws SQLException {
     	this.caption = caption;
-        initialize(null, resultSet, relevantIndeces, maxRows);
+        initialize(null, resultSet, relevantIndeces, maxRows, false);
     }
 
     /**
@@ -193,7 +260,7 @@ public class DataSet implements ResultProvider {
     		}
     		statement.execute(sql);
     		resultSet = statement.getResultSet();
-    		initialize(columnLabels, resultSet, relevantIndeces, maxRowCount);
+    		initialize(columnLabels, resultSet, relevantIndeces, maxRowCount, false);
     	}finally {
             if (resultSet != null)
             	try {
@@ -243,10 +310,10 @@ public class DataSet implements ResultProvider {
     	this.caption = caption;
         columns = convertColumnLabels(columnLabels);
 
-        _rows = new DataSetRow[data.length];
+        buffer = new ColumnBuffer(null, columns.length);
 
         for (int i = 0; i < data.length; i++)
-            _rows[i] = new DataSetRow(this, data[i]);
+            buffer.add(data[i]);
     }
 
     /**
@@ -256,9 +323,10 @@ public class DataSet implements ResultProvider {
      * @param resultSet ResultSet with values [mandatory]
      * @param relevantIndeces int[] of all columns to add to the dataSet, use
      *            null if all columns should be included.
+     * @param streaming whether only the first rows are loaded
      * @throws Exception if the dataset could not be created
      */
-    private void initialize(String[] columnLabels, ResultSet resultSet, int[] relevantIndeces, int maxRows) throws SQLException {
+    private void initialize(String[] columnLabels, ResultSet resultSet, int[] relevantIndeces, int maxRows, boolean streaming) throws SQLException {
 
         ResultSetMetaData metadata = resultSet.getMetaData();
 
@@ -283,7 +351,29 @@ public class DataSet implements ResultProvider {
             }
         }
 
-        loadRows(resultSet, ri, maxRows);
+        dataTypes = new int[columns.length];
+        int numLobs = 0;
+        for (int i = 0; i < columns.length; i++) {
+        	dataTypes[i] = metadata.getColumnType(ri[i]);
+        	if (dataTypes[i] == Types.BLOB || dataTypes[i] == Types.CLOB)
+        		numLobs++;
+        }
+        lobColumns = new int[numLobs];
+        for (int i = 0; i < columns.length; i++)
+        	if (dataTypes[i] == Types.BLOB || dataTypes[i] == Types.CLOB)
+        		lobColumns[--numLobs] = i;
+        buffer = new ColumnBuffer(dataTypes, columns.length);
+        
+        if (streaming) {
+        	this.streaming = true;
+        	this.resultSet = resultSet;
+        	this.columnIndexes = ri;
+        	this.maxRows = maxRows;
+        	loading = true;
+        	if (!fetchRows(FIRST_PAGE_SIZE))
+        		finishLoading();
+        } else
+        	loadRows(resultSet, ri, maxRows);
     }
     
     /**
@@ -385,14 +475,20 @@ public class DataSet implements ResultProvider {
      * @return Number of rows.
      */
     public int getNumberOfRows() {
-    	return _rows.length;
+    	if (buffer == null)
+    		return 0;
+    	return buffer.size();
     }
 
     /**
-     * @return all rows in this dataset
+     * @return all rows in this dataset; while a streamed dataset is loading, the
+     * 	rows loaded so far
      */
     public DataSetRow[] getRows() {
-        return _rows;
+    	DataSetRow[] rows = new DataSetRow[getNumberOfRows()];
+    	for (int i = 0; i < rows.length; i++)
+    		rows[i] = getRow(i);
+        return rows;
     }
 
     /**
@@ -402,9 +498,172 @@ public class DataSet implements ResultProvider {
      * @throws IndexOutOfBoundsException if row at index isn't present.
      */
     public DataSetRow getRow(int index) {
-    	if (index < 0 || index >= _rows.length)
+    	if (index < 0 || index >= getNumberOfRows())
     		throw new IndexOutOfBoundsException("DataSetRow index out of range: " + index);
-    	return _rows[index];
+    	int[] order = this.order;
+    	return new DataSetRow(this, order != null ? order[index] : index);
+    }
+
+    /**
+     * Returns the value of a cell
+     * @param rowIndex The index of the row as loaded, not affected by sorting
+     * @param colIndex first column is 0
+     * @return
+     */
+    Object getCellValue(int rowIndex, int colIndex) {
+    	Object value = buffer.get(rowIndex, colIndex);
+    	if (value instanceof LobDataType && ((LobDataType)value).isLoaded())
+    		return ((LobDataType)value).getValue();
+    	return value;
+    }
+
+    /**
+     * Sets the value of a cell
+     * @param rowIndex The index of the row as loaded, not affected by sorting
+     * @param colIndex first column is 0
+     * @param value
+     */
+    void setCellValue(int rowIndex, int colIndex, Comparable<?> value) {
+    	buffer.set(rowIndex, colIndex, value);
+    }
+
+    /**
+     * @return Whether a streamed dataset is still loading its rows
+     */
+    public boolean isLoading() {
+    	return loading;
+    }
+
+    /**
+     * Loads the next page of rows of a streamed dataset; the LOB values of the
+     * rows already loaded are read first.  Must be called by the owner of the
+     * ResultSet until it returns false, then the ResultSet can be closed.
+     * @return true if there are more rows to load
+     * @throws SQLException
+     */
+    public boolean loadNextPage() throws SQLException {
+    	if (!loading)
+    		return false;
+    	try {
+    		if (!stopRequested && loadLobs())
+    			fireRowsLoaded(false);
+    		if (!stopRequested && fetchRows(PAGE_SIZE)) {
+    			fireRowsLoaded(false);
+    			return true;
+    		}
+    	} catch(SQLException e) {
+    		finishLoading();
+    		throw e;
+    	}
+    	finishLoading();
+    	return false;
+    }
+
+    /**
+     * Stops loading a streamed dataset, the rows already loaded are kept; the
+     * next call to loadNextPage() returns false
+     */
+    public void stopLoading() {
+    	stopRequested = true;
+    }
+
+    /**
+     * Adds a listener notified while the rows are loaded
+     * @param listener
+     * @return false if the dataset is not loading, the listener is not added
+     */
+    public boolean addLoadListener(LoadListener listener) {
+    	synchronized(listeners) {
+    		if (!loading)
+    			return false;
+    		listeners.add(listener);
+    		return true;
+    	}
+    }
+
+    public void removeLoadListener(LoadListener listener) {
+    	synchronized(listeners) {
+    		listeners.remove(listener);
+    	}
+    }
+
+    private void fireRowsLoaded(boolean complete) {
+    	LoadListener[] toNotify;
+    	synchronized(listeners) {
+    		toNotify = listeners.toArray(new LoadListener[listeners.size()]);
+    		if (complete)
+    			listeners.clear();
+    	}
+    	for (LoadListener listener : toNotify)
+    		listener.rowsLoaded(this, complete);
+    }
+
+    private void finishLoading() {
+    	if (!stopRequested)
+    		loadLobs();
+    	
+    	// The LOBs not loaded by now cannot be read anymore
+    	for (; lobsLoaded < buffer.size(); lobsLoaded++)
+    		for (int colIndex : lobColumns) {
+    			Object value = buffer.get(lobsLoaded, colIndex);
+    			if (value instanceof LobDataType)
+    				((LobDataType)value).discard();
+    		}
+    	resultSet = null;
+    	columnIndexes = null;
+    	synchronized(listeners) {
+    		loading = false;
+    	}
+    	fireRowsLoaded(true);
+    }
+
+    /**
+     * Reads the LOB values of the rows loaded since the last call
+     * @return true if any value was loaded
+     */
+    private boolean loadLobs() {
+    	boolean loaded = false;
+    	int size = buffer.size();
+    	if (lobColumns.length == 0)
+    		lobsLoaded = size;
+    	for (; lobsLoaded < size && !stopRequested; lobsLoaded++)
+    		for (int colIndex : lobColumns) {
+    			Object value = buffer.get(lobsLoaded, colIndex);
+    			if (value instanceof LobDataType) {
+    				((LobDataType)value).load();
+    				loaded = true;
+    			}
+    		}
+    	return loaded;
+    }
+
+    /**
+     * Reads up to count rows of a streamed dataset
+     * @return false if there are no more rows to read
+     */
+    private boolean fetchRows(int count) throws SQLException {
+    	for (int i = 0; i < count; i++) {
+    		if (maxRows > 0 && buffer.size() >= maxRows)
+    			return false;
+    		if (!resultSet.next())
+    			return false;
+    		buffer.add(readRow(resultSet, columnIndexes));
+    	}
+    	return true;
+    }
+
+    /**
+     * Reads the relevant columns of the current row of a ResultSet
+     */
+    private Object[] readRow(ResultSet resultSet, int[] relevantIndeces) throws SQLException {
+    	Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+        	int columnIndex = relevantIndeces != null ? relevantIndeces[i] : i;
+        	Comparable<?> obj = loadCellValue(columnIndex, dataTypes[i], resultSet);
+            if (!resultSet.wasNull())
+            	values[i] = obj;
+        }
+        return values;
     }
 
     /**
@@ -416,25 +675,11 @@ public class DataSet implements ResultProvider {
      *            null if all columns should be included.
      */
     protected void loadRows(ResultSet resultSet, int[] relevantIndeces, int maxRows) throws SQLException {
-        ResultSetMetaData metadata = resultSet.getMetaData();
-        
-        // create rows
-        List<DataSetRow> rows = new ArrayList<DataSetRow>(maxRows > 0 ? maxRows : 100);
         int rowCount = 0;
-        while (resultSet.next() && (maxRows == 0 || rowCount < maxRows)) {
-            DataSetRow row = new DataSetRow(this);
-            for (int i = 0; i < columns.length; i++) {
-            	int columnIndex = relevantIndeces != null ? relevantIndeces[i] : i;
-            	Comparable<?> obj = loadCellValue(columnIndex, metadata.getColumnType(columnIndex), resultSet);
-                if (resultSet.wasNull())
-                    row.setValue(i, null);
-                else
-                	row.setValue(i, obj);
-            }
-            rows.add(row);
+        while ((maxRows == 0 || rowCount < maxRows) && resultSet.next()) {
+            buffer.add(readRow(resultSet, relevantIndeces));
             rowCount++;
         }
-        _rows = (DataSetRow[]) rows.toArray(new DataSetRow[rows.size()]);
     }
     
     /**
@@ -504,110 +749,137 @@ public class DataSet implements ResultProvider {
 	        	return null;
 	            
 	        case Types.BLOB:
-	        case Types.LONGVARBINARY:
-	        	InputStream is = resultSet.getBinaryStream(columnIndex);
-	        	if(is == null)
-	        	{
-	        		return null;
-	        	}
-	        	int current;
-        		int maxLength = PluginPreferences.getCurrent().getInt(IConstants.MAX_LENGTH_OF_LONG_DATA);
-
-	        	if(PluginPreferences.getCurrent().getBoolean(IConstants.RETRIEVE_BLOB_AS_HEX))
-	        	{
-		        	StringBuilder data = new StringBuilder();
-		        	try 
-		        	{
-						while((current = is.read()) != -1)
-						{
-							if (maxLength > 0 && data.length() >= maxLength)
-								break;
-							String converted = Integer.toHexString(current).toUpperCase();
-							if(converted.length() < 2)
-							{
-								data.append('0');
-							}
-							data.append(converted);
-						}		        		
-					} 
-					catch (IOException e) 
-					{
-						throw new SQLException(e.getMessage());
-					}
-		        	return data.toString();
+	        	if (streaming) {
+	        		// Read later, when the rows have been displayed
+	        		try {
+	        			Blob blob = resultSet.getBlob(columnIndex);
+	        			return blob == null ? null : new LobDataType(blob);
+	        		}
+	        		catch(Throwable e)
+	        		{
+	        			// not supported by the driver, read the stream now
+	        		}
 	        	}
-	        	ByteArrayOutputStream data = new ByteArrayOutputStream();
-	        	try 
-	        	{
-					while((current = is.read()) != -1)
-					{
-						if (maxLength > 0 && data.size() >= maxLength)
-							break;
-						data.write(current);
-					}
-				} 
-				catch (IOException e) 
-				{
-					throw new SQLException(e.getMessage());
-				}
-				String charSet = PluginPreferences.getCurrent().getString(IConstants.BLOB_AS_STRING_CHARSET);
-				if(charSet != null && charSet.length() > 0)
-				{
-					try {
-						return data.toString(charSet);
-					} catch (UnsupportedEncodingException ignored) {
-						// fall back to plain toString method
-					}
-				}
-				return data.toString();
+	        case Types.LONGVARBINARY:
+	        	return readBinary(resultSet.getBinaryStream(columnIndex));
 	        	
 	        case Types.CLOB:
+	        	if (streaming) {
+	        		try {
+	        			Clob clob = resultSet.getClob(columnIndex);
+	        			return clob == null ? null : new LobDataType(clob);
+	        		}
+	        		catch(Throwable e)
+	        		{
+	        			// not supported by the driver, read the stream now
+	        		}
+	        	}
 	        case Types.LONGVARCHAR:
 	        case Types.LONGNVARCHAR:
-	        	Reader r = resultSet.getCharacterStream(columnIndex);
-	        	if(r == null)
-	        	{
-	        		return null;
-	        	}
-        		maxLength = PluginPreferences.getCurrent().getInt(IConstants.MAX_LENGTH_OF_LONG_DATA);
-	        	StringBuilder sb = new StringBuilder();
-	        	char[] buffer = new char[32 * 1024];
-	        	int len;
-	        	try {
-		        	while ((len = r.read(buffer)) > -1) {
-						if (maxLength > 0) {
-							if (sb.length() + len < maxLength)
-				        		sb.append(buffer, 0, len);
-							else
-				        		sb.append(buffer, 0, maxLength - sb.length());
-							if (maxLength >= sb.length())
-								break;
-						} else
-							sb.append(buffer, 0, len);
-		        	}
-	        	}catch(IOException e) {
-	        		return e.getMessage();
-	        	}
-	        	buffer = null;
-	        	return sb.toString();
+	        	return readText(resultSet.getCharacterStream(columnIndex));
 	        	
 	        default:
 	            return resultSet.getString(columnIndex);
 	    }
     }
     
+    /**
+     * Reads binary data, up to the maximum length of long data, as a hex string
+     * or as text depending on the preferences
+     * @param is
+     * @return
+     * @throws SQLException
+     */
+    static String readBinary(InputStream is) throws SQLException {
+    	if (is == null)
+    		return null;
+		int maxLength = PluginPreferences.getCurrent().getInt(IConstants.MAX_LENGTH_OF_LONG_DATA);
+		boolean hex = PluginPreferences.getCurrent().getBoolean(IConstants.RETRIEVE_BLOB_AS_HEX);
+		
+		// Every byte takes two characters in hex
+		int maxBytes = hex && maxLength > 0 ? (maxLength + 1) / 2 : maxLength;
+    	ByteArrayOutputStream data = new ByteArrayOutputStream();
+    	byte[] buffer = new byte[32 * 1024];
+    	int len;
+    	try {
+    		while ((len = is.read(buffer)) > -1) {
+    			if (maxBytes > 0 && data.size() + len >= maxBytes) {
+    				data.write(buffer, 0, maxBytes - data.size());
+    				break;
+    			}
+    			data.write(buffer, 0, len);
+    		}
+    	}
+    	catch (IOException e) 
+    	{
+    		throw new SQLException(e.getMessage());
+    	}
+    	
+    	if (hex) {
+    		byte[] bytes = data.toByteArray();
+    		StringBuilder sb = new StringBuilder(bytes.length * 2);
+    		for (byte b : bytes)
+    			sb.append(HEX_DIGITS[(b >> 4) & 0x0F]).append(HEX_DIGITS[b & 0x0F]);
+    		return sb.toString();
+    	}
+		String charSet = PluginPreferences.getCurrent().getString(IConstants.BLOB_AS_STRING_CHARSET);
+		if(charSet != null && charSet.length() > 0)
+		{
+			try {
+				return data.toString(charSet);
+			} catch (UnsupportedEncodingException ignored) {
+				// fall back to plain toString method
+			}
+		}
+		return data.toString();
+    }
+
+    /**
+     * Reads character data, up to the maximum length of long data
+     * @param r
+     * @return
+     */
+    static String readText(Reader r) {
+    	if (r == null)
+    		return null;
+		int maxLength = PluginPreferences.getCurrent().getInt(IConstants.MAX_LENGTH_OF_LONG_DATA);
+    	StringBuilder sb = new StringBuilder();
+    	char[] buffer = new char[32 * 1024];
+    	int len;
+    	try {
+        	while ((len = r.read(buffer)) > -1) {
+				if (maxLength > 0 && sb.length() + len >= maxLength) {
+	        		sb.append(buffer, 0, maxLength - sb.length());
+	        		break;
+				}
+				sb.append(buffer, 0, len);
+        	}
+    	}catch(IOException e) {
+    		return e.getMessage();
+    	}
+    	return sb.toString();
+    }
+    
     /**
      * Resort the data using the given column and sortdirection.
      * @param columnIndex primary sort column index
      * @param sortDirection SWT.UP | SWT.DOWN
      */    
 	public boolean sortData(int columnIndex, int sortDirection) {
+		// A streamed dataset is sorted when all the rows are loaded
+		if (loading)
+			return false;
     	if (_sorter == null) {
     		_sorter = new DataSetTableSorter(this);
     	}
     	_sorter.setTopPriority(columnIndex, sortDirection);
     	
-    	Arrays.sort(_rows, _sorter);
+    	DataSetRow[] rows = getRows();
+    	Arrays.sort(rows, _sorter);
+    	int[] sorted = new int[rows.length];
+    	for (int i = 0; i < rows.length; i++)
+    		sorted[i] = rows[i].getIndex();
+    	order = sorted;
     	return true;
     }
 	
@@ -21,7 +21,8 @@ package net.sourceforge.sqlexplorer.dataset;
 import net.sourceforge.sqlexplorer.sqleditor.results.FlatCellRangeRow;
 
 /**
- * DataSetRow, represents one row in a dataSet.
+ * DataSetRow, represents one row in a dataSet; the rows returned by the DataSet
+ * read their values from it, as they are stored by column.
  * 
  * @author Davy Vanherbergen
  */
@@ -29,6 +30,9 @@ public class DataSetRow extends FlatCellRangeRow {
 
 	private DataSet dataset;
     private Comparable<?>[] _values;
+    
+    // The index of the row in the dataset, when the values are stored there
+    private int index = -1;
 
 	/**
      * Create new DataSetRow with columnCount values
@@ -50,12 +54,24 @@ public class DataSetRow extends FlatCellRangeRow {
         _values = values;
     }
 
+    /**
+     * Create a row whose values are stored in the dataset
+     * 
+     * @param index the index of the row as loaded by the dataset
+     */
+    DataSetRow(DataSet dataset, int index) {
+    	this.dataset = dataset;
+    	this.index = index;
+    }
+
     /**
      * Returns the raw value of given column.
      * @param column first column is 0
      * @return Raw column value, maybe <tt>null</tt>.
      */
     public Object getCellValue(int column) {
+    	if (_values == null)
+    		return dataset.getCellValue(index, column);
     	return _values[column];
     }
 
@@ -66,7 +82,10 @@ public class DataSetRow extends FlatCellRangeRow {
      * @param value
      */
     public void setValue(int column, Comparable<?> value) {
-        _values[column] = value;
+    	if (_values == null)
+    		dataset.setCellValue(index, column, value);
+    	else
+    		_values[column] = value;
     }
     
     /**
@@ -74,10 +93,18 @@ public class DataSetRow extends FlatCellRangeRow {
      */
     public int length() {
         if (_values == null)
-            return 0;
+            return dataset.getNumberOfColumns();
         return _values.length;
     }
 
+    /**
+     * @return the index of the row as loaded by the dataset, -1 if the values
+     * 	are not stored in the dataset
+     */
+    int getIndex() {
+    	return index;
+    }
+
     public DataSet getDataset() {
 		return dataset;
 	}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2006 Davy Vanherbergen
+ * dvanherbergen@users.sourceforge.net
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+package net.sourceforge.sqlexplorer.dataset;
+
+import java.sql.Blob;
+import java.sql.Clob;
+
+import net.sourceforge.sqlexplorer.Messages;
+
+/**
+ * A BLOB or CLOB value whose content is read after the row was loaded; the
+ * DataSet reads it while the ResultSet is still open, until then the value
+ * is displayed as a placeholder.
+ */
+public class LobDataType implements DataType {
+
+	private Blob blob;
+	private Clob clob;
+
+	// The content, once loaded
+	private String value;
+
+	public LobDataType(Blob blob) {
+		this.blob = blob;
+	}
+
+	public LobDataType(Clob clob) {
+		this.clob = clob;
+	}
+
+	/**
+	 * Reads the content (up to the maximum length of long data) and releases
+	 * the locator; if the content cannot be read the error message is displayed
+	 * instead
+	 */
+	synchronized void load() {
+		if (value != null)
+			return;
+		try {
+			if (blob != null)
+				value = DataSet.readBinary(blob.getBinaryStream());
+			else
+				value = DataSet.readText(clob.getCharacterStream());
+		} catch(Exception e) {
+			value = String.valueOf(e.getMessage());
+		} finally {
+			free();
+		}
+		if (value == null)
+			value = "";
+	}
+
+	/**
+	 * Called when the content will not be loaded, because the ResultSet is closed
+	 */
+	synchronized void discard() {
+		if (value != null)
+			return;
+		free();
+		value = Messages.getString("DataSet.LobNotLoaded");
+	}
+
+	private void free() {
+		try {
+			if (blob != null)
+				blob.free();
+			if (clob != null)
+				clob.free();
+		} catch(Throwable e) {
+			// Not supported by older drivers
+		}
+		blob = null;
+		clob = null;
+	}
+
+	/**
+	 * @return Whether the content has been loaded
+	 */
+	public synchronized boolean isLoaded() {
+		return value != null;
+	}
+
+	/**
+	 * @return The content, or null if it is not loaded yet
+	 */
+	public synchronized String getValue() {
+		return value;
+	}
+
+	public int compareTo(Object o) {
+		return toString().compareTo(String.valueOf(o));
+	}
+
+	@Override
+	public synchronized String toString() {
+		if (value == null)
+			return Messages.getString("DataSet.LobLoading");
+		return value;
+	}
+}
@@ -15,11 +15,23 @@ public class Execution {
 	private DatabaseProduct product;
 	private Statement stmt = null;
 	
+	// Whether the results are streamed, see DataSet.loadNextPage()
+	private boolean streaming;
+	
 	public Execution(DatabaseProduct product)
 	{
 		this.product = product;
 	}
 
+	/**
+	 * Sets whether the DataSets of the results only load their first rows, the
+	 * caller must then load the remaining ones before asking for the next DataSet
+	 * @param streaming
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
 	/**
 	 * Executes a Query
 	 * @param connection Connection to use
@@ -90,7 +102,7 @@ public class Execution {
 				hasResults = stmt.execute(querySql.toString());
 			}
 			
-			return new ExecutionResultImpl(this.product, stmt, hasResults, params, maxRows);
+			return new ExecutionResultImpl(this.product, stmt, hasResults, params, maxRows, streaming);
 			
 		} catch(SQLException e) {
 			try {
@@ -57,9 +57,15 @@ public final class ExecutionResultImpl implements ExecutionResults {
 	private int updateCount;
 	private ResultSet currentResultSet;
 	private boolean hasResults;
+	private boolean streaming;
 
 	public ExecutionResultImpl(DatabaseProduct product, Statement stmt, boolean hasResults, LinkedList<NamedParameter> parameters, int maxRows) throws SQLException {
+		this(product, stmt, hasResults, parameters, maxRows, false);
+	}
+
+	public ExecutionResultImpl(DatabaseProduct product, Statement stmt, boolean hasResults, LinkedList<NamedParameter> parameters, int maxRows, boolean streaming) throws SQLException {
 		super();
+		this.streaming = streaming;
 		this.product = product;
 		this.stmt = stmt;
 		this.parameters = parameters;
@@ -108,7 +114,7 @@ public final class ExecutionResultImpl implements ExecutionResults {
 	
 	private DataSet createDataSet(ResultSet resultSet) throws SQLException
 	{
-		DataSet result = new DataSet(resultSet, null, maxRows);
+		DataSet result = new DataSet(resultSet, null, maxRows, streaming);
 		return result;
 	}
 	private DataSet createDataSet(int updateCount) throws SQLException
@@ -16,6 +16,7 @@ public class ResultsPreferencePage extends AbstractPreferencePage{
 	protected void createFieldEditors() {
 		addField(new BooleanFieldEditor(IConstants.CLEAR_RESULTS_ON_EXECUTE, Messages.getString("Preferences.SQLExplorer.ClearResultsOnExecute"), getFieldEditorParent()));
 		addField(new BooleanFieldEditor(IConstants.USE_LONG_CAPTIONS_ON_RESULTS, Messages.getString("Preferences.SQLExplorer.UseLongCaptionsOnResults"), getFieldEditorParent()));
+		addField(new BooleanFieldEditor(IConstants.STREAM_RESULTS, Messages.getString("Preferences.SQLExplorer.StreamResults"), getFieldEditorParent()));
 		addField(new BooleanFieldEditor(IConstants.RETRIEVE_BLOB_AS_HEX, Messages.getString("Preferences.SQLExplorer.RetrieveBinaryAsHex"), getFieldEditorParent()));
 		addField(new StringFieldEditor(IConstants.BLOB_AS_STRING_CHARSET, Messages.getString("Preferences.SQLExplorer.BlobAsStringCharset"), getFieldEditorParent()));
 
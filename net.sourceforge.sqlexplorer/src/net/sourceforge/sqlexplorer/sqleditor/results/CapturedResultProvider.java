@@ -23,6 +23,10 @@ public class CapturedResultProvider extends AbstractResultProvider {
 		return rows.size();
 	}
 
+	public CellRangeRow getRow(int index) {
+		return rows.get(index);
+	}
+
 	public CellRangeRow[] getRows() {
 		return rows.toArray(new CellRangeRow[0]);
 	}
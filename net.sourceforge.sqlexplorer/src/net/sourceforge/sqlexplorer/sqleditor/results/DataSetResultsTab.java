@@ -1,20 +1,67 @@
 package net.sourceforge.sqlexplorer.sqleditor.results;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import net.sourceforge.sqlexplorer.ExplorerException;
+import net.sourceforge.sqlexplorer.dataset.DataSet;
 import net.sourceforge.sqlexplorer.dataset.DataSetRow;
 import net.sourceforge.sqlexplorer.plugin.SQLExplorerPlugin;
 import net.sourceforge.sqlexplorer.plugin.views.DataPreviewView;
 
 import org.eclipse.swt.custom.TableCursor;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.TableItem;
 import org.eclipse.ui.IWorkbenchPage;
 
 public class DataSetResultsTab extends TableResultsTable {
 	
+	// Whether a refresh of the rows has been posted to the UI thread and not run yet
+	private final AtomicBoolean refreshPending = new AtomicBoolean();
+	
 	public DataSetResultsTab(ResultProvider resultProvider) {
 		super(resultProvider);
 	}
 
+	/* (non-Javadoc)
+	 * @see net.sourceforge.sqlexplorer.sqleditor.results.TableResultsTable#createResultsTable(org.eclipse.swt.widgets.Composite)
+	 */
+	@Override
+	protected void createResultsTable(Composite parent) {
+		super.createResultsTable(parent);
+		if (!(getResultProvider() instanceof DataSet))
+			return;
+		
+		// Show the rows of a streamed DataSet as they are loaded
+		final DataSet dataSet = (DataSet)getResultProvider();
+		final Display display = parent.getDisplay();
+		final Runnable refresh = new Runnable() {
+			public void run() {
+				refreshPending.set(false);
+				refreshRows();
+			}
+		};
+		final DataSet.LoadListener listener = new DataSet.LoadListener() {
+			public void rowsLoaded(DataSet dataSet, boolean complete) {
+				if (refreshPending.compareAndSet(false, true) && !display.isDisposed())
+					display.asyncExec(refresh);
+			}
+		};
+		if (dataSet.addLoadListener(listener)) {
+			getTableViewer().getTable().addDisposeListener(new DisposeListener() {
+				public void widgetDisposed(DisposeEvent e) {
+					dataSet.removeLoadListener(listener);
+					dataSet.stopLoading();
+				}
+			});
+			
+			// Rows may have been added before the listener
+			refreshRows();
+		}
+	}
+
 	/* (non-Javadoc)
 	 * @see net.sourceforge.sqlexplorer.sqleditor.results.TableResultsTab#onSelectCell(org.eclipse.swt.custom.TableCursor)
 	 */
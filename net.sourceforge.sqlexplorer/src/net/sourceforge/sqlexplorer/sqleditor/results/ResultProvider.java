@@ -7,6 +7,13 @@ package net.sourceforge.sqlexplorer.sqleditor.results;
  */
 public interface ResultProvider extends CellRange {
 
+	/**
+	 * Returns a single row, without building the array of all the rows
+	 * @param index The zero-based row number
+	 * @return
+	 */
+	public CellRangeRow getRow(int index);
+
 	/**
 	 * Sorts the data
 	 * @param colIndex
@@ -3,6 +3,7 @@ package net.sourceforge.sqlexplorer.sqleditor.results;
 import net.sourceforge.sqlexplorer.Messages;
 
 import org.eclipse.jface.action.MenuManager;
+import org.eclipse.jface.viewers.ILazyContentProvider;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.custom.TableCursor;
@@ -31,12 +32,18 @@ public class TableResultsTable extends AbstractResultsTable {
 	
 	private static final String ORIGINAL_COLUMN_INDEX = "original-column-index";
 	
-	public static class MyStructuredContentProvider extends StructuredContentProviderAdapter {
-    	@Override
-        public Object[] getElements(Object inputElement) {
-            ResultProvider provider = (ResultProvider)inputElement;
-            return provider.getRows();
-        }
+	// Number of rows used to compute the width of the columns
+	private static final int PACK_ROWS = 100;
+	
+	/*
+	 * Provides the rows as the virtual table shows them
+	 */
+	public class MyLazyContentProvider extends StructuredContentProviderAdapter implements ILazyContentProvider {
+		public void updateElement(int index) {
+			ResultProvider provider = getResultProvider();
+			if (index < provider.getNumberOfRows())
+				tableViewer.replace(provider.getRow(index), index);
+		}
     };
 	
 	private static final class TableRow extends FlatCellRangeRow {
@@ -76,10 +83,10 @@ public class TableResultsTable extends AbstractResultsTable {
 
 		public CellRangeRow[] getRows() {
 			if (rows == null) {
-				CellRangeRow[] src = getResultProvider().getRows();
+				ResultProvider src = getResultProvider();
 				rows = new TableRow[rect.height];
 				for (int i = 0; i < rect.height; i++)
-					rows[i] = new TableRow(src[i + rect.y], rect.x);
+					rows[i] = new TableRow(src.getRow(i + rect.y), rect.x);
 			}
 			return rows;
 		}
@@ -166,10 +173,10 @@ public class TableResultsTable extends AbstractResultsTable {
         table.setLinesVisible(true);
         ResultProvider provider = getResultProvider();
         if (provider != null) {
-	        table.setItemCount(provider.getNumberOfRows());
-	        tableViewer.setContentProvider(new MyStructuredContentProvider());
+	        tableViewer.setContentProvider(new MyLazyContentProvider());
 	        tableViewer.setLabelProvider(new MyTableLabelProvider());
 	        tableViewer.setInput(provider);
+	        tableViewer.setItemCount(provider.getNumberOfRows());
         }
 
         // create a TableCursor to navigate around the table
@@ -233,15 +240,30 @@ public class TableResultsTable extends AbstractResultsTable {
 	
 	private void fillTable(Table table)
 	{
+        // only the first rows, the other ones are fetched when they are shown
         int columnCount = table.getColumnCount();
-        for(TableItem item : table.getItems())
+        int rowCount = Math.min(table.getItemCount(), PACK_ROWS);
+        for(int row = 0; row < rowCount; row++)
         {
+        	TableItem item = table.getItem(row);
         	for(int i = 0; i < columnCount; i++)
         	{
         		item.getText(i);
         	}
         }
 	}
+
+	/**
+	 * Updates the table after rows were added to the ResultProvider, or their
+	 * values changed
+	 */
+	protected void refreshRows() {
+		Table table = tableViewer.getTable();
+		if (table.isDisposed())
+			return;
+		tableViewer.setItemCount(getResultProvider().getNumberOfRows());
+		table.clearAll();
+	}
 	protected TableColumn createColumn(ResultProvider.Column columnDef) {
         TableColumn column = new TableColumn(getTableViewer().getTable(), SWT.LEFT);           
         column.setText(getResultProvider().getColumn(columnDef.getColumnIndex()).getCaption());
@@ -348,8 +370,10 @@ public class TableResultsTable extends AbstractResultsTable {
 	@Override
 	public void setStatusMessage(String text) {
 		super.setStatusMessage(text);
-		if (statusMessage != null)
+		if (statusMessage != null && !statusMessage.isDisposed()) {
 			statusMessage.setText(text);
+			statusMessage.getParent().layout();
+		}
 	}
 
 	/**
@@ -87,7 +87,8 @@ public class SQLExecution extends AbstractSQLExecution {
 
 
 	/**
-     * Display SQL Results in result pane
+     * Display SQL Results in result pane; the rows of a streamed DataSet are
+     * counted when they are all loaded
      * @param sqlResult the results of the query
      */
     protected void displayResults(final DataSet dataSet) {
@@ -97,47 +98,39 @@ public class SQLExecution extends AbstractSQLExecution {
 
             public void run() {
             	
-                int resultCount = dataSet.hasData() ? dataSet.getRows().length : dataSet.getUpdateCount();
-                String statusMessageSmall = Messages.getString("SQLResultsView.Time.Prefix") + " "
-                        + dataSet.getExecutionTime() + " "
-                        + Messages.getString("SQLResultsView.Time.Postfix");
-                String statusMessageLarge =  statusMessageSmall;                   
-                if(resultCount >= 0)
-                {
-                	statusMessageLarge = statusMessageLarge + "  " + 
-                    (dataSet.hasData() ? Messages.getString("SQLResultsView.Count.Prefix") : Messages.getString("SQLResultsView.Update.Prefix"))
-                    + " " + resultCount;
-                }
+                String statusMessageSmall = getStatusMessage(dataSet, false);
+                DataSetResultsTab table = null;
             	if(dataSet.hasData())
             	{
 	            	final CTabItem tabItem = allocateResultsTab(dataSet.getQuery());
 	            	if (tabItem == null)
 	            		return;
 	            	
-	            	final DataSetResultsTab table = new DataSetResultsTab(dataSet);
+	            	table = new DataSetResultsTab(dataSet);
 	            	table.setHasStatusBar(true);
-	            	table.setStatusMessage(statusMessageLarge);
+	            	table.setStatusMessage(dataSet.isLoading() ? statusMessageSmall : getStatusMessage(dataSet, true));
 	            	EditorResultsTab resultsTab = new EditorResultsTab(tabItem, table);
 	            	String caption = dataSet.getCaption();
 	            	if (caption != null)
 	            		resultsTab.setTabTitle(caption);
 	
 	                // add context menu to table & cursor
+	                final DataSetResultsTab finalTable = table;
 	                final GenericActionGroup actionGroup = new GenericActionGroup("dataSetTableContextAction", getEditor().getSite().getShell()) {
 	        			@Override
 	        			public void initialiseAction(GenericAction action) {
 	        				super.initialiseAction(action);
 	        				ResultsTableAction dsAction = (ResultsTableAction)action;
-	        				dsAction.setResultsTable(table);
+	        				dsAction.setResultsTable(finalTable);
 	        			}
 	                };
 	                table.getMenuManager().addMenuListener(new IMenuListener() {
 	                    public void menuAboutToShow(IMenuManager manager) {
 	                        actionGroup.fillContextMenu(manager);
 	                        manager.add(new Separator());
-	                        manager.add(new ExportAction(new ExporterCSV(),table));
-	                        manager.add(new ExportAction(new ExporterHTML(),table));
-	                        manager.add(new ExportAction(new ExporterXLS(),table));
+	                        manager.add(new ExportAction(new ExporterCSV(),finalTable));
+	                        manager.add(new ExportAction(new ExporterHTML(),finalTable));
+	                        manager.add(new ExportAction(new ExporterXLS(),finalTable));
 	                        manager.add(new Separator());
 	                        manager.add(new ReRunAction(tabItem));
 	                    }
@@ -149,15 +142,6 @@ public class SQLExecution extends AbstractSQLExecution {
                     
                     getEditor().setMessage(statusMessageSmall);
                     
-                    Query sql = dataSet.getQuery();
-                    int lineNo = sql.getLineNo();
-                    lineNo = getQueryParser().adjustLineNo(lineNo);
-                    
-                    if(getQueryParser().getContext().isOn(ExecutionContext.LOG_SUCCESS))
-                    {
-                    	getEditor().addMessage(new Message(Message.Status.SUCCESS, lineNo, 0, sql.getQuerySql(), statusMessageLarge));
-                    }
-                    
                     // reset to start message in case F5 will be used
                     setProgressMessage(Messages.getString("SQLResultsView.ConnectionWait"));
 
@@ -165,10 +149,70 @@ public class SQLExecution extends AbstractSQLExecution {
                 	MessageDialog.openError(getEditor().getSite().getShell(), "Error creating result tab", e.getMessage());
                     SQLExplorerPlugin.error("Error creating result tab", e);
                 }
+                
+                // Wait for the remaining rows of a streamed DataSet
+                final DataSetResultsTab resultsTable = table;
+                boolean loading = dataSet.addLoadListener(new DataSet.LoadListener() {
+					public void rowsLoaded(final DataSet dataSet, boolean complete) {
+						if (!complete || getEditor().getSite().getShell().isDisposed())
+							return;
+						getEditor().getSite().getShell().getDisplay().asyncExec(new Runnable() {
+							public void run() {
+								displayRowCount(dataSet, resultsTable);
+							}
+						});
+					}
+                });
+                if (!loading)
+                	displayRowCount(dataSet, table);
             };
         });
     }
 
+    /**
+     * Returns the message describing the results
+     * @param dataSet
+     * @param withCount whether the number of rows is included
+     * @return
+     */
+    private String getStatusMessage(DataSet dataSet, boolean withCount) {
+        int resultCount = dataSet.hasData() ? dataSet.getNumberOfRows() : dataSet.getUpdateCount();
+        String statusMessage = Messages.getString("SQLResultsView.Time.Prefix") + " "
+                + dataSet.getExecutionTime() + " "
+                + Messages.getString("SQLResultsView.Time.Postfix");
+        if(withCount && resultCount >= 0)
+        {
+        	statusMessage = statusMessage + "  " + 
+            (dataSet.hasData() ? Messages.getString("SQLResultsView.Count.Prefix") : Messages.getString("SQLResultsView.Update.Prefix"))
+            + " " + resultCount;
+        }
+        return statusMessage;
+    }
+
+    /**
+     * Displays the number of rows, once they are all loaded
+     * @param dataSet
+     * @param table the results tab, null if the DataSet has no data
+     */
+    private void displayRowCount(DataSet dataSet, DataSetResultsTab table) {
+        String statusMessageLarge = getStatusMessage(dataSet, true);
+        if (table != null)
+        	table.setStatusMessage(statusMessageLarge);
+        try {
+            Query sql = dataSet.getQuery();
+            int lineNo = sql.getLineNo();
+            lineNo = getQueryParser().adjustLineNo(lineNo);
+            
+            if(getQueryParser().getContext().isOn(ExecutionContext.LOG_SUCCESS))
+            {
+            	getEditor().addMessage(new Message(Message.Status.SUCCESS, lineNo, 0, sql.getQuerySql(), statusMessageLarge));
+            }
+        } catch (Exception e) {
+        	MessageDialog.openError(getEditor().getSite().getShell(), "Error creating result tab", e.getMessage());
+            SQLExplorerPlugin.error("Error creating result tab", e);
+        }
+    }
+
 
     private void closeStatement() {
         
@@ -196,6 +240,7 @@ public class SQLExecution extends AbstractSQLExecution {
         	boolean stripComments = SQLExplorerPlugin.getDefault().getPreferenceStore().getBoolean(IConstants.STRIP_COMMENTS);
         	DatabaseProduct product = getEditor().getSession().getDatabaseProduct();
         	this.execution = new Execution(product);
+        	this.execution.setStreaming(SQLExplorerPlugin.getDefault().getPreferenceStore().getBoolean(IConstants.STREAM_RESULTS));
         	for (Query query : getQueryParser()) {
             	if (monitor.isCanceled())
             		break;
@@ -249,6 +294,11 @@ public class SQLExecution extends AbstractSQLExecution {
 	                    
 	                    // show results..
 	                    displayResults(dataSet);
+	                    
+	                    // then load the remaining rows, the tab shows them as they arrive
+	                    while (dataSet.loadNextPage())
+	                    	if (monitor.isCanceled())
+	                    		dataSet.stopLoading();
 	            	}
 	            	
 	            	if (!warningsChecked)